@@ -26,6 +26,7 @@ import io.mantisrx.common.metrics.MetricsRegistry;
 import io.mantisrx.common.metrics.spectator.MetricGroupId;
 import io.mantisrx.runtime.parameter.SinkParameters;
 import io.mantisrx.server.core.ServiceRegistry;
+import io.mantisrx.server.worker.client.ReconnectPolicy;
 import io.mantisrx.server.worker.client.SseWorkerConnection;
 import io.reactivx.mantis.operators.DropOperator;
 import java.util.HashSet;
@@ -98,6 +99,8 @@ public class SseSinkConnectionFunction implements SinkConnectionFunc<MantisServe
     private final Action1<Throwable> connectionResetHandler;
     private final SinkParameters sinkParameters;
     private final int bufferSize;
+    // shared by all connections of the client, so that they reconnect at a bounded rate
+    private final ReconnectPolicy reconnectPolicy;
 
     public SseSinkConnectionFunction(boolean reconnectUponConnectionRest, Action1<Throwable> connectionResetHandler) {
         this(reconnectUponConnectionRest, connectionResetHandler, null);
@@ -109,6 +112,7 @@ public class SseSinkConnectionFunction implements SinkConnectionFunc<MantisServe
         this.sinkParameters = sinkParameters;
         String bufferSizeStr = ServiceRegistry.INSTANCE.getPropertiesService().getStringValue("mantisClient.buffer.size", DEFAULT_BUFFER_SIZE_STR);
         bufferSize = Integer.parseInt(Optional.ofNullable(bufferSizeStr).orElse(DEFAULT_BUFFER_SIZE_STR));
+        reconnectPolicy = ReconnectPolicy.fromProperties("Sink", "mantisClient");
     }
 
     @Override
@@ -127,7 +131,7 @@ public class SseSinkConnectionFunction implements SinkConnectionFunc<MantisServe
             private final SseWorkerConnection workerConn =
                     new SseWorkerConnection("Sink", hostname, port, updateConxStatus, updateDataRecvngStatus,
                             connectionResetHandler, dataRecvTimeoutSecs, reconnectUponConnectionRest, metricsSet,
-                            bufferSize, sinkParameters, disablePingFiltering,metricGroupId);
+                            bufferSize, sinkParameters, disablePingFiltering, metricGroupId, reconnectPolicy);
 
             @Override
             public String getName() {
@@ -4,12 +4,15 @@ package io.reactivx.common.compression;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
 import io.mantisrx.common.compression.CompressionUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Level;
@@ -103,6 +106,15 @@ public class CompressionUtilsBenchmark {
     public void testSnappyDeCompress(Blackhole blackhole, MyState state) throws IOException {
         blackhole.consume(CompressionUtils.decompressAndBase64Decode(state.snappyCompressed, true, true));
     }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Warmup(iterations = 10, time = 3, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 50, time = 3, timeUnit = TimeUnit.SECONDS)
+    @Threads(1)
+    public void testSnappyDeCompressByteBuf(Blackhole blackhole, MyState state) throws IOException {
+        blackhole.consume(CompressionUtils.decompressAndBase64Decode(state.snappyCompressedBuf, true, true, null));
+    }
     //
 
     @Benchmark
@@ -123,6 +135,15 @@ public class CompressionUtilsBenchmark {
         blackhole.consume(CompressionUtils.decompressAndBase64Decode(state.gzipCompressed, true));
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Warmup(iterations = 10, time = 3, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 50, time = 3, timeUnit = TimeUnit.SECONDS)
+    @Threads(1)
+    public void testGzipDeCompressByteBuf(Blackhole blackhole, MyState state) throws IOException {
+        blackhole.consume(CompressionUtils.decompressAndBase64Decode(state.gzipCompressedBuf, true, false, null));
+    }
+
     public static class RandomString {
 
         private static final char[] symbols;
@@ -159,6 +180,9 @@ public class CompressionUtilsBenchmark {
         public List<String> eventList = new ArrayList<>();
         public String snappyCompressed;
         public String gzipCompressed;
+        // as received in the content of an SSE
+        public ByteBuf snappyCompressedBuf;
+        public ByteBuf gzipCompressedBuf;
 
         @Setup(Level.Trial)
         public void doSetup() {
@@ -173,11 +197,17 @@ public class CompressionUtilsBenchmark {
 
             snappyCompressed = CompressionUtils.compressAndBase64Encode(eventList, true);
             gzipCompressed = CompressionUtils.compressAndBase64Encode(eventList);
+            snappyCompressedBuf = toByteBuf(snappyCompressed);
+            gzipCompressedBuf = toByteBuf(gzipCompressed);
             eventListStr = sb.toString();
 
             System.out.println("Do Setup");
         }
 
+        private static ByteBuf toByteBuf(String encoded) {
+            return Unpooled.wrappedBuffer(encoded == null ? new byte[0] : encoded.getBytes(StandardCharsets.UTF_8));
+        }
+
         @TearDown(Level.Trial)
         public void doTearDown() {
             System.out.println("Do TearDown");
@@ -22,6 +22,15 @@ public class MantisSSEConstants {
 
     public static final String MANTIS_COMPRESSION_DELIMITER = "mantis.CompressionDelimiter";
 
+    /**
+     * Requests the output as binary frames rather than server sent events, see
+     * {@link io.mantisrx.common.compression.BinaryFrames}. Servers that support it answer with the
+     * {@link #MANTIS_BINARY_FRAMES_CONTENT_TYPE} content type, others keep streaming server sent events.
+     */
+    public static final String MANTIS_ENABLE_BINARY_FRAMES = "mantis.EnableBinaryFrames";
+
+    public static final String MANTIS_BINARY_FRAMES_CONTENT_TYPE = "application/x-mantis-frames";
+
     public static final String SAMPLE_M_SEC = "sampleMSec";
 
     public static final String SAMPLE = "sample";
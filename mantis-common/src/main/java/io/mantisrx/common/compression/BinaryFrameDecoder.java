@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.common.compression;
+
+import io.mantisrx.common.MantisServerSentEvent;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.xerial.snappy.Snappy;
+
+
+/**
+ * Reads back the {@link BinaryFrames} of a stream from the chunks it is received in, which need not be aligned with
+ * the frames. Events are emitted as {@link MantisServerSentEvent}s, pings as a {@value BinaryFrames#PING_EVENT} event
+ * and meta messages as an event of the message, as they are when streamed as server sent events.
+ * <p>
+ * A decoder holds the partial frame of a single stream and is not thread-safe.
+ */
+public class BinaryFrameDecoder {
+
+    public static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+    private final ByteBuf cumulation = Unpooled.buffer();
+    private byte[] uncompressed = new byte[16384];
+
+    /**
+     * Returns the events of the frames completed by the given chunk. The chunk's indexes are left unchanged.
+     *
+     * @throws IOException if the stream is corrupt, after which the decoder must not be used anymore.
+     */
+    public List<MantisServerSentEvent> decode(ByteBuf chunk) throws IOException {
+        cumulation.writeBytes(chunk, chunk.readerIndex(), chunk.readableBytes());
+
+        final List<MantisServerSentEvent> events = new ArrayList<>();
+        while (cumulation.readableBytes() >= BinaryFrames.HEADER_LENGTH) {
+            final int frameStart = cumulation.readerIndex();
+            final byte type = cumulation.getByte(frameStart);
+            final int length = cumulation.getInt(frameStart + 1);
+            if (length < 0 || length > MAX_FRAME_LENGTH) {
+                throw new IOException("invalid frame length " + length);
+            }
+            if (cumulation.readableBytes() < BinaryFrames.HEADER_LENGTH + length) {
+                break;
+            }
+
+            final int payloadStart = frameStart + BinaryFrames.HEADER_LENGTH;
+            switch (type) {
+            case BinaryFrames.EVENTS:
+                decodeEvents(payloadStart, length, events);
+                break;
+            case BinaryFrames.PING:
+                events.add(new MantisServerSentEvent(BinaryFrames.PING_EVENT));
+                break;
+            case BinaryFrames.MESSAGE:
+                events.add(new MantisServerSentEvent(cumulation.toString(payloadStart, length, StandardCharsets.UTF_8)));
+                break;
+            default:
+                // frame types added later are skipped
+                break;
+            }
+            cumulation.readerIndex(payloadStart + length);
+        }
+        cumulation.discardSomeReadBytes();
+        return events;
+    }
+
+    private void decodeEvents(int start, int length, List<MantisServerSentEvent> events) throws IOException {
+        // the cumulation is a heap buffer
+        final byte[] compressed = cumulation.array();
+        final int offset = cumulation.arrayOffset() + start;
+
+        final int uncompressedLength = Snappy.uncompressedLength(compressed, offset, length);
+        if (uncompressed.length < uncompressedLength) {
+            uncompressed = new byte[Math.max(uncompressedLength, uncompressed.length * 2)];
+        }
+        Snappy.uncompress(compressed, offset, length, uncompressed, 0);
+
+        int position = 0;
+        while (position + 4 <= uncompressedLength) {
+            final int eventLength = ((uncompressed[position] & 0xff) << 24)
+                    | ((uncompressed[position + 1] & 0xff) << 16)
+                    | ((uncompressed[position + 2] & 0xff) << 8)
+                    | (uncompressed[position + 3] & 0xff);
+            position += 4;
+            if (eventLength < 0 || position + eventLength > uncompressedLength) {
+                throw new IOException("invalid event length " + eventLength);
+            }
+            events.add(new MantisServerSentEvent(new String(uncompressed, position, eventLength, StandardCharsets.UTF_8)));
+            position += eventLength;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.common.compression;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.xerial.snappy.Snappy;
+
+
+/**
+ * Binary framing of the output of a push server, an alternative to Base64-encoded compressed server sent events.
+ * <p>
+ * The stream is a sequence of frames, each made of a one byte type, the four byte length of its payload and the
+ * payload:
+ * <ul>
+ *     <li>{@link #EVENTS}: a batch of events, compressed with Snappy. Once uncompressed, each event is its four byte
+ *     length followed by its bytes, so that no delimiter is needed.</li>
+ *     <li>{@link #PING}: a heartbeat, without payload.</li>
+ *     <li>{@link #MESSAGE}: a meta message, the payload is its UTF-8 encoding.</li>
+ * </ul>
+ * Frames are read back by {@link BinaryFrameDecoder}.
+ */
+public class BinaryFrames {
+
+    public static final byte EVENTS = 1;
+    public static final byte PING = 2;
+    public static final byte MESSAGE = 3;
+
+    public static final int HEADER_LENGTH = 5;
+    public static final String PING_EVENT = "ping";
+
+    private static final byte[] PING_FRAME = frame(PING, new byte[0]);
+
+    private BinaryFrames() {
+    }
+
+    /**
+     * Returns the frame of a batch of events.
+     */
+    public static byte[] events(List<List<byte[]>> nestedEvents) throws IOException {
+        int size = 0;
+        for (List<byte[]> events : nestedEvents) {
+            for (byte[] event : events) {
+                size += 4 + event.length;
+            }
+        }
+        final ByteBuffer block = ByteBuffer.allocate(size);
+        for (List<byte[]> events : nestedEvents) {
+            for (byte[] event : events) {
+                block.putInt(event.length);
+                block.put(event);
+            }
+        }
+        return frame(EVENTS, Snappy.compress(block.array()));
+    }
+
+    public static byte[] ping() {
+        return PING_FRAME.clone();
+    }
+
+    public static byte[] message(String message) {
+        return frame(MESSAGE, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] frame(byte type, byte[] payload) {
+        return ByteBuffer.allocate(HEADER_LENGTH + payload.length)
+                .put(type)
+                .putInt(payload.length)
+                .put(payload)
+                .array();
+    }
+}
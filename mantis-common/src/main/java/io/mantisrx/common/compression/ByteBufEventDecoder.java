@@ -0,0 +1,227 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.common.compression;
+
+import io.mantisrx.common.MantisServerSentEvent;
+import io.netty.buffer.ByteBuf;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.xerial.snappy.Snappy;
+
+
+/**
+ * Decodes the events of a compressed batch straight from the {@link ByteBuf} of the SSE it was received in.
+ * <p>
+ * Unlike {@link CompressionUtils#decompressAndBase64Decode(String, boolean, boolean, String)}, the content is not
+ * copied into a string, nor read line by line: it is Base64-decoded and decompressed into per-thread scratch buffers,
+ * and each event is created from its slice of the decompressed bytes. The events are the same, line breaks included:
+ * they are dropped from the decompressed content before it is split on the delimiter.
+ */
+class ByteBufEventDecoder {
+
+    private static final byte[] PING = "ping".getBytes(StandardCharsets.UTF_8);
+    private static final int MAX_RETAINED_SCRATCH_SIZE = 4 * 1024 * 1024;
+    private static final int[] BASE64_VALUES = new int[256];
+
+    static {
+        Arrays.fill(BASE64_VALUES, -1);
+        final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_VALUES[alphabet.charAt(i)] = i;
+        }
+    }
+
+    private static final ThreadLocal<byte[]> DECODED = ThreadLocal.withInitial(() -> new byte[4096]);
+    private static final ThreadLocal<byte[]> DECOMPRESSED = ThreadLocal.withInitial(() -> new byte[16384]);
+
+    private ByteBufEventDecoder() {
+    }
+
+    /**
+     * Returns true if the content is a ping.
+     */
+    static boolean isPing(ByteBuf content) {
+        final int start = content.readerIndex();
+        final int end = content.writerIndex();
+        return startsWith(content, start, end, PING);
+    }
+
+    static List<MantisServerSentEvent> decode(ByteBuf content,
+                                              boolean isCompressedBinary,
+                                              boolean useSnappy,
+                                              byte[] delimiter) throws IOException {
+        // same as String.trim()
+        int start = content.readerIndex();
+        int end = content.writerIndex();
+        while (start < end && (content.getByte(start) & 0xff) <= ' ') {
+            start++;
+        }
+        while (end > start && (content.getByte(end - 1) & 0xff) <= ' ') {
+            end--;
+        }
+
+        if (start == end || !isCompressedBinary || startsWith(content, start, end, PING) || content.getByte(start) == '{') {
+            return Collections.singletonList(
+                new MantisServerSentEvent(content.toString(start, end - start, StandardCharsets.UTF_8)));
+        }
+
+        final byte[] decoded = scratch(DECODED, (end - start) / 4 * 3 + 3);
+        final int decodedLength = decodeBase64(content, start, end, decoded);
+
+        final byte[] decompressed;
+        final int decompressedLength;
+        if (useSnappy) {
+            decompressedLength = Snappy.uncompressedLength(decoded, 0, decodedLength);
+            decompressed = scratch(DECOMPRESSED, decompressedLength);
+            Snappy.uncompress(decoded, 0, decodedLength, decompressed, 0);
+        } else {
+            byte[] buffer = scratch(DECOMPRESSED, decodedLength * 4);
+            int length = 0;
+            try (GZIPInputStream gis = new GZIPInputStream(new ByteArrayInputStream(decoded, 0, decodedLength))) {
+                int read;
+                while ((read = gis.read(buffer, length, buffer.length - length)) != -1) {
+                    length += read;
+                    if (length == buffer.length) {
+                        buffer = grow(DECOMPRESSED, buffer, length);
+                    }
+                }
+            }
+            decompressed = buffer;
+            decompressedLength = length;
+        }
+
+        return tokenize(decompressed, removeLineBreaks(decompressed, decompressedLength), delimiter);
+    }
+
+    /**
+     * Splits the first {@code length} bytes of data on the delimiter. A trailing event without delimiter is kept.
+     */
+    static List<MantisServerSentEvent> tokenize(byte[] data, int length, byte[] delimiter) {
+        final List<MantisServerSentEvent> events = new ArrayList<>();
+        final int lastStart = length - delimiter.length;
+        final byte first = delimiter[0];
+        int eventStart = 0;
+        int i = 0;
+        while (i <= lastStart) {
+            if (data[i] == first && matches(data, i, delimiter)) {
+                events.add(new MantisServerSentEvent(new String(data, eventStart, i - eventStart, StandardCharsets.UTF_8)));
+                i += delimiter.length;
+                eventStart = i;
+            } else {
+                i++;
+            }
+        }
+        if (eventStart < length) {
+            events.add(new MantisServerSentEvent(new String(data, eventStart, length - eventStart, StandardCharsets.UTF_8)));
+        }
+        return events;
+    }
+
+    /**
+     * Decodes the Base64 content between start and end into dst, returning the number of decoded bytes.
+     *
+     * @throws IllegalArgumentException if the content is not valid Base64, as {@link java.util.Base64.Decoder} does.
+     */
+    static int decodeBase64(ByteBuf src, int start, int end, byte[] dst) {
+        int paddingStart = end;
+        while (paddingStart > start && end - paddingStart < 2 && src.getByte(paddingStart - 1) == '=') {
+            paddingStart--;
+        }
+        int length = 0;
+        int bits = 0;
+        int buffer = 0;
+        for (int i = start; i < paddingStart; i++) {
+            final int value = BASE64_VALUES[src.getByte(i) & 0xff];
+            if (value < 0) {
+                throw new IllegalArgumentException("Illegal base64 character " + Integer.toString(src.getByte(i) & 0xff, 16));
+            }
+            buffer = (buffer << 6) | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                dst[length++] = (byte) (buffer >> bits);
+            }
+        }
+        if (bits >= 6) {
+            throw new IllegalArgumentException("Last unit does not have enough valid bits");
+        }
+        return length;
+    }
+
+    /**
+     * Removes the line breaks from the first {@code length} bytes of data in place, returning the new length.
+     */
+    private static int removeLineBreaks(byte[] data, int length) {
+        int to = 0;
+        for (int from = 0; from < length; from++) {
+            final byte b = data[from];
+            if (b != '\n' && b != '\r') {
+                data[to++] = b;
+            }
+        }
+        return to;
+    }
+
+    private static boolean matches(byte[] data, int offset, byte[] delimiter) {
+        for (int j = 1; j < delimiter.length; j++) {
+            if (data[offset + j] != delimiter[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(ByteBuf content, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (content.getByte(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the calling thread's scratch buffer if it holds at least size bytes, or a larger buffer, which replaces
+     * it unless it is too large to be retained.
+     */
+    private static byte[] scratch(ThreadLocal<byte[]> scratch, int size) {
+        final byte[] buffer = scratch.get();
+        if (buffer.length >= size) {
+            return buffer;
+        }
+        final byte[] larger = new byte[Math.max(size, Math.min(buffer.length * 2, MAX_RETAINED_SCRATCH_SIZE))];
+        if (larger.length <= MAX_RETAINED_SCRATCH_SIZE) {
+            scratch.set(larger);
+        }
+        return larger;
+    }
+
+    private static byte[] grow(ThreadLocal<byte[]> scratch, byte[] buffer, int length) {
+        final byte[] larger = scratch(scratch, buffer.length * 2);
+        System.arraycopy(buffer, 0, larger, 0, length);
+        return larger;
+    }
+}
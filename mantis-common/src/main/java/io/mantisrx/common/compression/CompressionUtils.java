@@ -17,6 +17,7 @@
 package io.mantisrx.common.compression;
 
 import io.mantisrx.common.MantisServerSentEvent;
+import io.netty.buffer.ByteBuf;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -24,6 +25,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
@@ -354,6 +356,30 @@ public class CompressionUtils {
         }
     }
 
+    /**
+     * Same as {@link #decompressAndBase64Decode(String, boolean, boolean, String)}, but decodes the content of the SSE
+     * straight from its buffer, without copying it into a string first. The buffer's indexes are left unchanged.
+     */
+    public static List<MantisServerSentEvent> decompressAndBase64Decode(ByteBuf encoded,
+                                                                        boolean isCompressedBinary,
+                                                                        boolean useSnappy,
+                                                                        String delimiter) {
+        try {
+            return ByteBufEventDecoder.decode(encoded, isCompressedBinary, useSnappy,
+                    delimiter == null ? MANTIS_SSE_DELIMITER_BINARY : delimiter.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+        }
+        return new ArrayList<MantisServerSentEvent>();
+    }
+
+    /**
+     * Returns true if the content of the SSE is a ping rather than events.
+     */
+    public static boolean isPing(ByteBuf content) {
+        return ByteBufEventDecoder.isPing(content);
+    }
+
     @Deprecated
     public static List<MantisServerSentEvent> decompressAndBase64Decode(String encodedString, boolean isCompressedBinary) {
         return decompressAndBase64Decode(encodedString, isCompressedBinary, false);
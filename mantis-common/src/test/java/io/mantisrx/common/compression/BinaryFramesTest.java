@@ -0,0 +1,79 @@
+/*
+ * Copyright 2021 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mantisrx.common.compression;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.mantisrx.common.MantisServerSentEvent;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+public class BinaryFramesTest {
+
+    @Test
+    public void testRoundTripAcrossChunks() throws Exception {
+        List<byte[]> batch1 = Arrays.asList("{\"a\":1}".getBytes(), "$$$".getBytes(), new byte[0]);
+        List<byte[]> batch2 = Arrays.asList("\u00e9\u20ac\n".getBytes("UTF-8"));
+        byte[] stream = concat(
+                BinaryFrames.events(Arrays.asList(batch1, batch2)),
+                BinaryFrames.ping(),
+                BinaryFrames.message("{\"mantis.meta\":1}"));
+
+        for (int chunkSize : new int[] {1, 3, 7, stream.length}) {
+            BinaryFrameDecoder decoder = new BinaryFrameDecoder();
+            List<MantisServerSentEvent> events = new ArrayList<>();
+            for (int i = 0; i < stream.length; i += chunkSize) {
+                events.addAll(decoder.decode(
+                        Unpooled.wrappedBuffer(stream, i, Math.min(chunkSize, stream.length - i))));
+            }
+
+            assertEquals(
+                    Arrays.asList("{\"a\":1}", "$$$", "", "\u00e9\u20ac\n", BinaryFrames.PING_EVENT, "{\"mantis.meta\":1}"),
+                    events.stream().map(MantisServerSentEvent::getEventAsString).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testPartialFrameIsHeldBack() throws Exception {
+        byte[] frame = BinaryFrames.events(Arrays.asList(Arrays.asList("event".getBytes())));
+        BinaryFrameDecoder decoder = new BinaryFrameDecoder();
+
+        assertTrue(decoder.decode(Unpooled.wrappedBuffer(frame, 0, frame.length - 1)).isEmpty());
+        assertEquals(Arrays.asList(new MantisServerSentEvent("event")),
+                decoder.decode(Unpooled.wrappedBuffer(frame, frame.length - 1, 1)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsInvalidFrameLength() throws Exception {
+        byte[] header = ByteBuffer.allocate(BinaryFrames.HEADER_LENGTH).put(BinaryFrames.EVENTS).putInt(-1).array();
+        new BinaryFrameDecoder().decode(Unpooled.wrappedBuffer(header));
+    }
+
+    private static byte[] concat(byte[]... frames) {
+        ByteBuffer buffer = ByteBuffer.allocate(Arrays.stream(frames).mapToInt(f -> f.length).sum());
+        for (byte[] frame : frames) {
+            buffer.put(frame);
+        }
+        return buffer.array();
+    }
+}
@@ -16,10 +16,15 @@
 package io.mantisrx.common.compression;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import io.mantisrx.common.MantisServerSentEvent;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import java.io.BufferedReader;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -148,4 +153,46 @@ public class CompressionUtilsTest {
         assertEquals("5", decompressed.get(4).getEventAsString());
         assertEquals("6", decompressed.get(5).getEventAsString());
     }
+
+    @Test
+    public void testByteBufDecodingMatchesStringDecoding() throws Exception {
+        List<byte[]> events = new ArrayList<>();
+        for (String event : Arrays.asList("{\"ip\":\"11.112.119.64\",\"count\":27}", "", "a$b$$c", "multi\nline\r\nevent", "\u00e9\u20ac")) {
+            events.add(event.getBytes(StandardCharsets.UTF_8));
+        }
+        for (boolean useSnappy : new boolean[] {true, false}) {
+            for (String delimiter : Arrays.asList(null, "ccd", "a04f0418-bdff-4f53-af7d-9f5a093b9d65")) {
+                String encoded = new String(delimiter == null
+                        ? CompressionUtils.compressAndBase64EncodeBytes(Arrays.asList(events), useSnappy)
+                        : CompressionUtils.compressAndBase64EncodeBytes(Arrays.asList(events), useSnappy, delimiter.getBytes()),
+                        StandardCharsets.UTF_8);
+                // as received in an SSE, with surrounding whitespace
+                ByteBuf content = Unpooled.copiedBuffer("  " + encoded + "\n", StandardCharsets.UTF_8);
+                int readerIndex = content.readerIndex();
+
+                List<MantisServerSentEvent> expected = CompressionUtils.decompressAndBase64Decode(encoded, true, useSnappy, delimiter);
+                List<MantisServerSentEvent> actual = CompressionUtils.decompressAndBase64Decode(content, true, useSnappy, delimiter);
+
+                assertEquals("snappy: " + useSnappy + ", delimiter: '" + delimiter + "'", expected, actual);
+                assertEquals(readerIndex, content.readerIndex());
+            }
+        }
+    }
+
+    @Test
+    public void testByteBufDecodingOfUncompressedContent() {
+        List<MantisServerSentEvent> decoded = CompressionUtils.decompressAndBase64Decode(
+                Unpooled.copiedBuffer(" {\"a\":1} ", StandardCharsets.UTF_8), true, true, null);
+        assertEquals(Arrays.asList(new MantisServerSentEvent("{\"a\":1}")), decoded);
+
+        decoded = CompressionUtils.decompressAndBase64Decode(
+                Unpooled.copiedBuffer("not compressed", StandardCharsets.UTF_8), false, true, null);
+        assertEquals(Arrays.asList(new MantisServerSentEvent("not compressed")), decoded);
+
+        ByteBuf ping = Unpooled.copiedBuffer("ping", StandardCharsets.UTF_8);
+        assertTrue(CompressionUtils.isPing(ping));
+        assertEquals(Arrays.asList(new MantisServerSentEvent("ping")),
+                CompressionUtils.decompressAndBase64Decode(ping, true, true, null));
+        assertFalse(CompressionUtils.isPing(Unpooled.copiedBuffer("pin", StandardCharsets.UTF_8)));
+    }
 }
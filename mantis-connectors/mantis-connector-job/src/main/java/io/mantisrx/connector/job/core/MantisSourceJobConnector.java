@@ -46,6 +46,7 @@ public class MantisSourceJobConnector {
     public static final String MANTIS_SOURCEJOB_SUBSCRIPTION_ID = "subscriptionId";
     public static final String MANTIS_SOURCEJOB_CLIENT_ID = "clientId";
     public static final String MANTIS_SOURCEJOB_CRITERION = "criterion";
+    public static final String MANTIS_SOURCEJOB_PUSH_DOWN = "pushDown";
     public static final String MANTIS_SOURCEJOB_NAME_PARAM = "sourceJobName";
     public static final String MANTIS_SOURCEJOB_TARGET_KEY = "target";
     public static final String MANTIS_SOURCEJOB_IS_BROADCAST_MODE = "isBroadcastMode";
@@ -29,6 +29,7 @@ import io.mantisrx.connector.job.core.MantisSourceJobConnector;
 import io.mantisrx.connector.job.core.MultiSinkConnectionStatusObserver;
 import io.mantisrx.connector.job.core.SinkConnectionStatusObserver;
 import io.mantisrx.runtime.Context;
+import io.mantisrx.runtime.parameter.MQLPushDown;
 import io.mantisrx.runtime.parameter.ParameterDefinition;
 import io.mantisrx.runtime.parameter.SinkParameters;
 import io.mantisrx.runtime.parameter.type.StringParameter;
@@ -43,6 +44,7 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
@@ -98,7 +100,12 @@ public class JobSource extends AbstractSourceJobSource implements Source<MantisS
         for (TargetInfo targetInfo : targets) {
             MantisSSEJob job;
             String sourceJobName = targetInfo.sourceJobName;
-            String criterion = targetInfo.criterion;
+            // the source job evaluates the push-down query along with the criterion, and shows the combined query
+            // as the criterion of the subscription
+            String criterion = MQLPushDown.compose(targetInfo.criterion, targetInfo.pushDown);
+            if (!Objects.equals(criterion, targetInfo.criterion)) {
+                LOGGER.info("Pushing down " + targetInfo.pushDown + " to job " + sourceJobName + ": " + criterion);
+            }
             int samplePerSec = targetInfo.samplePerSec;
             boolean enableMetaMessages = targetInfo.enableMetaMessages;
             LOGGER.info("Processing job " + sourceJobName);
@@ -155,6 +162,7 @@ public class JobSource extends AbstractSourceJobSource implements Source<MantisS
         public boolean enableMetaMessages;
         public boolean enableCompressedBinary;
         public String clientId;
+        public String pushDown;
 
         public TargetInfo(String jobName,
                           String criterion,
@@ -224,6 +232,9 @@ public class JobSource extends AbstractSourceJobSource implements Source<MantisS
                     isBroadCastMode,
                     enableMetaMessages,
                     enableCompressedBinary);
+            if (srcObj.get(MantisSourceJobConnector.MANTIS_SOURCEJOB_PUSH_DOWN) != null) {
+                ti.pushDown = srcObj.get(MantisSourceJobConnector.MANTIS_SOURCEJOB_PUSH_DOWN).getAsString();
+            }
             targetList.add(ti);
             LOGGER.info("sname: " + sName + " criterion: " + criterion + " isBroadcastMode " + isBroadCastMode);
         }
@@ -244,6 +255,7 @@ public class JobSource extends AbstractSourceJobSource implements Source<MantisS
         private boolean isBroadcastMode = false;
         private boolean enableMetaMessages = false;
         private boolean enableCompressedBinary = false;
+        private String pushDown;
 
         public TargetInfoBuilder() {
         }
@@ -284,8 +296,17 @@ public class JobSource extends AbstractSourceJobSource implements Source<MantisS
             return this;
         }
 
+        /**
+         * Sets a query whose projection and filter are applied by the source job on top of the criterion, see
+         * {@link MQLPushDown}.
+         */
+        public TargetInfoBuilder withPushDown(String pushDown) {
+            this.pushDown = pushDown;
+            return this;
+        }
+
         public TargetInfo build() {
-            return new TargetInfo(
+            TargetInfo targetInfo = new TargetInfo(
                     sourceJobName,
                     criterion,
                     clientId,
@@ -293,6 +314,8 @@ public class JobSource extends AbstractSourceJobSource implements Source<MantisS
                     isBroadcastMode,
                     enableMetaMessages,
                     enableCompressedBinary);
+            targetInfo.pushDown = pushDown;
+            return targetInfo;
         }
     }
 
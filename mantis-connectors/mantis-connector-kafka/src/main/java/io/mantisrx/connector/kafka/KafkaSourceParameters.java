@@ -28,6 +28,9 @@ public class KafkaSourceParameters {
     public static final String PARSE_MSG_IN_SOURCE = "parseMessageInKafkaConsumerThread";
     public static final String RETRY_CHECKPOINT_CHECK_DELAY_MS = "retryCheckpointCheckDelayMs";
     public static final String CHECKPOINT_INTERVAL_MS = "checkpointIntervalMs";
+    public static final String ENABLE_BATCHED_EMISSION = "enableBatchedEmission";
+    public static final String NUM_PREFETCHED_BATCHES = "numPrefetchedBatches";
+    public static final String NUM_PARSE_THREADS_PER_CONSUMER = "numParseThreadsPerConsumer";
 
     // Enable static partition assignment, this disables Kafka's default consumer group management
     public static final String ENABLE_STATIC_PARTITION_ASSIGN = "enableStaticPartitionAssign";
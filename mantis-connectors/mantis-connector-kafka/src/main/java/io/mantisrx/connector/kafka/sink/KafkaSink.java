@@ -17,37 +17,66 @@
 package io.mantisrx.connector.kafka.sink;
 
 import com.netflix.spectator.api.Registry;
+import io.mantisrx.connector.kafka.sink.metrics.ProducerMetrics;
 import io.mantisrx.runtime.Context;
 import io.mantisrx.runtime.Metadata;
 import io.mantisrx.runtime.PortRequest;
 import io.mantisrx.runtime.parameter.ParameterDefinition;
 import io.mantisrx.runtime.parameter.Parameters;
+import io.mantisrx.runtime.parameter.type.IntParameter;
 import io.mantisrx.runtime.parameter.type.StringParameter;
 import io.mantisrx.runtime.parameter.validator.Validators;
 import io.mantisrx.runtime.sink.SelfDocumentingSink;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicReference;
 import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rx.Observable;
 import rx.Subscription;
 import rx.functions.Func1;
-import rx.schedulers.Schedulers;
 
+/**
+ * Writes the output of a job to a Kafka topic.
+ * <p>
+ * Records are handed to the producer's asynchronous send, which batches them per partition. At most
+ * {@link KafkaSinkJobParameters#MAX_IN_FLIGHT_SENDS} records are awaiting acknowledgement at any time: once the window
+ * is full, the upstream is blocked until the producer acknowledges a pending send. Records that fail to encode or send
+ * are counted and dropped.
+ */
 public class KafkaSink<T> implements SelfDocumentingSink<T> {
     private static final Logger logger = LoggerFactory.getLogger(KafkaSink.class);
     private final Func1<T, byte[]> encoder;
+    private final Func1<T, byte[]> keyExtractor;
     private final Registry registry;
-    private final AtomicReference<KafkaProducer<byte[], byte[]>> kafkaProducerAtomicRef = new AtomicReference<>(null);
+    private final Func1<Map<String, Object>, Producer<byte[], byte[]>> producerFactory;
+    private final AtomicReference<Producer<byte[], byte[]>> kafkaProducerAtomicRef = new AtomicReference<>(null);
     private Subscription subscription;
 
     KafkaSink(Registry registry, Func1<T, byte[]> encoder) {
+        this(registry, encoder, null);
+    }
+
+    /**
+     * @param keyExtractor returns the key of the record written for an element, may be null to write unkeyed records.
+     */
+    KafkaSink(Registry registry, Func1<T, byte[]> encoder, Func1<T, byte[]> keyExtractor) {
+        this(registry, encoder, keyExtractor, props -> new KafkaProducer<>(props));
+    }
+
+    KafkaSink(Registry registry,
+              Func1<T, byte[]> encoder,
+              Func1<T, byte[]> keyExtractor,
+              Func1<Map<String, Object>, Producer<byte[], byte[]>> producerFactory) {
         this.encoder = encoder;
+        this.keyExtractor = keyExtractor;
         this.registry = registry;
+        this.producerFactory = producerFactory;
     }
 
     @Override
@@ -55,19 +84,68 @@ public class KafkaSink<T> implements SelfDocumentingSink<T> {
         if (kafkaProducerAtomicRef.get() == null) {
             MantisKafkaProducerConfig mantisKafkaProducerConfig = new MantisKafkaProducerConfig(context);
             Map<String, Object> producerProperties = mantisKafkaProducerConfig.getProducerProperties();
-            KafkaProducer<byte[], byte[]> kafkaProducer = new KafkaProducer<>(producerProperties);
-            kafkaProducerAtomicRef.compareAndSet(null, kafkaProducer);
+            Producer<byte[], byte[]> kafkaProducer = producerFactory.call(producerProperties);
+            if (!kafkaProducerAtomicRef.compareAndSet(null, kafkaProducer)) {
+                kafkaProducer.close();
+            }
             logger.info("Kafka Producer initialized");
         }
-        KafkaProducer<byte[], byte[]> kafkaProducer = kafkaProducerAtomicRef.get();
+        Producer<byte[], byte[]> kafkaProducer = kafkaProducerAtomicRef.get();
         Parameters parameters = context.getParameters();
         String topic = (String)parameters.get(KafkaSinkJobParameters.TOPIC);
+        int maxInFlightSends = (int) parameters.get(KafkaSinkJobParameters.MAX_IN_FLIGHT_SENDS,
+                                                    KafkaSinkJobParameters.DEFAULT_MAX_IN_FLIGHT_SENDS);
+        ProducerMetrics producerMetrics = new ProducerMetrics(registry, topic, context);
+        Semaphore inFlightSends = new Semaphore(maxInFlightSends);
+
+        subscription = dataO.subscribe(
+            data -> send(kafkaProducer, topic, data, inFlightSends, maxInFlightSends, producerMetrics),
+            t -> logger.error("Kafka sink terminated with error", t));
+    }
+
+    private void send(Producer<byte[], byte[]> kafkaProducer,
+                      String topic,
+                      T data,
+                      Semaphore inFlightSends,
+                      int maxInFlightSends,
+                      ProducerMetrics producerMetrics) {
+        final ProducerRecord<byte[], byte[]> record;
+        try {
+            byte[] key = keyExtractor == null ? null : keyExtractor.call(data);
+            record = new ProducerRecord<>(topic, key, encoder.call(data));
+        } catch (Exception e) {
+            logger.warn("failed to encode record for topic {}", topic, e);
+            producerMetrics.incrementSendErrorCount();
+            return;
+        }
+
+        try {
+            inFlightSends.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("interrupted while waiting to send to topic {}", topic);
+            producerMetrics.incrementSendErrorCount();
+            return;
+        }
+        producerMetrics.recordInFlightSends(maxInFlightSends - inFlightSends.availablePermits());
 
-        subscription = dataO.map(encoder::call)
-            .flatMap((dataBytes) ->
-                         Observable.from(kafkaProducer.send(new ProducerRecord<>(topic, dataBytes)))
-                             .subscribeOn(Schedulers.io()))
-            .subscribe();
+        final long sendStartNanos = System.nanoTime();
+        try {
+            kafkaProducer.send(record, (recordMetadata, e) -> {
+                inFlightSends.release();
+                producerMetrics.recordInFlightSends(maxInFlightSends - inFlightSends.availablePermits());
+                if (e != null) {
+                    logger.warn("failed to send record to topic {}", topic, e);
+                    producerMetrics.incrementSendErrorCount();
+                } else {
+                    producerMetrics.recordSent(System.nanoTime() - sendStartNanos);
+                }
+            });
+        } catch (Exception e) {
+            inFlightSends.release();
+            logger.warn("failed to send record to topic {}", topic, e);
+            producerMetrics.incrementSendErrorCount();
+        }
     }
 
     @Override
@@ -79,10 +157,15 @@ public class KafkaSink<T> implements SelfDocumentingSink<T> {
                        .validator(Validators.notNullOrEmpty())
                        .required()
                        .build());
+        params.add(new IntParameter()
+                       .name(KafkaSinkJobParameters.MAX_IN_FLIGHT_SENDS)
+                       .description("Maximum number of records sent to Kafka and not yet acknowledged, the sink blocks the upstream once reached")
+                       .validator(Validators.range(1, 1_000_000))
+                       .defaultValue(KafkaSinkJobParameters.DEFAULT_MAX_IN_FLIGHT_SENDS)
+                       .build());
         params.addAll(MantisKafkaProducerConfig.getJobParameterDefinitions());
         return params;
     }
-
     @Override
     public Metadata metadata() {
         StringBuilder description = new StringBuilder();
@@ -96,6 +179,12 @@ public class KafkaSink<T> implements SelfDocumentingSink<T> {
 
     @Override
     public void close() {
-        subscription.unsubscribe();
+        if (subscription != null) {
+            subscription.unsubscribe();
+        }
+        Producer<byte[], byte[]> kafkaProducer = kafkaProducerAtomicRef.getAndSet(null);
+        if (kafkaProducer != null) {
+            kafkaProducer.close();
+        }
     }
 }
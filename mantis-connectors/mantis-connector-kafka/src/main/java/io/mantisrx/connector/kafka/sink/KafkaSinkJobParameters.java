@@ -19,4 +19,7 @@ package io.mantisrx.connector.kafka.sink;
 public class KafkaSinkJobParameters {
     public static final String PREFIX = "kafka.sink.producer.";
     public static final String TOPIC = PREFIX + "topic";
+    public static final String MAX_IN_FLIGHT_SENDS = "maxInFlightSends";
+
+    public static final int DEFAULT_MAX_IN_FLIGHT_SENDS = 10_000;
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.connector.kafka.sink.metrics;
+
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Gauge;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Tag;
+import com.netflix.spectator.api.Timer;
+import io.mantisrx.runtime.Context;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+public class ProducerMetrics {
+    private static final String METRICS_PREFIX = "MantisKafkaProducer_";
+    private static final String METRIC_KAFKA_SENT_COUNT = "kafkaSentCount";
+    private static final String METRIC_KAFKA_SEND_ERROR_COUNT = "kafkaSendErrorCount";
+    private static final String METRIC_KAFKA_SEND_LATENCY = "kafkaSendLatency";
+    private static final String METRIC_KAFKA_IN_FLIGHT_SENDS = "kafkaInFlightSends";
+
+    private final Registry registry;
+    private final List<Tag> commonTags;
+    private final Counter kafkaSentCount;
+    private final Counter kafkaSendErrorCount;
+    private final Timer kafkaSendLatency;
+    private final Gauge kafkaInFlightSends;
+
+    public ProducerMetrics(final Registry registry, final String topic, final Context context) {
+        this.registry = registry;
+        this.commonTags = createCommonTags(context, topic);
+        this.kafkaSentCount = registry.counter(createId(METRIC_KAFKA_SENT_COUNT));
+        this.kafkaSendErrorCount = registry.counter(createId(METRIC_KAFKA_SEND_ERROR_COUNT));
+        this.kafkaSendLatency = registry.timer(createId(METRIC_KAFKA_SEND_LATENCY));
+        this.kafkaInFlightSends = registry.gauge(createId(METRIC_KAFKA_IN_FLIGHT_SENDS));
+    }
+
+    private List<Tag> createCommonTags(final Context context, final String topic) {
+        return Arrays.asList(Tag.of("mantisWorkerNum", Integer.toString(context.getWorkerInfo().getWorkerNumber())),
+                Tag.of("mantisWorkerIndex", Integer.toString(context.getWorkerInfo().getWorkerIndex())),
+                Tag.of("mantisJobName", context.getWorkerInfo().getJobClusterName()),
+                Tag.of("mantisJobId", context.getJobId()),
+                Tag.of("topic", topic));
+    }
+
+    private Id createId(final String metricName) {
+        return registry.createId(METRICS_PREFIX + metricName, commonTags);
+    }
+
+    public void recordSent(final long latencyNanos) {
+        kafkaSentCount.increment();
+        kafkaSendLatency.record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void incrementSendErrorCount() {
+        kafkaSendErrorCount.increment();
+    }
+
+    public void recordInFlightSends(final int inFlightSends) {
+        kafkaInFlightSends.set(inFlightSends);
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.connector.kafka.source;
+
+import io.mantisrx.connector.kafka.KafkaAckable;
+import io.mantisrx.connector.kafka.source.metrics.ConsumerMetrics;
+import io.mantisrx.shaded.com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetOutOfRangeException;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.record.InvalidRecordException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.functions.Action0;
+import rx.functions.Func1;
+
+
+/**
+ * Polls a {@link MantisKafkaConsumer} on a dedicated thread, so that the next poll overlaps with the processing of
+ * the records previously polled.
+ * <p>
+ * Polled records are buffered per topic-partition, up to a bounded number of batches, and converted to
+ * {@link KafkaAckable}s either on the fetch thread or, given parse threads, on a pool shared by the partitions of the
+ * consumer. Batches are buffered in poll order and emitted in that order once converted, so the records of a partition
+ * are emitted in order however many threads parse them. The emitting thread takes slices of the buffered batches with
+ * {@link #next(long)}. As the consumer is not thread-safe, it is only ever used from the fetch thread, which also
+ * checkpoints and closes it.
+ * <p>
+ * Batches are tagged with the {@link TopicPartitionStateManager#getGeneration() assignment generation} they were
+ * polled in. Once their partition is revoked, what is left of them is dropped instead of emitted, since the partition
+ * is read again from its last committed offset by whichever consumer it is assigned to next.
+ * <p>
+ * If the fetch thread stops on an unexpected error, the batches it already buffered are still emitted, after which
+ * {@link #next(long)} fails with that error instead of waiting for batches that will never come.
+ */
+class BatchedConsumerFetcher implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchedConsumerFetcher.class);
+
+    private final MantisKafkaConsumer<?> mantisKafkaConsumer;
+    private final ConsumerMetrics consumerMetrics;
+    private final TopicPartitionStateManager partitionStateManager;
+    private final long pollTimeoutMs;
+    private final Func1<ConsumerRecord<String, byte[]>, KafkaAckable> converter;
+    private final Action0 checkpointer;
+    private final AtomicBoolean done;
+
+    private final ExecutorService parseExecutor;
+    private final BlockingQueue<Future<PartitionBatch>> prefetchedBatches;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final Thread fetchThread;
+    private volatile Exception failure;
+
+    // only accessed by the emitting thread
+    private PartitionBatch currentBatch;
+    private int currentPosition;
+
+    /**
+     * @param numParseThreads number of threads converting polled records, 0 to convert them on the fetch thread.
+     * @param converter       converts a polled record to the ackable to emit, or returns null to skip the record.
+     *                        Must be thread-safe if there are parse threads.
+     * @param checkpointer    checkpoints the consumer if triggered, invoked before each poll.
+     * @param done            set once the source is closed.
+     */
+    BatchedConsumerFetcher(MantisKafkaConsumer<?> mantisKafkaConsumer,
+                           long pollTimeoutMs,
+                           int numPrefetchedBatches,
+                           int numParseThreads,
+                           Func1<ConsumerRecord<String, byte[]>, KafkaAckable> converter,
+                           Action0 checkpointer,
+                           AtomicBoolean done) {
+        this.mantisKafkaConsumer = mantisKafkaConsumer;
+        this.consumerMetrics = mantisKafkaConsumer.getConsumerMetrics();
+        this.partitionStateManager = mantisKafkaConsumer.getPartitionStateManager();
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.converter = converter;
+        this.checkpointer = checkpointer;
+        this.done = done;
+        this.prefetchedBatches = new ArrayBlockingQueue<>(numPrefetchedBatches);
+        this.parseExecutor = numParseThreads > 0
+            ? Executors.newFixedThreadPool(numParseThreads, new ThreadFactoryBuilder()
+                .setNameFormat("mantis-kafka-parser-" + mantisKafkaConsumer.getConsumerId() + "-%d")
+                .setDaemon(true)
+                .build())
+            : null;
+        this.fetchThread = new Thread(this, "mantis-kafka-fetcher-" + mantisKafkaConsumer.getConsumerId());
+        this.fetchThread.setDaemon(true);
+    }
+
+    void start() {
+        fetchThread.start();
+    }
+
+    /**
+     * Stops polling. The consumer is closed by the fetch thread once its current poll returns.
+     */
+    void close() {
+        closed.set(true);
+    }
+
+    @Override
+    public void run() {
+        LOGGER.info("consumer {} fetching on a dedicated thread", mantisKafkaConsumer.getConsumerId());
+        try {
+            while (isRunning()) {
+                checkpointer.call();
+                final ConsumerRecords<String, byte[]> consumerRecords = poll();
+                // partitions are revoked from within poll on this thread, so the records are of this generation
+                final long generation = partitionStateManager.getGeneration();
+                for (TopicPartition topicPartition : consumerRecords.partitions()) {
+                    final List<ConsumerRecord<String, byte[]>> records = consumerRecords.records(topicPartition);
+                    final Future<PartitionBatch> batch = parseExecutor != null
+                        ? parseExecutor.submit(() -> convert(topicPartition, generation, records))
+                        : CompletableFuture.completedFuture(convert(topicPartition, generation, records));
+                    if (!enqueue(batch)) {
+                        return;
+                    }
+                }
+            }
+        } catch (InterruptedException ie) {
+            LOGGER.error("consumer interrupted", ie);
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            consumerMetrics.incrementErrorCount();
+            LOGGER.error("consumer {} stopped fetching", mantisKafkaConsumer.getConsumerId(), e);
+            failure = e;
+        } finally {
+            LOGGER.info("closing Kafka consumer {}", mantisKafkaConsumer);
+            if (parseExecutor != null) {
+                parseExecutor.shutdownNow();
+            }
+            mantisKafkaConsumer.close();
+        }
+    }
+
+    private PartitionBatch convert(TopicPartition topicPartition, long generation,
+                                   List<ConsumerRecord<String, byte[]>> records) {
+        final List<KafkaAckable> ackables = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, byte[]> record : records) {
+            try {
+                final KafkaAckable ackable = converter.call(record);
+                if (ackable != null) {
+                    ackables.add(ackable);
+                }
+            } catch (Exception e) {
+                consumerMetrics.incrementErrorCount();
+                LOGGER.warn("caught exception", e);
+            }
+        }
+        return new PartitionBatch(topicPartition, generation, ackables);
+    }
+
+    private boolean isRunning() {
+        return !closed.get() && !done.get();
+    }
+
+    private ConsumerRecords<String, byte[]> poll() {
+        try {
+            final ConsumerRecords<String, byte[]> consumerRecords = mantisKafkaConsumer.poll(pollTimeoutMs);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("poll returned {} records", consumerRecords.count());
+            }
+            return consumerRecords;
+        } catch (TimeoutException toe) {
+            consumerMetrics.incrementWaitForDataCount();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Reached head of partition waiting for more data");
+            }
+        } catch (OffsetOutOfRangeException oore) {
+            LOGGER.warn("offsets out of range " + oore.partitions() + " will seek to beginning", oore);
+            final Set<TopicPartition> topicPartitionSet = oore.partitions();
+            for (TopicPartition tp : topicPartitionSet) {
+                LOGGER.info("partition {} consumer position {}", tp, mantisKafkaConsumer.position(tp));
+            }
+            mantisKafkaConsumer.seekToBeginning(topicPartitionSet.toArray(new TopicPartition[topicPartitionSet.size()]));
+        } catch (InvalidRecordException ire) {
+            consumerMetrics.incrementErrorCount();
+            LOGGER.warn("iterator error with invalid message. message will be dropped " + ire.getMessage());
+        } catch (KafkaException e) {
+            consumerMetrics.incrementErrorCount();
+            LOGGER.warn("Other Kafka exception, message will be dropped. " + e.getMessage());
+        }
+        return ConsumerRecords.empty();
+    }
+
+    /**
+     * Blocks until the batch is buffered, returns false if the fetcher stopped in the meantime.
+     */
+    private boolean enqueue(Future<PartitionBatch> batch) throws InterruptedException {
+        while (!prefetchedBatches.offer(batch, pollTimeoutMs, TimeUnit.MILLISECONDS)) {
+            if (!isRunning()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns up to {@code requested} buffered ackables of a single topic-partition, waiting up to the poll timeout
+     * for a batch if none is buffered. The returned ackables are recorded as read, so they must be emitted.
+     *
+     * @throws IllegalStateException if the fetch thread stopped on an error and every buffered batch was returned.
+     */
+    List<KafkaAckable> next(long requested) {
+        while (currentBatch == null || currentPosition >= currentBatch.ackables.size()) {
+            currentBatch = null;
+            currentPosition = 0;
+            final Exception fetchFailure = failure;
+            if (fetchFailure != null && prefetchedBatches.isEmpty()) {
+                throw new IllegalStateException("consumer " + mantisKafkaConsumer.getConsumerId() + " stopped fetching",
+                    fetchFailure);
+            }
+            try {
+                final Future<PartitionBatch> batch = prefetchedBatches.poll(pollTimeoutMs, TimeUnit.MILLISECONDS);
+                if (batch == null) {
+                    consumerMetrics.incrementWaitForDataCount();
+                    return Collections.emptyList();
+                }
+                currentBatch = batch.get();
+            } catch (InterruptedException ie) {
+                LOGGER.error("consumer interrupted", ie);
+                Thread.currentThread().interrupt();
+                return Collections.emptyList();
+            } catch (ExecutionException e) {
+                consumerMetrics.incrementErrorCount();
+                LOGGER.warn("failed to convert records, records will be dropped", e);
+            }
+        }
+
+        final int end = currentPosition + (int) Math.min(currentBatch.ackables.size() - currentPosition, requested);
+        final List<KafkaAckable> slice = currentBatch.ackables.subList(currentPosition, end);
+
+        // record offsets consumed in TopicPartitionStateManager before emitting to avoid race condition with Acks
+        // being processed before the consume is recorded
+        long offset = TopicPartitionStateManager.DEFAULT_LAST_READ_OFFSET;
+        int read = 0;
+        for (KafkaAckable ackable : slice) {
+            final long ackableOffset = ackable.getKafkaData().getOffset();
+            if (!partitionStateManager.recordMessageRead(currentBatch.topicPartition, ackableOffset, currentBatch.generation)) {
+                break;
+            }
+            offset = ackableOffset;
+            read++;
+        }
+
+        if (read < slice.size()) {
+            LOGGER.info("partition {} was revoked, dropping {} of its buffered records", currentBatch.topicPartition,
+                currentBatch.ackables.size() - currentPosition - read);
+            currentPosition = currentBatch.ackables.size();
+        } else {
+            currentPosition = end;
+        }
+        if (read == 0) {
+            return Collections.emptyList();
+        }
+        consumerMetrics.recordReadOffset(currentBatch.topicPartition, offset);
+        return slice.subList(0, read);
+    }
+
+    private static class PartitionBatch {
+
+        private final TopicPartition topicPartition;
+        private final long generation;
+        private final List<KafkaAckable> ackables;
+
+        PartitionBatch(TopicPartition topicPartition, long generation, List<KafkaAckable> ackables) {
+            this.topicPartition = topicPartition;
+            this.generation = generation;
+            this.ackables = ackables;
+        }
+    }
+}
@@ -34,21 +34,36 @@ public class KafkaConsumerRebalanceListener<S> implements ConsumerRebalanceListe
     private final KafkaConsumer<?, ?> consumer;
     private final TopicPartitionStateManager partitionStateManager;
     private final CheckpointStrategy<S> checkpointStrategy;
+    private final OffsetCheckpointer<S> checkpointer;
 
     public KafkaConsumerRebalanceListener(final KafkaConsumer<?, ?> consumer,
                                           final TopicPartitionStateManager partitionStateManager,
                                           final CheckpointStrategy<S> checkpointStrategy) {
+        this(consumer, partitionStateManager, checkpointStrategy, null);
+    }
+
+    KafkaConsumerRebalanceListener(final KafkaConsumer<?, ?> consumer,
+                                   final TopicPartitionStateManager partitionStateManager,
+                                   final CheckpointStrategy<S> checkpointStrategy,
+                                   final OffsetCheckpointer<S> checkpointer) {
         this.consumer = consumer;
         this.partitionStateManager = partitionStateManager;
         this.checkpointStrategy = checkpointStrategy;
+        this.checkpointer = checkpointer;
     }
 
     @Override
     public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
         // When partitions are revoked, clear all partition state. We don't try to checkpoint here as we can be stuck indefinitely if the processing is slow and
         // we try to wait for all acks to create a checkpoint and commit the offsets/state to data store.
+        // Messages of these partitions still buffered by the fetcher are dropped rather than emitted, the new owner
+        // reads them again from the last committed offset.
         LOGGER.info("partitions revoked, resetting partition state: {}", partitions.toString());
-        partitions.stream().forEach(tp -> partitionStateManager.resetCounters(tp));
+        partitionStateManager.revoke(partitions);
+        // a checkpoint still waiting to be persisted would otherwise override the offsets committed by the new owner
+        if (checkpointer != null) {
+            checkpointer.revoke(partitions);
+        }
     }
 
     /**
@@ -17,9 +17,12 @@
 package io.mantisrx.connector.kafka.source;
 
 import static io.mantisrx.connector.kafka.source.MantisKafkaSourceConfig.CONSUMER_RECORD_OVERHEAD_BYTES;
+import static io.mantisrx.connector.kafka.source.MantisKafkaSourceConfig.DEFAULT_ENABLE_BATCHED_EMISSION;
 import static io.mantisrx.connector.kafka.source.MantisKafkaSourceConfig.DEFAULT_ENABLE_STATIC_PARTITION_ASSIGN;
 import static io.mantisrx.connector.kafka.source.MantisKafkaSourceConfig.DEFAULT_MAX_BYTES_IN_PROCESSING;
 import static io.mantisrx.connector.kafka.source.MantisKafkaSourceConfig.DEFAULT_NUM_KAFKA_CONSUMER_PER_WORKER;
+import static io.mantisrx.connector.kafka.source.MantisKafkaSourceConfig.DEFAULT_NUM_PARSE_THREADS_PER_CONSUMER;
+import static io.mantisrx.connector.kafka.source.MantisKafkaSourceConfig.DEFAULT_NUM_PREFETCHED_BATCHES;
 import static io.mantisrx.connector.kafka.source.MantisKafkaSourceConfig.DEFAULT_PARSE_MSG_IN_SOURCE;
 
 import com.netflix.spectator.api.Registry;
@@ -27,7 +30,6 @@ import io.mantisrx.connector.kafka.KafkaAckable;
 import io.mantisrx.connector.kafka.KafkaData;
 import io.mantisrx.connector.kafka.KafkaDataNotification;
 import io.mantisrx.connector.kafka.KafkaSourceParameters;
-import io.mantisrx.connector.kafka.source.checkpoint.strategy.CheckpointStrategy;
 import io.mantisrx.connector.kafka.source.checkpoint.strategy.CheckpointStrategyOptions;
 import io.mantisrx.connector.kafka.source.checkpoint.trigger.CheckpointTrigger;
 import io.mantisrx.connector.kafka.source.metrics.ConsumerMetrics;
@@ -55,6 +57,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rx.Observable;
 import rx.Subscription;
+import rx.observables.AsyncOnSubscribe;
 import rx.observables.SyncOnSubscribe;
 import rx.schedulers.Schedulers;
 import rx.subjects.PublishSubject;
@@ -112,6 +115,68 @@ public class KafkaSource implements Source<KafkaAckable> {
         return record.value().length + CONSUMER_RECORD_OVERHEAD_BYTES;
     }
 
+    /**
+     * Checkpoints the consumer's topic partitions if its checkpoint trigger fired. Must be called from the thread
+     * polling the consumer, the snapshot is persisted asynchronously if the checkpoint strategy supports it.
+     */
+    @SuppressWarnings("unchecked")
+    private void checkpointIfTriggered(final MantisKafkaConsumer<?> mantisKafkaConsumer) {
+        final CheckpointTrigger trigger = mantisKafkaConsumer.getTrigger();
+        if (trigger.shouldCheckpoint()) {
+            final OffsetCheckpointer checkpointer = mantisKafkaConsumer.getCheckpointer();
+            final Map<TopicPartition, OffsetAndMetadata> checkpoint =
+                mantisKafkaConsumer.getPartitionStateManager().createCheckpoint(mantisKafkaConsumer.assignment());
+            checkpointer.checkpoint(checkpoint);
+            trigger.reset();
+        }
+    }
+
+    /**
+     * Converts a consumer record to the ackable to emit for it.
+     *
+     * @param parser parser of the message, or null if messages are not parsed in the source
+     *
+     * @return the ackable, or null if the record is to be skipped
+     */
+    private KafkaAckable toAckable(final ConsumerRecord<String, byte[]> m,
+                                   final Parser parser,
+                                   final MantisKafkaConsumer<?> mantisKafkaConsumer) {
+        final ConsumerMetrics consumerMetrics = mantisKafkaConsumer.getConsumerMetrics();
+        consumerMetrics.incrementInCount();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("updating read offset to " + m.offset() + " read " + m.value());
+        }
+
+        if (m.value() == null) {
+            consumerMetrics.incrementKafkaMessageValueNullCount();
+            return null;
+        }
+        try {
+            mantisKafkaConsumer.getTrigger().update(getPayloadSize(m));
+
+            if (parser == null) {
+                final KafkaData kafkaData = new KafkaData(m, Optional.empty(), Optional.ofNullable(m.key()), mantisKafkaConsumer.getConsumerId());
+                return new KafkaAckable(kafkaData, ackSubject);
+            }
+            if (parser.canParse(m.value())) {
+                final Map<String, Object> parsedKafkaValue = parser.parseMessage(m.value());
+                final KafkaData kafkaData = new KafkaData(m, Optional.ofNullable(parsedKafkaValue), Optional.ofNullable(m.key()), mantisKafkaConsumer.getConsumerId());
+                return new KafkaAckable(kafkaData, ackSubject);
+            }
+            consumerMetrics.incrementParseFailureCount();
+        } catch (ParseException pe) {
+            consumerMetrics.incrementErrorCount();
+            LOGGER.warn("failed to parse {}:{} message {}", m.topic(), m.partition(), m.value(), pe);
+        }
+        return null;
+    }
+
+    private static Parser getParser(final MantisKafkaSourceConfig kafkaSourceConfig) {
+        return kafkaSourceConfig.getParseMessageInSource()
+            ? ParserType.parser(kafkaSourceConfig.getMessageParserType()).getParser()
+            : null;
+    }
+
     /**
      * Create an observable with back pressure semantics from the consumer records fetched using consumer.
      *
@@ -120,11 +185,9 @@ public class KafkaSource implements Source<KafkaAckable> {
      */
     private Observable<KafkaAckable> createBackPressuredConsumerObs(final MantisKafkaConsumer<?> mantisKafkaConsumer,
                                                                     final MantisKafkaSourceConfig kafkaSourceConfig) {
-        CheckpointStrategy checkpointStrategy = mantisKafkaConsumer.getStrategy();
-        final CheckpointTrigger trigger = mantisKafkaConsumer.getTrigger();
         final ConsumerMetrics consumerMetrics = mantisKafkaConsumer.getConsumerMetrics();
         final TopicPartitionStateManager partitionStateManager = mantisKafkaConsumer.getPartitionStateManager();
-        int mantisKafkaConsumerId = mantisKafkaConsumer.getConsumerId();
+        final Parser parser = getParser(kafkaSourceConfig);
 
         SyncOnSubscribe<Iterator<ConsumerRecord<String, byte[]>>, KafkaAckable> syncOnSubscribe = SyncOnSubscribe.createStateful(
             () -> {
@@ -137,19 +200,8 @@ public class KafkaSource implements Source<KafkaAckable> {
             },
             (consumerRecordIterator, observer) -> {
                 Iterator<ConsumerRecord<String, byte[]>> it = consumerRecordIterator;
-                final Set<TopicPartition> partitions = mantisKafkaConsumer.assignment();
-
-                if (trigger.shouldCheckpoint()) {
-                    long startTime = System.currentTimeMillis();
-
-                    final Map<TopicPartition, OffsetAndMetadata> checkpoint =
-                        partitionStateManager.createCheckpoint(partitions);
-                    checkpointStrategy.persistCheckpoint(checkpoint);
-                    long now = System.currentTimeMillis();
-                    consumerMetrics.recordCheckpointDelay(now - startTime);
-                    consumerMetrics.incrementCommitCount();
-                    trigger.reset();
-                }
+
+                checkpointIfTriggered(mantisKafkaConsumer);
                 if (!done.get()) {
                     try {
                         if (!consumerRecordIterator.hasNext()) {
@@ -163,44 +215,13 @@ public class KafkaSource implements Source<KafkaAckable> {
 
                         if (it.hasNext()) {
                             final ConsumerRecord<String, byte[]> m = it.next();
-                            final TopicPartition topicPartition = new TopicPartition(m.topic(), m.partition());
-
-                            consumerMetrics.incrementInCount();
-                            if (LOGGER.isDebugEnabled()) {
-                                LOGGER.debug("updating read offset to " + m.offset() + " read " + m.value());
-                            }
-
-                            if (m.value() != null) {
-                                try {
-                                    trigger.update(getPayloadSize(m));
-
-                                    if (kafkaSourceConfig.getParseMessageInSource()) {
-                                        final Parser parser = ParserType.parser(kafkaSourceConfig.getMessageParserType()).getParser();
-                                        if (parser.canParse(m.value())) {
-                                            final Map<String, Object> parsedKafkaValue = parser.parseMessage(m.value());
-                                            final KafkaData kafkaData = new KafkaData(m, Optional.ofNullable(parsedKafkaValue), Optional.ofNullable(m.key()), mantisKafkaConsumerId);
-                                            final KafkaAckable ackable = new KafkaAckable(kafkaData, ackSubject);
-                                            // record offset consumed in TopicPartitionStateManager before onNext to avoid race condition with Ack being processed before the consume is recorded
-                                            partitionStateManager.recordMessageRead(topicPartition, m.offset());
-                                            consumerMetrics.recordReadOffset(topicPartition, m.offset());
-                                            observer.onNext(ackable);
-                                        } else {
-                                            consumerMetrics.incrementParseFailureCount();
-                                        }
-                                    } else {
-                                        final KafkaData kafkaData = new KafkaData(m, Optional.empty(), Optional.ofNullable(m.key()), mantisKafkaConsumerId);
-                                        final KafkaAckable ackable = new KafkaAckable(kafkaData, ackSubject);
-                                        // record offset consumed in TopicPartitionStateManager before onNext to avoid race condition with Ack being processed before the consume is recorded
-                                        partitionStateManager.recordMessageRead(topicPartition, m.offset());
-                                        consumerMetrics.recordReadOffset(topicPartition, m.offset());
-                                        observer.onNext(ackable);
-                                    }
-                                } catch (ParseException pe) {
-                                    consumerMetrics.incrementErrorCount();
-                                    LOGGER.warn("failed to parse {}:{} message {}", m.topic(), m.partition(), m.value(), pe);
-                                }
-                            } else {
-                                consumerMetrics.incrementKafkaMessageValueNullCount();
+                            final KafkaAckable ackable = toAckable(m, parser, mantisKafkaConsumer);
+                            if (ackable != null) {
+                                final TopicPartition topicPartition = new TopicPartition(m.topic(), m.partition());
+                                // record offset consumed in TopicPartitionStateManager before onNext to avoid race condition with Ack being processed before the consume is recorded
+                                partitionStateManager.recordMessageRead(topicPartition, m.offset());
+                                consumerMetrics.recordReadOffset(topicPartition, m.offset());
+                                observer.onNext(ackable);
                             }
                         } else {
                             consumerMetrics.incrementWaitForDataCount();
@@ -243,7 +264,54 @@ public class KafkaSource implements Source<KafkaAckable> {
                 LOGGER.info("closing Kafka consumer on unsubscribe" + mantisKafkaConsumer.toString());
                 mantisKafkaConsumer.close();
             });
-        return Observable.create(syncOnSubscribe)
+        return withLifecycleLogging(Observable.create(syncOnSubscribe), mantisKafkaConsumer);
+    }
+
+    /**
+     * Create an observable with back pressure semantics that emits the consumer records in slices of up to the
+     * requested amount, while the next records are polled on a dedicated thread and, if configured, parsed on a pool
+     * of {@value KafkaSourceParameters#NUM_PARSE_THREADS_PER_CONSUMER} threads.
+     *
+     * @param mantisKafkaConsumer non thread-safe KafkaConsumer, used only by the fetch thread
+     * @param kafkaSourceConfig   configuration for the Mantis Kafka Source
+     */
+    private Observable<KafkaAckable> createBatchedConsumerObs(final MantisKafkaConsumer<?> mantisKafkaConsumer,
+                                                              final MantisKafkaSourceConfig kafkaSourceConfig) {
+        final Parser parser = getParser(kafkaSourceConfig);
+
+        AsyncOnSubscribe<BatchedConsumerFetcher, KafkaAckable> asyncOnSubscribe = AsyncOnSubscribe.createStateful(
+            () -> {
+                final BatchedConsumerFetcher fetcher = new BatchedConsumerFetcher(mantisKafkaConsumer,
+                    kafkaSourceConfig.getConsumerPollTimeoutMs(),
+                    kafkaSourceConfig.getNumPrefetchedBatches(),
+                    kafkaSourceConfig.getNumParseThreadsPerConsumer(),
+                    record -> toAckable(record, parser, mantisKafkaConsumer),
+                    () -> checkpointIfTriggered(mantisKafkaConsumer),
+                    done);
+                fetcher.start();
+                return fetcher;
+            },
+            (fetcher, requested, observer) -> {
+                try {
+                    observer.onNext(Observable.from(fetcher.next(requested)));
+                } catch (IllegalStateException e) {
+                    // the fetch thread is gone, nothing more will be emitted
+                    observer.onError(e);
+                }
+                return fetcher;
+            },
+            fetcher -> {
+                LOGGER.info("stopping Kafka consumer on unsubscribe" + mantisKafkaConsumer.toString());
+                fetcher.close();
+            });
+        return withLifecycleLogging(Observable.create(asyncOnSubscribe), mantisKafkaConsumer);
+    }
+
+    private Observable<KafkaAckable> withLifecycleLogging(final Observable<KafkaAckable> consumerObs,
+                                                          final MantisKafkaConsumer<?> mantisKafkaConsumer) {
+        final ConsumerMetrics consumerMetrics = mantisKafkaConsumer.getConsumerMetrics();
+        final int mantisKafkaConsumerId = mantisKafkaConsumer.getConsumerId();
+        return consumerObs
             .subscribeOn(Schedulers.newThread())
             .doOnUnsubscribe(() -> LOGGER.info("consumer {} stopped due to unsubscribe", mantisKafkaConsumerId))
             .doOnError((t) -> {
@@ -267,8 +335,11 @@ public class KafkaSource implements Source<KafkaAckable> {
                 createConsumers(context, mantisKafkaSourceConfig, totalNumWorkers);
 
             consumers.subscribe(consumer -> {
-                final Observable<KafkaAckable> mantisKafkaAckableObs =
-                    createBackPressuredConsumerObs(consumer, mantisKafkaSourceConfig);
+                final boolean batched = mantisKafkaSourceConfig.getBatchedEmissionEnabled()
+                    || mantisKafkaSourceConfig.getNumParseThreadsPerConsumer() > 0;
+                final Observable<KafkaAckable> mantisKafkaAckableObs = batched
+                    ? createBatchedConsumerObs(consumer, mantisKafkaSourceConfig)
+                    : createBackPressuredConsumerObs(consumer, mantisKafkaSourceConfig);
                 child.onNext(mantisKafkaAckableObs);
             });
         })
@@ -363,6 +434,24 @@ public class KafkaSource implements Source<KafkaAckable> {
                        .validator(Validators.alwaysPass())
                        .defaultValue(DEFAULT_PARSE_MSG_IN_SOURCE)
                        .build());
+        params.add(new BooleanParameter()
+                       .name(KafkaSourceParameters.ENABLE_BATCHED_EMISSION)
+                       .validator(Validators.alwaysPass())
+                       .defaultValue(DEFAULT_ENABLE_BATCHED_EMISSION)
+                       .description("Poll Kafka on a dedicated thread while emitting the previously polled records in batches of up to the requested amount")
+                       .build());
+        params.add(new IntParameter()
+                       .name(KafkaSourceParameters.NUM_PREFETCHED_BATCHES)
+                       .validator(Validators.range(1, 1024))
+                       .defaultValue(DEFAULT_NUM_PREFETCHED_BATCHES)
+                       .description("Maximum number of per topic-partition record batches polled ahead of processing when batched emission is enabled")
+                       .build());
+        params.add(new IntParameter()
+                       .name(KafkaSourceParameters.NUM_PARSE_THREADS_PER_CONSUMER)
+                       .validator(Validators.range(0, 64))
+                       .defaultValue(DEFAULT_NUM_PARSE_THREADS_PER_CONSUMER)
+                       .description("No. of threads parsing the records polled by each Kafka consumer, records of a partition are still emitted in order. Enables batched emission when greater than 0, 0 parses on the polling thread")
+                       .build());
         params.add(new BooleanParameter()
                        .name(KafkaSourceParameters.ENABLE_STATIC_PARTITION_ASSIGN)
                        .validator(Validators.alwaysPass())
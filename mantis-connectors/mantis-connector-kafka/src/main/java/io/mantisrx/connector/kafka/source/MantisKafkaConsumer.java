@@ -57,6 +57,7 @@ public class MantisKafkaConsumer<S> {
     private final KafkaConsumer<String, byte[]> consumer;
     private final CheckpointStrategy<S> strategy;
     private final CheckpointTrigger trigger;
+    private final OffsetCheckpointer<S> checkpointer;
     private final ConsumerMetrics consumerMetrics;
     private final TopicPartitionStateManager partitionStateManager;
     private final AtomicLong pollTimestamp = new AtomicLong(System.currentTimeMillis());
@@ -70,12 +71,24 @@ public class MantisKafkaConsumer<S> {
                                final CheckpointStrategy<S> strategy,
                                final CheckpointTrigger trigger,
                                final ConsumerMetrics metrics) {
+        this(consumerId, consumer, partitionStateManager, strategy, trigger, metrics,
+             new OffsetCheckpointer<>(consumerId, strategy, metrics));
+    }
+
+    MantisKafkaConsumer(final int consumerId,
+                        final KafkaConsumer<String, byte[]> consumer,
+                        final TopicPartitionStateManager partitionStateManager,
+                        final CheckpointStrategy<S> strategy,
+                        final CheckpointTrigger trigger,
+                        final ConsumerMetrics metrics,
+                        final OffsetCheckpointer<S> checkpointer) {
         this.consumerId = consumerId;
         this.consumerMetrics = metrics;
         this.consumer = consumer;
         this.partitionStateManager = partitionStateManager;
         this.strategy = strategy;
         this.trigger = trigger;
+        this.checkpointer = checkpointer;
         setupMetricPublish();
     }
 
@@ -104,6 +117,10 @@ public class MantisKafkaConsumer<S> {
         return trigger;
     }
 
+    OffsetCheckpointer<S> getCheckpointer() {
+        return checkpointer;
+    }
+
     public TopicPartitionStateManager getPartitionStateManager() {
         return partitionStateManager;
     }
@@ -125,6 +142,8 @@ public class MantisKafkaConsumer<S> {
             metricSubscription.unsubscribe();
         }
 
+        // the checkpointer owns the strategy and its persisting thread, release them even if the trigger is inactive
+        checkpointer.close();
         if (trigger.isActive()) {
             final Set<TopicPartition> partitions = consumer.assignment();
             LOGGER.warn("clearing partition state when closing consumer {}, partitions {}", this.toString(), partitions.toString());
@@ -310,25 +329,34 @@ public class MantisKafkaConsumer<S> {
             // hard-coding key to String type and value to byte[]
             final KafkaConsumer<String, byte[]> consumer = new KafkaConsumer<>(consumerProps);
 
-            final TopicPartitionStateManager partitionStateManager = new TopicPartitionStateManager(registry, clientId, kafkaSourceConfig.getRetryCheckpointCheckDelayMs());
+            final TopicPartitionStateManager partitionStateManager = new TopicPartitionStateManager(registry, clientId);
             final ConsumerMetrics metrics = new ConsumerMetrics(registry, kafkaConsumerId, context);
             final CheckpointStrategy<?> strategy = CheckpointStrategyFactory.getNewInstance(context, consumer, kafkaSourceConfig.getCheckpointStrategy(), metrics);
+            return build(kafkaConsumerId, consumer, partitionStateManager, metrics, strategy);
+        }
 
+        private <S> MantisKafkaConsumer<S> build(final int kafkaConsumerId,
+                                                 final KafkaConsumer<String, byte[]> consumer,
+                                                 final TopicPartitionStateManager partitionStateManager,
+                                                 final ConsumerMetrics metrics,
+                                                 final CheckpointStrategy<S> strategy) {
+            // shared with the rebalance listener, which drops the pending checkpoint of revoked partitions
+            final OffsetCheckpointer<S> checkpointer = new OffsetCheckpointer<>(kafkaConsumerId, strategy, metrics);
             if (kafkaSourceConfig.getStaticPartitionAssignmentEnabled()) {
-                final KafkaConsumerRebalanceListener kafkaConsumerRebalanceListener = new KafkaConsumerRebalanceListener(consumer, partitionStateManager, strategy);
+                final KafkaConsumerRebalanceListener<S> kafkaConsumerRebalanceListener = new KafkaConsumerRebalanceListener<>(consumer, partitionStateManager, strategy, checkpointer);
                 kafkaSourceConfig.getTopicPartitionCounts().ifPresent(topicPartitionCounts -> {
                     doStaticPartitionAssignment(consumer, kafkaConsumerRebalanceListener, consumerIndex, totalNumConsumersForJob, topicPartitionCounts, registry);
                 });
             } else {
                 if (kafkaSourceConfig.getCheckpointStrategy() != CheckpointStrategyOptions.NONE) {
                     consumer.subscribe(kafkaSourceConfig.getTopics(),
-                                       new KafkaConsumerRebalanceListener(consumer, partitionStateManager, strategy));
+                                       new KafkaConsumerRebalanceListener<>(consumer, partitionStateManager, strategy, checkpointer));
                 } else {
                     consumer.subscribe(kafkaSourceConfig.getTopics());
                 }
             }
             final CheckpointTrigger trigger = CheckpointTriggerFactory.getNewInstance(kafkaSourceConfig);
-            return new MantisKafkaConsumer<>(kafkaConsumerId, consumer, partitionStateManager, strategy, trigger, metrics);
+            return new MantisKafkaConsumer<>(kafkaConsumerId, consumer, partitionStateManager, strategy, trigger, metrics, checkpointer);
         }
 
     }
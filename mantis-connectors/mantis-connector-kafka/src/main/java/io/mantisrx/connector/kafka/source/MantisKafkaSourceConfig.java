@@ -41,6 +41,9 @@ public class MantisKafkaSourceConfig {
     public static final int DEFAULT_MAX_BYTES_IN_PROCESSING = 128_000_000;
     public static final int DEFAULT_NUM_KAFKA_CONSUMER_PER_WORKER = 1;
     public static final boolean DEFAULT_PARSE_MSG_IN_SOURCE = true;
+    public static final boolean DEFAULT_ENABLE_BATCHED_EMISSION = false;
+    public static final int DEFAULT_NUM_PREFETCHED_BATCHES = 16;
+    public static final int DEFAULT_NUM_PARSE_THREADS_PER_CONSUMER = 0;
 
     private final List<String> topics;
     private final int numConsumerInstances;
@@ -52,6 +55,9 @@ public class MantisKafkaSourceConfig {
     private final int retryCheckpointCheckDelayMs;
     private final int checkpointIntervalMs;
     private final Boolean staticPartitionAssignmentEnabled;
+    private final Boolean batchedEmissionEnabled;
+    private final int numPrefetchedBatches;
+    private final int numParseThreadsPerConsumer;
     private final Optional<Map<String, Integer>> topicPartitionCounts;
     private final MantisKafkaConsumerConfig consumerConfig;
 
@@ -68,6 +74,9 @@ public class MantisKafkaSourceConfig {
         this.retryCheckpointCheckDelayMs = (int) parameters.get(KafkaSourceParameters.RETRY_CHECKPOINT_CHECK_DELAY_MS, DEFAULT_RETRY_CHECKPOINT_CHECK_DELAY_MS);
         this.checkpointIntervalMs = (int) parameters.get(KafkaSourceParameters.CHECKPOINT_INTERVAL_MS, MantisKafkaConsumerConfig.DEFAULT_CHECKPOINT_INTERVAL_MS);
         this.staticPartitionAssignmentEnabled = (boolean) parameters.get(KafkaSourceParameters.ENABLE_STATIC_PARTITION_ASSIGN, DEFAULT_ENABLE_STATIC_PARTITION_ASSIGN);
+        this.batchedEmissionEnabled = (boolean) parameters.get(KafkaSourceParameters.ENABLE_BATCHED_EMISSION, DEFAULT_ENABLE_BATCHED_EMISSION);
+        this.numPrefetchedBatches = (int) parameters.get(KafkaSourceParameters.NUM_PREFETCHED_BATCHES, DEFAULT_NUM_PREFETCHED_BATCHES);
+        this.numParseThreadsPerConsumer = (int) parameters.get(KafkaSourceParameters.NUM_PARSE_THREADS_PER_CONSUMER, DEFAULT_NUM_PARSE_THREADS_PER_CONSUMER);
         if (staticPartitionAssignmentEnabled) {
             final String topicPartitionsStr = (String) parameters.get(KafkaSourceParameters.TOPIC_PARTITION_COUNTS, "");
             this.topicPartitionCounts = Optional.ofNullable(getTopicPartitionCounts(topicPartitionsStr, topics));
@@ -155,6 +164,18 @@ public class MantisKafkaSourceConfig {
         return staticPartitionAssignmentEnabled;
     }
 
+    public Boolean getBatchedEmissionEnabled() {
+        return batchedEmissionEnabled;
+    }
+
+    public int getNumPrefetchedBatches() {
+        return numPrefetchedBatches;
+    }
+
+    public int getNumParseThreadsPerConsumer() {
+        return numParseThreadsPerConsumer;
+    }
+
     public Optional<Map<String, Integer>> getTopicPartitionCounts() {
         return topicPartitionCounts;
     }
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.connector.kafka.source;
+
+import io.mantisrx.connector.kafka.source.checkpoint.strategy.CheckpointStrategy;
+import io.mantisrx.connector.kafka.source.metrics.ConsumerMetrics;
+import io.mantisrx.shaded.com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Persists the checkpoints of a consumer with its {@link CheckpointStrategy}.
+ * <p>
+ * Checkpoints are snapshotted by the thread polling the consumer. If the strategy
+ * {@link CheckpointStrategy#supportsAsyncPersist() supports it}, they are persisted on a dedicated thread, so that
+ * emission does not stall on the checkpoint store. A checkpoint taken while the previous one is still being persisted
+ * replaces any other checkpoint waiting behind it, so that only the latest snapshot is written. Otherwise, e.g. for
+ * strategies committing through the consumer, checkpoints are persisted by the calling thread, and it is up to the
+ * strategy not to block it.
+ * <p>
+ * Once partitions are revoked, their offsets are no longer persisted from checkpoints taken before the revocation,
+ * so that they cannot override the offsets committed by the consumer the partitions were reassigned to.
+ */
+class OffsetCheckpointer<S> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffsetCheckpointer.class);
+    private static final long CLOSE_TIMEOUT_MS = 5_000;
+
+    private final CheckpointStrategy<S> strategy;
+    private final ConsumerMetrics consumerMetrics;
+    private final ExecutorService executor;
+    private final AtomicReference<Map<TopicPartition, S>> pending = new AtomicReference<>();
+    private final AtomicBoolean persisting = new AtomicBoolean(false);
+    // held while a pending checkpoint is taken and persisted
+    private final Object persistLock = new Object();
+    private volatile boolean closed = false;
+
+    OffsetCheckpointer(final int consumerId,
+                       final CheckpointStrategy<S> strategy,
+                       final ConsumerMetrics consumerMetrics) {
+        this.strategy = strategy;
+        this.consumerMetrics = consumerMetrics;
+        this.executor = strategy.supportsAsyncPersist()
+            ? Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("mantis-kafka-checkpointer-" + consumerId)
+                .setDaemon(true)
+                .build())
+            : null;
+    }
+
+    /**
+     * Persists the given checkpoint, asynchronously if supported by the strategy.
+     */
+    void checkpoint(final Map<TopicPartition, S> checkpoint) {
+        if (executor == null || closed) {
+            persist(checkpoint);
+            return;
+        }
+        if (pending.getAndSet(checkpoint) != null) {
+            consumerMetrics.incrementCheckpointCoalescedCount();
+        }
+        schedule();
+    }
+
+    private void schedule() {
+        if (persisting.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::persistPending);
+            } catch (RejectedExecutionException e) {
+                // closing, the pending checkpoint is persisted by close()
+                persisting.set(false);
+            }
+        }
+    }
+
+    private void persistPending() {
+        try {
+            while (persistNextPending()) {
+                // keep persisting checkpoints submitted while persisting
+            }
+        } finally {
+            persisting.set(false);
+        }
+        // a checkpoint may have been submitted after the loop ended but before the flag was cleared
+        if (pending.get() != null && !closed) {
+            schedule();
+        }
+    }
+
+    private boolean persistNextPending() {
+        synchronized (persistLock) {
+            final Map<TopicPartition, S> checkpoint = pending.getAndSet(null);
+            if (checkpoint == null) {
+                return false;
+            }
+            persist(checkpoint);
+            return true;
+        }
+    }
+
+    /**
+     * Drops the given partitions from the checkpoint waiting to be persisted, after waiting for the checkpoint being
+     * persisted if any. Called by the polling thread when the partitions are revoked.
+     */
+    void revoke(final Collection<TopicPartition> partitions) {
+        if (executor == null || partitions.isEmpty()) {
+            return;
+        }
+        synchronized (persistLock) {
+            pending.updateAndGet(checkpoint -> {
+                if (checkpoint == null) {
+                    return null;
+                }
+                final Map<TopicPartition, S> retained = new HashMap<>(checkpoint);
+                retained.keySet().removeAll(partitions);
+                return retained.isEmpty() ? null : retained;
+            });
+        }
+    }
+
+    private void persist(final Map<TopicPartition, S> checkpoint) {
+        final long startTime = System.currentTimeMillis();
+        try {
+            strategy.persistCheckpoint(checkpoint);
+            consumerMetrics.incrementCommitCount();
+        } catch (Exception e) {
+            consumerMetrics.incrementErrorCount();
+            LOGGER.warn("failed to persist checkpoint {}", checkpoint, e);
+        }
+        consumerMetrics.recordCheckpointDelay(System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Waits for the checkpoint being persisted, persists the latest one still pending and closes the strategy.
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    LOGGER.warn("timed out waiting for checkpoint to be persisted");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            persistNextPending();
+        }
+        strategy.close();
+    }
+}
@@ -18,7 +18,7 @@ package io.mantisrx.connector.kafka.source;
 
 import com.netflix.spectator.api.Counter;
 import com.netflix.spectator.api.Registry;
-import io.netty.util.internal.ConcurrentSet;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -33,29 +33,123 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
+/**
+ * Tracks the offsets read from each topic partition that are awaiting acknowledgement from the processing stage.
+ * <p>
+ * The un-acked offsets of a partition are kept in a sliding bitmap starting at the lowest un-acked offset, so memory
+ * is bounded by the span of offsets in flight rather than by their number, and a checkpoint commits up to the lowest
+ * un-acked offset instead of waiting for every read message to be acked.
+ * <p>
+ * The span is capped at {@link #DEFAULT_MAX_UN_ACKED_SPAN} offsets, e.g. if a message is never acked. Past the cap,
+ * later offsets of the partition are no longer tracked and its checkpoint stops advancing at the first of them, until
+ * the partition is reset on rebalance or the consumer seeks back.
+ */
 public class TopicPartitionStateManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TopicPartitionStateManager.class);
 
-    // Default to 20ms delay between retries for checkpoint ready
-    private final int checkpointReadyCheckDelayMs;
+    // 8M offsets, i.e. 1MB of bitmap per partition
+    public static final long DEFAULT_MAX_UN_ACKED_SPAN = 1L << 23;
 
     private final Counter waitingForAckCount;
+    private final Counter unAckedSpanExceededCount;
+    private final long maxUnAckedSpan;
+
+    public TopicPartitionStateManager(Registry registry, String kafkaClientId) {
+        this(registry, kafkaClientId, DEFAULT_MAX_UN_ACKED_SPAN);
+    }
 
-    public TopicPartitionStateManager(Registry registry, String kafkaClientId, int checkpointReadyCheckDelayMs) {
-        this.checkpointReadyCheckDelayMs = checkpointReadyCheckDelayMs;
+    TopicPartitionStateManager(Registry registry, String kafkaClientId, long maxUnAckedSpan) {
         this.waitingForAckCount = registry.counter("waitingOnAck", "client-id", kafkaClientId);
+        this.unAckedSpanExceededCount = registry.counter("unAckedSpanExceeded", "client-id", kafkaClientId);
+        this.maxUnAckedSpan = maxUnAckedSpan;
     }
 
     public static final long DEFAULT_LAST_READ_OFFSET = 0;
 
+    private static final long NOT_OVERFLOWED = -1;
+
     private class State {
 
-        private final AtomicLong lastReadOffset = new AtomicLong(DEFAULT_LAST_READ_OFFSET);
-        private final ConcurrentSet<Long> unAckedOffsets = new ConcurrentSet<>();
+        private final TopicPartition tp;
+        private final OffsetWindow unAckedOffsets = new OffsetWindow(maxUnAckedSpan);
+        private long lastReadOffset = DEFAULT_LAST_READ_OFFSET;
+        // first offset read that didn't fit in the window, the checkpoint can't advance past it
+        private long firstUntrackedOffset = NOT_OVERFLOWED;
+        // generation in which the partition was last revoked, messages polled before it are stale
+        private long revokedGeneration = 0;
+
+        State(final TopicPartition tp) {
+            this.tp = tp;
+        }
+
+        /**
+         * Returns false, without recording the offset, if the message was polled before the partition was revoked.
+         */
+        synchronized boolean read(final long offset, final long generation) {
+            if (generation < revokedGeneration) {
+                return false;
+            }
+            if (lastReadOffset != DEFAULT_LAST_READ_OFFSET && offset <= lastReadOffset) {
+                // offsets of a partition are read in order unless the consumer seeks back, in which case every
+                // offset from there on is read again
+                LOGGER.info("offset {} of {} read after offset {}, resetting un-acked offsets", offset, tp, lastReadOffset);
+                unAckedOffsets.clear();
+                firstUntrackedOffset = NOT_OVERFLOWED;
+            }
+            lastReadOffset = offset;
+            if (firstUntrackedOffset != NOT_OVERFLOWED) {
+                return true;
+            }
+            if (!unAckedOffsets.add(offset)) {
+                LOGGER.warn("more than {} offsets of {} awaiting ack from offset {}, not committing past offset {}",
+                        maxUnAckedSpan, tp, unAckedOffsets.lowest(), offset);
+                unAckedSpanExceededCount.increment();
+                firstUntrackedOffset = offset;
+            }
+            return true;
+        }
+
+        synchronized void ack(final long offset) {
+            unAckedOffsets.remove(offset);
+        }
+
+        synchronized long getLastReadOffset() {
+            return lastReadOffset;
+        }
+
+        synchronized boolean hasUnAckedOffsets() {
+            return !unAckedOffsets.isEmpty();
+        }
+
+        /**
+         * Returns the offset of the next message to consume once all messages before it have been acked, or
+         * {@link #DEFAULT_LAST_READ_OFFSET} if no message was read.
+         */
+        synchronized long getCommittableOffset() {
+            if (lastReadOffset == DEFAULT_LAST_READ_OFFSET) {
+                return DEFAULT_LAST_READ_OFFSET;
+            }
+            if (!unAckedOffsets.isEmpty()) {
+                return unAckedOffsets.lowest();
+            }
+            return firstUntrackedOffset != NOT_OVERFLOWED ? firstUntrackedOffset : lastReadOffset + 1;
+        }
+
+        synchronized void reset() {
+            unAckedOffsets.clear();
+            lastReadOffset = DEFAULT_LAST_READ_OFFSET;
+            firstUntrackedOffset = NOT_OVERFLOWED;
+        }
+
+        synchronized void revoke(final long generation) {
+            reset();
+            revokedGeneration = generation;
+        }
     }
 
     private final ConcurrentMap<TopicPartition, State> partitionState = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
 
     /**
      * Track the message with this offset as read from Kafka but waiting on acknowledgement from the processing stage.
@@ -64,12 +158,39 @@ public class TopicPartitionStateManager {
      * @param offset kafka offset for the message
      */
     public void recordMessageRead(final TopicPartition tp, final long offset) {
-        // add to set
-        if (!partitionState.containsKey(tp)) {
-            partitionState.putIfAbsent(tp, new State());
+        partitionState.computeIfAbsent(tp, State::new).read(offset, Long.MAX_VALUE);
+    }
+
+    /**
+     * Track the message with this offset as read, unless its partition was revoked since the message was polled.
+     *
+     * @param tp         TopicPartition the message was read from
+     * @param offset     kafka offset for the message
+     * @param generation the {@link #getGeneration() generation} when the message was polled
+     *
+     * @return false if the message is stale and must not be emitted
+     */
+    public boolean recordMessageRead(final TopicPartition tp, final long offset, final long generation) {
+        return partitionState.computeIfAbsent(tp, State::new).read(offset, generation);
+    }
+
+    /**
+     * Returns the current assignment generation. It increases every time partitions are {@link #revoke revoked}.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Clears the state of revoked partitions and starts a new generation, so that messages of these partitions
+     * polled before the revocation are no longer recorded as read. Their offsets will be read again by whichever
+     * consumer the partitions are assigned to next.
+     */
+    public void revoke(final Collection<TopicPartition> partitions) {
+        final long revokedGeneration = generation.incrementAndGet();
+        for (TopicPartition tp : partitions) {
+            partitionState.computeIfAbsent(tp, State::new).revoke(revokedGeneration);
         }
-        partitionState.get(tp).unAckedOffsets.add(offset);
-        partitionState.get(tp).lastReadOffset.set(offset);
     }
 
     /**
@@ -79,11 +200,10 @@ public class TopicPartitionStateManager {
      * @param offset kafka offset for the message
      */
     public void recordMessageAck(final TopicPartition tp, final long offset) {
-        // remove from set
-        if (!partitionState.containsKey(tp)) {
-            return;
+        final State state = partitionState.get(tp);
+        if (state != null) {
+            state.ack(offset);
         }
-        partitionState.get(tp).unAckedOffsets.remove(offset);
     }
 
     /**
@@ -94,20 +214,17 @@ public class TopicPartitionStateManager {
      * @return last offset read from give TopicPartition
      */
     public Optional<Long> getLastOffset(final TopicPartition tp) {
-        if (!partitionState.containsKey(tp)) {
+        final State state = partitionState.get(tp);
+        if (state == null) {
             return Optional.empty();
         }
-        return Optional.of(partitionState.get(tp).lastReadOffset.get());
-    }
-
-    private boolean allMessagesAcked(final TopicPartition tp) {
-        if (!partitionState.containsKey(tp)) {
-            // no messages, no acks needed
-            return true;
-        }
-        return partitionState.get(tp).unAckedOffsets.size() == 0;
+        return Optional.of(state.getLastReadOffset());
     }
 
+    /**
+     * Creates a checkpoint of the given partitions. The checkpoint of a partition with messages still awaiting
+     * acknowledgement is the offset of the lowest of them, so that no un-acked message is skipped on restart.
+     */
     public Map<TopicPartition, OffsetAndMetadata> createCheckpoint(final Collection<TopicPartition> partitions) {
         if (partitionState.isEmpty()) {
             return Collections.emptyMap();
@@ -115,20 +232,16 @@ public class TopicPartitionStateManager {
         final Map<TopicPartition, OffsetAndMetadata> checkpoint = new HashMap<>(partitions.size());
 
         for (TopicPartition tp : partitions) {
-            while (!allMessagesAcked(tp)) {
-                try {
-                    waitingForAckCount.increment();
-                    Thread.sleep(checkpointReadyCheckDelayMs);
-                } catch (InterruptedException e) {
-                    LOGGER.info("thread interrupted when creating checkpoint for {}", tp);
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("thread interrupted when creating checkpoint", e);
-                }
-            }
             final State pState = partitionState.get(tp);
-            final Optional<Long> lastOffset = Optional.ofNullable(pState != null ? pState.lastReadOffset.get() : null);
-            if (lastOffset.isPresent() && lastOffset.get() != DEFAULT_LAST_READ_OFFSET) {
-                checkpoint.put(tp, new OffsetAndMetadata(lastOffset.get() + 1, String.valueOf(System.currentTimeMillis())));
+            if (pState == null) {
+                continue;
+            }
+            if (pState.hasUnAckedOffsets()) {
+                waitingForAckCount.increment();
+            }
+            final long committableOffset = pState.getCommittableOffset();
+            if (committableOffset != DEFAULT_LAST_READ_OFFSET) {
+                checkpoint.put(tp, new OffsetAndMetadata(committableOffset, String.valueOf(System.currentTimeMillis())));
             }
         }
         return checkpoint;
@@ -136,22 +249,141 @@ public class TopicPartitionStateManager {
 
     /* reset partition counters */
     public void resetCounters(final TopicPartition tp) {
-        if (!partitionState.containsKey(tp)) {
-            return;
+        final State state = partitionState.get(tp);
+        if (state != null) {
+            state.reset();
         }
-        partitionState.get(tp).unAckedOffsets.clear();
-        partitionState.get(tp).lastReadOffset.set(DEFAULT_LAST_READ_OFFSET);
     }
 
     /* reset all counters */
     public void resetCounters() {
         LOGGER.info("resetting all counters");
-        if (partitionState.isEmpty()) {
-            return;
+        partitionState.values().forEach(State::reset);
+    }
+
+    /**
+     * A set of offsets backed by a ring of 64 bit words that slides forward as its lowest offsets are removed.
+     * Not thread-safe.
+     */
+    static class OffsetWindow {
+
+        private static final int INITIAL_WORDS = 16;
+
+        // highest span of offsets the window may cover, from the start of the word of the lowest offset
+        private final long maxSpan;
+        private long[] words = new long[INITIAL_WORDS];
+        // index in words of the word holding baseOffset
+        private int head;
+        // offset of the first bit of the head word, a multiple of 64
+        private long baseOffset;
+        // highest offset added since the window was last empty
+        private long highestOffset;
+        private int size;
+
+        OffsetWindow(final long maxSpan) {
+            this.maxSpan = maxSpan;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Adds the given offset, unless it would take the window over its maximum span.
+         *
+         * @return false if the offset was not added.
+         */
+        boolean add(final long offset) {
+            if (size == 0) {
+                clear();
+                baseOffset = alignedOffset(offset);
+                highestOffset = offset;
+            } else if (Math.max(offset, highestOffset) - Math.min(offset, baseOffset) >= maxSpan) {
+                return false;
+            } else if (offset < baseOffset) {
+                resize(alignedOffset(offset), highestOffset + 1);
+            } else if (offset >= baseOffset + capacity()) {
+                resize(baseOffset, offset + 1);
+            }
+            highestOffset = Math.max(highestOffset, offset);
+            final int index = wordIndex(offset);
+            final long mask = 1L << offset;
+            if ((words[index] & mask) == 0) {
+                words[index] |= mask;
+                size++;
+            }
+            return true;
+        }
+
+        void remove(final long offset) {
+            if (size == 0 || offset < baseOffset || offset >= baseOffset + capacity()) {
+                return;
+            }
+            final int index = wordIndex(offset);
+            final long mask = 1L << offset;
+            if ((words[index] & mask) != 0) {
+                words[index] &= ~mask;
+                size--;
+                // slide past the words whose offsets have all been removed
+                while (size > 0 && words[head] == 0) {
+                    head = (head + 1) % words.length;
+                    baseOffset += Long.SIZE;
+                }
+            }
+        }
+
+        /**
+         * Returns the lowest offset in the window, the window must not be empty.
+         */
+        long lowest() {
+            for (int i = 0; i < words.length; i++) {
+                final long word = words[(head + i) % words.length];
+                if (word != 0) {
+                    return baseOffset + (long) i * Long.SIZE + Long.numberOfTrailingZeros(word);
+                }
+            }
+            throw new IllegalStateException("no offsets in window");
+        }
+
+        void clear() {
+            Arrays.fill(words, 0L);
+            head = 0;
+            size = 0;
+        }
+
+        private long capacity() {
+            return (long) words.length * Long.SIZE;
+        }
+
+        private int wordIndex(final long offset) {
+            return (int) ((head + (offset - baseOffset) / Long.SIZE) % words.length);
+        }
+
+        /**
+         * Grows the ring to cover the offsets from newBaseOffset up to endOffset (exclusive).
+         */
+        private void resize(final long newBaseOffset, final long endOffset) {
+            int length = words.length;
+            while ((long) length * Long.SIZE < endOffset - newBaseOffset) {
+                length *= 2;
+            }
+            final long[] resized = new long[length];
+            final int shift = (int) ((baseOffset - newBaseOffset) / Long.SIZE);
+            final int usedWords = (int) ((highestOffset - baseOffset) / Long.SIZE) + 1;
+            for (int i = 0; i < usedWords; i++) {
+                resized[shift + i] = words[(head + i) % words.length];
+            }
+            words = resized;
+            head = 0;
+            baseOffset = newBaseOffset;
+        }
+
+        private static long alignedOffset(final long offset) {
+            return offset - (offset % Long.SIZE);
         }
-        partitionState.values().stream().forEach(state -> {
-            state.unAckedOffsets.clear();
-            state.lastReadOffset.set(DEFAULT_LAST_READ_OFFSET);
-        });
     }
 }
@@ -65,4 +65,18 @@ public interface CheckpointStrategy<S> {
      * @return {@link CheckpointStrategyOptions checkpointStrategy} implemented
      */
     String type();
+
+    /**
+     * true indicates {@link #persistCheckpoint(Map)} may be called from a thread other than the one polling the
+     * consumer, so that checkpoints are persisted without stalling the consumer.
+     */
+    default boolean supportsAsyncPersist() {
+        return false;
+    }
+
+    /**
+     * cleanup resources, called once the consumer is closed.
+     */
+    default void close() {
+    }
 }
@@ -25,14 +25,25 @@ import io.mantisrx.shaded.com.fasterxml.jackson.databind.module.SimpleModule;
 import io.mantisrx.shaded.com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import io.mantisrx.shaded.com.google.common.base.Strings;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
@@ -43,6 +54,13 @@ import org.slf4j.LoggerFactory;
 /**
  * DO NOT USE IN PRODUCTION. This strategy is created only for unit test purposes and demonstrates using an alternative
  * storage backend for committing topic partition offsets.
+ * <p>
+ * Each instance appends its checkpoints to its own log in the checkpoint directory, one line per topic partition,
+ * and syncs the log once per checkpoint. The log is compacted to the latest line of each topic partition once it
+ * grows past {@link #MIN_COMPACTION_LINES} and {@link #COMPACTION_RATIO} times the number of topic partitions.
+ * Checkpoints are loaded from the latest line of the topic partition across all logs in the directory, so that
+ * partitions can move between consumers, falling back to the one file per topic partition written by earlier
+ * versions of this strategy.
  */
 public class FileBasedOffsetCheckpointStrategy implements CheckpointStrategy<OffsetAndMetadata> {
 
@@ -61,7 +79,22 @@ public class FileBasedOffsetCheckpointStrategy implements CheckpointStrategy<Off
 
     public static final String DEFAULT_CHECKPOINT_DIR = "/tmp/FileBasedOffsetCheckpointStrategy";
     public static final String CHECKPOINT_DIR_PROP = "checkpointDirectory";
+    public static final String CHECKPOINT_LOG_NAME_PROP = "checkpointLogName";
+    public static final String DEFAULT_CHECKPOINT_LOG_NAME = "checkpoints";
+
+    static final String LOG_SUFFIX = ".log";
+    static final int MIN_COMPACTION_LINES = 1000;
+    static final int COMPACTION_RATIO = 4;
+
+    private static final String FIELD_SEPARATOR = "\t";
+    private static final AtomicInteger INSTANCES = new AtomicInteger(0);
+    private static final AtomicLong LAST_TIMESTAMP = new AtomicLong(0);
+
     private final AtomicReference<String> checkpointDir = new AtomicReference<>(null);
+    private final Map<TopicPartition, LogLine> latestLines = new HashMap<>();
+    private Path logPath;
+    private FileChannel log;
+    private int logLines;
 
     private String filePath(final TopicPartition tp) {
         return checkpointDir.get() + "/" + tp.topic().concat("-").concat(String.valueOf(tp.partition()));
@@ -74,23 +107,39 @@ public class FileBasedOffsetCheckpointStrategy implements CheckpointStrategy<Off
         checkpointDir.compareAndSet(null, checkptDir);
 
         createDirectoryIfDoesNotExist(checkpointDir.get());
+        // consumers are created in the same order on every start of a worker, so that a restarted consumer finds its log
+        openLog("worker-" + context.getWorkerInfo().getWorkerIndex() + "-" + INSTANCES.getAndIncrement());
     }
 
     @Override
-    public boolean persistCheckpoint(Map<TopicPartition, OffsetAndMetadata> checkpoint) {
+    public synchronized boolean persistCheckpoint(Map<TopicPartition, OffsetAndMetadata> checkpoint) {
+        if (checkpoint.isEmpty()) {
+            return true;
+        }
+        // strictly increasing, so that the latest of the lines written in the same millisecond wins on load
+        final long timestamp = LAST_TIMESTAMP.updateAndGet(last -> Math.max(System.currentTimeMillis(), last + 1));
+        final StringBuilder lines = new StringBuilder();
         for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : checkpoint.entrySet()) {
-            final TopicPartition tp = entry.getKey();
-            final Path filePath = Paths.get(filePath(tp));
+            final LogLine line = new LogLine(timestamp, entry.getKey(), entry.getValue());
             try {
-                if (Files.notExists(filePath)) {
-                    LOGGER.info("file {} does not exist, creating one", filePath);
-                    Files.createFile(filePath);
-                }
-                Files.write(filePath, Collections.singletonList(MAPPER.writeValueAsString(entry.getValue())));
+                line.appendTo(lines);
             } catch (IOException e) {
-                LOGGER.error("error writing checkpoint {} to file {}", entry.getValue(), filePath, e);
+                LOGGER.error("error serializing checkpoint {}", entry.getValue(), e);
                 throw new RuntimeException(e);
             }
+            latestLines.put(entry.getKey(), line);
+        }
+
+        try {
+            write(log, lines);
+            log.force(false);
+            logLines += checkpoint.size();
+            if (logLines >= Math.max(MIN_COMPACTION_LINES, COMPACTION_RATIO * latestLines.size())) {
+                compact();
+            }
+        } catch (IOException e) {
+            LOGGER.error("error writing checkpoint {} to file {}", checkpoint, logPath, e);
+            throw new RuntimeException(e);
         }
 
         return true;
@@ -98,17 +147,8 @@ public class FileBasedOffsetCheckpointStrategy implements CheckpointStrategy<Off
 
     @Override
     public Optional<OffsetAndMetadata> loadCheckpoint(TopicPartition tp) {
-        try {
-            final List<String> lines = Files.readAllLines(Paths.get(filePath(tp)));
-            if (!lines.isEmpty()) {
-                final String checkpointString = lines.get(0);
-                LOGGER.info("read from file {}", checkpointString);
-                return Optional.ofNullable(MAPPER.readValue(checkpointString, OffsetAndMetadata.class));
-            }
-        } catch (IOException e) {
-            LOGGER.error("error loading checkpoint from file {}", filePath(tp), e);
-        }
-        return Optional.empty();
+        final Optional<OffsetAndMetadata> checkpoint = loadCheckpoints(Collections.singletonList(tp)).get(tp);
+        return checkpoint == null ? Optional.empty() : checkpoint;
     }
 
     @Override
@@ -121,6 +161,7 @@ public class FileBasedOffsetCheckpointStrategy implements CheckpointStrategy<Off
 
         checkpointDir.compareAndSet(null, checkptDir);
         createDirectoryIfDoesNotExist(checkpointDir.get());
+        openLog(properties.getOrDefault(CHECKPOINT_LOG_NAME_PROP, DEFAULT_CHECKPOINT_LOG_NAME));
     }
 
     private void createDirectoryIfDoesNotExist(String dir) {
@@ -135,18 +176,177 @@ public class FileBasedOffsetCheckpointStrategy implements CheckpointStrategy<Off
         }
     }
 
+    /**
+     * Opens the log of this instance, recovering the latest lines it holds so they survive compaction.
+     */
+    private synchronized void openLog(String logName) {
+        if (log != null) {
+            return;
+        }
+        logPath = Paths.get(checkpointDir.get(), logName + LOG_SUFFIX);
+        try {
+            if (Files.exists(logPath)) {
+                for (LogLine line : readLog(logPath)) {
+                    latestLines.merge(line.tp, line, LogLine::latest);
+                    logLines++;
+                }
+            }
+            log = openForAppend(logPath);
+            LOGGER.info("opened checkpoint log {} with {} lines", logPath, logLines);
+        } catch (IOException e) {
+            LOGGER.error("failed to open checkpoint log {}", logPath, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Rewrites the log with the latest line of each topic partition and atomically replaces it.
+     */
+    private void compact() throws IOException {
+        final Path compactedPath = Paths.get(logPath.toString() + ".compacting");
+        final StringBuilder lines = new StringBuilder();
+        for (LogLine line : latestLines.values()) {
+            line.appendTo(lines);
+        }
+        try (FileChannel compacted = FileChannel.open(compactedPath, StandardOpenOption.CREATE,
+                                                      StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            write(compacted, lines);
+            compacted.force(false);
+        }
+        log.close();
+        Files.move(compactedPath, logPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        log = openForAppend(logPath);
+        LOGGER.debug("compacted checkpoint log {} from {} to {} lines", logPath, logLines, latestLines.size());
+        logLines = latestLines.size();
+    }
+
+    private static FileChannel openForAppend(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static void write(FileChannel channel, CharSequence lines) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static List<LogLine> readLog(Path path) throws IOException {
+        final List<LogLine> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            final LogLine logLine = LogLine.parse(line);
+            if (logLine != null) {
+                lines.add(logLine);
+            } else if (!line.isEmpty()) {
+                // a torn write at the end of the log if the process died while appending
+                LOGGER.warn("skipping malformed line in checkpoint log {}: {}", path, line);
+            }
+        }
+        return lines;
+    }
+
     @Override
     public Map<TopicPartition, Optional<OffsetAndMetadata>> loadCheckpoints(
         List<TopicPartition> tpList) {
+        final Set<TopicPartition> tps = new HashSet<>(tpList);
+        final Map<TopicPartition, LogLine> latest = new HashMap<>();
+        try (DirectoryStream<Path> logs = Files.newDirectoryStream(Paths.get(checkpointDir.get()), "*" + LOG_SUFFIX)) {
+            for (Path path : logs) {
+                for (LogLine line : readLog(path)) {
+                    if (tps.contains(line.tp)) {
+                        latest.merge(line.tp, line, LogLine::latest);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("error loading checkpoints from directory {}", checkpointDir.get(), e);
+        }
+
         Map<TopicPartition, Optional<OffsetAndMetadata>> tpChkMap = new HashMap<>();
         for (TopicPartition tp : tpList) {
-            tpChkMap.put(tp, loadCheckpoint(tp));
+            final LogLine line = latest.get(tp);
+            tpChkMap.put(tp, line != null ? Optional.of(line.offsetAndMetadata) : loadLegacyCheckpoint(tp));
         }
         return tpChkMap;
     }
 
+    private Optional<OffsetAndMetadata> loadLegacyCheckpoint(TopicPartition tp) {
+        final Path filePath = Paths.get(filePath(tp));
+        if (Files.notExists(filePath)) {
+            return Optional.empty();
+        }
+        try {
+            final List<String> lines = Files.readAllLines(filePath);
+            if (!lines.isEmpty()) {
+                final String checkpointString = lines.get(0);
+                LOGGER.info("read from file {}", checkpointString);
+                return Optional.ofNullable(MAPPER.readValue(checkpointString, OffsetAndMetadata.class));
+            }
+        } catch (IOException e) {
+            LOGGER.error("error loading checkpoint from file {}", filePath, e);
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean supportsAsyncPersist() {
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                LOGGER.warn("failed to close checkpoint log {}", logPath, e);
+            }
+            log = null;
+        }
+    }
+
     @Override
     public String type() {
         return CheckpointStrategyOptions.FILE_BASED_OFFSET_CHECKPOINTING;
     }
+
+    /**
+     * A line of the log: {@code timestamp<TAB>topic<TAB>partition<TAB>offsetAndMetadata as JSON}.
+     */
+    private static class LogLine {
+        private final long timestamp;
+        private final TopicPartition tp;
+        private final OffsetAndMetadata offsetAndMetadata;
+
+        LogLine(long timestamp, TopicPartition tp, OffsetAndMetadata offsetAndMetadata) {
+            this.timestamp = timestamp;
+            this.tp = tp;
+            this.offsetAndMetadata = offsetAndMetadata;
+        }
+
+        void appendTo(StringBuilder lines) throws IOException {
+            lines.append(timestamp).append('\t')
+                .append(tp.topic()).append('\t')
+                .append(tp.partition()).append('\t')
+                .append(MAPPER.writeValueAsString(offsetAndMetadata)).append('\n');
+        }
+
+        static LogLine parse(String line) {
+            final String[] fields = line.split(FIELD_SEPARATOR, 4);
+            if (fields.length != 4) {
+                return null;
+            }
+            try {
+                return new LogLine(Long.parseLong(fields[0]),
+                                   new TopicPartition(fields[1], Integer.parseInt(fields[2])),
+                                   MAPPER.readValue(fields[3], OffsetAndMetadata.class));
+            } catch (IOException | NumberFormatException e) {
+                return null;
+            }
+        }
+
+        static LogLine latest(LogLine a, LogLine b) {
+            return b.timestamp >= a.timestamp ? b : a;
+        }
+    }
 }
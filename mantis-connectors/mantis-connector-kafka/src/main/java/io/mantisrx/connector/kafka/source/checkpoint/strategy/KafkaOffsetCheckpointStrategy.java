@@ -19,6 +19,7 @@ package io.mantisrx.connector.kafka.source.checkpoint.strategy;
 import io.mantisrx.connector.kafka.source.metrics.ConsumerMetrics;
 import io.mantisrx.runtime.Context;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -33,7 +34,13 @@ import org.slf4j.LoggerFactory;
 
 
 /**
- * Leverages the default Kafka facilities to commit offsets to Kafka using {@link KafkaConsumer#commitSync(Map) commitSync(Map)}.
+ * Leverages the default Kafka facilities to commit offsets to Kafka using
+ * {@link KafkaConsumer#commitAsync(Map, org.apache.kafka.clients.consumer.OffsetCommitCallback) commitAsync}, so that
+ * the thread polling the consumer does not wait for the broker.
+ * <p>
+ * The consumer is not thread safe, so commits are issued by the thread polling the consumer, which also runs their
+ * callbacks from within poll. Only one commit is in flight at a time: checkpoints taken meanwhile replace each other
+ * and the latest one is committed when the in flight commit completes, dropping partitions no longer assigned.
  */
 public class KafkaOffsetCheckpointStrategy implements CheckpointStrategy<OffsetAndMetadata> {
 
@@ -41,6 +48,10 @@ public class KafkaOffsetCheckpointStrategy implements CheckpointStrategy<OffsetA
 
     private final KafkaConsumer<?, ?> consumer;
     private final ConsumerMetrics consumerMetrics;
+    // only accessed by the thread polling the consumer
+    private boolean commitInFlight = false;
+    private Map<TopicPartition, OffsetAndMetadata> pendingCheckpoint;
+    private boolean closed = false;
 
     public KafkaOffsetCheckpointStrategy(KafkaConsumer<?, ?> consumer, ConsumerMetrics metrics) {
         this.consumer = consumer;
@@ -53,27 +64,73 @@ public class KafkaOffsetCheckpointStrategy implements CheckpointStrategy<OffsetA
 
     @Override
     public boolean persistCheckpoint(final Map<TopicPartition, OffsetAndMetadata> checkpoint) {
-        if (!checkpoint.isEmpty()) {
-            try {
-                logger.debug("committing offsets {}", checkpoint.toString());
-                consumer.commitSync(checkpoint);
-                consumerMetrics.recordCommittedOffset(checkpoint);
-            } catch (InvalidOffsetException ioe) {
-                logger.warn("failed to commit offsets " + checkpoint.toString() + " will seek to beginning", ioe);
-                final Set<TopicPartition> topicPartitionSet = ioe.partitions();
-                for (TopicPartition tp : topicPartitionSet) {
-                    logger.info("partition " + tp.toString() + " consumer position " + consumer.position(tp));
-                }
-                consumer.seekToBeginning(ioe.partitions());
-            } catch (KafkaException cfe) {
-                // should not be retried
-                logger.warn("unrecoverable exception on commit offsets " + checkpoint.toString(), cfe);
-                return false;
+        if (checkpoint.isEmpty()) {
+            return true;
+        }
+        if (commitInFlight) {
+            if (pendingCheckpoint != null) {
+                consumerMetrics.incrementCheckpointCoalescedCount();
             }
+            pendingCheckpoint = checkpoint;
+            return true;
+        }
+        return commit(checkpoint);
+    }
+
+    private boolean commit(final Map<TopicPartition, OffsetAndMetadata> checkpoint) {
+        try {
+            logger.debug("committing offsets {}", checkpoint.toString());
+            commitInFlight = true;
+            consumer.commitAsync(checkpoint, (offsets, exception) -> onCommitComplete(checkpoint, exception));
+        } catch (KafkaException cfe) {
+            commitInFlight = false;
+            // should not be retried
+            logger.warn("unrecoverable exception on commit offsets " + checkpoint.toString(), cfe);
+            return false;
         }
         return true;
     }
 
+    private void onCommitComplete(final Map<TopicPartition, OffsetAndMetadata> checkpoint, final Exception exception) {
+        commitInFlight = false;
+        if (exception == null) {
+            consumerMetrics.recordCommittedOffset(checkpoint);
+        } else if (exception instanceof InvalidOffsetException) {
+            final InvalidOffsetException ioe = (InvalidOffsetException) exception;
+            logger.warn("failed to commit offsets " + checkpoint.toString() + " will seek to beginning", ioe);
+            final Set<TopicPartition> topicPartitionSet = ioe.partitions();
+            for (TopicPartition tp : topicPartitionSet) {
+                logger.info("partition " + tp.toString() + " consumer position " + consumer.position(tp));
+            }
+            consumer.seekToBeginning(ioe.partitions());
+        } else {
+            consumerMetrics.incrementErrorCount();
+            logger.warn("failed to commit offsets " + checkpoint.toString(), exception);
+        }
+
+        if (pendingCheckpoint != null && !closed) {
+            final Map<TopicPartition, OffsetAndMetadata> next = assignedOnly(pendingCheckpoint);
+            pendingCheckpoint = null;
+            if (!next.isEmpty()) {
+                commit(next);
+            }
+        }
+    }
+
+    /**
+     * Drops the partitions revoked since the checkpoint was taken, their offsets are committed by their new owner.
+     */
+    private Map<TopicPartition, OffsetAndMetadata> assignedOnly(final Map<TopicPartition, OffsetAndMetadata> checkpoint) {
+        final Set<TopicPartition> assignment = consumer.assignment();
+        final Map<TopicPartition, OffsetAndMetadata> assigned = new HashMap<>(checkpoint);
+        for (Iterator<TopicPartition> it = assigned.keySet().iterator(); it.hasNext(); ) {
+            if (!assignment.contains(it.next())) {
+                it.remove();
+            }
+        }
+        return assigned;
+    }
+
     @Override
     public Optional<OffsetAndMetadata> loadCheckpoint(TopicPartition tp) {
         logger.trace("rely on default kafka protocol to seek to last committed offset");
@@ -98,4 +155,40 @@ public class KafkaOffsetCheckpointStrategy implements CheckpointStrategy<OffsetA
     public String type() {
         return CheckpointStrategyOptions.OFFSETS_ONLY_DEFAULT;
     }
+
+    /**
+     * Commits are asynchronous but must be issued by the thread polling the consumer.
+     */
+    @Override
+    public boolean supportsAsyncPersist() {
+        return false;
+    }
+
+    /**
+     * Commits the checkpoint still waiting behind the in flight commit, if any. Called by the thread polling the
+     * consumer before closing it, which waits for the in flight commit.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (pendingCheckpoint == null) {
+            return;
+        }
+        final Map<TopicPartition, OffsetAndMetadata> checkpoint = assignedOnly(pendingCheckpoint);
+        pendingCheckpoint = null;
+        if (checkpoint.isEmpty()) {
+            return;
+        }
+        try {
+            logger.debug("committing offsets {} on close", checkpoint.toString());
+            consumer.commitSync(checkpoint);
+            consumerMetrics.recordCommittedOffset(checkpoint);
+        } catch (KafkaException | IllegalStateException e) {
+            // the consumer may already be closed
+            logger.warn("failed to commit offsets " + checkpoint.toString() + " on close", e);
+        }
+    }
 }
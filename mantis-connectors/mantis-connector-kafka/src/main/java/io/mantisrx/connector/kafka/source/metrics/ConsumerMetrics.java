@@ -40,6 +40,7 @@ public class ConsumerMetrics {
     private static final String METRIC_KAFKA_WAIT_FOR_DATA_COUNT = "kafkaWaitForDataCount";
     private static final String METRIC_KAFKA_COMMIT_COUNT = "kafkaCommitCount";
     private static final String METRIC_CHECKPOINT_DELAY = "checkpointDelay";
+    private static final String METRIC_CHECKPOINT_COALESCED_COUNT = "checkpointCoalescedCount";
     private static final String METRIC_PARSE_FAILURE_COUNT = "parseFailureCount";
     private static final String METRIC_KAFKA_MSG_VALUE_NULL_COUNT = "kafkaMessageValueNull";
     private static final String METRIC_TIME_SINCE_LAST_POLL_MS = "timeSinceLastPollMs";
@@ -55,6 +56,7 @@ public class ConsumerMetrics {
     private final Counter kafkaErrorCount;
     private final Counter kafkaWaitForDataCount;
     private final Counter kafkaCommitCount;
+    private final Counter checkpointCoalescedCount;
     private final Counter parseFailureCount;
     private final Counter kafkaPausePartitions;
     private final Counter kafkaResumePartitions;
@@ -74,6 +76,7 @@ public class ConsumerMetrics {
         this.kafkaWaitForDataCount = registry.counter(createId(METRIC_KAFKA_WAIT_FOR_DATA_COUNT));
         this.kafkaCommitCount = registry.counter(createId(METRIC_KAFKA_COMMIT_COUNT));
         this.checkpointDelay = registry.gauge(createId(METRIC_CHECKPOINT_DELAY));
+        this.checkpointCoalescedCount = registry.counter(createId(METRIC_CHECKPOINT_COALESCED_COUNT));
         this.timeSinceLastPollMs = registry.gauge(createId(METRIC_TIME_SINCE_LAST_POLL_MS));
         this.timeSinceLastPollWithDataMs = registry.gauge(createId(METRIC_TIME_SINCE_LAST_POLL_WITH_DATA_MS));
         this.parseFailureCount = registry.counter(createId(METRIC_PARSE_FAILURE_COUNT));
@@ -125,6 +128,10 @@ public class ConsumerMetrics {
         kafkaCommitCount.increment();
     }
 
+    public void incrementCheckpointCoalescedCount() {
+        checkpointCoalescedCount.increment();
+    }
+
     public void incrementParseFailureCount() {
         parseFailureCount.increment();
     }
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.connector.kafka.sink;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import io.mantisrx.connector.kafka.ParameterTestUtils;
+import io.mantisrx.runtime.Context;
+import io.mantisrx.runtime.MantisJobDurationType;
+import io.mantisrx.runtime.PortRequest;
+import io.mantisrx.runtime.TestWorkerInfo;
+import io.mantisrx.runtime.WorkerInfo;
+import io.mantisrx.runtime.parameter.Parameters;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.Test;
+import org.mockito.stubbing.Answer;
+import rx.Observable;
+
+
+public class KafkaSinkMockProducerTest {
+
+    private static final String TEST_TOPIC = "testTopic";
+
+    private static Context createContext(Object... params) {
+        Context context = mock(Context.class);
+        Parameters parameters = ParameterTestUtils.createParameters(params);
+        when(context.getParameters()).then((Answer<Parameters>) invocation -> parameters);
+        when(context.getWorkerInfo()).then((Answer<WorkerInfo>) invocation ->
+                new TestWorkerInfo("testJobName", "testJobName-1", 1, 0, 1, MantisJobDurationType.Perpetual, "1.1.1.1"));
+        when(context.getJobId()).then((Answer<String>) invocation -> "testJobName-1");
+        return context;
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static double sendErrorCount(Registry registry) {
+        return registry.counters()
+            .filter(c -> c.id().name().equals("MantisKafkaProducer_kafkaSendErrorCount"))
+            .mapToDouble(c -> c.count())
+            .sum();
+    }
+
+    @Test
+    public void testSendsKeyedRecords() {
+        MockProducer<byte[], byte[]> producer = new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+        KafkaSink<String> kafkaSink = new KafkaSink<>(new DefaultRegistry(), KafkaSinkMockProducerTest::bytes,
+                                                      s -> bytes("key" + (Integer.parseInt(s) % 2)), props -> producer);
+
+        kafkaSink.call(createContext(KafkaSinkJobParameters.TOPIC, TEST_TOPIC), mock(PortRequest.class),
+                       Observable.range(0, 10).map(String::valueOf));
+
+        List<ProducerRecord<byte[], byte[]>> history = producer.history();
+        assertEquals(10, history.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(TEST_TOPIC, history.get(i).topic());
+            assertArrayEquals(bytes("key" + (i % 2)), history.get(i).key());
+            assertArrayEquals(bytes(String.valueOf(i)), history.get(i).value());
+        }
+
+        kafkaSink.close();
+        assertTrue(producer.closed());
+    }
+
+    @Test
+    public void testSendsUnkeyedRecordsAndSkipsBadRecords() {
+        Registry registry = new DefaultRegistry();
+        MockProducer<byte[], byte[]> producer = new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+        KafkaSink<String> kafkaSink = new KafkaSink<>(registry, s -> {
+            if (s.equals("2")) {
+                throw new IllegalArgumentException("bad record");
+            }
+            return bytes(s);
+        }, null, props -> producer);
+
+        kafkaSink.call(createContext(KafkaSinkJobParameters.TOPIC, TEST_TOPIC), mock(PortRequest.class),
+                       Observable.range(0, 5).map(String::valueOf));
+
+        List<ProducerRecord<byte[], byte[]>> history = producer.history();
+        assertEquals(4, history.size());
+        assertNull(history.get(0).key());
+        assertArrayEquals(bytes("3"), history.get(2).value());
+        assertEquals(1.0, sendErrorCount(registry), 0.0);
+        kafkaSink.close();
+    }
+
+    @Test
+    public void testFailedSendsAreCounted() {
+        Registry registry = new DefaultRegistry();
+        MockProducer<byte[], byte[]> producer = new MockProducer<>(false, new ByteArraySerializer(), new ByteArraySerializer());
+        KafkaSink<String> kafkaSink = new KafkaSink<>(registry, KafkaSinkMockProducerTest::bytes, null, props -> producer);
+
+        kafkaSink.call(createContext(KafkaSinkJobParameters.TOPIC, TEST_TOPIC), mock(PortRequest.class),
+                       Observable.just("0", "1"));
+
+        assertTrue(producer.errorNext(new RuntimeException("send failed")));
+        assertTrue(producer.completeNext());
+        assertEquals(1.0, sendErrorCount(registry), 0.0);
+        kafkaSink.close();
+    }
+
+    @Test(timeout = 10_000)
+    public void testInFlightSendsAreBounded() throws InterruptedException {
+        MockProducer<byte[], byte[]> producer = new MockProducer<>(false, new ByteArraySerializer(), new ByteArraySerializer());
+        KafkaSink<String> kafkaSink = new KafkaSink<>(new DefaultRegistry(), KafkaSinkMockProducerTest::bytes, null, props -> producer);
+        Context context = createContext(KafkaSinkJobParameters.TOPIC, TEST_TOPIC,
+                                        KafkaSinkJobParameters.MAX_IN_FLIGHT_SENDS, 2);
+
+        Thread upstream = new Thread(() ->
+            kafkaSink.call(context, mock(PortRequest.class), Observable.range(0, 3).map(String::valueOf)));
+        upstream.start();
+
+        while (producer.history().size() < 2) {
+            Thread.sleep(10);
+        }
+        // the third record waits for one of the first two to be acknowledged
+        upstream.join(200);
+        assertTrue(upstream.isAlive());
+        assertEquals(2, producer.history().size());
+
+        assertTrue(producer.completeNext());
+        upstream.join();
+        assertEquals(3, producer.history().size());
+
+        assertTrue(producer.completeNext());
+        assertTrue(producer.completeNext());
+        kafkaSink.close();
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.connector.kafka.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.netflix.spectator.api.NoopRegistry;
+import io.mantisrx.connector.kafka.KafkaAckable;
+import io.mantisrx.connector.kafka.KafkaData;
+import io.mantisrx.connector.kafka.KafkaDataNotification;
+import io.mantisrx.connector.kafka.source.metrics.ConsumerMetrics;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+import rx.subjects.PublishSubject;
+
+
+public class BatchedConsumerFetcherTest {
+
+    private final TopicPartition topicPartition = new TopicPartition("testTopic", 0);
+    private final PublishSubject<KafkaDataNotification> ackSubject = PublishSubject.create();
+
+    @Test
+    public void testEmitsPrefetchedRecordsInRequestedSlices() {
+        final List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+        for (int offset = 1; offset <= 5; offset++) {
+            records.add(new ConsumerRecord<String, byte[]>(topicPartition.topic(), topicPartition.partition(), offset, null, new byte[]{1}));
+        }
+        final TopicPartitionStateManager partitionStateManager = new TopicPartitionStateManager(new NoopRegistry(), "test");
+        final MantisKafkaConsumer<?> consumer = mockConsumer(partitionStateManager,
+            new ConsumerRecords<>(Collections.singletonMap(topicPartition, records)));
+
+        final BatchedConsumerFetcher fetcher = new BatchedConsumerFetcher(consumer, 100, 2, 0,
+            record -> new KafkaAckable(new KafkaData(record, Optional.empty(), Optional.empty(), 1), ackSubject),
+            () -> { },
+            new AtomicBoolean());
+        fetcher.start();
+
+        assertEquals(2, nextNonEmpty(fetcher, 2).size());
+        assertEquals(2, nextNonEmpty(fetcher, 2).size());
+        final List<KafkaAckable> last = nextNonEmpty(fetcher, Long.MAX_VALUE);
+        assertEquals(1, last.size());
+        assertEquals(5, last.get(0).getKafkaData().getOffset());
+        assertEquals(Optional.of(5L), partitionStateManager.getLastOffset(topicPartition));
+        assertTrue(fetcher.next(1).isEmpty());
+
+        fetcher.close();
+        verify(consumer, timeout(1000)).close();
+    }
+
+    @Test
+    public void testParallelParsingPreservesPartitionOrder() {
+        final Map<TopicPartition, List<ConsumerRecord<String, byte[]>>> recordsByPartition = new HashMap<>();
+        for (int partition = 0; partition < 4; partition++) {
+            final List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+            for (int offset = 1; offset <= 100; offset++) {
+                records.add(new ConsumerRecord<String, byte[]>("testTopic", partition, offset, null, new byte[]{1}));
+            }
+            recordsByPartition.put(new TopicPartition("testTopic", partition), records);
+        }
+        final TopicPartitionStateManager partitionStateManager = new TopicPartitionStateManager(new NoopRegistry(), "test");
+        final MantisKafkaConsumer<?> consumer = mockConsumer(partitionStateManager, new ConsumerRecords<>(recordsByPartition));
+        final Random random = new Random();
+
+        final BatchedConsumerFetcher fetcher = new BatchedConsumerFetcher(consumer, 100, 4, 4,
+            record -> {
+                // parse partitions at different speeds
+                if (random.nextInt(10) == 0) {
+                    Thread.yield();
+                }
+                return new KafkaAckable(new KafkaData(record, Optional.empty(), Optional.empty(), 1), ackSubject);
+            },
+            () -> { },
+            new AtomicBoolean());
+        fetcher.start();
+
+        final Map<Integer, Long> lastOffsets = new HashMap<>();
+        int emitted = 0;
+        while (emitted < 400) {
+            final List<KafkaAckable> slice = nextNonEmpty(fetcher, 7);
+            assertTrue(!slice.isEmpty());
+            for (KafkaAckable ackable : slice) {
+                final KafkaData data = ackable.getKafkaData();
+                final long previous = lastOffsets.getOrDefault(data.getPartition(), 0L);
+                assertEquals(previous + 1, data.getOffset());
+                lastOffsets.put(data.getPartition(), data.getOffset());
+            }
+            emitted += slice.size();
+        }
+
+        fetcher.close();
+        verify(consumer, timeout(1000)).close();
+    }
+
+    @Test
+    public void testFailsAfterEmittingBufferedRecordsWhenFetchingStops() {
+        final List<ConsumerRecord<String, byte[]>> records = Collections.singletonList(
+            new ConsumerRecord<String, byte[]>(topicPartition.topic(), topicPartition.partition(), 1, null, new byte[]{1}));
+        final TopicPartitionStateManager partitionStateManager = new TopicPartitionStateManager(new NoopRegistry(), "test");
+        final MantisKafkaConsumer<?> consumer = mockConsumer(partitionStateManager,
+            new ConsumerRecords<>(Collections.singletonMap(topicPartition, records)));
+        final IllegalStateException pollFailure = new IllegalStateException("poll failed");
+        when(consumer.poll(anyLong()))
+            .thenReturn(new ConsumerRecords<>(Collections.singletonMap(topicPartition, records)))
+            .thenThrow(pollFailure);
+
+        final BatchedConsumerFetcher fetcher = new BatchedConsumerFetcher(consumer, 100, 2, 0,
+            record -> new KafkaAckable(new KafkaData(record, Optional.empty(), Optional.empty(), 1), ackSubject),
+            () -> { },
+            new AtomicBoolean());
+        fetcher.start();
+        verify(consumer, timeout(1000)).close();
+
+        assertEquals(1, nextNonEmpty(fetcher, 10).size());
+        try {
+            fetcher.next(10);
+            fail("expected the fetch failure to be rethrown");
+        } catch (IllegalStateException e) {
+            assertSame(pollFailure, e.getCause());
+        }
+    }
+
+    @Test
+    public void testDropsBufferedRecordsOfRevokedPartitions() throws InterruptedException {
+        final List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+        for (int offset = 1; offset <= 5; offset++) {
+            records.add(new ConsumerRecord<String, byte[]>(topicPartition.topic(), topicPartition.partition(), offset, null, new byte[]{1}));
+        }
+        final TopicPartitionStateManager partitionStateManager = new TopicPartitionStateManager(new NoopRegistry(), "test");
+        final MantisKafkaConsumer<?> consumer = mockConsumer(partitionStateManager, ConsumerRecords.empty());
+        final CountDownLatch consumed = new CountDownLatch(1);
+        final CountDownLatch revoked = new CountDownLatch(1);
+        final AtomicInteger polls = new AtomicInteger();
+        when(consumer.poll(anyLong())).thenAnswer(invocation -> {
+            switch (polls.incrementAndGet()) {
+            case 1:
+                return new ConsumerRecords<>(Collections.singletonMap(topicPartition, records));
+            case 2:
+                // the partition is revoked and assigned back within poll, it is read again from the last commit
+                assertTrue(consumed.await(5, TimeUnit.SECONDS));
+                partitionStateManager.revoke(Collections.singleton(topicPartition));
+                revoked.countDown();
+                return new ConsumerRecords<>(Collections.singletonMap(topicPartition, records));
+            default:
+                return ConsumerRecords.empty();
+            }
+        });
+
+        final BatchedConsumerFetcher fetcher = new BatchedConsumerFetcher(consumer, 100, 2, 0,
+            record -> new KafkaAckable(new KafkaData(record, Optional.empty(), Optional.empty(), 1), ackSubject),
+            () -> { },
+            new AtomicBoolean());
+        fetcher.start();
+
+        final List<KafkaAckable> first = nextNonEmpty(fetcher, 2);
+        assertEquals(2, first.size());
+        consumed.countDown();
+        assertTrue(revoked.await(5, TimeUnit.SECONDS));
+
+        // offsets 3 to 5 polled before the revocation are not emitted, only the ones polled after it
+        final List<KafkaAckable> reRead = nextNonEmpty(fetcher, 10);
+        assertEquals(5, reRead.size());
+        assertEquals(1, reRead.get(0).getKafkaData().getOffset());
+        assertEquals(Optional.of(5L), partitionStateManager.getLastOffset(topicPartition));
+        assertTrue(fetcher.next(10).isEmpty());
+
+        fetcher.close();
+        verify(consumer, timeout(1000)).close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private MantisKafkaConsumer<?> mockConsumer(TopicPartitionStateManager partitionStateManager,
+                                                ConsumerRecords<String, byte[]> records) {
+        final MantisKafkaConsumer<?> consumer = mock(MantisKafkaConsumer.class);
+        when(consumer.getConsumerId()).thenReturn(1);
+        when(consumer.getConsumerMetrics()).thenReturn(mock(ConsumerMetrics.class));
+        when(consumer.getPartitionStateManager()).thenReturn(partitionStateManager);
+        when(consumer.poll(anyLong())).thenReturn(records, ConsumerRecords.<String, byte[]>empty());
+        return consumer;
+    }
+
+    private static List<KafkaAckable> nextNonEmpty(BatchedConsumerFetcher fetcher, long requested) {
+        for (int i = 0; i < 50; i++) {
+            final List<KafkaAckable> slice = fetcher.next(requested);
+            if (!slice.isEmpty()) {
+                return slice;
+            }
+        }
+        return Collections.emptyList();
+    }
+}
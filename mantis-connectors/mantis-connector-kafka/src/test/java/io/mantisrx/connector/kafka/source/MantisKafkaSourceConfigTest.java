@@ -54,6 +54,9 @@ public class MantisKafkaSourceConfigTest {
         assertEquals(MantisKafkaSourceConfig.DEFAULT_PARSE_MSG_IN_SOURCE, mantisKafkaSourceConfig.getParseMessageInSource());
         assertEquals(MantisKafkaSourceConfig.DEFAULT_RETRY_CHECKPOINT_CHECK_DELAY_MS, mantisKafkaSourceConfig.getRetryCheckpointCheckDelayMs());
         assertEquals(MantisKafkaSourceConfig.DEFAULT_ENABLE_STATIC_PARTITION_ASSIGN, mantisKafkaSourceConfig.getStaticPartitionAssignmentEnabled());
+        assertEquals(MantisKafkaSourceConfig.DEFAULT_ENABLE_BATCHED_EMISSION, mantisKafkaSourceConfig.getBatchedEmissionEnabled());
+        assertEquals(MantisKafkaSourceConfig.DEFAULT_NUM_PREFETCHED_BATCHES, mantisKafkaSourceConfig.getNumPrefetchedBatches());
+        assertEquals(MantisKafkaSourceConfig.DEFAULT_NUM_PARSE_THREADS_PER_CONSUMER, mantisKafkaSourceConfig.getNumParseThreadsPerConsumer());
         assertEquals(Optional.empty(), mantisKafkaSourceConfig.getTopicPartitionCounts());
         assertEquals(Arrays.asList("testTopic"), mantisKafkaSourceConfig.getTopics());
 
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.connector.kafka.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.mantisrx.connector.kafka.source.checkpoint.strategy.CheckpointStrategy;
+import io.mantisrx.connector.kafka.source.checkpoint.strategy.CheckpointStrategyOptions;
+import io.mantisrx.connector.kafka.source.metrics.ConsumerMetrics;
+import io.mantisrx.runtime.Context;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+
+public class OffsetCheckpointerTest {
+
+    private static final TopicPartition TP = new TopicPartition("test-topic", 0);
+
+    private static Map<TopicPartition, OffsetAndMetadata> checkpoint(long offset) {
+        return Collections.singletonMap(TP, new OffsetAndMetadata(offset));
+    }
+
+    @Test(timeout = 10_000)
+    public void testCoalescesCheckpointsWhilePersisting() throws InterruptedException {
+        final BlockingStrategy strategy = new BlockingStrategy(true);
+        final ConsumerMetrics metrics = mock(ConsumerMetrics.class);
+        final OffsetCheckpointer<OffsetAndMetadata> checkpointer = new OffsetCheckpointer<>(1, strategy, metrics);
+
+        checkpointer.checkpoint(checkpoint(1));
+        assertTrue(strategy.persisting.await(5, TimeUnit.SECONDS));
+        // the first checkpoint is being persisted, only the latest of the next ones is written after it
+        checkpointer.checkpoint(checkpoint(2));
+        checkpointer.checkpoint(checkpoint(3));
+        checkpointer.checkpoint(checkpoint(4));
+        strategy.release.countDown();
+        checkpointer.close();
+
+        assertEquals(Arrays.asList(1L, 4L), strategy.persisted);
+        verify(metrics, times(2)).incrementCheckpointCoalescedCount();
+        verify(metrics, times(2)).incrementCommitCount();
+    }
+
+    @Test(timeout = 10_000)
+    public void testRevokedPartitionsAreDroppedFromPendingCheckpoint() throws InterruptedException {
+        final BlockingStrategy strategy = new BlockingStrategy(true);
+        final ConsumerMetrics metrics = mock(ConsumerMetrics.class);
+        final OffsetCheckpointer<OffsetAndMetadata> checkpointer = new OffsetCheckpointer<>(1, strategy, metrics);
+
+        checkpointer.checkpoint(checkpoint(1));
+        assertTrue(strategy.persisting.await(5, TimeUnit.SECONDS));
+        // snapshot taken before the rebalance, still waiting behind the one being persisted
+        checkpointer.checkpoint(checkpoint(2));
+        final Thread revoking = new Thread(() -> checkpointer.revoke(Collections.singleton(TP)));
+        revoking.start();
+        // revoking waits for the checkpoint being persisted
+        revoking.join(200);
+        assertTrue(revoking.isAlive());
+        strategy.release.countDown();
+        revoking.join();
+        checkpointer.close();
+
+        assertEquals(Collections.singletonList(1L), strategy.persisted);
+        verify(metrics, times(1)).incrementCommitCount();
+    }
+
+    @Test
+    public void testPersistsInlineIfStrategyIsNotThreadSafe() {
+        final BlockingStrategy strategy = new BlockingStrategy(false);
+        strategy.release.countDown();
+        final ConsumerMetrics metrics = mock(ConsumerMetrics.class);
+        final OffsetCheckpointer<OffsetAndMetadata> checkpointer = new OffsetCheckpointer<>(1, strategy, metrics);
+
+        checkpointer.checkpoint(checkpoint(1));
+        checkpointer.checkpoint(checkpoint(2));
+        assertEquals(Arrays.asList(1L, 2L), strategy.persisted);
+        assertEquals(Thread.currentThread(), strategy.persistingThread);
+        verify(metrics, times(2)).incrementCommitCount();
+        checkpointer.close();
+    }
+
+    private static class BlockingStrategy implements CheckpointStrategy<OffsetAndMetadata> {
+        private final boolean supportsAsyncPersist;
+        private final CountDownLatch persisting = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<Long> persisted = Collections.synchronizedList(new ArrayList<>());
+        private volatile Thread persistingThread;
+
+        BlockingStrategy(boolean supportsAsyncPersist) {
+            this.supportsAsyncPersist = supportsAsyncPersist;
+        }
+
+        @Override
+        public void init(Context context) {
+        }
+
+        @Override
+        public void init(Map<String, String> initParams) {
+        }
+
+        @Override
+        public boolean persistCheckpoint(Map<TopicPartition, OffsetAndMetadata> checkpoint) {
+            persistingThread = Thread.currentThread();
+            persisting.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            persisted.add(checkpoint.get(TP).offset());
+            return true;
+        }
+
+        @Override
+        public Optional<OffsetAndMetadata> loadCheckpoint(TopicPartition tp) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Map<TopicPartition, Optional<OffsetAndMetadata>> loadCheckpoints(List<TopicPartition> tpList) {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public String type() {
+            return CheckpointStrategyOptions.FILE_BASED_OFFSET_CHECKPOINTING;
+        }
+
+        @Override
+        public boolean supportsAsyncPersist() {
+            return supportsAsyncPersist;
+        }
+    }
+}
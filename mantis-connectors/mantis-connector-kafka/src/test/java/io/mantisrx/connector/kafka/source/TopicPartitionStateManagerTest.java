@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.connector.kafka.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.netflix.spectator.api.NoopRegistry;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+
+public class TopicPartitionStateManagerTest {
+
+    private final TopicPartition tp = new TopicPartition("testTopic", 0);
+    private final TopicPartitionStateManager stateManager = new TopicPartitionStateManager(new NoopRegistry(), "test");
+
+    @Test
+    public void testCheckpointAdvancesToLowestUnAckedOffset() {
+        for (long offset = 1; offset <= 10; offset++) {
+            stateManager.recordMessageRead(tp, offset);
+        }
+        stateManager.recordMessageAck(tp, 1);
+        stateManager.recordMessageAck(tp, 2);
+        stateManager.recordMessageAck(tp, 4);
+        assertEquals(3, checkpointOffset());
+
+        stateManager.recordMessageAck(tp, 3);
+        assertEquals(5, checkpointOffset());
+
+        for (long offset = 5; offset <= 10; offset++) {
+            stateManager.recordMessageAck(tp, offset);
+        }
+        assertEquals(11, checkpointOffset());
+        assertEquals(Optional.of(10L), stateManager.getLastOffset(tp));
+    }
+
+    @Test
+    public void testCheckpointSkipsOffsetGaps() {
+        stateManager.recordMessageRead(tp, 100);
+        stateManager.recordMessageRead(tp, 105);
+        stateManager.recordMessageAck(tp, 100);
+        assertEquals(105, checkpointOffset());
+    }
+
+    @Test
+    public void testNoCheckpointBeforeRead() {
+        assertTrue(stateManager.createCheckpoint(Collections.singleton(tp)).isEmpty());
+        stateManager.recordMessageRead(new TopicPartition("otherTopic", 0), 1);
+        assertTrue(stateManager.createCheckpoint(Collections.singleton(tp)).isEmpty());
+    }
+
+    @Test
+    public void testResetCounters() {
+        stateManager.recordMessageRead(tp, 1);
+        stateManager.resetCounters(tp);
+        assertTrue(stateManager.createCheckpoint(Collections.singleton(tp)).isEmpty());
+        stateManager.recordMessageRead(tp, 7);
+        assertEquals(7, checkpointOffset());
+    }
+
+    @Test
+    public void testRevokeRejectsMessagesPolledBefore() {
+        final long polledGeneration = stateManager.getGeneration();
+        assertTrue(stateManager.recordMessageRead(tp, 1, polledGeneration));
+        stateManager.revoke(Collections.singleton(tp));
+        assertTrue(stateManager.createCheckpoint(Collections.singleton(tp)).isEmpty());
+
+        assertFalse(stateManager.recordMessageRead(tp, 2, polledGeneration));
+        assertTrue(stateManager.createCheckpoint(Collections.singleton(tp)).isEmpty());
+        assertEquals(Optional.of(TopicPartitionStateManager.DEFAULT_LAST_READ_OFFSET), stateManager.getLastOffset(tp));
+
+        assertTrue(stateManager.recordMessageRead(tp, 1, stateManager.getGeneration()));
+        assertEquals(1, checkpointOffset());
+    }
+
+    @Test
+    public void testOffsetWindowGrowsAndSlides() {
+        final TopicPartitionStateManager.OffsetWindow window =
+                new TopicPartitionStateManager.OffsetWindow(TopicPartitionStateManager.DEFAULT_MAX_UN_ACKED_SPAN);
+        for (long offset = 1_000; offset < 11_000; offset++) {
+            window.add(offset);
+        }
+        assertEquals(10_000, window.size());
+        for (long offset = 1_000; offset < 10_999; offset++) {
+            window.remove(offset);
+        }
+        assertEquals(1, window.size());
+        assertEquals(10_999, window.lowest());
+
+        // offsets read again below the window after a seek
+        window.add(500);
+        assertEquals(500, window.lowest());
+        window.remove(500);
+        assertEquals(10_999, window.lowest());
+
+        window.remove(10_999);
+        assertTrue(window.isEmpty());
+    }
+
+    @Test
+    public void testStuckOffsetCapsWindow() {
+        final TopicPartitionStateManager cappedStateManager =
+                new TopicPartitionStateManager(new NoopRegistry(), "test", 1_024);
+        // offset 1 is never acked
+        for (long offset = 1; offset < 5_000; offset++) {
+            cappedStateManager.recordMessageRead(tp, offset);
+            if (offset > 1) {
+                cappedStateManager.recordMessageAck(tp, offset);
+            }
+        }
+        assertEquals(1, checkpointOffset(cappedStateManager));
+
+        // offsets past the cap are no longer tracked, so the checkpoint stops at the first of them
+        cappedStateManager.recordMessageAck(tp, 1);
+        assertEquals(1_024, checkpointOffset(cappedStateManager));
+        cappedStateManager.recordMessageRead(tp, 5_000);
+        cappedStateManager.recordMessageAck(tp, 5_000);
+        assertEquals(1_024, checkpointOffset(cappedStateManager));
+
+        // tracking starts over once the consumer seeks back to the checkpoint
+        cappedStateManager.recordMessageRead(tp, 1_024);
+        assertEquals(1_024, checkpointOffset(cappedStateManager));
+        cappedStateManager.recordMessageAck(tp, 1_024);
+        assertEquals(1_025, checkpointOffset(cappedStateManager));
+    }
+
+    @Test
+    public void testSeekBackResetsWindow() {
+        stateManager.recordMessageRead(tp, 100);
+        stateManager.recordMessageRead(tp, 101);
+        stateManager.recordMessageAck(tp, 101);
+        assertEquals(100, checkpointOffset());
+
+        // offsets from 50 on are read again, so only the new reads are awaiting ack
+        stateManager.recordMessageRead(tp, 50);
+        assertEquals(50, checkpointOffset());
+        stateManager.recordMessageAck(tp, 50);
+        assertEquals(51, checkpointOffset());
+    }
+
+    private long checkpointOffset() {
+        return checkpointOffset(stateManager);
+    }
+
+    private long checkpointOffset(final TopicPartitionStateManager stateManager) {
+        final Map<TopicPartition, OffsetAndMetadata> checkpoint = stateManager.createCheckpoint(Collections.singleton(tp));
+        return checkpoint.get(tp).offset();
+    }
+}
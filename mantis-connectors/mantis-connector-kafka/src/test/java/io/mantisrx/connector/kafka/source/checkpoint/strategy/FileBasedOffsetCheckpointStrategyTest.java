@@ -17,6 +17,8 @@
 package io.mantisrx.connector.kafka.source.checkpoint.strategy;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import io.mantisrx.connector.kafka.source.serde.OffsetAndMetadataDeserializer;
 import io.mantisrx.connector.kafka.source.serde.OffsetAndMetadataSerializer;
@@ -24,9 +26,14 @@ import io.mantisrx.shaded.com.fasterxml.jackson.databind.DeserializationFeature;
 import io.mantisrx.shaded.com.fasterxml.jackson.databind.ObjectMapper;
 import io.mantisrx.shaded.com.fasterxml.jackson.databind.module.SimpleModule;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
@@ -48,6 +55,72 @@ public class FileBasedOffsetCheckpointStrategyTest {
         assertEquals(oam, actual.get());
     }
 
+    @Test
+    public void testLoadsLatestCheckpointAcrossLogs() throws IOException {
+        final Path dir = Files.createTempDirectory("FileBasedOffsetCheckpointStrategyTest");
+        final TopicPartition tp0 = new TopicPartition("test-topic", 0);
+        final TopicPartition tp1 = new TopicPartition("test-topic", 1);
+
+        final FileBasedOffsetCheckpointStrategy first = createStrategy(dir, "first");
+        first.persistCheckpoint(checkpoint(tp0, 10, tp1, 20));
+        first.persistCheckpoint(checkpoint(tp0, 11, tp1, 21));
+        first.close();
+
+        // the partition moved to another consumer, which checkpointed it since
+        final FileBasedOffsetCheckpointStrategy second = createStrategy(dir, "second");
+        second.persistCheckpoint(Collections.singletonMap(tp1, new OffsetAndMetadata(30)));
+
+        final Map<TopicPartition, Optional<OffsetAndMetadata>> loaded =
+            second.loadCheckpoints(Arrays.asList(tp0, tp1, new TopicPartition("test-topic", 2)));
+        assertEquals(11, loaded.get(tp0).get().offset());
+        assertEquals(30, loaded.get(tp1).get().offset());
+        assertFalse(loaded.get(new TopicPartition("test-topic", 2)).isPresent());
+        second.close();
+    }
+
+    @Test
+    public void testCompactsLog() throws IOException {
+        final Path dir = Files.createTempDirectory("FileBasedOffsetCheckpointStrategyTest");
+        final TopicPartition tp0 = new TopicPartition("test-topic", 0);
+        final TopicPartition tp1 = new TopicPartition("test-topic", 1);
+
+        FileBasedOffsetCheckpointStrategy strategy = createStrategy(dir, "compacted");
+        for (int i = 0; i < FileBasedOffsetCheckpointStrategy.MIN_COMPACTION_LINES; i++) {
+            strategy.persistCheckpoint(checkpoint(tp0, i, tp1, 2L * i));
+        }
+        final Path log = dir.resolve("compacted" + FileBasedOffsetCheckpointStrategy.LOG_SUFFIX);
+        assertTrue(Files.readAllLines(log).size() < FileBasedOffsetCheckpointStrategy.MIN_COMPACTION_LINES);
+        strategy.close();
+
+        // a reopened log keeps the latest checkpoints through the next compaction
+        strategy = createStrategy(dir, "compacted");
+        for (int i = 0; i < FileBasedOffsetCheckpointStrategy.MIN_COMPACTION_LINES; i++) {
+            strategy.persistCheckpoint(Collections.singletonMap(tp0, new OffsetAndMetadata(10_000 + i)));
+        }
+        assertEquals(10_000 + FileBasedOffsetCheckpointStrategy.MIN_COMPACTION_LINES - 1,
+                     strategy.loadCheckpoint(tp0).get().offset());
+        assertEquals(2L * (FileBasedOffsetCheckpointStrategy.MIN_COMPACTION_LINES - 1),
+                     strategy.loadCheckpoint(tp1).get().offset());
+        strategy.close();
+    }
+
+    private static FileBasedOffsetCheckpointStrategy createStrategy(Path dir, String logName) {
+        final FileBasedOffsetCheckpointStrategy strategy = new FileBasedOffsetCheckpointStrategy();
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(FileBasedOffsetCheckpointStrategy.CHECKPOINT_DIR_PROP, dir.toString());
+        properties.put(FileBasedOffsetCheckpointStrategy.CHECKPOINT_LOG_NAME_PROP, logName);
+        strategy.init(properties);
+        return strategy;
+    }
+
+    private static Map<TopicPartition, OffsetAndMetadata> checkpoint(TopicPartition tp0, long offset0,
+                                                                     TopicPartition tp1, long offset1) {
+        final Map<TopicPartition, OffsetAndMetadata> checkpoint = new HashMap<>();
+        checkpoint.put(tp0, new OffsetAndMetadata(offset0));
+        checkpoint.put(tp1, new OffsetAndMetadata(offset1));
+        return checkpoint;
+    }
+
     @Test
     public void testOffsetAndMetadataSerialization() {
         OffsetAndMetadata expected = new OffsetAndMetadata(100, "tempmeta");
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.connector.kafka.source.checkpoint.strategy;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.mantisrx.connector.kafka.source.metrics.ConsumerMetrics;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+
+public class KafkaOffsetCheckpointStrategyTest {
+
+    private final TopicPartition tp0 = new TopicPartition("testTopic", 0);
+    private final TopicPartition tp1 = new TopicPartition("testTopic", 1);
+    private final KafkaConsumer<?, ?> consumer = mock(KafkaConsumer.class);
+    private final ConsumerMetrics metrics = mock(ConsumerMetrics.class);
+    private final KafkaOffsetCheckpointStrategy strategy = new KafkaOffsetCheckpointStrategy(consumer, metrics);
+
+    @Test
+    public void testCommitsOnPollingThread() {
+        assertFalse(strategy.supportsAsyncPersist());
+    }
+
+    @Test
+    public void testCoalescesCheckpointsWhileCommitInFlight() {
+        when(consumer.assignment()).thenReturn(Collections.singleton(tp0));
+        final Map<TopicPartition, OffsetAndMetadata> first = checkpoint(10, 10);
+        final Map<TopicPartition, OffsetAndMetadata> second = checkpoint(20, 20);
+        final Map<TopicPartition, OffsetAndMetadata> third = checkpoint(30, 30);
+
+        assertTrue(strategy.persistCheckpoint(first));
+        final ArgumentCaptor<OffsetCommitCallback> callback = ArgumentCaptor.forClass(OffsetCommitCallback.class);
+        verify(consumer).commitAsync(eq(first), callback.capture());
+
+        // checkpoints taken while the first commit is in flight replace each other
+        assertTrue(strategy.persistCheckpoint(second));
+        assertTrue(strategy.persistCheckpoint(third));
+        verify(consumer, times(1)).commitAsync(any(), any());
+        verify(metrics, times(1)).incrementCheckpointCoalescedCount();
+
+        // the latest one is committed once the first completes, without the partitions revoked meanwhile
+        callback.getValue().onComplete(first, null);
+        verify(metrics).recordCommittedOffset(first);
+        verify(consumer).commitAsync(eq(Collections.singletonMap(tp0, new OffsetAndMetadata(30))), callback.capture());
+
+        callback.getValue().onComplete(Collections.singletonMap(tp0, new OffsetAndMetadata(30)), null);
+        verify(consumer, times(2)).commitAsync(any(), any());
+
+        assertTrue(strategy.persistCheckpoint(second));
+        verify(consumer, times(3)).commitAsync(any(), any());
+    }
+
+    @Test
+    public void testCommitsPendingCheckpointOnClose() {
+        when(consumer.assignment()).thenReturn(new HashSet<>(Arrays.asList(tp0, tp1)));
+        final Map<TopicPartition, OffsetAndMetadata> first = checkpoint(10, 10);
+        final Map<TopicPartition, OffsetAndMetadata> second = checkpoint(20, 20);
+
+        strategy.persistCheckpoint(first);
+        strategy.persistCheckpoint(second);
+        strategy.close();
+        verify(consumer).commitSync(second);
+
+        final ArgumentCaptor<OffsetCommitCallback> callback = ArgumentCaptor.forClass(OffsetCommitCallback.class);
+        verify(consumer).commitAsync(eq(first), callback.capture());
+        callback.getValue().onComplete(first, null);
+        verify(consumer, times(1)).commitAsync(any(), any());
+    }
+
+    @Test
+    public void testFailedCommitDoesNotBlockNextCheckpoint() {
+        final Map<TopicPartition, OffsetAndMetadata> first = checkpoint(10, 10);
+        strategy.persistCheckpoint(first);
+        final ArgumentCaptor<OffsetCommitCallback> callback = ArgumentCaptor.forClass(OffsetCommitCallback.class);
+        verify(consumer).commitAsync(eq(first), callback.capture());
+
+        callback.getValue().onComplete(first, new RuntimeException("commit failed"));
+        verify(metrics).incrementErrorCount();
+        verify(metrics, never()).recordCommittedOffset(any());
+
+        strategy.persistCheckpoint(checkpoint(20, 20));
+        verify(consumer, times(2)).commitAsync(any(), any());
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> checkpoint(long offset0, long offset1) {
+        final Map<TopicPartition, OffsetAndMetadata> checkpoint = new HashMap<>();
+        checkpoint.put(tp0, new OffsetAndMetadata(offset0));
+        checkpoint.put(tp1, new OffsetAndMetadata(offset1));
+        return checkpoint;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.connector.publish.core;
+
+import io.reactivex.mantis.network.push.AsyncConnection;
+import io.reactivex.mantis.network.push.ChunkProcessor;
+import io.reactivex.mantis.network.push.Router;
+import rx.functions.Func1;
+
+
+/**
+ * Routes chunks like the default {@link ChunkProcessor} and records the outcome of the writes to every connection
+ * that consumes a single subscription with the {@link SubscriptionDropTracker}, so publishers can back off the
+ * subscriptions whose consumers cannot keep up.
+ */
+public class DropReportingChunkProcessor extends ChunkProcessor<String> {
+
+    private final SubscriptionDropTracker dropTracker;
+
+    public DropReportingChunkProcessor(Router<String> router, SubscriptionDropTracker dropTracker) {
+        super(router);
+        this.dropTracker = dropTracker;
+    }
+
+    @Override
+    public void onWrites(AsyncConnection<String> connection, int successWrites, int failedWrites) {
+        Func1<String, Boolean> predicate = connection.getPredicate();
+        if (predicate instanceof EventFilter.SourceEventFilter) {
+            String subscriptionId = ((EventFilter.SourceEventFilter) predicate).getSubscriptionId();
+            if (subscriptionId != null) {
+                dropTracker.recordWrites(subscriptionId, successWrites, failedWrites);
+            }
+        }
+    }
+}
@@ -47,12 +47,13 @@ public class EventFilter implements Func1<Map<String, List<String>>, Func1<Strin
                 List<String> terms = convertCommaSeparatedEventsToList(filterBy);
                 LOGGER.info("terms: " + terms);
                 // Create filter function based on parameter value.
-                filter = new SourceEventFilter(terms);
+                filter = new SourceEventFilter(terms, null);
             } else if (parameters.containsKey(MantisSourceJobConstants.SUBSCRIPTION_ID_PARAM_NAME)) {
                 String subId = parameters.get(MantisSourceJobConstants.SUBSCRIPTION_ID_PARAM_NAME).get(0);
                 List<String> terms = new ArrayList<String>();
-                terms.add(clientId + "_" + subId);
-                filter = new SourceEventFilter(terms);
+                String subscriptionId = clientId + "_" + subId;
+                terms.add(subscriptionId);
+                filter = new SourceEventFilter(terms, subscriptionId);
             }
 
             return filter;
@@ -72,15 +73,25 @@ public class EventFilter implements Func1<Map<String, List<String>>, Func1<Strin
     }
 
 
-    private static class SourceEventFilter implements Func1<String, Boolean> {
+    static class SourceEventFilter implements Func1<String, Boolean> {
 
         private List<String> terms;
+        private final String subscriptionId;
 
-        SourceEventFilter(List<String> terms) {
+        SourceEventFilter(List<String> terms, String subscriptionId) {
             this.terms = terms;
+            this.subscriptionId = subscriptionId;
             LOGGER.info("Initiated with terms" + terms);
         }
 
+        /**
+         * Returns the id, as known to the {@link QueryRegistry}, of the subscription this filter selects events
+         * for, or null if it filters by arbitrary terms.
+         */
+        String getSubscriptionId() {
+            return subscriptionId;
+        }
+
         @Override
         public Boolean call(String data) {
             boolean match = true;
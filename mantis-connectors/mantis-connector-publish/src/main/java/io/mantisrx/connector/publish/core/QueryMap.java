@@ -52,16 +52,22 @@ public class QueryMap {
 
     }
 
-    void registerQuery(String subId, String query,
-                       Map<String, String> additionalParams,
-                       boolean validateQueryAsGroovy) {
+    /**
+     * Returns true if this registration created a new subscription rather than adding a reference to an existing one.
+     */
+    boolean registerQuery(String subId, String query,
+                          Map<String, String> additionalParams,
+                          boolean validateQueryAsGroovy) {
         checkNotNull("subscriptionId", subId);
         checkNotNull("query", query);
         Map<String, String> addParams = (additionalParams == null) ? emptyMap : additionalParams;
 
-        subscriptionMap.computeIfAbsent(subId, (s) -> new MantisServerSubscriptionWrapper(addMantisPrefix(subId), query, addParams)).incrementAndGetRefCount();
+        return subscriptionMap.computeIfAbsent(subId, (s) -> new MantisServerSubscriptionWrapper(addMantisPrefix(subId), query, addParams)).incrementAndGetRefCount() == 1;
     }
 
+    /**
+     * Returns true if the last reference to the subscription was released and it was removed.
+     */
     boolean deregisterQuery(String subId, String query) {
         MantisServerSubscriptionWrapper subscription = subscriptionMap.computeIfPresent(subId, (k, v) -> {
             v.decrementRefCount();
@@ -72,6 +78,7 @@ public class QueryMap {
             if (subscription.getRefCount() <= 0) {
                 LOGGER.info("Subscription ref count is 0 for subscriptionId " + subId + " removing subscription");
                 subscriptionMap.remove(subId);
+                return true;
             } else {
                 LOGGER.info("Subscription ref count decremented for subscriptionId " + subId);
             }
@@ -79,7 +86,12 @@ public class QueryMap {
             LOGGER.info("Subscription " + subId + " not found");
         }
 
-        return true;
+        return false;
+    }
+
+    MantisServerSubscription getSubscription(String subId) {
+        MantisServerSubscriptionWrapper wrapper = subscriptionMap.get(subId);
+        return wrapper == null ? null : wrapper.getSubscription();
     }
 
     public List<MantisServerSubscription> getCurrentSubscriptions() {
@@ -19,10 +19,18 @@ package io.mantisrx.connector.publish.core;
 import static io.mantisrx.connector.publish.core.ObjectUtils.checkNotNull;
 
 import io.mantisrx.publish.proto.MantisServerSubscription;
+import io.mantisrx.publish.proto.MantisServerSubscriptionDelta;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import org.slf4j.Logger;
@@ -37,9 +45,22 @@ public class QueryRegistry {
 
     private final Map<String, String> emptyMap = new HashMap<>(0);
 
+    private static final int MAX_RETAINED_CHANGES = 1024;
+
     private final ConcurrentMap<String, QueryMap> appToSubscriptionMap = new ConcurrentHashMap<>();
     private final String clientIdPrefix;
 
+    // Every subscription added or removed bumps the version; the most recent changes are retained so that
+    // clients can catch up with a delta instead of re-reading the full subscription list.
+    // Versions restart with the process, so they are qualified by an epoch that is unique to this instance.
+    private final String epoch = UUID.randomUUID().toString();
+    private final Object changeLock = new Object();
+    private final Deque<SubscriptionChange> changeLog = new ArrayDeque<>();
+    private volatile long version = 0;
+    private final Set<CompletableFuture<Long>> versionWaiters = ConcurrentHashMap.newKeySet();
+
+    private final SubscriptionDropTracker dropTracker = new SubscriptionDropTracker();
+
     private QueryRegistry(String clientIdPrefix) {
         this.clientIdPrefix = clientIdPrefix;
     }
@@ -57,18 +78,137 @@ public class QueryRegistry {
 
         appToSubscriptionMap.putIfAbsent(targetApp, new QueryMap(clientIdPrefix));
 
-        appToSubscriptionMap.get(targetApp).registerQuery(subId, query, additionalParams, validateQueryAsGroovy);
+        long newVersion;
+        synchronized (changeLock) {
+            QueryMap queryMap = appToSubscriptionMap.get(targetApp);
+            if (!queryMap.registerQuery(subId, query, additionalParams, validateQueryAsGroovy)) {
+                return;
+            }
+            newVersion = recordChange(targetApp, addMantisPrefix(subId), queryMap.getSubscription(subId));
+        }
+        notifyVersionWaiters(newVersion);
     }
 
     public boolean deregisterQuery(String targetApp, String subId, String query) {
-        appToSubscriptionMap.computeIfPresent(targetApp, (k, v) -> {
-            v.deregisterQuery(subId, query);
-            return v;
-        });
+        long newVersion;
+        synchronized (changeLock) {
+            QueryMap queryMap = appToSubscriptionMap.get(targetApp);
+            if (queryMap == null || !queryMap.deregisterQuery(subId, query)) {
+                return true;
+            }
+            newVersion = recordChange(targetApp, addMantisPrefix(subId), null);
+        }
+        notifyVersionWaiters(newVersion);
 
         return true;
     }
 
+    /**
+     * Returns the current subscription version. It increases every time a subscription is added or removed.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the epoch the subscription versions of this registry belong to.
+     */
+    public String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Returns the tracker of the events written and dropped for each subscription, whose reports are handed to
+     * publishers along with every subscription delta.
+     */
+    public SubscriptionDropTracker getDropTracker() {
+        return dropTracker;
+    }
+
+    /**
+     * Returns {@code sinceVersion} if it was issued in the given epoch, otherwise
+     * {@link MantisServerSubscriptionDelta#UNVERSIONED} so the client is sent a full snapshot.
+     */
+    public long sinceVersionFor(String clientEpoch, long sinceVersion) {
+        return epoch.equals(clientEpoch) ? sinceVersion : MantisServerSubscriptionDelta.UNVERSIONED;
+    }
+
+    /**
+     * Returns the changes to the subscriptions of the given app since {@code sinceVersion}. A full snapshot is
+     * returned instead if the client has no version yet or the changes since its version are no longer retained.
+     */
+    public MantisServerSubscriptionDelta getSubscriptionDelta(String app, long sinceVersion) {
+        synchronized (changeLock) {
+            long currentVersion = version;
+
+            if (sinceVersion < 0 || sinceVersion > currentVersion
+                    || (sinceVersion < currentVersion && changeLog.peekFirst().version > sinceVersion + 1)) {
+                return new MantisServerSubscriptionDelta(epoch, currentVersion, true, getCurrentSubscriptionsForApp(app),
+                        null, dropTracker.getReport());
+            }
+
+            // Only the last change to each subscription matters; null marks a removal.
+            Map<String, MantisServerSubscription> lastChange = new LinkedHashMap<>();
+            for (SubscriptionChange change : changeLog) {
+                if (change.version > sinceVersion && (change.app.equals(app) || change.app.equals(ANY))) {
+                    lastChange.put(change.subscriptionId, change.subscription);
+                }
+            }
+
+            List<MantisServerSubscription> added = new ArrayList<>();
+            List<String> removed = new ArrayList<>();
+            lastChange.forEach((subscriptionId, subscription) -> {
+                if (subscription != null) {
+                    added.add(subscription);
+                } else {
+                    removed.add(subscriptionId);
+                }
+            });
+
+            return new MantisServerSubscriptionDelta(epoch, currentVersion, false, added, removed,
+                    dropTracker.getReport());
+        }
+    }
+
+    /**
+     * Returns a future that completes with the new version once the subscriptions change past {@code sinceVersion}.
+     * Callers that stop waiting must {@link #cancelAwait(CompletableFuture) cancel} the future.
+     */
+    public CompletableFuture<Long> awaitVersionAfter(long sinceVersion) {
+        CompletableFuture<Long> waiter = new CompletableFuture<>();
+        versionWaiters.add(waiter);
+        // Re-check after registering so a change racing with the registration is not missed.
+        long currentVersion = version;
+        if (currentVersion != sinceVersion) {
+            versionWaiters.remove(waiter);
+            waiter.complete(currentVersion);
+        }
+        return waiter;
+    }
+
+    public void cancelAwait(CompletableFuture<Long> waiter) {
+        versionWaiters.remove(waiter);
+    }
+
+    private long recordChange(String app, String subscriptionId, MantisServerSubscription subscription) {
+        long newVersion = version + 1;
+        changeLog.addLast(new SubscriptionChange(newVersion, app, subscriptionId, subscription));
+        if (changeLog.size() > MAX_RETAINED_CHANGES) {
+            changeLog.removeFirst();
+        }
+        version = newVersion;
+        return newVersion;
+    }
+
+    private void notifyVersionWaiters(long newVersion) {
+        Iterator<CompletableFuture<Long>> it = versionWaiters.iterator();
+        while (it.hasNext()) {
+            CompletableFuture<Long> waiter = it.next();
+            it.remove();
+            waiter.complete(newVersion);
+        }
+    }
+
     public List<MantisServerSubscription> getCurrentSubscriptionsForApp(String app) {
         List<MantisServerSubscription> subsForApp = (appToSubscriptionMap.containsKey(app)) ? appToSubscriptionMap.get(app).getCurrentSubscriptions() : new ArrayList<>();
         if (!app.equals(ANY) && appToSubscriptionMap.containsKey(ANY)) {
@@ -84,13 +224,20 @@ public class QueryRegistry {
      * @param queryParams key-value pairs of stream-queries.
      */
     public List<MantisServerSubscription> getCurrentSubscriptions(Map<String, List<String>> queryParams) {
+        return getCurrentSubscriptionsForApp(getTargetApp(queryParams));
+    }
+
+    /**
+     * Returns the app whose subscriptions are requested by the given query params, {@link #ANY} if none is named.
+     */
+    public String getTargetApp(Map<String, List<String>> queryParams) {
         String app = ANY;
 
         if (queryParams.containsKey("app")) {
             app = queryParams.get("app").get(0);
         }
 
-        return getCurrentSubscriptionsForApp(app);
+        return app;
     }
 
     public Map<String, List<MantisServerSubscription>> getAllSubscriptions() {
@@ -106,6 +253,21 @@ public class QueryRegistry {
         return clientIdPrefix + "_" + subId;
     }
 
+    private static class SubscriptionChange {
+        private final long version;
+        private final String app;
+        private final String subscriptionId;
+        // null if the subscription was removed.
+        private final MantisServerSubscription subscription;
+
+        SubscriptionChange(long version, String app, String subscriptionId, MantisServerSubscription subscription) {
+            this.version = version;
+            this.app = app;
+            this.subscriptionId = subscriptionId;
+            this.subscription = subscription;
+        }
+    }
+
     public static class Builder {
         private String prefix = null;
 
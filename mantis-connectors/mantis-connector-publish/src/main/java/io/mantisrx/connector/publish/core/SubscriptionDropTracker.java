@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.connector.publish.core;
+
+import io.mantisrx.publish.proto.MantisServerDropReport;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Counts the events written and dropped for each subscription and turns them into a {@link MantisServerDropReport}
+ * once per report interval.
+ * <p>
+ * Reports are rolled lazily when one is asked for, so a report covers at least one interval of writes and all
+ * publishers asking within the same interval are handed the same report.
+ */
+public class SubscriptionDropTracker {
+
+    static final long DEFAULT_REPORT_INTERVAL_MS = 10_000;
+
+    private final long reportIntervalMs;
+    private final ConcurrentMap<String, WriteCounts> countsBySubscription = new ConcurrentHashMap<>();
+
+    private long reportStartMs;
+    private MantisServerDropReport report = new MantisServerDropReport(0, Collections.emptyMap());
+
+    public SubscriptionDropTracker() {
+        this(DEFAULT_REPORT_INTERVAL_MS, System.currentTimeMillis());
+    }
+
+    SubscriptionDropTracker(long reportIntervalMs, long nowMs) {
+        this.reportIntervalMs = reportIntervalMs;
+        this.reportStartMs = nowMs;
+    }
+
+    /**
+     * Records the outcome of a batch of writes to a connection of the given subscription.
+     */
+    public void recordWrites(String subscriptionId, int successWrites, int failedWrites) {
+        WriteCounts counts = countsBySubscription.computeIfAbsent(subscriptionId, k -> new WriteCounts());
+        counts.success.addAndGet(successWrites);
+        counts.failed.addAndGet(failedWrites);
+    }
+
+    public MantisServerDropReport getReport() {
+        return getReport(System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the report of the last complete interval, rolling a new one first if the current interval is over.
+     */
+    synchronized MantisServerDropReport getReport(long nowMs) {
+        if (nowMs - reportStartMs < reportIntervalMs) {
+            return report;
+        }
+
+        Map<String, Double> dropRates = new HashMap<>();
+        countsBySubscription.forEach((subscriptionId, counts) -> {
+            long success = counts.success.getAndSet(0);
+            long failed = counts.failed.getAndSet(0);
+            if (failed > 0) {
+                dropRates.put(subscriptionId, (double) failed / (success + failed));
+            } else if (success == 0) {
+                // Nothing was written since the previous report; the subscription may be gone.
+                countsBySubscription.remove(subscriptionId, counts);
+            }
+        });
+
+        report = new MantisServerDropReport(report.getReportId() + 1, dropRates);
+        reportStartMs = nowMs;
+        return report;
+    }
+
+    private static class WriteCounts {
+        private final AtomicLong success = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+    }
+}
@@ -17,6 +17,7 @@
 package io.mantisrx.connector.publish.source.http;
 
 import io.mantisrx.connector.publish.core.QueryRegistry;
+import io.mantisrx.shaded.com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
@@ -30,6 +31,7 @@ public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
 
     private final QueryRegistry registry;
     private final Subject<String, String> eventSubject;
+    private final SubscriptionResponseCache responseCache;
     private static final int DEFAULT_MAX_INITIAL_LENGTH = 4096;
     private static final int DEFAULT_MAX_HEADER_SIZE = 16384;
     private static final int DEFAULT_MAX_CHUNK_SIZE = 32768;
@@ -38,6 +40,7 @@ public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
     public HttpServerInitializer(QueryRegistry registry, Subject<String, String> eventSubject) {
         this.registry = registry;
         this.eventSubject = eventSubject;
+        this.responseCache = new SubscriptionResponseCache(registry, new ObjectMapper());
     }
 
     @Override
@@ -48,7 +51,7 @@ public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
         p.addLast("inflater", new HttpContentDecompressor());
         p.addLast("aggregator", new HttpObjectAggregator(DEFAULT_MAX_CONTENT_LENGTH));
 
-        p.addLast(new HttpSourceServerHandler(registry, eventSubject));
+        p.addLast(new HttpSourceServerHandler(registry, responseCache, eventSubject));
         p.addLast(new NettyExceptionHandler());
     }
 }
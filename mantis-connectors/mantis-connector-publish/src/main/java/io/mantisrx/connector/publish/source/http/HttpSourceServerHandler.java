@@ -24,9 +24,6 @@ import io.mantisrx.common.metrics.Metrics;
 import io.mantisrx.common.metrics.MetricsRegistry;
 import io.mantisrx.common.metrics.spectator.MetricGroupId;
 import io.mantisrx.connector.publish.core.QueryRegistry;
-import io.mantisrx.publish.proto.MantisServerSubscription;
-import io.mantisrx.publish.proto.MantisServerSubscriptionEnvelope;
-import io.mantisrx.shaded.com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFutureListener;
@@ -41,7 +38,11 @@ import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.util.AsciiString;
 import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.ScheduledFuture;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import mantis.io.reactivex.netty.protocol.http.server.UriInfoHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,24 +59,47 @@ public class HttpSourceServerHandler extends SimpleChannelInboundHandler<HttpObj
     private static final AsciiString CONNECTION = AsciiString.cached("Connection");
     private static final AsciiString KEEP_ALIVE = AsciiString.cached("keep-alive");
 
-    ObjectMapper mapper = new ObjectMapper();
+    /**
+     * Query param carrying the subscription version a publisher already holds. Its presence selects the delta
+     * endpoint, which answers with a {@link io.mantisrx.publish.proto.MantisServerSubscriptionDelta}.
+     */
+    public static final String SINCE_VERSION_PARAM = "sinceVersion";
+
+    /**
+     * Query param with the epoch the publisher's version was issued in. A version from another epoch, or one
+     * sent without an epoch, is answered with a full snapshot.
+     */
+    public static final String EPOCH_PARAM = "epoch";
+
+    /**
+     * Query param with the number of milliseconds a delta request may be held open waiting for a change.
+     */
+    public static final String WAIT_MS_PARAM = "waitMs";
+
+    private static final long MAX_WAIT_MS = 30_000;
 
     private final Counter getRequestCount;
+    private final Counter deltaRequestCount;
     private final Counter unknownRequestCount;
     private final Counter postRequestCount;
     MetricGroupId metricGroupId;
 
     private final QueryRegistry registry;
+    private final SubscriptionResponseCache responseCache;
     private final Subject<String, String> eventSubject;
 
-    public HttpSourceServerHandler(QueryRegistry queryRegistry, Subject<String, String> eventSubject) {
+    public HttpSourceServerHandler(QueryRegistry queryRegistry,
+                                   SubscriptionResponseCache responseCache,
+                                   Subject<String, String> eventSubject) {
         registry = queryRegistry;
+        this.responseCache = responseCache;
         this.eventSubject = eventSubject;
         metricGroupId = new MetricGroupId(SourceHttpServer.METRIC_GROUP + "_incoming");
 
         Metrics m = new Metrics.Builder()
                 .id(metricGroupId)
                 .addCounter("GetRequestCount")
+                .addCounter("DeltaRequestCount")
                 .addCounter("PostRequestCount")
                 .addCounter("UnknownRequestCount")
                 .build();
@@ -83,6 +107,7 @@ public class HttpSourceServerHandler extends SimpleChannelInboundHandler<HttpObj
         m = MetricsRegistry.getInstance().registerAndGet(m);
 
         getRequestCount = m.getCounter("GetRequestCount");
+        deltaRequestCount = m.getCounter("DeltaRequestCount");
         unknownRequestCount = m.getCounter("UnknownRequestCount");
         postRequestCount = m.getCounter("PostRequestCount");
     }
@@ -102,27 +127,18 @@ public class HttpSourceServerHandler extends SimpleChannelInboundHandler<HttpObj
                 getRequestCount.increment();
 
                 UriInfoHolder uriInfoHolder = new UriInfoHolder(req.uri());
+                Map<String, List<String>> queryParams = uriInfoHolder.getQueryParameters();
+                String app = registry.getTargetApp(queryParams);
 
-                List<MantisServerSubscription> currentSubscriptions =
-                        registry.getCurrentSubscriptions(uriInfoHolder.getQueryParameters());
-
-                try {
-                    byte[] serializedSubs =
-                            mapper.writeValueAsBytes(new MantisServerSubscriptionEnvelope(currentSubscriptions));
-
-                    FullHttpResponse response =
-                            new DefaultFullHttpResponse(HTTP_1_1, OK, Unpooled.wrappedBuffer(serializedSubs));
-                    response.headers().set(CONTENT_TYPE, "application/json");
-                    response.headers().setInt(CONTENT_LENGTH, response.content().readableBytes());
-
-                    if (!keepAlive) {
-                        ctx.write(response).addListener(ChannelFutureListener.CLOSE);
-                    } else {
-                        response.headers().set(CONNECTION, KEEP_ALIVE);
-                        ctx.write(response);
+                if (queryParams.containsKey(SINCE_VERSION_PARAM)) {
+                    deltaRequestCount.increment();
+                    handleDeltaRequest(ctx, app, queryParams, keepAlive);
+                } else {
+                    try {
+                        writeJsonResponse(ctx, responseCache.getSubscriptions(app), keepAlive);
+                    } catch (Exception e) {
+                        LOGGER.error("problem reading from channel", e);
                     }
-                } catch (Exception e) {
-                    LOGGER.error("problem reading from channel", e);
                 }
             } else {
                 if (req.method().equals(HttpMethod.POST)) {
@@ -152,4 +168,71 @@ public class HttpSourceServerHandler extends SimpleChannelInboundHandler<HttpObj
             }
         }
     }
+
+    /**
+     * Answers right away if the subscriptions moved past the publisher's version, otherwise holds the request
+     * until they do or the requested wait elapses, whichever comes first.
+     */
+    private void handleDeltaRequest(ChannelHandlerContext ctx, String app, Map<String, List<String>> queryParams,
+                                    boolean keepAlive) {
+        long sinceVersion = registry.sinceVersionFor(parseStringParam(queryParams, EPOCH_PARAM),
+                parseLongParam(queryParams, SINCE_VERSION_PARAM, -1));
+        long waitMs = Math.min(parseLongParam(queryParams, WAIT_MS_PARAM, 0), MAX_WAIT_MS);
+
+        if (sinceVersion < 0 || waitMs <= 0 || registry.getVersion() != sinceVersion) {
+            writeDeltaResponse(ctx, app, sinceVersion, keepAlive);
+            return;
+        }
+
+        CompletableFuture<Long> waiter = registry.awaitVersionAfter(sinceVersion);
+        ScheduledFuture<?> timeout =
+                ctx.executor().schedule(() -> waiter.complete(sinceVersion), waitMs, TimeUnit.MILLISECONDS);
+        waiter.whenComplete((version, t) -> {
+            registry.cancelAwait(waiter);
+            timeout.cancel(false);
+            ctx.executor().execute(() -> {
+                writeDeltaResponse(ctx, app, sinceVersion, keepAlive);
+                ctx.flush();
+            });
+        });
+    }
+
+    private void writeDeltaResponse(ChannelHandlerContext ctx, String app, long sinceVersion, boolean keepAlive) {
+        try {
+            writeJsonResponse(ctx, responseCache.getSubscriptionDelta(app, sinceVersion), keepAlive);
+        } catch (Exception e) {
+            LOGGER.error("problem writing subscription delta", e);
+        }
+    }
+
+    private void writeJsonResponse(ChannelHandlerContext ctx, byte[] payload, boolean keepAlive) {
+        FullHttpResponse response =
+                new DefaultFullHttpResponse(HTTP_1_1, OK, Unpooled.wrappedBuffer(payload));
+        response.headers().set(CONTENT_TYPE, "application/json");
+        response.headers().setInt(CONTENT_LENGTH, response.content().readableBytes());
+
+        if (!keepAlive) {
+            ctx.write(response).addListener(ChannelFutureListener.CLOSE);
+        } else {
+            response.headers().set(CONNECTION, KEEP_ALIVE);
+            ctx.write(response);
+        }
+    }
+
+    private static String parseStringParam(Map<String, List<String>> queryParams, String name) {
+        List<String> values = queryParams.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private static long parseLongParam(Map<String, List<String>> queryParams, String name, long defaultValue) {
+        List<String> values = queryParams.get(name);
+        if (values == null || values.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(values.get(0));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
 }
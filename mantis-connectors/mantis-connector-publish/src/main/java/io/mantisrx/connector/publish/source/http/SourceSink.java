@@ -16,7 +16,9 @@
 
 package io.mantisrx.connector.publish.source.http;
 
+import io.mantisrx.connector.publish.core.DropReportingChunkProcessor;
 import io.mantisrx.connector.publish.core.EventFilter;
+import io.mantisrx.connector.publish.core.QueryRegistry;
 import io.mantisrx.runtime.Context;
 import io.mantisrx.runtime.PortRequest;
 import io.mantisrx.runtime.sink.ServerSentEventsSink;
@@ -53,6 +55,21 @@ public class SourceSink implements Sink<String> {
             .build();
     }
 
+    /**
+     * Also reports the events dropped for each subscription to publishers through the given registry.
+     */
+    public SourceSink(QueryRegistry queryRegistry,
+                      Func2<Map<String, List<String>>, Context, Void> preProcessor,
+                      Func2<Map<String, List<String>>, Context, Void> postProcessor, String mantisClientId) {
+        this.sink = new ServerSentEventsSink.Builder<String>()
+            .withEncoder(data -> data)
+            .withPredicate(new Predicate<>("description", new EventFilter(mantisClientId)))
+            .withChunkProcessor(router -> new DropReportingChunkProcessor(router, queryRegistry.getDropTracker()))
+            .withRequestPreprocessor(preProcessor)
+            .withRequestPostprocessor(postProcessor)
+            .build();
+    }
+
     @Override
     public void call(Context context, PortRequest portRequest,
                      Observable<String> observable) {
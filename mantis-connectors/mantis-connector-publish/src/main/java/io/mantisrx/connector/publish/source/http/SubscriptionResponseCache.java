@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.connector.publish.source.http;
+
+import io.mantisrx.connector.publish.core.QueryRegistry;
+import io.mantisrx.publish.proto.MantisServerSubscriptionDelta;
+import io.mantisrx.publish.proto.MantisServerSubscriptionEnvelope;
+import io.mantisrx.shaded.com.fasterxml.jackson.core.JsonProcessingException;
+import io.mantisrx.shaded.com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * Serialized subscription responses, shared by all connections of a {@link NettySourceHttpServer}.
+ * <p>
+ * Every publisher polls for the same subscriptions, so each response is serialized once per
+ * {@link QueryRegistry#getVersion() subscription version} and app, and reused until the version moves. Deltas are
+ * also rebuilt when a new drop report is rolled, since they carry it.
+ */
+public class SubscriptionResponseCache {
+
+    private final QueryRegistry registry;
+    private final ObjectMapper mapper;
+
+    private final ConcurrentMap<String, CachedResponse> subscriptionsByApp = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CachedResponse> deltasByApp = new ConcurrentHashMap<>();
+
+    public SubscriptionResponseCache(QueryRegistry registry, ObjectMapper mapper) {
+        this.registry = registry;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Returns the serialized {@link MantisServerSubscriptionEnvelope} of the given app's current subscriptions.
+     */
+    public byte[] getSubscriptions(String app) throws JsonProcessingException {
+        long version = registry.getVersion();
+        CachedResponse cached = subscriptionsByApp.get(app);
+        if (cached != null && cached.version == version) {
+            return cached.payload;
+        }
+
+        byte[] payload = mapper.writeValueAsBytes(
+                new MantisServerSubscriptionEnvelope(registry.getCurrentSubscriptionsForApp(app)));
+        subscriptionsByApp.put(app,
+                new CachedResponse(MantisServerSubscriptionDelta.UNVERSIONED, version, 0, payload));
+        return payload;
+    }
+
+    /**
+     * Returns the serialized {@link MantisServerSubscriptionDelta} of the given app's subscriptions since
+     * {@code sinceVersion}.
+     */
+    public byte[] getSubscriptionDelta(String app, long sinceVersion) throws JsonProcessingException {
+        long version = registry.getVersion();
+        long reportId = registry.getDropTracker().getReport().getReportId();
+        CachedResponse cached = deltasByApp.get(app);
+        if (cached != null && cached.sinceVersion == sinceVersion && cached.version == version
+                && cached.reportId == reportId) {
+            return cached.payload;
+        }
+
+        MantisServerSubscriptionDelta delta = registry.getSubscriptionDelta(app, sinceVersion);
+        byte[] payload = mapper.writeValueAsBytes(delta);
+        deltasByApp.put(app, new CachedResponse(sinceVersion, delta.getVersion(),
+                delta.getDropReport().getReportId(), payload));
+        return payload;
+    }
+
+    private static class CachedResponse {
+        private final long sinceVersion;
+        private final long version;
+        private final long reportId;
+        private final byte[] payload;
+
+        CachedResponse(long sinceVersion, long version, long reportId, byte[] payload) {
+            this.sinceVersion = sinceVersion;
+            this.version = version;
+            this.reportId = reportId;
+            this.payload = payload;
+        }
+    }
+}
@@ -17,12 +17,17 @@
 package io.mantisrx.connector.publish.core;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import io.mantisrx.publish.proto.MantisServerSubscription;
+import io.mantisrx.publish.proto.MantisServerSubscriptionDelta;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -330,4 +335,81 @@ class QueryRegistryTest {
 
         assertEquals("myPrefix_subId", currentSubs.get(0).getSubscriptionId());
     }
+
+    @Test
+    void subscriptionDeltaTest() {
+        QueryRegistry queryRegistry = new QueryRegistry.Builder().withClientIdPrefix("myPrefix").build();
+
+        assertEquals(0, queryRegistry.getVersion());
+
+        queryRegistry.registerQuery("myApp", "subId1", "true");
+        queryRegistry.registerQuery("myApp", "subId2", "true");
+        // Additional references to an existing subscription do not change the version.
+        queryRegistry.registerQuery("myApp", "subId2", "true");
+        queryRegistry.registerQuery("myApp2", "subId3", "true");
+
+        assertEquals(3, queryRegistry.getVersion());
+
+        MantisServerSubscriptionDelta full = queryRegistry.getSubscriptionDelta("myApp", -1);
+        assertTrue(full.isFull());
+        assertEquals(3, full.getVersion());
+        assertEquals(2, full.getSubscriptionList().size());
+
+        queryRegistry.deregisterQuery("myApp", "subId1", "true");
+        queryRegistry.deregisterQuery("myApp", "subId2", "true");
+        queryRegistry.registerQuery(QueryRegistry.ANY, "subId4", "true");
+
+        MantisServerSubscriptionDelta delta = queryRegistry.getSubscriptionDelta("myApp", 3);
+        assertFalse(delta.isFull());
+        assertEquals(5, delta.getVersion());
+        assertEquals(Collections.singletonList("myPrefix_subId1"), delta.getRemovedSubscriptionIds());
+        assertEquals(1, delta.getSubscriptionList().size());
+        assertEquals("myPrefix_subId4", delta.getSubscriptionList().get(0).getSubscriptionId());
+
+        MantisServerSubscriptionDelta unchanged = queryRegistry.getSubscriptionDelta("myApp", 5);
+        assertFalse(unchanged.isFull());
+        assertTrue(unchanged.getSubscriptionList().isEmpty());
+        assertTrue(unchanged.getRemovedSubscriptionIds().isEmpty());
+    }
+
+    @Test
+    void subscriptionDeltaEpochTest() {
+        QueryRegistry queryRegistry = new QueryRegistry.Builder().withClientIdPrefix("myPrefix").build();
+        QueryRegistry restarted = new QueryRegistry.Builder().withClientIdPrefix("myPrefix").build();
+
+        assertNotEquals(queryRegistry.getEpoch(), restarted.getEpoch());
+
+        queryRegistry.registerQuery("myApp", "subId1", "true");
+        queryRegistry.registerQuery("myApp", "subId2", "true");
+
+        MantisServerSubscriptionDelta full = queryRegistry.getSubscriptionDelta("myApp", -1);
+        assertEquals(queryRegistry.getEpoch(), full.getEpoch());
+
+        assertEquals(1, queryRegistry.sinceVersionFor(full.getEpoch(), 1));
+        assertEquals(-1, queryRegistry.sinceVersionFor(null, 1));
+
+        // A version issued by another instance is not a valid base for a delta.
+        restarted.registerQuery("myApp", "subId3", "true");
+        long sinceVersion = restarted.sinceVersionFor(full.getEpoch(), full.getVersion());
+        MantisServerSubscriptionDelta delta = restarted.getSubscriptionDelta("myApp", sinceVersion);
+        assertTrue(delta.isFull());
+        assertEquals(restarted.getEpoch(), delta.getEpoch());
+        assertEquals(1, delta.getSubscriptionList().size());
+
+        // Every delta carries the worker's latest drop report.
+        assertEquals(0, delta.getDropReport().getReportId());
+    }
+
+    @Test
+    void awaitVersionAfterTest() {
+        QueryRegistry queryRegistry = new QueryRegistry.Builder().withClientIdPrefix("myPrefix").build();
+
+        CompletableFuture<Long> waiter = queryRegistry.awaitVersionAfter(0);
+        assertFalse(waiter.isDone());
+
+        queryRegistry.registerQuery("myApp", "subId", "true");
+        assertEquals(1L, waiter.getNow(-1L));
+
+        assertTrue(queryRegistry.awaitVersionAfter(0).isDone());
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.connector.publish.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.mantisrx.publish.proto.MantisServerDropReport;
+import org.junit.jupiter.api.Test;
+
+
+class SubscriptionDropTrackerTest {
+
+    @Test
+    void reportIsRolledOncePerInterval() {
+        SubscriptionDropTracker tracker = new SubscriptionDropTracker(1000, 0);
+
+        MantisServerDropReport initial = tracker.getReport(0);
+        assertEquals(0, initial.getReportId());
+        assertTrue(initial.getDropRates().isEmpty());
+
+        tracker.recordWrites("subId1", 30, 10);
+        tracker.recordWrites("subId1", 0, 10);
+        tracker.recordWrites("subId2", 50, 0);
+
+        // Publishers asking within the interval get the same report.
+        assertSame(initial, tracker.getReport(999));
+
+        MantisServerDropReport report = tracker.getReport(1000);
+        assertEquals(1, report.getReportId());
+        assertEquals(0.4, report.getDropRate("subId1"), 1e-9);
+        assertEquals(0.0, report.getDropRate("subId2"));
+        assertEquals(1, report.getDropRates().size());
+        assertSame(report, tracker.getReport(1500));
+
+        // Drops are counted once: the next report only covers the writes of its own interval.
+        tracker.recordWrites("subId1", 10, 0);
+        MantisServerDropReport next = tracker.getReport(2000);
+        assertEquals(2, next.getReportId());
+        assertTrue(next.getDropRates().isEmpty());
+    }
+}
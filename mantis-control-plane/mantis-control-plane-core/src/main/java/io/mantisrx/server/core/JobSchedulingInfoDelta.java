@@ -0,0 +1,184 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.mantisrx.server.core;
+
+import io.mantisrx.runtime.codec.JsonType;
+import io.mantisrx.shaded.com.fasterxml.jackson.annotation.JsonCreator;
+import io.mantisrx.shaded.com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.mantisrx.shaded.com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.EqualsAndHashCode;
+
+/**
+ * A versioned change to the {@link JobSchedulingInfo} of a job, sent on discovery streams to clients that asked for
+ * deltas.
+ * <p>
+ * If {@link #isFull()} is set, {@link #getWorkerAssignments()} holds all stages and replaces what the client held.
+ * Otherwise it only holds the stages whose workers changed since {@code version - 1}, each with the added or updated
+ * worker hosts, and {@link #getRemovedWorkers()} the worker numbers removed per stage. Versions are only comparable
+ * within the same {@link #getEpoch() epoch}.
+ */
+@EqualsAndHashCode
+public class JobSchedulingInfoDelta implements JsonType {
+
+    private final String jobId;
+    private final long epoch;
+    private final long version;
+    private final boolean full;
+    private final Map<Integer, WorkerAssignments> workerAssignments;
+    private final Map<Integer, List<Integer>> removedWorkers;
+
+    @JsonCreator
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public JobSchedulingInfoDelta(@JsonProperty("jobId") String jobId,
+                                  @JsonProperty("epoch") long epoch,
+                                  @JsonProperty("version") long version,
+                                  @JsonProperty("full") boolean full,
+                                  @JsonProperty("workerAssignments") Map<Integer, WorkerAssignments> workerAssignments,
+                                  @JsonProperty("removedWorkers") Map<Integer, List<Integer>> removedWorkers) {
+        this.jobId = jobId;
+        this.epoch = epoch;
+        this.version = version;
+        this.full = full;
+        this.workerAssignments = workerAssignments == null ? Collections.emptyMap() : workerAssignments;
+        this.removedWorkers = removedWorkers == null ? Collections.emptyMap() : removedWorkers;
+    }
+
+    /**
+     * Returns a delta replacing whatever the client held with the given scheduling info.
+     */
+    public static JobSchedulingInfoDelta full(JobSchedulingInfo info, long epoch, long version) {
+        return new JobSchedulingInfoDelta(info.getJobId(), epoch, version, true, info.getWorkerAssignments(), null);
+    }
+
+    /**
+     * Returns the changes from {@code previous} to {@code next}, at {@code version}.
+     */
+    public static JobSchedulingInfoDelta between(JobSchedulingInfo previous, JobSchedulingInfo next, long epoch, long version) {
+        Map<Integer, WorkerAssignments> previousStages = nullToEmpty(previous.getWorkerAssignments());
+        Map<Integer, WorkerAssignments> nextStages = nullToEmpty(next.getWorkerAssignments());
+        Map<Integer, WorkerAssignments> changedStages = new HashMap<>();
+        Map<Integer, List<Integer>> removedWorkers = new HashMap<>();
+
+        for (Map.Entry<Integer, WorkerAssignments> entry : nextStages.entrySet()) {
+            WorkerAssignments nextStage = entry.getValue();
+            WorkerAssignments previousStage = previousStages.get(entry.getKey());
+            Map<Integer, WorkerHost> previousHosts = previousStage == null ? Collections.emptyMap() : nullToEmpty(previousStage.getHosts());
+            Map<Integer, WorkerHost> nextHosts = nullToEmpty(nextStage.getHosts());
+
+            Map<Integer, WorkerHost> changedHosts = new HashMap<>();
+            for (Map.Entry<Integer, WorkerHost> host : nextHosts.entrySet()) {
+                if (!host.getValue().equals(previousHosts.get(host.getKey()))) {
+                    changedHosts.put(host.getKey(), host.getValue());
+                }
+            }
+            List<Integer> removedHosts = new ArrayList<>();
+            for (Integer workerNumber : previousHosts.keySet()) {
+                if (!nextHosts.containsKey(workerNumber)) {
+                    removedHosts.add(workerNumber);
+                }
+            }
+
+            if (previousStage == null || previousStage.getNumWorkers() != nextStage.getNumWorkers()
+                    || !changedHosts.isEmpty() || !removedHosts.isEmpty()) {
+                changedStages.put(entry.getKey(), new WorkerAssignments(nextStage.getStage(), nextStage.getNumWorkers(), changedHosts));
+            }
+            if (!removedHosts.isEmpty()) {
+                removedWorkers.put(entry.getKey(), removedHosts);
+            }
+        }
+        for (Map.Entry<Integer, WorkerAssignments> entry : previousStages.entrySet()) {
+            if (!nextStages.containsKey(entry.getKey())) {
+                removedWorkers.put(entry.getKey(), new ArrayList<>(nullToEmpty(entry.getValue().getHosts()).keySet()));
+            }
+        }
+        return new JobSchedulingInfoDelta(next.getJobId(), epoch, version, false, changedStages, removedWorkers);
+    }
+
+    /**
+     * Returns the scheduling info resulting from applying this delta to the given one.
+     *
+     * @param base the scheduling info at {@code version - 1}; ignored for full deltas.
+     */
+    public JobSchedulingInfo applyTo(JobSchedulingInfo base) {
+        if (full || base == null) {
+            return new JobSchedulingInfo(jobId, workerAssignments);
+        }
+        Map<Integer, WorkerAssignments> stages = new HashMap<>();
+        for (Map.Entry<Integer, WorkerAssignments> entry : nullToEmpty(base.getWorkerAssignments()).entrySet()) {
+            WorkerAssignments stage = entry.getValue();
+            stages.put(entry.getKey(), new WorkerAssignments(stage.getStage(), stage.getNumWorkers(), new HashMap<>(nullToEmpty(stage.getHosts()))));
+        }
+        for (Map.Entry<Integer, List<Integer>> entry : removedWorkers.entrySet()) {
+            WorkerAssignments stage = stages.get(entry.getKey());
+            if (stage != null) {
+                entry.getValue().forEach(stage.getHosts()::remove);
+                if (stage.getHosts().isEmpty() && !workerAssignments.containsKey(entry.getKey())) {
+                    stages.remove(entry.getKey());
+                }
+            }
+        }
+        for (Map.Entry<Integer, WorkerAssignments> entry : workerAssignments.entrySet()) {
+            WorkerAssignments changed = entry.getValue();
+            WorkerAssignments stage = stages.get(entry.getKey());
+            Map<Integer, WorkerHost> hosts = stage == null ? new HashMap<>() : stage.getHosts();
+            hosts.putAll(nullToEmpty(changed.getHosts()));
+            stages.put(entry.getKey(), new WorkerAssignments(changed.getStage(), changed.getNumWorkers(), hosts));
+        }
+        return new JobSchedulingInfo(jobId, stages);
+    }
+
+    private static <K, V> Map<K, V> nullToEmpty(Map<K, V> map) {
+        return map == null ? Collections.emptyMap() : map;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public Map<Integer, WorkerAssignments> getWorkerAssignments() {
+        return workerAssignments;
+    }
+
+    public Map<Integer, List<Integer>> getRemovedWorkers() {
+        return removedWorkers;
+    }
+
+    @Override
+    public String toString() {
+        return "JobSchedulingInfoDelta [jobId=" + jobId + ", epoch=" + epoch + ", version=" + version
+                + ", full=" + full + ", workerAssignments=" + workerAssignments
+                + ", removedWorkers=" + removedWorkers + "]";
+    }
+}
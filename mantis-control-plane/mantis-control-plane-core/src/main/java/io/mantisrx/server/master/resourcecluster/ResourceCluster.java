@@ -21,6 +21,7 @@ import io.mantisrx.runtime.MachineDefinition;
 import io.mantisrx.server.core.domain.WorkerId;
 import io.mantisrx.server.worker.TaskExecutorGateway;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 import lombok.Value;
@@ -33,6 +34,7 @@ import lombok.Value;
  * 4). get the current state of a task executor
  * 5). get the current state of the system
  * 6). assign a task executor for a given worker
+ * 7). assign task executors for a batch of workers
  */
 public interface ResourceCluster extends ResourceClusterGateway {
     /**
@@ -64,6 +66,16 @@ public interface ResourceCluster extends ResourceClusterGateway {
      */
     CompletableFuture<TaskExecutorID> getTaskExecutorFor(MachineDefinition machineDefinition, WorkerId workerId);
 
+    /**
+     * Assigns task executors to all the given workers at once, or to none of them. Can throw
+     * {@link NoResourceAvailableException} wrapped within the CompletableFuture in case there are not enough
+     * task executors for all the workers.
+     *
+     * @param allocationRequests machine definition that's requested for each worker
+     * @return task executor assigned for each of the workers.
+     */
+    CompletableFuture<Map<WorkerId, TaskExecutorID>> getTaskExecutorsFor(Map<WorkerId, MachineDefinition> allocationRequests);
+
     CompletableFuture<TaskExecutorGateway> getTaskExecutorGateway(TaskExecutorID taskExecutorID);
 
     CompletableFuture<TaskExecutorRegistration> getTaskExecutorInfo(String hostName);
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2021 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.server.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.mantisrx.runtime.MantisJobState;
+import io.mantisrx.shaded.com.google.common.collect.ImmutableList;
+import io.mantisrx.shaded.com.google.common.collect.ImmutableMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class JobSchedulingInfoDeltaTest {
+
+    private static WorkerHost host(int workerIndex, int workerNumber) {
+        return new WorkerHost("host-" + workerNumber, workerIndex, ImmutableList.of(7001, 7002), MantisJobState.Started, workerNumber, 7003, 7004);
+    }
+
+    private static WorkerAssignments stage(int stageNum, int numWorkers, WorkerHost... hosts) {
+        Map<Integer, WorkerHost> hostMap = new HashMap<>();
+        for (WorkerHost host : hosts) {
+            hostMap.put(host.getWorkerNumber(), host);
+        }
+        return new WorkerAssignments(stageNum, numWorkers, hostMap);
+    }
+
+    private static void assertRoundTrip(JobSchedulingInfo previous, JobSchedulingInfo next) {
+        JobSchedulingInfoDelta delta = JobSchedulingInfoDelta.between(previous, next, 1, 2);
+        assertFalse(delta.isFull());
+        assertEquals(next, delta.applyTo(previous));
+    }
+
+    @Test
+    public void testWorkersAdded() {
+        JobSchedulingInfo previous = new JobSchedulingInfo("job-1", ImmutableMap.of(1, stage(1, 1, host(0, 1))));
+        JobSchedulingInfo next = new JobSchedulingInfo("job-1", ImmutableMap.of(1, stage(1, 2, host(0, 1), host(1, 2))));
+
+        JobSchedulingInfoDelta delta = JobSchedulingInfoDelta.between(previous, next, 1, 2);
+        assertEquals(Collections.singleton(2), delta.getWorkerAssignments().get(1).getHosts().keySet());
+        assertTrue(delta.getRemovedWorkers().isEmpty());
+        assertRoundTrip(previous, next);
+    }
+
+    @Test
+    public void testWorkersReplaced() {
+        JobSchedulingInfo previous = new JobSchedulingInfo("job-1", ImmutableMap.of(1, stage(1, 2, host(0, 1), host(1, 2))));
+        JobSchedulingInfo next = new JobSchedulingInfo("job-1", ImmutableMap.of(1, stage(1, 2, host(0, 1), host(1, 3))));
+
+        JobSchedulingInfoDelta delta = JobSchedulingInfoDelta.between(previous, next, 1, 2);
+        assertEquals(Collections.singleton(3), delta.getWorkerAssignments().get(1).getHosts().keySet());
+        assertEquals(ImmutableList.of(2), delta.getRemovedWorkers().get(1));
+        assertRoundTrip(previous, next);
+    }
+
+    @Test
+    public void testStagesAddedAndRemoved() {
+        JobSchedulingInfo previous = new JobSchedulingInfo("job-1", ImmutableMap.of(
+            1, stage(1, 1, host(0, 1)),
+            2, stage(2, 1, host(0, 2))));
+        JobSchedulingInfo next = new JobSchedulingInfo("job-1", ImmutableMap.of(
+            1, stage(1, 1, host(0, 1)),
+            3, stage(3, 1, host(0, 3))));
+        assertRoundTrip(previous, next);
+        assertRoundTrip(next, previous);
+    }
+
+    @Test
+    public void testAllWorkersRemoved() {
+        JobSchedulingInfo previous = new JobSchedulingInfo("job-1", ImmutableMap.of(1, stage(1, 2, host(0, 1), host(1, 2))));
+        assertRoundTrip(previous, new JobSchedulingInfo("job-1", ImmutableMap.of(1, stage(1, 2))));
+        assertRoundTrip(previous, new JobSchedulingInfo("job-1", new HashMap<>()));
+    }
+
+    @Test
+    public void testFullReplacesBase() {
+        JobSchedulingInfo previous = new JobSchedulingInfo("job-1", ImmutableMap.of(1, stage(1, 1, host(0, 1))));
+        JobSchedulingInfo next = new JobSchedulingInfo("job-1", ImmutableMap.of(2, stage(2, 1, host(0, 2))));
+
+        JobSchedulingInfoDelta delta = JobSchedulingInfoDelta.full(next, 1, 5);
+        assertTrue(delta.isFull());
+        assertEquals(5, delta.getVersion());
+        assertEquals(next, delta.applyTo(previous));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.master.events;
+
+import io.mantisrx.master.jobcluster.WorkerInfoListHolder;
+import io.mantisrx.master.jobcluster.job.worker.IMantisWorkerMetadata;
+import io.mantisrx.master.jobcluster.job.worker.JobWorker;
+import io.mantisrx.master.jobcluster.job.worker.WorkerState;
+import io.mantisrx.server.core.domain.WorkerId;
+import io.mantisrx.server.master.domain.JobId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Measures the {@link WorkerRegistryV2} reads made by the scheduler and on heartbeats, and the cost of indexing a
+ * job's worker list, with 200k workers registered by default.
+ */
+public class WorkerRegistryV2Benchmark {
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Threads(4)
+    public int testGetNumRunningWorkers(RegistryState state) {
+        return state.registry.getNumRunningWorkers();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Threads(4)
+    public boolean testIsWorkerValid(RegistryState state) {
+        return state.registry.isWorkerValid(state.randomWorkerId());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Threads(1)
+    public void testGetAllRunningWorkerSlaveIdMappings(Blackhole blackhole, RegistryState state) {
+        state.registry.getAllRunningWorkerSlaveIdMappings().forEach((workerId, slaveId) -> blackhole.consume(slaveId));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Threads(4)
+    public void testWorkerListChanged(RegistryState state) {
+        state.registry.process(state.randomWorkerListChangedEvent());
+    }
+
+    @State(Scope.Benchmark)
+    public static class RegistryState {
+
+        @Param({"2000"})
+        public int numJobs;
+
+        @Param({"100"})
+        public int numWorkersPerJob;
+
+        private final LifecycleEventPublisher eventPublisher = new LifecycleEventPublisherImpl(
+                new AuditEventSubscriberLoggingImpl(), new StatusEventSubscriberLoggingImpl(),
+                new WorkerEventSubscriberLoggingImpl());
+        private final List<LifecycleEventsProto.WorkerListChangedEvent> events = new ArrayList<>();
+        private final List<WorkerId> workerIds = new ArrayList<>();
+        private WorkerRegistryV2 registry;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            registry = new WorkerRegistryV2();
+            for (int j = 0; j < numJobs; j++) {
+                JobId jobId = new JobId("benchmark", j + 1);
+                List<IMantisWorkerMetadata> workers = new ArrayList<>(numWorkersPerJob);
+                for (int w = 0; w < numWorkersPerJob; w++) {
+                    IMantisWorkerMetadata worker = new JobWorker.Builder()
+                            .withJobId(jobId)
+                            .withWorkerIndex(w)
+                            .withWorkerNumber(w + 1)
+                            .withNumberOfPorts(5)
+                            .withStageNum(1)
+                            .withSlaveID("slave-" + (w % 500))
+                            .withState(w % 10 == 0 ? WorkerState.Accepted : WorkerState.Started)
+                            .withLifecycleEventsPublisher(eventPublisher)
+                            .build()
+                            .getMetadata();
+                    workers.add(worker);
+                    workerIds.add(worker.getWorkerId());
+                }
+                LifecycleEventsProto.WorkerListChangedEvent event =
+                        new LifecycleEventsProto.WorkerListChangedEvent(new WorkerInfoListHolder(jobId, workers));
+                events.add(event);
+                registry.process(event);
+            }
+        }
+
+        WorkerId randomWorkerId() {
+            return workerIds.get(ThreadLocalRandom.current().nextInt(workerIds.size()));
+        }
+
+        LifecycleEventsProto.WorkerListChangedEvent randomWorkerListChangedEvent() {
+            return events.get(ThreadLocalRandom.current().nextInt(events.size()));
+        }
+    }
+}
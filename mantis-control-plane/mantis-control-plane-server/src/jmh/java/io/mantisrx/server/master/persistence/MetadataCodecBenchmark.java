@@ -0,0 +1,222 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.server.master.persistence;
+
+import io.mantisrx.master.events.AuditEventSubscriberLoggingImpl;
+import io.mantisrx.master.events.LifecycleEventPublisher;
+import io.mantisrx.master.events.LifecycleEventPublisherImpl;
+import io.mantisrx.master.events.StatusEventSubscriberLoggingImpl;
+import io.mantisrx.master.events.WorkerEventSubscriberLoggingImpl;
+import io.mantisrx.master.jobcluster.job.IMantisStageMetadata;
+import io.mantisrx.master.jobcluster.job.JobState;
+import io.mantisrx.master.jobcluster.job.MantisJobMetadataImpl;
+import io.mantisrx.master.jobcluster.job.MantisStageMetadataImpl;
+import io.mantisrx.master.jobcluster.job.worker.IMantisWorkerMetadata;
+import io.mantisrx.master.jobcluster.job.worker.JobWorker;
+import io.mantisrx.master.jobcluster.job.worker.MantisWorkerMetadataImpl;
+import io.mantisrx.runtime.JobSla;
+import io.mantisrx.runtime.MachineDefinition;
+import io.mantisrx.runtime.MantisJobDurationType;
+import io.mantisrx.runtime.descriptor.SchedulingInfo;
+import io.mantisrx.server.master.domain.DataFormatAdapter;
+import io.mantisrx.server.master.domain.JobDefinition;
+import io.mantisrx.server.master.domain.JobId;
+import io.mantisrx.server.master.store.MantisJobMetadataWritable;
+import io.mantisrx.server.master.store.MantisStageMetadataWritable;
+import io.mantisrx.server.master.store.MantisWorkerMetadataWritable;
+import io.mantisrx.shaded.com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import io.mantisrx.shaded.com.google.common.collect.Lists;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Compares the JSON and binary {@link MetadataCodec} formats for encoding and decoding the job, stage and workers of a
+ * single large job, both as stored by {@link IMantisStorageProvider}s ("v2") and as the writables handed to legacy
+ * storage providers through {@link DataFormatAdapter} ("writable"). The encoding benchmarks report the encoded size
+ * of what they encode as the <code>encodedBytes</code> secondary result.
+ */
+public class MetadataCodecBenchmark {
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+    @Threads(1)
+    public void testEncodeJob(Blackhole blackhole, CodecState state, EncodedSize size) throws Exception {
+        long encodedBytes = 0;
+        for (Object value : state.values) {
+            byte[] bytes = state.codec.encode(value);
+            encodedBytes += bytes.length;
+            blackhole.consume(bytes);
+        }
+        size.encodedBytes = encodedBytes;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+    @Threads(1)
+    public void testDecodeJob(Blackhole blackhole, CodecState state) throws Exception {
+        for (int i = 0; i < state.encoded.size(); i++) {
+            blackhole.consume(state.codec.decode(state.encoded.get(i), state.types.get(i)));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+    @Threads(1)
+    public void testEncodeWorkerUpdate(Blackhole blackhole, CodecState state, EncodedSize size) throws Exception {
+        // the unit persisted on every worker state transition
+        byte[] bytes = state.codec.encode(state.values.get(state.values.size() - 1));
+        size.encodedBytes = bytes.length;
+        blackhole.consume(bytes);
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class EncodedSize {
+
+        // size of the values encoded by the last invocation, the same for every invocation
+        public long encodedBytes;
+    }
+
+    @State(Scope.Benchmark)
+    public static class CodecState {
+
+        @Param({"JSON", "BINARY"})
+        public MetadataCodec.Format format;
+
+        @Param({"v2", "writable"})
+        public String representation;
+
+        @Param({"1000"})
+        public int numWorkers;
+
+        private final LifecycleEventPublisher eventPublisher = new LifecycleEventPublisherImpl(
+                new AuditEventSubscriberLoggingImpl(), new StatusEventSubscriberLoggingImpl(),
+                new WorkerEventSubscriberLoggingImpl());
+        private final List<Object> values = new ArrayList<>();
+        private final List<Class<?>> types = new ArrayList<>();
+        private final List<byte[]> encoded = new ArrayList<>();
+        private MetadataCodec codec;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            codec = new MetadataCodec(format, new SimpleFilterProvider().setFailOnUnknownId(false));
+
+            SchedulingInfo schedulingInfo = new SchedulingInfo.Builder()
+                    .numberOfStages(1)
+                    .multiWorkerStage(numWorkers, new MachineDefinition(1.0, 1.0, 1.0, 1.0, 3))
+                    .build();
+            JobDefinition jobDefinition = new JobDefinition.Builder()
+                    .withName("benchmark")
+                    .withParameters(Lists.newArrayList())
+                    .withLabels(Lists.newArrayList())
+                    .withSchedulingInfo(schedulingInfo)
+                    .withArtifactName("myart")
+                    .withSubscriptionTimeoutSecs(0)
+                    .withUser("user")
+                    .withNumberOfStages(1)
+                    .withJobSla(new JobSla(0, 0, null, MantisJobDurationType.Perpetual, null))
+                    .build();
+            JobId jobId = JobId.fromId("benchmark-1").get();
+            MantisJobMetadataImpl job = new MantisJobMetadataImpl.Builder()
+                    .withJobId(jobId)
+                    .withSubmittedAt(Instant.now())
+                    .withJobState(JobState.Launched)
+                    .withNextWorkerNumToUse(numWorkers + 1)
+                    .withJobDefinition(jobDefinition)
+                    .build();
+            IMantisStageMetadata stage = new MantisStageMetadataImpl.Builder()
+                    .withJobId(jobId)
+                    .withStageNum(1)
+                    .withNumStages(1)
+                    .withMachineDefinition(schedulingInfo.forStage(1).getMachineDefinition())
+                    .withNumWorkers(numWorkers)
+                    .withHardConstraints(Lists.newArrayList())
+                    .withSoftConstraints(Lists.newArrayList())
+                    .isScalable(false)
+                    .build();
+            job.addJobStageIfAbsent(stage);
+
+            List<IMantisWorkerMetadata> workers = new ArrayList<>();
+            for (int w = 0; w < numWorkers; w++) {
+                JobWorker worker = new JobWorker.Builder()
+                        .withJobId(jobId)
+                        .withWorkerIndex(w)
+                        .withWorkerNumber(w + 1)
+                        .withNumberOfPorts(5)
+                        .withStageNum(1)
+                        .withLifecycleEventsPublisher(eventPublisher)
+                        .build();
+                job.addWorkerMetadata(1, worker);
+                workers.add(worker.getMetadata());
+            }
+
+            switch (representation) {
+            case "v2":
+                add(job, MantisJobMetadataImpl.class);
+                add(stage, MantisStageMetadataImpl.class);
+                workers.forEach(worker -> add(worker, MantisWorkerMetadataImpl.class));
+                break;
+            case "writable":
+                add(DataFormatAdapter.convertMantisJobMetadataToMantisJobMetadataWriteable(job),
+                        MantisJobMetadataWritable.class);
+                add(DataFormatAdapter.convertMantisStageMetadataToMantisStageMetadataWriteable(stage),
+                        MantisStageMetadataWritable.class);
+                workers.forEach(worker -> add(
+                        DataFormatAdapter.convertMantisWorkerMetadataToMantisWorkerMetadataWritable(worker),
+                        MantisWorkerMetadataWritable.class));
+                break;
+            default:
+                throw new IllegalArgumentException("unknown representation " + representation);
+            }
+
+            for (Object value : values) {
+                encoded.add(codec.encode(value));
+            }
+        }
+
+        private void add(Object value, Class<?> type) {
+            values.add(value);
+            types.add(type);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.server.master.persistence;
+
+import io.mantisrx.master.events.AuditEventSubscriberLoggingImpl;
+import io.mantisrx.master.events.LifecycleEventPublisher;
+import io.mantisrx.master.events.LifecycleEventPublisherImpl;
+import io.mantisrx.master.events.StatusEventSubscriberLoggingImpl;
+import io.mantisrx.master.events.WorkerEventSubscriberLoggingImpl;
+import io.mantisrx.master.jobcluster.job.IMantisJobMetadata;
+import io.mantisrx.master.jobcluster.job.IMantisStageMetadata;
+import io.mantisrx.master.jobcluster.job.JobState;
+import io.mantisrx.master.jobcluster.job.MantisJobMetadataImpl;
+import io.mantisrx.master.jobcluster.job.MantisStageMetadataImpl;
+import io.mantisrx.master.jobcluster.job.worker.IMantisWorkerMetadata;
+import io.mantisrx.master.jobcluster.job.worker.JobWorker;
+import io.mantisrx.runtime.JobSla;
+import io.mantisrx.runtime.MachineDefinition;
+import io.mantisrx.runtime.MantisJobDurationType;
+import io.mantisrx.runtime.descriptor.SchedulingInfo;
+import io.mantisrx.server.master.domain.JobDefinition;
+import io.mantisrx.server.master.domain.JobId;
+import io.mantisrx.shaded.com.google.common.collect.Lists;
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Compares {@link SimpleCachedFileStorageProvider} ("file") against {@link LogStructuredStorageProvider} without
+ * ("log") and with ("logFsync") fsync on every write, for loading all jobs at startup and for updating workers.
+ * {@link SimpleCachedFileStorageProvider} never fsyncs, so "log" is the like-for-like comparison.
+ */
+public class StorageProviderBenchmark {
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Threads(1)
+    public void testLoadAllJobs(Blackhole blackhole, StoreState state) throws Exception {
+        blackhole.consume(state.provider.loadAllJobs());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Threads(4)
+    public void testUpdateWorker(StoreState state) throws Exception {
+        state.provider.updateWorker(state.nextWorker());
+    }
+
+    @State(Scope.Benchmark)
+    public static class StoreState {
+
+        @Param({"file", "log", "logFsync"})
+        public String providerType;
+
+        @Param({"100"})
+        public int numJobs;
+
+        @Param({"100"})
+        public int numWorkersPerJob;
+
+        private final LifecycleEventPublisher eventPublisher = new LifecycleEventPublisherImpl(
+                new AuditEventSubscriberLoggingImpl(), new StatusEventSubscriberLoggingImpl(),
+                new WorkerEventSubscriberLoggingImpl());
+        private final List<IMantisWorkerMetadata> workers = new ArrayList<>();
+        private int nextWorker = 0;
+        private File logDir;
+        private IMantisStorageProvider provider;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            switch (providerType) {
+            case "file":
+                provider = new SimpleCachedFileStorageProvider(true);
+                break;
+            case "log":
+            case "logFsync":
+                logDir = Files.createTempDirectory("StorageProviderBenchmark").toFile();
+                provider = new LogStructuredStorageProvider(logDir,
+                        LogStructuredStorageProvider.DEFAULT_SEGMENT_SIZE_BYTES,
+                        LogStructuredStorageProvider.DEFAULT_COMPACTION_GARBAGE_RATIO,
+                        TimeUnit.SECONDS.toMillis(10), "logFsync".equals(providerType));
+                break;
+            default:
+                throw new IllegalArgumentException("unknown provider " + providerType);
+            }
+
+            for (int j = 0; j < numJobs; j++) {
+                storeJob("benchmark-" + j);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            if (provider instanceof SimpleCachedFileStorageProvider) {
+                ((SimpleCachedFileStorageProvider) provider).deleteAllFiles();
+            } else {
+                ((LogStructuredStorageProvider) provider).close();
+                for (File file : logDir.listFiles()) {
+                    file.delete();
+                }
+                logDir.delete();
+            }
+        }
+
+        synchronized IMantisWorkerMetadata nextWorker() {
+            nextWorker = (nextWorker + 1) % workers.size();
+            return workers.get(nextWorker);
+        }
+
+        private void storeJob(String jobIdStr) throws Exception {
+            SchedulingInfo schedulingInfo = new SchedulingInfo.Builder()
+                    .numberOfStages(1)
+                    .multiWorkerStage(numWorkersPerJob, new MachineDefinition(1.0, 1.0, 1.0, 1.0, 3))
+                    .build();
+            JobDefinition jobDefinition = new JobDefinition.Builder()
+                    .withName("benchmark")
+                    .withParameters(Lists.newArrayList())
+                    .withLabels(Lists.newArrayList())
+                    .withSchedulingInfo(schedulingInfo)
+                    .withArtifactName("myart")
+                    .withSubscriptionTimeoutSecs(0)
+                    .withUser("user")
+                    .withNumberOfStages(1)
+                    .withJobSla(new JobSla(0, 0, null, MantisJobDurationType.Perpetual, null))
+                    .build();
+            JobId jobId = JobId.fromId(jobIdStr).get();
+            IMantisJobMetadata job = new MantisJobMetadataImpl.Builder()
+                    .withJobId(jobId)
+                    .withSubmittedAt(Instant.now())
+                    .withJobState(JobState.Launched)
+                    .withNextWorkerNumToUse(numWorkersPerJob + 1)
+                    .withJobDefinition(jobDefinition)
+                    .build();
+            provider.storeNewJob(job);
+
+            IMantisStageMetadata stage = new MantisStageMetadataImpl.Builder()
+                    .withJobId(jobId)
+                    .withStageNum(1)
+                    .withNumStages(1)
+                    .withMachineDefinition(schedulingInfo.forStage(1).getMachineDefinition())
+                    .withNumWorkers(numWorkersPerJob)
+                    .withHardConstraints(Lists.newArrayList())
+                    .withSoftConstraints(Lists.newArrayList())
+                    .isScalable(false)
+                    .build();
+            provider.storeMantisStage(stage);
+
+            for (int w = 0; w < numWorkersPerJob; w++) {
+                IMantisWorkerMetadata worker = new JobWorker.Builder()
+                        .withJobId(jobId)
+                        .withWorkerIndex(w)
+                        .withWorkerNumber(w + 1)
+                        .withNumberOfPorts(5)
+                        .withStageNum(1)
+                        .withLifecycleEventsPublisher(eventPublisher)
+                        .build()
+                        .getMetadata();
+                provider.storeWorker(worker);
+                workers.add(worker);
+            }
+        }
+    }
+}
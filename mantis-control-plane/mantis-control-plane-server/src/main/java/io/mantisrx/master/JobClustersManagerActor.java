@@ -23,6 +23,7 @@ import static io.mantisrx.master.jobcluster.proto.BaseResponse.ResponseCode.CLIE
 import static io.mantisrx.master.jobcluster.proto.BaseResponse.ResponseCode.SERVER_ERROR;
 import static io.mantisrx.master.jobcluster.proto.BaseResponse.ResponseCode.SUCCESS;
 import static io.mantisrx.master.jobcluster.proto.BaseResponse.ResponseCode.SUCCESS_CREATED;
+import static io.mantisrx.master.jobcluster.proto.JobClusterManagerProto.CompletedJobsLoaded;
 import static io.mantisrx.master.jobcluster.proto.JobClusterManagerProto.CreateJobClusterRequest;
 import static io.mantisrx.master.jobcluster.proto.JobClusterManagerProto.CreateJobClusterResponse;
 import static io.mantisrx.master.jobcluster.proto.JobClusterManagerProto.DeleteJobClusterRequest;
@@ -57,6 +58,7 @@ import static io.mantisrx.master.jobcluster.proto.JobClusterManagerProto.ListJob
 import static io.mantisrx.master.jobcluster.proto.JobClusterManagerProto.ListWorkersRequest;
 import static io.mantisrx.master.jobcluster.proto.JobClusterManagerProto.ListWorkersResponse;
 import static io.mantisrx.master.jobcluster.proto.JobClusterManagerProto.ReconcileJobCluster;
+import static io.mantisrx.master.jobcluster.proto.JobClusterManagerProto.RefreshStandbySnapshot;
 import static io.mantisrx.master.jobcluster.proto.JobClusterManagerProto.ResubmitWorkerResponse;
 import static io.mantisrx.master.jobcluster.proto.JobClusterManagerProto.ScaleStageRequest;
 import static io.mantisrx.master.jobcluster.proto.JobClusterManagerProto.ScaleStageResponse;
@@ -78,6 +80,7 @@ import akka.actor.Props;
 import akka.actor.SupervisorStrategy;
 import akka.actor.Terminated;
 import io.mantisrx.common.metrics.Counter;
+import io.mantisrx.common.metrics.Gauge;
 import io.mantisrx.common.metrics.Metrics;
 import io.mantisrx.common.metrics.MetricsRegistry;
 import io.mantisrx.common.metrics.spectator.GaugeCallback;
@@ -112,12 +115,15 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -126,15 +132,37 @@ import rx.schedulers.Schedulers;
 
 /*
 Supervisor Actor responsible for creating/deletion/listing of all Job Clusters in the system
+
+Until it is initialized as leader, it can keep a warm snapshot of the completed jobs read from storage (see
+mantis.master.standby.refresh.interval.secs), so that a standby taking over does not wait for them. Job clusters and
+active jobs are always read fresh on takeover: storage offers no change feed to keep them current on standbys, and
+acting on stale active jobs could restart workers of jobs that were killed meanwhile. Once initialized, the completed
+jobs are read again and reconciled with the snapshot.
  */
 public class JobClustersManagerActor extends AbstractActorWithTimers implements IJobClustersManager {
     private static final String CHECK_CLUSTERS_TIMER_KEY = "CHECK_CLUSTER_TIMER";
+    private static final String STANDBY_REFRESH_TIMER_KEY = "STANDBY_REFRESH_TIMER";
     public static final int STATE_TRANSITION_TIMEOUT_MSECS = 5000;
     private final Logger logger = LoggerFactory.getLogger(JobClustersManagerActor.class);
     private final long checkAgainInSecs = 30;
+    private static final int COMPLETED_JOBS_LOAD_RETRIES = 3;
+    // a standby snapshot not refreshed for this many intervals is not used on takeover
+    private static final int STANDBY_SNAPSHOT_MAX_AGE_INTERVALS = 3;
 
     private final Counter numJobClusterInitFailures;
     private final Counter numJobClusterInitSuccesses;
+    private final Gauge initLoadJobClustersTimeMs;
+    private final Gauge initLoadActiveJobsTimeMs;
+    private final Gauge initLoadCompletedJobsTimeMs;
+    private final Gauge initJobClustersTimeMs;
+    private final Gauge initTotalTimeMs;
+    private final Gauge standbyCompletedJobsCount;
+    // completed jobs read from storage while standing by, grouped by cluster, used instead of reading them again on initialize
+    private Map<String, List<CompletedJob>> standbyCompletedJobs = null;
+    private long standbySnapshotTime = 0;
+    // ids of the completed jobs initialized from the standby snapshot, until reconciled with storage
+    private Map<String, Set<String>> snapshotCompletedJobIds = null;
+    private final AtomicBoolean standbyRefreshInFlight = new AtomicBoolean(false);
     private Receive initializedBehavior;
     public static Props props(final MantisJobStore jobStore, final LifecycleEventPublisher eventPublisher) {
         return Props.create(JobClustersManagerActor.class, jobStore, eventPublisher)
@@ -157,11 +185,22 @@ public class JobClustersManagerActor extends AbstractActorWithTimers implements
                 .id(metricGroupId)
                 .addCounter("numJobClusterInitFailures")
                 .addCounter("numJobClusterInitSuccesses")
-
+                .addGauge("initLoadJobClustersTimeMs")
+                .addGauge("initLoadActiveJobsTimeMs")
+                .addGauge("initLoadCompletedJobsTimeMs")
+                .addGauge("initJobClustersTimeMs")
+                .addGauge("initTotalTimeMs")
+                .addGauge("standbyCompletedJobsCount")
                 .build();
         m = MetricsRegistry.getInstance().registerAndGet(m);
         this.numJobClusterInitFailures = m.getCounter("numJobClusterInitFailures");
         this.numJobClusterInitSuccesses = m.getCounter("numJobClusterInitSuccesses");
+        this.initLoadJobClustersTimeMs = m.getGauge("initLoadJobClustersTimeMs");
+        this.initLoadActiveJobsTimeMs = m.getGauge("initLoadActiveJobsTimeMs");
+        this.initLoadCompletedJobsTimeMs = m.getGauge("initLoadCompletedJobsTimeMs");
+        this.initJobClustersTimeMs = m.getGauge("initJobClustersTimeMs");
+        this.initTotalTimeMs = m.getGauge("initTotalTimeMs");
+        this.standbyCompletedJobsCount = m.getGauge("standbyCompletedJobsCount");
 
         initializedBehavior = getInitializedBehavior();
     }
@@ -212,6 +251,8 @@ public class JobClustersManagerActor extends AbstractActorWithTimers implements
         String state = "initialized";
         return receiveBuilder()
                 .match(ReconcileJobCluster.class, this::onReconcileJobClusters)
+                .match(CompletedJobsLoaded.class, this::onCompletedJobsLoaded)
+                .match(RefreshStandbySnapshot.class, (x) -> logger.debug("ignoring standby refresh after initialization"))
                 // Specific Job Cluster related messages
                 .match(CreateJobClusterRequest.class, this::onJobClusterCreate)
                 .match(JobClusterProto.InitializeJobClusterResponse.class, this::onJobClusterInitializeResponse)
@@ -265,6 +306,8 @@ public class JobClustersManagerActor extends AbstractActorWithTimers implements
         return receiveBuilder()
                 // EXPECTED MESSAGES BEGIN
                 .match(JobClustersManagerInitialize.class, this::initialize)
+                .match(RefreshStandbySnapshot.class, this::onRefreshStandbySnapshot)
+                .match(CompletedJobsLoaded.class, this::onStandbySnapshotLoaded)
                 // EXPECTED MESSAGES END
 
                 // UNEXPECTED MESSAGES BEGIN
@@ -322,14 +365,56 @@ public class JobClustersManagerActor extends AbstractActorWithTimers implements
                 sender.tell(new JobClustersManagerInitializeResponse(initMsg.requestId, SUCCESS, "JobClustersManager successfully inited"), getSelf());
 
             } else {
+                final long initStartTime = System.currentTimeMillis();
+                final boolean deferCompletedJobs = ConfigurationProvider.getConfig().isMasterInitCompletedJobsDeferred();
+                // completed jobs read while standing by are reconciled with storage once initialized
+                final Map<String, List<CompletedJob>> standbyCompletedJobs = takeStandbySnapshot();
+                final boolean loadCompletedJobsLater = deferCompletedJobs || standbyCompletedJobs != null;
+
+                // read the active jobs in the background while the job clusters are read
+                Future<List<IMantisJobMetadata>> activeJobsF = Observable.fromCallable(() -> {
+                            long start = System.currentTimeMillis();
+                            List<IMantisJobMetadata> jobs = jobStore.loadAllActiveJobs();
+                            initLoadActiveJobsTimeMs.set(System.currentTimeMillis() - start);
+                            return jobs;
+                        })
+                        .subscribeOn(Schedulers.io())
+                        .toBlocking()
+                        .toFuture();
+                Future<List<CompletedJob>> completedJobsF = loadCompletedJobsLater ? null :
+                        Observable.fromCallable(() -> {
+                            long start = System.currentTimeMillis();
+                            List<CompletedJob> jobs = jobStore.loadAllCompletedJobs();
+                            initLoadCompletedJobsTimeMs.set(System.currentTimeMillis() - start);
+                            return jobs;
+                        })
+                        .subscribeOn(Schedulers.io())
+                        .toBlocking()
+                        .toFuture();
+
+                long loadJobClustersStartTime = System.currentTimeMillis();
                 List<IJobClusterMetadata> jobClusters = jobStore.loadAllJobClusters();
+                initLoadJobClustersTimeMs.set(System.currentTimeMillis() - loadJobClustersStartTime);
                 logger.info("Read {} job clusters from storage", jobClusters.size());
 
-                List<IMantisJobMetadata> activeJobs = jobStore.loadAllActiveJobs();
+                List<IMantisJobMetadata> activeJobs = activeJobsF.get();
                 logger.info("Read {} jobs from storage", activeJobs.size());
 
-                List<CompletedJob> completedJobs = jobStore.loadAllCompletedJobs();
-                logger.info("Read {} completed jobs from storage", completedJobs.size());
+                final Map<String, List<CompletedJob>> clusterToCompletedJobMap;
+                if (standbyCompletedJobs != null) {
+                    clusterToCompletedJobMap = standbyCompletedJobs;
+                    snapshotCompletedJobIds = new HashMap<>();
+                    standbyCompletedJobs.forEach((clusterName, completedJobs) -> snapshotCompletedJobIds.put(clusterName,
+                            completedJobs.stream().map(CompletedJob::getJobId).collect(Collectors.toSet())));
+                    logger.info("Using completed jobs of {} clusters read while standing by", standbyCompletedJobs.size());
+                } else if (deferCompletedJobs) {
+                    clusterToCompletedJobMap = Collections.emptyMap();
+                    logger.info("Deferring completed job load until job clusters are initialized");
+                } else {
+                    List<CompletedJob> completedJobs = completedJobsF.get();
+                    clusterToCompletedJobMap = groupCompletedJobsByCluster(completedJobs);
+                    logger.info("Read {} completed jobs from storage", completedJobs.size());
+                }
 
                 for (IJobClusterMetadata jobClusterMeta : jobClusters) {
                     String clusterName = jobClusterMeta.getJobClusterDefinition().getName();
@@ -337,7 +422,6 @@ public class JobClustersManagerActor extends AbstractActorWithTimers implements
                 }
 
                 Map<String, List<IMantisJobMetadata>> clusterToJobMap = new HashMap<>();
-                Map<String, List<CompletedJob>> clusterToCompletedJobMap = new HashMap<>();
 
                 // group jobs by cluster
                 for (IMantisJobMetadata jobMeta : activeJobs) {
@@ -345,39 +429,40 @@ public class JobClustersManagerActor extends AbstractActorWithTimers implements
                     clusterToJobMap.computeIfAbsent(clusterName, k -> new ArrayList<>()).add(jobMeta);
                 }
 
-                for (CompletedJob jobMeta : completedJobs) {
-                    String clusterName = jobMeta.getName();
-                    clusterToCompletedJobMap.computeIfAbsent(clusterName, k -> new ArrayList<>()).add(jobMeta);
+                // actors are created here on the actor thread; only their initialization runs concurrently below
+                List<JobClusterInfo> jobClusterInfos = new ArrayList<>();
+                List<JobClusterProto.InitializeJobClusterRequest> initRequests = new ArrayList<>();
+                for (IJobClusterMetadata jobClusterMeta : jobClusterMap.values()) {
+                    if (jobClusterMeta == null || jobClusterMeta.getJobClusterDefinition() == null) {
+                        continue;
+                    }
+                    Optional<JobClusterInfo> jobClusterInfoO = jobClusterInfoManager.createClusterActorAndRegister(jobClusterMeta.getJobClusterDefinition());
+                    if (!jobClusterInfoO.isPresent()) {
+                        logger.info("skipping job cluster {} on bootstrap as actor creating failed", jobClusterMeta.getJobClusterDefinition().getName());
+                        continue;
+                    }
+                    List<IMantisJobMetadata> jobList = Lists.newArrayList();
+                    List<IMantisJobMetadata> jList = clusterToJobMap.get(jobClusterMeta.getJobClusterDefinition().getName());
+                    if (jList != null) {
+                        jobList.addAll(jList);
+                    }
+
+                    List<CompletedJob> completedJobsList = Lists.newArrayList();
+                    List<CompletedJob> cList = clusterToCompletedJobMap.get(jobClusterMeta.getJobClusterDefinition().getName());
+                    if (cList != null) {
+                        completedJobsList.addAll(cList);
+                    }
+                    jobClusterInfos.add(jobClusterInfoO.get());
+                    initRequests.add(new JobClusterProto.InitializeJobClusterRequest((JobClusterDefinitionImpl) jobClusterMeta.getJobClusterDefinition(),
+                        jobClusterMeta.isDisabled(), jobClusterMeta.getLastJobCount(), jobList, completedJobsList, "system", getSelf(), false));
                 }
+
                 long masterInitTimeoutSecs = ConfigurationProvider.getConfig().getMasterInitTimeoutSecs();
                 long timeout = ((masterInitTimeoutSecs - 60)) > 0 ? (masterInitTimeoutSecs - 60) : masterInitTimeoutSecs;
-                Observable.from(jobClusterMap.values())
-                        .filter((jobClusterMeta) -> jobClusterMeta != null && jobClusterMeta.getJobClusterDefinition() != null)
-                        .flatMap((jobClusterMeta) -> {
-                            Duration t = Duration.ofSeconds(timeout);
-                            Optional<JobClusterInfo> jobClusterInfoO = jobClusterInfoManager.createClusterActorAndRegister(jobClusterMeta.getJobClusterDefinition());
-                            if (!jobClusterInfoO.isPresent()) {
-                                logger.info("skipping job cluster {} on bootstrap as actor creating failed", jobClusterMeta.getJobClusterDefinition().getName());
-                                return Observable.empty();
-                            }
-                            JobClusterInfo jobClusterInfo = jobClusterInfoO.get();
-                            List<IMantisJobMetadata> jobList = Lists.newArrayList();
-                            List<IMantisJobMetadata> jList = clusterToJobMap.get(jobClusterMeta.getJobClusterDefinition().getName());
-                            if (jList != null) {
-                                jobList.addAll(jList);
-                            }
-
-                            List<CompletedJob> completedJobsList = Lists.newArrayList();
-                            List<CompletedJob> cList = clusterToCompletedJobMap.get(jobClusterMeta.getJobClusterDefinition().getName());
-                            if (cList != null) {
-                                completedJobsList.addAll(cList);
-                            }
-                            JobClusterProto.InitializeJobClusterRequest req = new JobClusterProto.InitializeJobClusterRequest((JobClusterDefinitionImpl) jobClusterMeta.getJobClusterDefinition(),
-                                jobClusterMeta.isDisabled(), jobClusterMeta.getLastJobCount(), jobList, completedJobsList, "system", getSelf(), false);
-                            return jobClusterInfoManager.initializeCluster(jobClusterInfo, req, t);
-
-
-                        })
+                int concurrency = Math.max(1, ConfigurationProvider.getConfig().getMasterInitJobClusterConcurrency());
+                long initClustersStartTime = System.currentTimeMillis();
+                Observable.range(0, jobClusterInfos.size())
+                        .flatMap((i) -> jobClusterInfoManager.initializeCluster(jobClusterInfos.get(i), initRequests.get(i), Duration.ofSeconds(timeout)), concurrency)
                         .filter(Objects::nonNull)
                         .toBlocking()
                         .subscribe((clusterInit) -> {
@@ -391,9 +476,15 @@ public class JobClustersManagerActor extends AbstractActorWithTimers implements
                             sender.tell(new JobClustersManagerInitializeResponse(initMsg.requestId, SERVER_ERROR, "JobClustersManager  inited with errors"), getSelf());
 
                         }, () -> {
-                            logger.info("JobClusterManagerActor transitioning to initialized behavior");
+                            long now = System.currentTimeMillis();
+                            initJobClustersTimeMs.set(now - initClustersStartTime);
+                            initTotalTimeMs.set(now - initStartTime);
+                            logger.info("JobClusterManagerActor transitioning to initialized behavior after {} ms", now - initStartTime);
                             getContext().become(initializedBehavior);
                             sender.tell(new JobClustersManagerInitializeResponse(initMsg.requestId, SUCCESS, "JobClustersManager successfully inited"), getSelf());
+                            if (loadCompletedJobsLater) {
+                                loadCompletedJobsAsync(false);
+                            }
                         });
 
                 getTimers().startPeriodicTimer(CHECK_CLUSTERS_TIMER_KEY, new ReconcileJobCluster(), Duration.ofSeconds(checkAgainInSecs));
@@ -413,6 +504,115 @@ public class JobClustersManagerActor extends AbstractActorWithTimers implements
     }
 
 
+    private Map<String, List<CompletedJob>> groupCompletedJobsByCluster(List<CompletedJob> completedJobs) {
+        Map<String, List<CompletedJob>> clusterToCompletedJobMap = new HashMap<>();
+        for (CompletedJob jobMeta : completedJobs) {
+            String clusterName = jobMeta.getName();
+            clusterToCompletedJobMap.computeIfAbsent(clusterName, k -> new ArrayList<>()).add(jobMeta);
+        }
+        return clusterToCompletedJobMap;
+    }
+
+    /**
+     * Reads the completed jobs of all clusters in the background once the active jobs are restored, and hands them
+     * over to the job cluster actors on arrival. Until then, job clusters only know about the jobs that completed
+     * since bootstrap, or those of the standby snapshot.
+     * Standby masters use it to refresh their snapshot.
+     */
+    private void loadCompletedJobsAsync(boolean standby) {
+        logger.info("Kicking off completed job load asynchronously");
+        final ActorRef self = getSelf();
+        Observable.fromCallable(() -> {
+                    long start = System.currentTimeMillis();
+                    List<CompletedJob> completedJobs = jobStore.loadAllCompletedJobs();
+                    return new CompletedJobsLoaded(completedJobs, System.currentTimeMillis() - start, standby);
+                })
+                .subscribeOn(Schedulers.io())
+                .retry(COMPLETED_JOBS_LOAD_RETRIES)
+                .subscribe((loaded) -> self.tell(loaded, self),
+                        (error) -> {
+                            logger.error("Failed to load completed jobs", error);
+                            if (standby) {
+                                standbyRefreshInFlight.set(false);
+                            }
+                        });
+    }
+
+    private void scheduleStandbyRefresh() {
+        long refreshIntervalSecs = ConfigurationProvider.getConfig().getStandbyRefreshIntervalSecs();
+        if (refreshIntervalSecs > 0) {
+            logger.info("Refreshing standby state every {} secs until initialized", refreshIntervalSecs);
+            getTimers().startPeriodicTimer(STANDBY_REFRESH_TIMER_KEY, new RefreshStandbySnapshot(), Duration.ofSeconds(refreshIntervalSecs));
+            getSelf().tell(new RefreshStandbySnapshot(), getSelf());
+        }
+    }
+
+    private void onRefreshStandbySnapshot(RefreshStandbySnapshot refresh) {
+        if (!standbyRefreshInFlight.compareAndSet(false, true)) {
+            logger.info("Previous standby refresh still in flight, skipping");
+            return;
+        }
+        loadCompletedJobsAsync(true);
+    }
+
+    private void onStandbySnapshotLoaded(CompletedJobsLoaded loaded) {
+        standbyRefreshInFlight.set(false);
+        standbyCompletedJobs = groupCompletedJobsByCluster(loaded.completedJobs);
+        standbySnapshotTime = System.currentTimeMillis();
+        standbyCompletedJobsCount.set((long) loaded.completedJobs.size());
+        logger.info("Standby read {} completed jobs from storage in {} ms", loaded.completedJobs.size(), loaded.loadTimeMs);
+    }
+
+    /**
+     * Stops refreshing the standby snapshot and returns it, unless there is none or it is too old to be used.
+     */
+    private Map<String, List<CompletedJob>> takeStandbySnapshot() {
+        getTimers().cancel(STANDBY_REFRESH_TIMER_KEY);
+        final Map<String, List<CompletedJob>> snapshot = this.standbyCompletedJobs;
+        this.standbyCompletedJobs = null;
+        standbyCompletedJobsCount.set(0L);
+        if (snapshot == null) {
+            return null;
+        }
+        final long maxAgeMs = STANDBY_SNAPSHOT_MAX_AGE_INTERVALS * ConfigurationProvider.getConfig().getStandbyRefreshIntervalSecs() * 1000;
+        final long ageMs = System.currentTimeMillis() - standbySnapshotTime;
+        if (ageMs > maxAgeMs) {
+            logger.warn("Not using standby snapshot of completed jobs last refreshed {} ms ago", ageMs);
+            return null;
+        }
+        return snapshot;
+    }
+
+    private void onCompletedJobsLoaded(CompletedJobsLoaded loaded) {
+        if (loaded.standby) {
+            logger.info("Ignoring completed jobs read while standing by, read again after initialization");
+            standbyRefreshInFlight.set(false);
+            return;
+        }
+        initLoadCompletedJobsTimeMs.set(loaded.loadTimeMs);
+        logger.info("Read {} completed jobs from storage in {} ms", loaded.completedJobs.size(), loaded.loadTimeMs);
+        final Map<String, List<CompletedJob>> clusterToCompletedJobMap = groupCompletedJobsByCluster(loaded.completedJobs);
+        // the jobs of the standby snapshot no longer in storage were purged by the previous leader since
+        final Map<String, Set<String>> snapshotJobIds = snapshotCompletedJobIds != null ? snapshotCompletedJobIds : Collections.emptyMap();
+        snapshotCompletedJobIds = null;
+        final Set<String> clusterNames = new HashSet<>(clusterToCompletedJobMap.keySet());
+        clusterNames.addAll(snapshotJobIds.keySet());
+        clusterNames.forEach((clusterName) -> {
+            final List<CompletedJob> completedJobs = clusterToCompletedJobMap.getOrDefault(clusterName, Collections.emptyList());
+            final Set<String> purgedJobIds = new HashSet<>(snapshotJobIds.getOrDefault(clusterName, Collections.emptySet()));
+            completedJobs.forEach((completedJob) -> purgedJobIds.remove(completedJob.getJobId()));
+            if (completedJobs.isEmpty() && purgedJobIds.isEmpty()) {
+                return;
+            }
+            Optional<JobClusterInfo> jobClusterInfo = jobClusterInfoManager.getJobClusterInfo(clusterName);
+            if (jobClusterInfo.isPresent()) {
+                jobClusterInfo.get().jobClusterActor.tell(new JobClusterProto.AddCompletedJobsRequest(completedJobs, purgedJobIds), getSelf());
+            } else {
+                logger.warn("Dropping {} completed jobs of unknown job cluster {}", completedJobs.size(), clusterName);
+            }
+        });
+    }
+
     @Override
     public void onReconcileJobClusters(ReconcileJobCluster p) {
         Set<JobClusterInfo> jobClusterInfos = this.jobClusterInfoManager.getAllJobClusterInfo().values().stream()
@@ -598,6 +798,7 @@ public class JobClustersManagerActor extends AbstractActorWithTimers implements
     public void preStart() throws Exception {
         logger.info("JobClusterManager Actor started");
         super.preStart();
+        scheduleStandbyRefresh();
     }
 
     @Override
@@ -25,14 +25,18 @@ import akka.actor.ActorRef;
 import akka.actor.Props;
 import akka.util.Timeout;
 import io.mantisrx.master.api.akka.route.proto.JobClusterProtoAdapter;
+import io.mantisrx.master.events.JobIndex;
 import io.mantisrx.master.jobcluster.MantisJobClusterMetadataView;
 import io.mantisrx.master.jobcluster.job.MantisJobMetadataView;
 import io.mantisrx.master.jobcluster.proto.JobClusterManagerProto;
+import io.mantisrx.server.master.config.ConfigurationProvider;
 import io.mantisrx.shaded.com.google.common.collect.Lists;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
@@ -53,13 +57,23 @@ public class JobListHelperActor extends AbstractActor {
 
     private final Logger logger = LoggerFactory.getLogger(JobListHelperActor.class);
 
+    private final Optional<JobIndex> jobIndex;
+
     public static Props props() {
-        return Props.create(JobListHelperActor.class);
+        return props(ConfigurationProvider.getConfig().isJobIndexEnabled() ?
+                Optional.of(JobIndex.INSTANCE) : Optional.empty());
     }
 
+    /**
+     * @param jobIndex if present job lists are only gathered from the clusters the index has matching jobs for
+     */
+    public static Props props(final Optional<JobIndex> jobIndex) {
+        return Props.create(JobListHelperActor.class, jobIndex);
+    }
 
-    public JobListHelperActor() {
 
+    public JobListHelperActor(final Optional<JobIndex> jobIndex) {
+        this.jobIndex = jobIndex;
     }
 
 
@@ -80,7 +94,7 @@ public class JobListHelperActor extends AbstractActor {
         ActorRef sender = getSender();
         Timeout t = new Timeout(Duration.create(500, TimeUnit.MILLISECONDS));
         List<MantisJobMetadataView> resultList = Lists.newArrayList();
-        getJobClustersMatchingRegex(request.jobClusterInfoMap.values(), request.listJobsRequest.getCriteria())
+        getJobClustersMatchingIndex(request.jobClusterInfoMap.values(), request.listJobsRequest.getCriteria())
                 .flatMap((jobClusterInfo) -> {
                     CompletionStage<JobClusterManagerProto.ListJobsResponse> respCS = ask(jobClusterInfo.jobClusterActor, request.listJobsRequest, t)
                             .thenApply(JobClusterManagerProto.ListJobsResponse.class::cast);
@@ -191,6 +205,19 @@ public class JobListHelperActor extends AbstractActor {
         logger.error("Exception occurred retrieving job cluster list {}", e.getMessage());
     }
 
+    /**
+     * Skips the clusters without jobs matching the cluster, state and label criteria, which can not contribute
+     * to the job list, if the job index is enabled.
+     */
+    private Observable<JobClustersManagerActor.JobClusterInfo> getJobClustersMatchingIndex(Collection<JobClustersManagerActor.JobClusterInfo> jobClusterList, JobClusterManagerProto.ListJobCriteria criteria) {
+        if (!jobIndex.isPresent()) {
+            return getJobClustersMatchingRegex(jobClusterList, criteria);
+        }
+        Set<String> clusters = jobIndex.get().getClustersWithMatchingJobs(criteria);
+        return Observable.from(jobClusterList)
+                .filter((jcInfo) -> clusters.contains(jcInfo.clusterName));
+    }
+
     private Observable<JobClustersManagerActor.JobClusterInfo> getJobClustersMatchingRegex(Collection<JobClustersManagerActor.JobClusterInfo> jobClusterList, JobClusterManagerProto.ListJobCriteria criteria) {
 
         return Observable.from(jobClusterList)
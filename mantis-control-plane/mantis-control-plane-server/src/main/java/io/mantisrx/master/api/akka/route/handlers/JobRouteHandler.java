@@ -19,6 +19,7 @@ package io.mantisrx.master.api.akka.route.handlers;
 import io.mantisrx.master.jobcluster.proto.BaseResponse;
 import io.mantisrx.master.jobcluster.proto.JobClusterManagerProto;
 import io.mantisrx.server.master.scheduler.WorkerEvent;
+import java.util.Optional;
 import java.util.concurrent.CompletionStage;
 
 public interface JobRouteHandler {
@@ -38,5 +39,17 @@ public interface JobRouteHandler {
 
     CompletionStage<JobClusterManagerProto.ListJobIdsResponse> listJobIds(final JobClusterManagerProto.ListJobIdsRequest request);
 
+    /**
+     * Lists a page of job ids, most recently submitted first.
+     *
+     * @param user     if present only jobs submitted by this user are listed
+     * @param cursor   next cursor of the previous page, if any
+     * @param pageSize max number of job ids to list
+     */
+    CompletionStage<JobClusterManagerProto.ListJobIdsResponse> listJobIds(final JobClusterManagerProto.ListJobIdsRequest request,
+                                                                         final Optional<String> user,
+                                                                         final Optional<String> cursor,
+                                                                         final int pageSize);
+
     CompletionStage<JobClusterManagerProto.ListArchivedWorkersResponse> listArchivedWorkers(final JobClusterManagerProto.ListArchivedWorkersRequest request);
 }
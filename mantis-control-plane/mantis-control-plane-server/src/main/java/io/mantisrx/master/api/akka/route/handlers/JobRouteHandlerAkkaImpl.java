@@ -22,38 +22,54 @@ import akka.actor.ActorRef;
 import io.mantisrx.common.metrics.Counter;
 import io.mantisrx.common.metrics.Metrics;
 import io.mantisrx.common.metrics.MetricsRegistry;
+import io.mantisrx.master.events.JobIndex;
 import io.mantisrx.master.jobcluster.proto.BaseResponse;
 import io.mantisrx.master.jobcluster.proto.JobClusterManagerProto;
 import io.mantisrx.server.master.config.ConfigurationProvider;
 import io.mantisrx.server.master.scheduler.WorkerEvent;
 import java.time.Duration;
+import java.util.Collections;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class JobRouteHandlerAkkaImpl implements JobRouteHandler {
     private static final Logger logger = LoggerFactory.getLogger(JobRouteHandlerAkkaImpl.class);
     private final ActorRef jobClustersManagerActor;
+    private final Optional<JobIndex> jobIndex;
     private final Counter listAllJobs;
     private final Counter listJobIds;
+    private final Counter listJobIdsFromIndex;
     private final Counter listArchivedWorkers;
     private final Duration timeout;
 
     public JobRouteHandlerAkkaImpl(ActorRef jobClusterManagerActor) {
+        this(jobClusterManagerActor, ConfigurationProvider.getConfig().isJobIndexEnabled() ?
+            Optional.of(JobIndex.INSTANCE) : Optional.empty());
+    }
+
+    /**
+     * @param jobIndex if present pages of job ids are listed from the index instead of the job clusters
+     */
+    public JobRouteHandlerAkkaImpl(ActorRef jobClusterManagerActor, Optional<JobIndex> jobIndex) {
         this.jobClustersManagerActor = jobClusterManagerActor;
+        this.jobIndex = jobIndex;
         long timeoutMs = Optional.ofNullable(ConfigurationProvider.getConfig().getMasterApiAskTimeoutMs()).orElse(1000L);
         this.timeout = Duration.ofMillis(timeoutMs);
         Metrics m = new Metrics.Builder()
             .id("JobRouteHandler")
             .addCounter("listAllJobs")
             .addCounter("listJobIds")
+            .addCounter("listJobIdsFromIndex")
             .addCounter("listArchivedWorkers")
             .build();
         Metrics metrics = MetricsRegistry.getInstance().registerAndGet(m);
         this.listAllJobs = metrics.getCounter("listAllJobs");
         this.listJobIds = metrics.getCounter("listJobIds");
+        this.listJobIdsFromIndex = metrics.getCounter("listJobIdsFromIndex");
         this.listArchivedWorkers = metrics.getCounter("listArchivedWorkers");
     }
 
@@ -103,6 +119,41 @@ public class JobRouteHandlerAkkaImpl implements JobRouteHandler {
             .thenApply(JobClusterManagerProto.ListJobIdsResponse.class::cast);
     }
 
+    @Override
+    public CompletionStage<JobClusterManagerProto.ListJobIdsResponse> listJobIds(JobClusterManagerProto.ListJobIdsRequest request,
+                                                                                Optional<String> user,
+                                                                                Optional<String> cursor,
+                                                                                int pageSize) {
+        logger.debug("request {} user {} cursor {} pageSize {}", request, user, cursor, pageSize);
+        listJobIds.increment();
+        if (jobIndex.isPresent()) {
+            listJobIdsFromIndex.increment();
+            try {
+                JobIndex.Page page = jobIndex.get().query(request.getCriteria(), user, cursor, pageSize);
+                return CompletableFuture.completedFuture(new JobClusterManagerProto.ListJobIdsResponse(
+                    request.requestId, BaseResponse.ResponseCode.SUCCESS, "", page.getList(),
+                    Optional.ofNullable(page.getNextCursor())));
+            } catch (IllegalArgumentException e) {
+                return CompletableFuture.completedFuture(new JobClusterManagerProto.ListJobIdsResponse(
+                    request.requestId, BaseResponse.ResponseCode.CLIENT_ERROR, e.getMessage(), Collections.emptyList()));
+            }
+        }
+        if (cursor.isPresent()) {
+            return CompletableFuture.completedFuture(new JobClusterManagerProto.ListJobIdsResponse(
+                request.requestId, BaseResponse.ResponseCode.CLIENT_ERROR,
+                "cursor is only supported when the job index is enabled", Collections.emptyList()));
+        }
+        // without the index the job clusters list the job ids and only the first page is returned
+        return ask(jobClustersManagerActor, request, timeout)
+            .thenApply(JobClusterManagerProto.ListJobIdsResponse.class::cast)
+            .thenApply(resp -> new JobClusterManagerProto.ListJobIdsResponse(
+                resp.requestId, resp.responseCode, resp.message,
+                resp.getJobIds().stream()
+                    .filter(jobIdInfo -> !user.isPresent() || user.get().equals(jobIdInfo.getUser()))
+                    .limit(pageSize)
+                    .collect(Collectors.toList())));
+    }
+
     @Override
     public CompletionStage<JobClusterManagerProto.ListArchivedWorkersResponse> listArchivedWorkers(JobClusterManagerProto.ListArchivedWorkersRequest request) {
         listArchivedWorkers.increment();
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.mantisrx.master.api.akka.route.utils;
+
+import akka.http.javadsl.model.sse.ServerSentEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.mantisrx.server.core.JobSchedulingInfo;
+import io.mantisrx.server.core.JobSchedulingInfoDelta;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Versions the scheduling info published by each job, and serializes every version once for all subscribers of the
+ * job's discovery stream to share: as a full {@link JobSchedulingInfoDelta} and as a delta from the previous version.
+ */
+public class SchedulingInfoVersions {
+
+    private final Cache<String, JobVersions> jobs = Caffeine.newBuilder()
+        .expireAfterAccess(10, TimeUnit.MINUTES)
+        .build();
+
+    /**
+     * Returns the mapper of one subscriber from the job's scheduling info to the events to send. Each version is sent
+     * as a delta if the subscriber has the previous one, and in full otherwise; versions the subscriber already has
+     * map to nothing.
+     *
+     * @param epoch        epoch of the version the subscriber resumes from, if any.
+     * @param sinceVersion version the subscriber resumes from, if any.
+     */
+    public Function<JobSchedulingInfo, Optional<ServerSentEvent>> subscribe(String jobId,
+                                                                          Optional<Long> epoch,
+                                                                          Optional<Long> sinceVersion) {
+        JobVersions versions = jobs.get(jobId, (id) -> new JobVersions());
+        long resumeVersion = epoch.isPresent() && epoch.get() == versions.epoch ? sinceVersion.orElse(-1L) : -1L;
+        return new Function<JobSchedulingInfo, Optional<ServerSentEvent>>() {
+            private long lastVersion = resumeVersion;
+
+            @Override
+            public Optional<ServerSentEvent> apply(JobSchedulingInfo info) {
+                if (JobSchedulingInfo.HB_JobId.equals(info.getJobId())) {
+                    return StreamingUtils.from(info);
+                }
+                Version version = versions.record(info);
+                if (version.version == lastVersion) {
+                    return Optional.empty();
+                }
+                boolean hasPrevious = lastVersion >= 0 && version.version == lastVersion + 1;
+                lastVersion = version.version;
+                return hasPrevious && version.deltaEvent.isPresent() ? version.deltaEvent : version.fullEvent;
+            }
+        };
+    }
+
+    private static class JobVersions {
+        private final long epoch = System.currentTimeMillis();
+        // older versions, looked up by identity as every subscriber receives the same instances from the job
+        private final Cache<JobSchedulingInfo, Version> versionsByInfo = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
+        private JobSchedulingInfo latestInfo;
+        private Version latest;
+
+        synchronized Version record(JobSchedulingInfo info) {
+            if (info == latestInfo) {
+                return latest;
+            }
+            Version known = versionsByInfo.getIfPresent(info);
+            if (known != null) {
+                return known;
+            }
+            if (latestInfo != null && info.equals(latestInfo)) {
+                versionsByInfo.put(info, latest);
+                return latest;
+            }
+
+            long version = latest == null ? 0 : latest.version + 1;
+            Optional<ServerSentEvent> deltaEvent = latestInfo == null ? Optional.empty() :
+                StreamingUtils.from(JobSchedulingInfoDelta.between(latestInfo, info, epoch, version));
+            latest = new Version(version, StreamingUtils.from(JobSchedulingInfoDelta.full(info, epoch, version)), deltaEvent);
+            latestInfo = info;
+            versionsByInfo.put(info, latest);
+            return latest;
+        }
+    }
+
+    private static class Version {
+        private final long version;
+        private final Optional<ServerSentEvent> fullEvent;
+        private final Optional<ServerSentEvent> deltaEvent;
+
+        Version(long version, Optional<ServerSentEvent> fullEvent, Optional<ServerSentEvent> deltaEvent) {
+            this.version = version;
+            this.fullEvent = fullEvent;
+            this.deltaEvent = deltaEvent;
+        }
+    }
+}
@@ -20,8 +20,11 @@ import static io.mantisrx.master.api.akka.route.utils.JobDiscoveryHeartbeats.JOB
 import static io.mantisrx.master.api.akka.route.utils.JobDiscoveryHeartbeats.SCHED_INFO_HB_INSTANCE;
 
 import akka.http.javadsl.model.sse.ServerSentEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.mantisrx.master.api.akka.route.proto.JobClusterInfo;
 import io.mantisrx.server.core.JobSchedulingInfo;
+import io.mantisrx.server.core.JobSchedulingInfoDelta;
 import io.mantisrx.shaded.com.fasterxml.jackson.core.JsonProcessingException;
 import io.mantisrx.shaded.com.fasterxml.jackson.databind.DeserializationFeature;
 import io.mantisrx.shaded.com.fasterxml.jackson.databind.ObjectMapper;
@@ -36,6 +39,10 @@ public class StreamingUtils {
 
     private static volatile Optional<ServerSentEvent> cachedSchedInfoHbEvent = Optional.empty();
     private static volatile Optional<ServerSentEvent> cachedJobClusterInfoHbEvent = Optional.empty();
+    // a job publishes the same instance to all its discovery stream subscribers, so serialize each instance once
+    private static final Cache<JobSchedulingInfo, Optional<ServerSentEvent>> cachedSchedInfoEvents = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
 
 
     static {
@@ -50,10 +57,14 @@ public class StreamingUtils {
     }
 
     public static Optional<ServerSentEvent> from(final JobSchedulingInfo jsi) {
+        if (jsi.getJobId().equals(JobSchedulingInfo.HB_JobId) && cachedSchedInfoHbEvent.isPresent()) {
+            return cachedSchedInfoHbEvent;
+        }
+        return cachedSchedInfoEvents.get(jsi, StreamingUtils::serialize);
+    }
+
+    private static Optional<ServerSentEvent> serialize(final JobSchedulingInfo jsi) {
         try {
-            if (jsi.getJobId().equals(JobSchedulingInfo.HB_JobId) && cachedSchedInfoHbEvent.isPresent()) {
-                return cachedSchedInfoHbEvent;
-            }
             return Optional.ofNullable(ServerSentEvent.create(mapper.writeValueAsString(jsi)));
         } catch (JsonProcessingException e) {
             logger.warn("failed to serialize Job Scheduling Info {}", jsi);
@@ -61,6 +72,15 @@ public class StreamingUtils {
         return Optional.empty();
     }
 
+    public static Optional<ServerSentEvent> from(final JobSchedulingInfoDelta delta) {
+        try {
+            return Optional.ofNullable(ServerSentEvent.create(mapper.writeValueAsString(delta)));
+        } catch (JsonProcessingException e) {
+            logger.warn("failed to serialize Job Scheduling Info delta {}", delta);
+        }
+        return Optional.empty();
+    }
+
     public static Optional<ServerSentEvent> from(final JobClusterInfo jci) {
         try {
             if (jci.getName().equals(JobSchedulingInfo.HB_JobId) &&
@@ -29,6 +29,7 @@ import akka.http.javadsl.unmarshalling.StringUnmarshallers;
 import akka.stream.javadsl.Source;
 import io.mantisrx.master.api.akka.route.handlers.JobDiscoveryRouteHandler;
 import io.mantisrx.master.api.akka.route.proto.JobDiscoveryRouteProto;
+import io.mantisrx.master.api.akka.route.utils.SchedulingInfoVersions;
 import io.mantisrx.master.api.akka.route.utils.StreamingUtils;
 import io.mantisrx.master.jobcluster.proto.JobClusterManagerProto;
 import io.mantisrx.server.core.JobSchedulingInfo;
@@ -46,10 +47,13 @@ import rx.RxReactiveStreams;
  * JobDiscoveryStreamRoute - returns scheduling info stream for a given job.
  * Defines the following end points:
  *    /api/v1/jobDiscoveryStream/{jobId}        (GET)
+ * With delta=true, versioned {@link io.mantisrx.server.core.JobSchedulingInfoDelta}s are streamed instead, resuming
+ * from the given epoch and sinceVersion if possible.
  */public class JobDiscoveryStreamRoute extends BaseRoute {
     private static final Logger logger = LoggerFactory.getLogger(JobDiscoveryStreamRoute.class);
 
     private final JobDiscoveryRouteHandler jobDiscoveryRouteHandler;
+    private final SchedulingInfoVersions schedulingInfoVersions = new SchedulingInfoVersions();
 
     private static final PathMatcher0 JOBDISCOVERY_API_PREFIX = segment("api").slash("v1");
 
@@ -81,9 +85,10 @@ import rx.RxReactiveStreams;
 
 
     private Route getJobDiscoveryStreamRoute(String jobId) {
-        return parameterOptional(
-                StringUnmarshallers.BOOLEAN, ParamName.SEND_HEARTBEAT,
-                (sendHeartbeats) -> {
+        return parameterOptional(StringUnmarshallers.BOOLEAN, ParamName.SEND_HEARTBEAT, (sendHeartbeats) ->
+            parameterOptional(StringUnmarshallers.BOOLEAN, ParamName.DELTA, (delta) ->
+                parameterOptional(StringUnmarshallers.LONG, ParamName.DELTA_EPOCH, (epoch) ->
+                    parameterOptional(StringUnmarshallers.LONG, ParamName.DELTA_SINCE_VERSION, (sinceVersion) -> {
 
                     logger.info("GET /api/v1/jobStatusStream/{} called", jobId);
                     CompletionStage<JobDiscoveryRouteProto.SchedInfoResponse> schedulingInfoRespCS =
@@ -99,10 +104,13 @@ import rx.RxReactiveStreams;
                                 if (siStream.isPresent()) {
                                     Observable<JobSchedulingInfo> schedulingInfoObs = siStream.get();
 
+                                    Function<JobSchedulingInfo, Optional<ServerSentEvent>> toEvent = delta.orElse(false) ?
+                                            schedulingInfoVersions.subscribe(jobId, epoch, sinceVersion) :
+                                            StreamingUtils::from;
                                     Source<ServerSentEvent, NotUsed> schedInfoSource =
                                             Source.fromPublisher(RxReactiveStreams.toPublisher(
                                                     schedulingInfoObs))
-                                                  .map(j -> StreamingUtils.from(j).orElse(null))
+                                                  .map(j -> toEvent.apply(j).orElse(null))
                                                   .filter(Objects::nonNull);
                                     return completeOK(
                                             schedInfoSource,
@@ -120,6 +128,6 @@ import rx.RxReactiveStreams;
                             HttpRequestMetrics.Endpoints.JOB_STATUS_STREAM,
                             HttpRequestMetrics.HttpVerb.GET
                             );
-                });
+                }))));
     }
 }
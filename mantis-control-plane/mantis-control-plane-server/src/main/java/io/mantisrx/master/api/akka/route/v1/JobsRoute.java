@@ -18,6 +18,7 @@ package io.mantisrx.master.api.akka.route.v1;
 
 import static akka.http.javadsl.server.PathMatchers.segment;
 import static akka.http.javadsl.server.directives.CachingDirectives.alwaysCache;
+import static io.mantisrx.master.api.akka.route.utils.JobRouteUtils.createListJobIdsRequest;
 import static io.mantisrx.master.api.akka.route.utils.JobRouteUtils.createListJobsRequest;
 import static io.mantisrx.master.api.akka.route.utils.JobRouteUtils.createWorkerStatusRequest;
 import static io.mantisrx.master.jobcluster.proto.JobClusterManagerProto.ListArchivedWorkersRequest.DEFAULT_LIST_ARCHIVED_WORKERS_LIMIT;
@@ -33,6 +34,7 @@ import io.mantisrx.master.api.akka.route.Jackson;
 import io.mantisrx.master.api.akka.route.handlers.JobClusterRouteHandler;
 import io.mantisrx.master.api.akka.route.handlers.JobRouteHandler;
 import io.mantisrx.master.api.akka.route.proto.JobClusterProtoAdapter;
+import io.mantisrx.master.events.JobIndex;
 import io.mantisrx.master.jobcluster.job.MantisJobMetadataView;
 import io.mantisrx.master.jobcluster.proto.BaseResponse;
 import io.mantisrx.master.jobcluster.proto.JobClusterManagerProto;
@@ -210,7 +212,9 @@ public class JobsRoute extends BaseRoute {
     }
 
     private Route getJobsRoute(Optional<String> clusterName) {
-        return parameterOptional(StringUnmarshallers.INTEGER, ParamName.PAGINATION_LIMIT, (pageSize) ->
+        return parameterOptional(StringUnmarshallers.BOOLEAN, ParamName.JOB_IDS_ONLY, (idsOnly) ->
+               idsOnly.orElse(false) ? getJobIdsRoute(clusterName) :
+               parameterOptional(StringUnmarshallers.INTEGER, ParamName.PAGINATION_LIMIT, (pageSize) ->
                 parameterOptional(StringUnmarshallers.INTEGER, ParamName.PAGINATION_OFFSET, (offset) ->
                  parameterOptional(StringUnmarshallers.BOOLEAN, ParamName.SORT_ASCENDING, (ascending) ->
                   parameterOptional(StringUnmarshallers.STRING, ParamName.SORT_BY, (sortField) ->
@@ -259,8 +263,47 @@ public class JobsRoute extends BaseRoute {
                                     endpoint,
                                     HttpRequestMetrics.HttpVerb.GET
                             );
-                        })))))))))));
+                        }))))))))))));
+
+    }
 
+    /**
+     * Lists pages of job ids, most recently submitted first. Pages are linked by cursors rather than offsets so
+     * that they can be served by the job index without listing all jobs, and do not shift as jobs are submitted.
+     */
+    private Route getJobIdsRoute(Optional<String> clusterName) {
+        return parameterOptional(StringUnmarshallers.INTEGER, ParamName.PAGINATION_LIMIT, (pageSize) ->
+                parameterOptional(StringUnmarshallers.STRING, ParamName.PAGINATION_CURSOR, (cursor) ->
+                 parameterOptional(StringUnmarshallers.STRING, ParamName.USER, (user) ->
+                  parameterOptional(StringUnmarshallers.STRING, ParamName.JOB_FILTER_MATCH, (matching) ->
+                   parameterMultiMap(params -> {
+                       String endpoint;
+                       if (clusterName.isPresent()) {
+                           logger.debug("GET /api/v1/jobClusters/{}/jobs?idsOnly=true called", clusterName);
+                           endpoint = HttpRequestMetrics.Endpoints.JOB_CLUSTER_INSTANCE_JOBS;
+                       } else {
+                           logger.debug("GET /api/v1/jobs?idsOnly=true called");
+                           endpoint = HttpRequestMetrics.Endpoints.JOBS;
+                       }
+
+                       JobClusterManagerProto.ListJobIdsRequest listJobIdsRequest = createListJobIdsRequest(
+                               params,
+                               clusterName.map(s -> Optional.of("^" + s + "$")).orElse(matching),
+                               true);
+
+                       return completeAsync(
+                               jobRouteHandler.listJobIds(
+                                       listJobIdsRequest,
+                                       user,
+                                       cursor,
+                                       Math.max(1, pageSize.orElse(JobIndex.DEFAULT_PAGE_SIZE))),
+                               resp -> completeOK(
+                                       new JobIndex.Page(resp.getJobIds(), resp.getNextCursor().orElse(null)),
+                                       Jackson.marshaller()),
+                               endpoint,
+                               HttpRequestMetrics.HttpVerb.GET
+                       );
+                   })))));
     }
 
 
@@ -23,14 +23,19 @@ public class ParamName {
     public static String SORT_ASCENDING = "ascending";
     public static String PAGINATION_LIMIT = "pageSize";
     public static String PAGINATION_OFFSET = "offset";
+    public static String PAGINATION_CURSOR = "cursor";
 
     public static String JOB_COMPACT = "compact";
+    public static String JOB_IDS_ONLY = "idsOnly";
     public static String JOB_FILTER_MATCH = "matching";
     public static String JOBCLUSTER_FILTER_MATCH = "matching";
 
     public static String REASON = "reason";
     public static String USER = "user";
     public static String SEND_HEARTBEAT = "sendHB";
+    public static String DELTA = "delta";
+    public static String DELTA_EPOCH = "epoch";
+    public static String DELTA_SINCE_VERSION = "sinceVersion";
     public static String ARCHIVED = "archived";
     public static String SERVER_FILTER_LIMIT = "limit";
 
@@ -0,0 +1,476 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.mantisrx.master.events;
+
+import com.mantisrx.common.utils.LabelUtils;
+import io.mantisrx.common.Label;
+import io.mantisrx.master.api.akka.route.proto.JobClusterProtoAdapter.JobIdInfo;
+import io.mantisrx.master.jobcluster.job.JobState;
+import io.mantisrx.master.jobcluster.proto.JobClusterManagerProto.ListJobCriteria;
+import io.mantisrx.server.master.domain.JobId;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A read side index of the jobs of all job clusters, maintained from the
+ * {@link LifecycleEventsProto.JobListChangedEvent}s published by the job clusters, that answers job list queries
+ * without asking the job cluster actors.
+ *
+ * Jobs are held in sets ordered from the most recently submitted job, keyed by cluster, state, label and user.
+ * A query walks the smallest of the sets its criteria select, filters on the remaining criteria and resumes after
+ * the cursor of the previous page, so that pages stay stable while jobs are submitted or purged.
+ */
+public class JobIndex implements JobEventSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobIndex.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    // States of jobs listed as active and as completed by the job clusters.
+    private static final Set<JobState> ACTIVE_STATES = EnumSet.of(JobState.Accepted, JobState.Launched,
+            JobState.Terminating_normal, JobState.Terminating_abnormal);
+    private static final Set<JobState> COMPLETED_STATES = EnumSet.of(JobState.Completed, JobState.Failed);
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong((Entry e) -> e.submittedAt).reversed()
+            .thenComparing(e -> e.jobId.getId());
+
+    public static final JobIndex INSTANCE = new JobIndex();
+
+    private final ConcurrentMap<JobId, Entry> jobs = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> allJobs = new ConcurrentSkipListSet<>(ORDER);
+    private final ConcurrentMap<String, NavigableSet<Entry>> jobsByCluster = new ConcurrentHashMap<>();
+    private final ConcurrentMap<JobState, NavigableSet<Entry>> jobsByState = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Label, NavigableSet<Entry>> jobsByLabel = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, NavigableSet<Entry>> jobsByUser = new ConcurrentHashMap<>();
+
+    JobIndex() {
+    }
+
+    /**
+     * For Testing
+     */
+    public synchronized void clearState() {
+        jobs.clear();
+        allJobs.clear();
+        jobsByCluster.clear();
+        jobsByState.clear();
+        jobsByLabel.clear();
+        jobsByUser.clear();
+    }
+
+    public int size() {
+        return jobs.size();
+    }
+
+    /**
+     * Events of a job are published by its job cluster actor one at a time, while different clusters publish
+     * concurrently. Updates are serialized so that the sets of a job always move together; queries do not lock
+     * and may miss a job that is changing state while they run.
+     */
+    @Override
+    public synchronized void process(LifecycleEventsProto.JobListChangedEvent event) {
+        if (logger.isTraceEnabled()) { logger.trace("In JobListChangedEvent {}", event); }
+        JobId jobId = event.getJobId();
+        if (event.isRemoved()) {
+            Entry removed = jobs.remove(jobId);
+            if (removed != null) {
+                unindex(removed);
+            }
+            return;
+        }
+        if (event.getJobState() == null) {
+            logger.warn("Ignoring {} without a job state", event);
+            return;
+        }
+        Entry entry = new Entry(event);
+        Entry previous = jobs.put(jobId, entry);
+        if (previous != null) {
+            unindex(previous);
+        }
+        index(entry);
+    }
+
+    /**
+     * Returns a page of the jobs matching the given criteria, most recently submitted first.
+     *
+     * Criteria are interpreted the way the job clusters list job ids: the regex is matched against cluster names,
+     * jobs that are accepted, launched or terminating are listed unless the Terminal state is requested, and
+     * completed jobs are only listed if activeOnly is false. Unlike the job clusters, the limit applies to the
+     * page and not to each cluster.
+     *
+     * @param criteria job list criteria, the limit is ignored in favor of pageSize
+     * @param user     if present only jobs submitted by this user are listed
+     * @param cursor   the {@link Page#getNextCursor() cursor} of the previous page, if any
+     * @param pageSize max number of jobs to return
+     * @return the page, with a cursor to the next page if there are more matching jobs
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    public Page query(ListJobCriteria criteria, Optional<String> user, Optional<String> cursor, int pageSize) {
+        Optional<Entry> after = cursor.map(JobIndex::decodeCursor);
+        Query query = new Query(criteria, getJobIdStates(criteria), user);
+        List<JobIdInfo> list = new ArrayList<>();
+        Entry last = null;
+        boolean hasMore = false;
+        Iterator<Entry> it = query.iterator(after);
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (!query.test(entry)) {
+                continue;
+            }
+            if (list.size() == pageSize) {
+                hasMore = true;
+                break;
+            }
+            list.add(entry.toJobIdInfo());
+            last = entry;
+        }
+        return new Page(list, hasMore ? encodeCursor(last) : null);
+    }
+
+    /**
+     * Returns the names of the clusters having at least one job that matches the cluster, state and label criteria.
+     * Used to only ask clusters that can contribute to a job list.
+     */
+    public Set<String> getClustersWithMatchingJobs(ListJobCriteria criteria) {
+        Query query = new Query(criteria, getJobStates(criteria), Optional.empty());
+        Set<String> clusters = new HashSet<>();
+        for (String cluster : query.clusters.orElseGet(jobsByCluster::keySet)) {
+            Set<Entry> clusterJobs = jobsByCluster.get(cluster);
+            if (clusterJobs != null && clusterJobs.stream().anyMatch(query)) {
+                clusters.add(cluster);
+            }
+        }
+        return clusters;
+    }
+
+    private void index(Entry entry) {
+        allJobs.add(entry);
+        add(jobsByCluster, entry.cluster, entry);
+        add(jobsByState, entry.state, entry);
+        for (Label label : entry.labels) {
+            add(jobsByLabel, label, entry);
+        }
+        if (entry.user != null) {
+            add(jobsByUser, entry.user, entry);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        allJobs.remove(entry);
+        remove(jobsByCluster, entry.cluster, entry);
+        remove(jobsByState, entry.state, entry);
+        for (Label label : entry.labels) {
+            remove(jobsByLabel, label, entry);
+        }
+        if (entry.user != null) {
+            remove(jobsByUser, entry.user, entry);
+        }
+    }
+
+    private static <K> void add(ConcurrentMap<K, NavigableSet<Entry>> sets, K key, Entry entry) {
+        sets.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>(ORDER)).add(entry);
+    }
+
+    private static <K> void remove(ConcurrentMap<K, NavigableSet<Entry>> sets, K key, Entry entry) {
+        NavigableSet<Entry> set = sets.get(key);
+        if (set != null) {
+            set.remove(entry);
+            if (set.isEmpty()) {
+                sets.remove(key, set);
+            }
+        }
+    }
+
+    static String encodeCursor(Entry entry) {
+        String key = entry.submittedAt + ":" + entry.jobId.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Entry decodeCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf(':');
+            long submittedAt = Long.parseLong(key.substring(0, separator));
+            JobId jobId = JobId.fromId(key.substring(separator + 1))
+                    .orElseThrow(() -> new IllegalArgumentException("Invalid job id in cursor " + cursor));
+            return new Entry(jobId, submittedAt);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor " + cursor, e);
+        }
+    }
+
+    /**
+     * Selects the sets to walk for a query and filters the jobs found in them.
+     */
+    private final class Query implements Predicate<Entry> {
+        private final Optional<Set<String>> clusters;
+        private final Set<JobState> states;
+        private final List<Label> labels;
+        private final boolean allLabels;
+        private final Optional<String> user;
+
+        Query(ListJobCriteria criteria, Set<JobState> states, Optional<String> user) {
+            this.clusters = criteria.getMatchingRegex().map(JobIndex.this::getClustersMatchingRegex);
+            this.states = states;
+            this.labels = criteria.getMatchingLabels();
+            this.allLabels = criteria.getLabelsOperand()
+                    .map(op -> op.equalsIgnoreCase(LabelUtils.AND_OPERAND))
+                    .orElse(false);
+            this.user = user;
+        }
+
+        @Override
+        public boolean test(Entry entry) {
+            return (!clusters.isPresent() || clusters.get().contains(entry.cluster))
+                    && states.contains(entry.state)
+                    && (labels.isEmpty() || (allLabels ?
+                        LabelUtils.allPairsPresent(labels, entry.labels) : LabelUtils.somePairsPresent(labels, entry.labels)))
+                    && (!user.isPresent() || user.get().equals(entry.user));
+        }
+
+        /**
+         * Walks the union of the sets selected by the most selective criterion.
+         */
+        Iterator<Entry> iterator(Optional<Entry> after) {
+            List<Collection<NavigableSet<Entry>>> candidates = new ArrayList<>();
+            clusters.ifPresent(names -> candidates.add(lookup(jobsByCluster, names)));
+            if (!states.containsAll(ACTIVE_STATES) || !states.containsAll(COMPLETED_STATES)) {
+                candidates.add(lookup(jobsByState, states));
+            }
+            if (!labels.isEmpty()) {
+                if (allLabels) {
+                    labels.forEach(label -> candidates.add(lookup(jobsByLabel, Collections.singleton(label))));
+                } else {
+                    candidates.add(lookup(jobsByLabel, labels));
+                }
+            }
+            user.ifPresent(u -> candidates.add(lookup(jobsByUser, Collections.singleton(u))));
+
+            Collection<NavigableSet<Entry>> smallest = candidates.stream()
+                    .min(Comparator.comparingInt(sets -> sets.stream().mapToInt(Set::size).sum()))
+                    .orElse(Collections.singleton(allJobs));
+            List<Iterator<Entry>> iterators = smallest.stream()
+                    .map(set -> after.map(a -> set.tailSet(a, false)).orElse(set).iterator())
+                    .collect(Collectors.toList());
+            return iterators.size() == 1 ? iterators.get(0) : new MergingIterator(iterators);
+        }
+    }
+
+    /**
+     * Returns the states of the jobs whose ids are listed for the given criteria.
+     */
+    private static Set<JobState> getJobIdStates(ListJobCriteria criteria) {
+        Set<JobState> states = EnumSet.noneOf(JobState.class);
+        Optional<JobState.MetaState> metaState = criteria.getJobState();
+        if (!metaState.isPresent() || metaState.get() != JobState.MetaState.Terminal) {
+            states.addAll(ACTIVE_STATES);
+        }
+        if (!criteria.getActiveOnly().orElse(true)
+                && (!metaState.isPresent() || metaState.get() == JobState.MetaState.Terminal)) {
+            states.addAll(COMPLETED_STATES);
+        }
+        return states;
+    }
+
+    /**
+     * Returns the states of the jobs that are listed for the given criteria. Unlike job ids, completed jobs are
+     * listed whenever the Terminal state is requested.
+     */
+    private static Set<JobState> getJobStates(ListJobCriteria criteria) {
+        Set<JobState> states = EnumSet.noneOf(JobState.class);
+        Optional<JobState.MetaState> metaState = criteria.getJobState();
+        if (!metaState.isPresent() || metaState.get() != JobState.MetaState.Terminal) {
+            states.addAll(ACTIVE_STATES);
+        }
+        if (metaState.isPresent() ? metaState.get() == JobState.MetaState.Terminal : !criteria.getActiveOnly().orElse(false)) {
+            states.addAll(COMPLETED_STATES);
+        }
+        return states;
+    }
+
+    private Set<String> getClustersMatchingRegex(String regex) {
+        try {
+            Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+            return jobsByCluster.keySet().stream()
+                    .filter(cluster -> pattern.matcher(cluster).find())
+                    .collect(Collectors.toSet());
+        } catch (Exception e) {
+            // match every cluster, as the job list helper does
+            logger.warn("Invalid regex {}", e.getMessage());
+            return new HashSet<>(jobsByCluster.keySet());
+        }
+    }
+
+    private static <K> Collection<NavigableSet<Entry>> lookup(ConcurrentMap<K, NavigableSet<Entry>> sets, Collection<K> keys) {
+        List<NavigableSet<Entry>> found = new ArrayList<>();
+        for (K key : keys) {
+            NavigableSet<Entry> set = sets.get(key);
+            if (set != null) {
+                found.add(set);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Merges iterators over ordered sets into one ordered iterator, skipping jobs found in more than one set.
+     */
+    private static final class MergingIterator implements Iterator<Entry> {
+        private final PriorityQueue<Head> heads = new PriorityQueue<>((h1, h2) -> ORDER.compare(h1.entry, h2.entry));
+        private Entry last;
+
+        MergingIterator(List<Iterator<Entry>> iterators) {
+            iterators.forEach(this::advance);
+            skipDuplicates();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Entry next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            last = head.entry;
+            advance(head.iterator);
+            skipDuplicates();
+            return last;
+        }
+
+        private void skipDuplicates() {
+            while (last != null && !heads.isEmpty() && ORDER.compare(heads.peek().entry, last) == 0) {
+                advance(heads.poll().iterator);
+            }
+        }
+
+        private void advance(Iterator<Entry> iterator) {
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator.next(), iterator));
+            }
+        }
+
+        private static final class Head {
+            private final Entry entry;
+            private final Iterator<Entry> iterator;
+
+            Head(Entry entry, Iterator<Entry> iterator) {
+                this.entry = entry;
+                this.iterator = iterator;
+            }
+        }
+    }
+
+    static final class Entry {
+        private final String cluster;
+        private final JobId jobId;
+        private final JobState state;
+        private final long submittedAt;
+        private final long terminatedAt;
+        private final String user;
+        private final String version;
+        private final List<Label> labels;
+
+        Entry(LifecycleEventsProto.JobListChangedEvent event) {
+            this.cluster = event.getJobCluster();
+            this.jobId = event.getJobId();
+            this.state = event.getJobState();
+            this.submittedAt = event.getSubmittedAt();
+            this.terminatedAt = event.getTerminatedAt();
+            this.user = event.getUser();
+            this.version = event.getVersion();
+            this.labels = event.getLabels();
+        }
+
+        // Only holds the fields jobs are ordered by, used to position a cursor.
+        Entry(JobId jobId, long submittedAt) {
+            this.cluster = jobId.getCluster();
+            this.jobId = jobId;
+            this.state = null;
+            this.submittedAt = submittedAt;
+            this.terminatedAt = -1;
+            this.user = null;
+            this.version = null;
+            this.labels = Collections.emptyList();
+        }
+
+        JobIdInfo toJobIdInfo() {
+            return new JobIdInfo.Builder()
+                    .withJobId(jobId)
+                    .withJobState(state)
+                    .withSubmittedAt(submittedAt)
+                    .withTerminatedAt(terminatedAt)
+                    .withUser(user)
+                    .withVersion(version)
+                    .build();
+        }
+    }
+
+    /**
+     * A page of job ids, with the cursor to pass to get the next page or null on the last page.
+     */
+    public static final class Page {
+        private final List<JobIdInfo> list;
+        private final String nextCursor;
+
+        public Page(List<JobIdInfo> list, String nextCursor) {
+            this.list = list;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<JobIdInfo> getList() {
+            return list;
+        }
+
+        public String getNextCursor() {
+            return nextCursor;
+        }
+
+        @Override
+        public String toString() {
+            return "Page{" +
+                    "list=" + list +
+                    ", nextCursor='" + nextCursor + '\'' +
+                    '}';
+        }
+    }
+}
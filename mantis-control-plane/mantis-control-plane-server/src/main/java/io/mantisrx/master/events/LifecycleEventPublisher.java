@@ -20,4 +20,5 @@ public interface LifecycleEventPublisher {
     void publishAuditEvent(LifecycleEventsProto.AuditEvent auditEvent);
     void publishStatusEvent(LifecycleEventsProto.StatusEvent statusEvent);
     void publishWorkerListChangedEvent(LifecycleEventsProto.WorkerListChangedEvent workerListChangedEvent);
+    void publishJobListChangedEvent(LifecycleEventsProto.JobListChangedEvent jobListChangedEvent);
 }
@@ -22,13 +22,22 @@ public class LifecycleEventPublisherImpl implements LifecycleEventPublisher {
     private final AuditEventSubscriber auditEventSubscriber;
     private final StatusEventSubscriber statusEventSubscriber;
     private final WorkerEventSubscriber workerEventSubscriber;
+    private final JobEventSubscriber jobEventSubscriber;
 
     public LifecycleEventPublisherImpl(final AuditEventSubscriber auditEventSubscriber,
                                        final StatusEventSubscriber statusEventSubscriber,
                                        final WorkerEventSubscriber workerEventSubscriber) {
+        this(auditEventSubscriber, statusEventSubscriber, workerEventSubscriber, event -> { });
+    }
+
+    public LifecycleEventPublisherImpl(final AuditEventSubscriber auditEventSubscriber,
+                                       final StatusEventSubscriber statusEventSubscriber,
+                                       final WorkerEventSubscriber workerEventSubscriber,
+                                       final JobEventSubscriber jobEventSubscriber) {
         this.auditEventSubscriber = auditEventSubscriber;
         this.statusEventSubscriber = statusEventSubscriber;
         this.workerEventSubscriber = workerEventSubscriber;
+        this.jobEventSubscriber = jobEventSubscriber;
     }
 
     @Override
@@ -42,6 +51,8 @@ public class LifecycleEventPublisherImpl implements LifecycleEventPublisher {
         if (statusEvent instanceof LifecycleEventsProto.JobStatusEvent) {
             LifecycleEventsProto.JobStatusEvent jobStatusEvent = (LifecycleEventsProto.JobStatusEvent) statusEvent;
             workerEventSubscriber.process(jobStatusEvent);
+        } else if (statusEvent instanceof LifecycleEventsProto.WorkerStatusEvent) {
+            workerEventSubscriber.process((LifecycleEventsProto.WorkerStatusEvent) statusEvent);
         }
     }
 
@@ -50,5 +61,10 @@ public class LifecycleEventPublisherImpl implements LifecycleEventPublisher {
         workerEventSubscriber.process(workerListChangedEvent);
     }
 
+    @Override
+    public void publishJobListChangedEvent(LifecycleEventsProto.JobListChangedEvent jobListChangedEvent) {
+        jobEventSubscriber.process(jobListChangedEvent);
+    }
+
 
 }
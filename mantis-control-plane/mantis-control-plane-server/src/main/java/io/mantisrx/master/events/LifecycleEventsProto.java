@@ -19,6 +19,7 @@ package io.mantisrx.master.events;
 import static java.util.Optional.empty;
 import static java.util.Optional.ofNullable;
 
+import io.mantisrx.common.Label;
 import io.mantisrx.master.jobcluster.WorkerInfoListHolder;
 import io.mantisrx.master.jobcluster.job.JobState;
 import io.mantisrx.master.jobcluster.job.worker.WorkerState;
@@ -27,6 +28,8 @@ import io.mantisrx.server.core.Status;
 import io.mantisrx.server.core.domain.WorkerId;
 import io.mantisrx.server.master.domain.DataFormatAdapter;
 import io.mantisrx.server.master.domain.JobId;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 public class LifecycleEventsProto {
@@ -329,5 +332,110 @@ public class LifecycleEventsProto {
         }
     }
 
+    /**
+     * Published by a job cluster whenever one of its jobs is added, changes state or is purged, with the
+     * attributes jobs are listed by.
+     */
+    public static final class JobListChangedEvent {
+        private final String jobCluster;
+        private final JobId jobId;
+        private final JobState jobState;
+        private final long submittedAt;
+        private final long terminatedAt;
+        private final String user;
+        private final String version;
+        private final List<Label> labels;
+        private final boolean removed;
+
+        public JobListChangedEvent(final String jobCluster,
+                                   final JobId jobId,
+                                   final JobState jobState,
+                                   final long submittedAt,
+                                   final long terminatedAt,
+                                   final String user,
+                                   final String version,
+                                   final List<Label> labels) {
+            this(jobCluster, jobId, jobState, submittedAt, terminatedAt, user, version, labels, false);
+        }
+
+        private JobListChangedEvent(final String jobCluster,
+                                    final JobId jobId,
+                                    final JobState jobState,
+                                    final long submittedAt,
+                                    final long terminatedAt,
+                                    final String user,
+                                    final String version,
+                                    final List<Label> labels,
+                                    final boolean removed) {
+            this.jobCluster = jobCluster;
+            this.jobId = jobId;
+            this.jobState = jobState;
+            this.submittedAt = submittedAt;
+            this.terminatedAt = terminatedAt;
+            this.user = user;
+            this.version = version;
+            this.labels = labels == null ? Collections.emptyList() : labels;
+            this.removed = removed;
+        }
+
+        /**
+         * Returns an event for a job that was purged from its cluster.
+         */
+        public static JobListChangedEvent removed(final String jobCluster, final JobId jobId) {
+            return new JobListChangedEvent(jobCluster, jobId, null, -1, -1, null, null, null, true);
+        }
+
+        public String getJobCluster() {
+            return jobCluster;
+        }
+
+        public JobId getJobId() {
+            return jobId;
+        }
+
+        public JobState getJobState() {
+            return jobState;
+        }
+
+        public long getSubmittedAt() {
+            return submittedAt;
+        }
+
+        public long getTerminatedAt() {
+            return terminatedAt;
+        }
+
+        public String getUser() {
+            return user;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public List<Label> getLabels() {
+            return labels;
+        }
+
+        public boolean isRemoved() {
+            return removed;
+        }
+
+        @Override
+        public String toString() {
+            return "JobListChangedEvent{" +
+                    "jobCluster='" + jobCluster + '\'' +
+                    ", jobId=" + jobId +
+                    ", jobState=" + jobState +
+                    ", submittedAt=" + submittedAt +
+                    ", terminatedAt=" + terminatedAt +
+                    ", user='" + user + '\'' +
+                    ", version='" + version + '\'' +
+                    ", labels=" + labels +
+                    ", removed=" + removed +
+                    '}';
+        }
+    }
+
 
 }
@@ -18,5 +18,6 @@ package io.mantisrx.master.events;
 
 public interface WorkerEventSubscriber {
     void process(final LifecycleEventsProto.WorkerListChangedEvent event);
+    void process(final LifecycleEventsProto.WorkerStatusEvent workerStatusEvent);
     void process(LifecycleEventsProto.JobStatusEvent statusEvent);
 }
@@ -26,6 +26,11 @@ public class WorkerEventSubscriberLoggingImpl implements WorkerEventSubscriber {
         logger.info("Received worker list changed event {}", event);
     }
 
+    @Override
+    public void process(LifecycleEventsProto.WorkerStatusEvent workerStatusEvent) {
+        logger.debug("Received worker status event {}", workerStatusEvent);
+    }
+
     @Override
     public void process(LifecycleEventsProto.JobStatusEvent statusEvent) {
         logger.info("Received status event {}", statusEvent);
@@ -16,8 +16,6 @@
 
 package io.mantisrx.master.events;
 
-import static java.util.stream.Collectors.toMap;
-
 import akka.actor.Props;
 import io.mantisrx.master.jobcluster.job.JobState;
 import io.mantisrx.master.jobcluster.job.worker.IMantisWorkerMetadata;
@@ -25,10 +23,16 @@ import io.mantisrx.master.jobcluster.job.worker.WorkerState;
 import io.mantisrx.server.core.domain.WorkerId;
 import io.mantisrx.server.master.domain.JobId;
 import io.mantisrx.server.master.scheduler.WorkerRegistry;
-import java.util.*;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,11 +40,18 @@ import org.slf4j.LoggerFactory;
  * This Actor holds a registry of all running workers for all jobs in the system.
  * The Job Actor sends a message with a complete snapshot of running workers to the LifeCycleEventPublisher
  * The LifeCycleEventPublisher then forwards them to this Actor.
+ *
+ * The running workers, their slave ids and the number of workers per state are indexed incrementally as
+ * snapshots and worker status events arrive, so that reads don't scan the workers of every job.
  */
 public class WorkerRegistryV2 implements WorkerRegistry, WorkerEventSubscriber {
 
     private final Logger logger = LoggerFactory.getLogger(WorkerRegistryV2.class);
-    private final ConcurrentMap<JobId, List<IMantisWorkerMetadata>> jobToWorkerInfoMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<JobId, Set<WorkerId>> jobToWorkerIdsMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<WorkerId, IndexedWorker> workerMap = new ConcurrentHashMap<>();
+    private final Set<WorkerId> runningWorkers = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<WorkerId, String> runningWorkerSlaveIdMap = new ConcurrentHashMap<>();
+    private final Map<WorkerState, AtomicInteger> workerStateCounts;
 
     public static final WorkerRegistryV2 INSTANCE = new WorkerRegistryV2();
     public static Props props() {
@@ -48,64 +59,62 @@ public class WorkerRegistryV2 implements WorkerRegistry, WorkerEventSubscriber {
     }
 
      WorkerRegistryV2() {
+        Map<WorkerState, AtomicInteger> counts = new EnumMap<>(WorkerState.class);
+        for (WorkerState state : WorkerState.values()) {
+            counts.put(state, new AtomicInteger());
+        }
+        this.workerStateCounts = Collections.unmodifiableMap(counts);
         logger.info("WorkerRegistryV2 created");
     }
 
     /**
      * For Testing
      */
-    public void clearState() {
-        jobToWorkerInfoMap.clear();
+    public synchronized void clearState() {
+        jobToWorkerIdsMap.clear();
+        workerMap.clear();
+        runningWorkers.clear();
+        runningWorkerSlaveIdMap.clear();
+        workerStateCounts.values().forEach(count -> count.set(0));
     }
 
 
     /**
-     * Iterate through all jobs and addup the worker list size for each
+     * Return the number of running workers across all jobs
      * @return
      */
     @Override
     public int getNumRunningWorkers() {
-        if(logger.isDebugEnabled()) { logger.debug("In getNumRunningWorkers"); }
-        int cnt = jobToWorkerInfoMap.values().stream()
-                    .map(workerList -> workerList.stream()
-                            .filter(wm -> WorkerState.isRunningState(wm.getState()))
-                            .collect(Collectors.toList())
-                            .size()
-                    )
-                    .reduce(0,(a, b) -> a + b);
-        if(logger.isDebugEnabled()) { logger.debug("Returning {} from getNumRunningWorkers", cnt); }
-        return cnt;
+        return runningWorkers.size();
+    }
+
+    /**
+     * Return the number of workers of all jobs in the given state. Only workers in the latest snapshot of each
+     * job are counted, i.e. Accepted and running workers.
+     * @param state
+     * @return
+     */
+    public int getNumWorkers(WorkerState state) {
+        return workerStateCounts.get(state).get();
     }
 
     /**
-     * Return a Set of all running workers in the system
+     * Return a read-only view of all running workers in the system
      * @return
      */
 
     @Override
     public Set<WorkerId> getAllRunningWorkers() {
-
-        return jobToWorkerInfoMap.values().stream()
-            .flatMap(workerList -> workerList.stream()
-                    .filter(wm -> WorkerState.isRunningState(wm.getState()))
-                    .map(workerMeta -> workerMeta.getWorkerId()))
-            .collect(Collectors.toSet());
-
+        return Collections.unmodifiableSet(runningWorkers);
     }
 
     /**
-     * Return a mapping of workerId to slaveID for all running workers in the system
+     * Return a read-only view of the mapping of workerId to slaveID for all running workers in the system
      * @return
      */
     @Override
     public Map<WorkerId, String> getAllRunningWorkerSlaveIdMappings() {
-        return jobToWorkerInfoMap.values().stream()
-                .flatMap(workerList -> workerList.stream()
-                .filter(wm -> WorkerState.isRunningState(wm.getState())))
-                .collect(toMap(
-                        IMantisWorkerMetadata::getWorkerId,
-                        IMantisWorkerMetadata::getSlaveID,
-                        (s1, s2) -> (s1 != null) ? s1 : s2));
+        return Collections.unmodifiableMap(runningWorkerSlaveIdMap);
     }
 
     /**
@@ -121,16 +130,11 @@ public class WorkerRegistryV2 implements WorkerRegistry, WorkerEventSubscriber {
             logger.warn("Invalid job Id {}", workerId.getJobId());
             return false;
         }
-        List<IMantisWorkerMetadata> mantisWorkerMetadataList = jobToWorkerInfoMap.get(jIdOp.get());
-      //  logger.info("Current Map {}", jobToWorkerInfoMap);
-        boolean isValid = false;
-        if(mantisWorkerMetadataList != null) {
-
-            isValid = mantisWorkerMetadataList.stream().anyMatch((mData) -> mData.getWorkerId().equals(workerId));
-        } else {
+        if(!jobToWorkerIdsMap.containsKey(jIdOp.get())) {
             logger.warn("No such job {} found in job To worker map ", jIdOp.get());
+            return false;
         }
-        return isValid;
+        return workerMap.containsKey(workerId);
     }
 
     /**
@@ -141,18 +145,11 @@ public class WorkerRegistryV2 implements WorkerRegistry, WorkerEventSubscriber {
     @Override
     public Optional<Long> getAcceptedAt(WorkerId workerId) {
         if(logger.isDebugEnabled()) {  logger.debug("In getAcceptedAt for worker {}", workerId); }
-        Optional<JobId> jId = JobId.fromId(workerId.getJobId());
-        if(!jId.isPresent()) {
-            return Optional.empty();
-        }
-        List<IMantisWorkerMetadata> mantisWorkerMetadataList = jobToWorkerInfoMap.get(jId.get());
-        if(mantisWorkerMetadataList != null) {
-
-            Optional<IMantisWorkerMetadata> mantisWorkerMetadata = mantisWorkerMetadataList.stream().filter(mData -> mData.getWorkerId().equals(workerId)).findAny();
-            if (mantisWorkerMetadata.isPresent()) {
-                logger.info("Found worker {} return acceptedAt {}", workerId, mantisWorkerMetadata.get().getAcceptedAt());
-                return Optional.of(mantisWorkerMetadata.get().getAcceptedAt());
-            }
+        IndexedWorker indexedWorker = workerMap.get(workerId);
+        if (indexedWorker != null) {
+            long acceptedAt = indexedWorker.metadata.getAcceptedAt();
+            logger.info("Found worker {} return acceptedAt {}", workerId, acceptedAt);
+            return Optional.of(acceptedAt);
         }
         return Optional.empty();
     }
@@ -164,17 +161,47 @@ public class WorkerRegistryV2 implements WorkerRegistry, WorkerEventSubscriber {
      * @return
      */
 
-    private boolean deregisterJob(JobId jobId) {
+    private synchronized boolean deregisterJob(JobId jobId) {
         logger.info("De-registering {}", jobId);
-        return jobToWorkerInfoMap.remove(jobId) != null;
+        Set<WorkerId> workerIds = jobToWorkerIdsMap.remove(jobId);
+        if (workerIds == null) {
+            return false;
+        }
+        workerIds.forEach(this::unindexWorker);
+        return true;
     }
 
     @Override
-    public void process(LifecycleEventsProto.WorkerListChangedEvent event) {
+    public synchronized void process(LifecycleEventsProto.WorkerListChangedEvent event) {
         if(logger.isDebugEnabled()) { logger.debug("on WorkerListChangedEvent for job {} with workers {}", event.getWorkerInfoListHolder().getJobId(), event.getWorkerInfoListHolder().getWorkerMetadataList().size()); }
         JobId jId = event.getWorkerInfoListHolder().getJobId();
-        jobToWorkerInfoMap.put(jId, event.getWorkerInfoListHolder().getWorkerMetadataList());
+        List<IMantisWorkerMetadata> workerMetadataList = event.getWorkerInfoListHolder().getWorkerMetadataList();
+
+        Set<WorkerId> workerIds = new HashSet<>(workerMetadataList.size());
+        for (IMantisWorkerMetadata workerMetadata : workerMetadataList) {
+            workerIds.add(workerMetadata.getWorkerId());
+            indexWorker(workerMetadata);
+        }
+        Set<WorkerId> previousWorkerIds = jobToWorkerIdsMap.put(jId, workerIds);
+        if (previousWorkerIds != null) {
+            for (WorkerId workerId : previousWorkerIds) {
+                if (!workerIds.contains(workerId)) {
+                    unindexWorker(workerId);
+                }
+            }
+        }
+    }
 
+    /**
+     * Re-indexes a known worker on a state change that is not yet reflected in a snapshot of its job.
+     * @param workerStatusEvent
+     */
+    @Override
+    public synchronized void process(LifecycleEventsProto.WorkerStatusEvent workerStatusEvent) {
+        IndexedWorker indexedWorker = workerMap.get(workerStatusEvent.getWorkerId());
+        if (indexedWorker != null) {
+            indexWorker(indexedWorker.metadata);
+        }
     }
 
     @Override
@@ -192,5 +219,49 @@ public class WorkerRegistryV2 implements WorkerRegistry, WorkerEventSubscriber {
         }
     }
 
+    private void indexWorker(IMantisWorkerMetadata workerMetadata) {
+        IndexedWorker indexedWorker = new IndexedWorker(workerMetadata);
+        IndexedWorker previous = workerMap.put(indexedWorker.workerId, indexedWorker);
+        if (previous != null) {
+            removeFromIndexes(previous);
+        }
+        workerStateCounts.get(indexedWorker.state).incrementAndGet();
+        if (WorkerState.isRunningState(indexedWorker.state)) {
+            runningWorkers.add(indexedWorker.workerId);
+            if (indexedWorker.slaveId != null) {
+                runningWorkerSlaveIdMap.put(indexedWorker.workerId, indexedWorker.slaveId);
+            }
+        }
+    }
+
+    private void unindexWorker(WorkerId workerId) {
+        IndexedWorker previous = workerMap.remove(workerId);
+        if (previous != null) {
+            removeFromIndexes(previous);
+        }
+    }
+
+    private void removeFromIndexes(IndexedWorker indexedWorker) {
+        workerStateCounts.get(indexedWorker.state).decrementAndGet();
+        runningWorkers.remove(indexedWorker.workerId);
+        runningWorkerSlaveIdMap.remove(indexedWorker.workerId);
+    }
+
+    /**
+     * The state and slave id of a worker as they were when it was last indexed, since the metadata is updated
+     * in place by the job actor.
+     */
+    private static final class IndexedWorker {
+        private final WorkerId workerId;
+        private final IMantisWorkerMetadata metadata;
+        private final WorkerState state;
+        private final String slaveId;
 
+        private IndexedWorker(IMantisWorkerMetadata metadata) {
+            this.workerId = metadata.getWorkerId();
+            this.metadata = metadata;
+            this.state = metadata.getState();
+            this.slaveId = metadata.getSlaveID();
+        }
+    }
 }
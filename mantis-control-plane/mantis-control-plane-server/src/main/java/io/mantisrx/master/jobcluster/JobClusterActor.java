@@ -383,6 +383,7 @@ public class JobClusterActor extends AbstractActorWithTimers implements IJobClus
             .match(GetJobDetailsRequest.class, this::onGetJobDetailsRequest)
             .match(WorkerEvent.class, this::onWorkerEvent)
             .match(JobClusterProto.ExpireOldJobsRequest.class, this::onExpireOldJobs)
+            .match(JobClusterProto.AddCompletedJobsRequest.class, this::onAddCompletedJobs)
             .match(EnableJobClusterRequest.class, this::onJobClusterEnable)
             .match(Terminated.class, this::onTerminated)
 
@@ -573,6 +574,7 @@ public class JobClusterActor extends AbstractActorWithTimers implements IJobClus
                 .match(ListCompletedJobsInClusterRequest.class, this::onJobListCompleted)
                 .match(JobClusterProto.KillJobResponse.class, this::onKillJobResponse)
                 .match(JobClusterProto.ExpireOldJobsRequest.class, this::onExpireOldJobs)
+                .match(JobClusterProto.AddCompletedJobsRequest.class, this::onAddCompletedJobs)
                 .match(WorkerEvent.class, this::onWorkerEvent)
                 .match(DisableJobClusterRequest.class, this::onJobClusterDisable)
                 .match(JobClusterProto.EnforceSLARequest.class, this::onEnforceSLARequest)
@@ -2047,6 +2049,25 @@ public class JobClusterActor extends AbstractActorWithTimers implements IJobClus
         return empty();
     }
 
+    /**
+     * Adds completed jobs read from storage after bootstrap. Jobs that completed since then are already cached
+     * and are kept as is. Jobs cached from a standby snapshot that were purged from storage since are dropped.
+     * @param request
+     */
+    private void onAddCompletedJobs(JobClusterProto.AddCompletedJobsRequest request) {
+        if (!request.purgedJobIds.isEmpty()) {
+            logger.info("Dropping {} completed jobs purged from storage from cluster {}", request.purgedJobIds.size(), name);
+            jobManager.removeCompletedJobsFromCache(request.purgedJobIds);
+        }
+        List<CompletedJob> completedJobs = request.completedJobsList.stream()
+                .filter((completedJob) -> JobId.fromId(completedJob.getJobId())
+                        .map((jobId) -> !jobManager.getCompletedJob(jobId).isPresent())
+                        .orElse(true))
+                .collect(Collectors.toList());
+        logger.info("Adding {} completed jobs from storage to cluster {}", completedJobs.size(), name);
+        jobManager.addCompletedJobsToCache(completedJobs);
+    }
+
     @Override
     public void onExpireOldJobs(JobClusterProto.ExpireOldJobsRequest request) {
         final long tooOldCutOff = System.currentTimeMillis() - (getTerminatedJobToDeleteDelayHours()*3600000L);
@@ -2549,7 +2570,7 @@ public class JobClusterActor extends AbstractActorWithTimers implements IJobClus
             this.context = context;
             this.scheduler = schedulerFactory;
             this.publisher = publisher;
-            this.completedJobsCache = new CompletedJobCache(name, labelCache);
+            this.completedJobsCache = new CompletedJobCache(name, labelCache, publisher);
         }
 
         /**
@@ -2586,6 +2607,7 @@ public class JobClusterActor extends AbstractActorWithTimers implements IJobClus
             } else {
                 logger.warn("Unexpected job state {}", jobInfo.state);
             }
+            publishJobListChanged(jobInfo);
             long masterInitTimeoutSecs = ConfigurationProvider.getConfig().getMasterInitTimeoutSecs();
             long timeout = ((masterInitTimeoutSecs - 60)) > 0 ? (masterInitTimeoutSecs - 60) : masterInitTimeoutSecs;
             Duration t = Duration.ofSeconds(timeout);
@@ -2651,6 +2673,25 @@ public class JobClusterActor extends AbstractActorWithTimers implements IJobClus
             pendingInitializationJobsMap.put(jobInfo.jobId, jobInfo);
         }
 
+        /**
+         * Informs subscribers such as the {@link io.mantisrx.master.events.JobIndex} of the current state of a
+         * non terminal job. Completed jobs are published by the {@link CompletedJobCache}.
+         *
+         * @param jobInfo job info of the job that was added or changed state
+         */
+        private void publishJobListChanged(JobInfo jobInfo) {
+            JobDefinition jobDefinition = jobInfo.jobDefinition;
+            publisher.publishJobListChangedEvent(new LifecycleEventsProto.JobListChangedEvent(
+                    name,
+                    jobInfo.jobId,
+                    jobInfo.state,
+                    jobInfo.submittedAt,
+                    jobInfo.terminatedAt,
+                    jobInfo.user,
+                    jobDefinition != null ? jobDefinition.getVersion() : null,
+                    jobDefinition != null ? jobDefinition.getLabels() : null));
+        }
+
         /**
          * During startup if a job is in terminal state then directly mark it as completed
          *
@@ -2673,6 +2714,17 @@ public class JobClusterActor extends AbstractActorWithTimers implements IJobClus
 
         }
 
+        /**
+         * Used after bootstrap from a standby snapshot to drop the completed jobs purged from storage since
+         *
+         * @param jobIds
+         */
+        void removeCompletedJobsFromCache(Set<String> jobIds) {
+
+            completedJobsCache.removeCompletedJobsFromCache(jobIds);
+
+        }
+
         /**
          * Called on Job Submit. Updates the acceptedJobsMap & actorMap
          *
@@ -2690,6 +2742,7 @@ public class JobClusterActor extends AbstractActorWithTimers implements IJobClus
                 this.acceptedJobsMap.put(jobInfo.jobId, jobInfo);
                 this.actorToJobIdMap.put(jobInfo.jobActor, jobInfo.jobId);
                 nonTerminalSortedJobSet.add(jobInfo);
+                publishJobListChanged(jobInfo);
                 isSuccess = true;
             }
             return isSuccess;
@@ -2724,6 +2777,7 @@ public class JobClusterActor extends AbstractActorWithTimers implements IJobClus
 
                 this.terminatingJobsMap.put(jobInfo.jobId, jobInfo);
                 jobInfo.setTerminationInitiatedAt(System.currentTimeMillis());
+                publishJobListChanged(jobInfo);
                 isSuccess = true;
             } else {
                 String warn = "Unexpected job terminating event " + jobInfo.jobId + " Invalid transition from state " + jobInfo.state + " to state " + newState + " ";
@@ -2754,6 +2808,7 @@ public class JobClusterActor extends AbstractActorWithTimers implements IJobClus
                 this.activeJobsMap.put(jobInfo.jobId, jobInfo);
 
                 nonTerminalSortedJobSet.add(jobInfo);
+                publishJobListChanged(jobInfo);
                 success = true;
 
             } else {
@@ -3153,9 +3208,13 @@ public class JobClusterActor extends AbstractActorWithTimers implements IJobClus
         // Map of jobmetadata
         private final Map<JobId, IMantisJobMetadata> jobIdToMetadataMap = new HashMap<>();
 
-        public CompletedJobCache(String clusterName, LabelCache labelsCache) {
+        // Informs the job index of completed and purged jobs
+        private final LifecycleEventPublisher publisher;
+
+        public CompletedJobCache(String clusterName, LabelCache labelsCache, LifecycleEventPublisher publisher) {
             this.name = clusterName;
             this.labelsCache = labelsCache;
+            this.publisher = publisher;
         }
 
         public Set<CompletedJob> getCompletedJobSortedSet() {
@@ -3237,6 +3296,7 @@ public class JobClusterActor extends AbstractActorWithTimers implements IJobClus
                         if(jobId.isPresent()) {
                             this.jobIdToMetadataMap.remove(jobId.get());
                             labelsCache.removeJobIdFromLabelCache(jobId.get());
+                            publisher.publishJobListChangedEvent(LifecycleEventsProto.JobListChangedEvent.removed(name, jobId.get()));
                         }
 
                     } catch (Exception e) {
@@ -3272,6 +3332,7 @@ public class JobClusterActor extends AbstractActorWithTimers implements IJobClus
                         if(jobId.isPresent()) {
                             this.jobIdToMetadataMap.remove(jobId.get());
                             labelsCache.removeJobIdFromLabelCache(jobId.get());
+                            publisher.publishJobListChangedEvent(LifecycleEventsProto.JobListChangedEvent.removed(name, jobId.get()));
                         }
                     } catch (Exception e) {
                         logger.warn("Unable to purge job {} due to {}", completedJob, e.getMessage());
@@ -3306,6 +3367,7 @@ public class JobClusterActor extends AbstractActorWithTimers implements IJobClus
                 labelsCache.addJobIdToLabelCache( jId.get(),completedJob.getLabelList());
                 completedJobs.put(jId.get(), completedJob);
                 terminalSortedJobSet.add(completedJob);
+                publishJobListChanged(jId.get(), completedJob);
                 if(jobMetaData.isPresent()) {
                     jobIdToMetadataMap.put(jId.get(), jobMetaData.get());
                 }
@@ -3332,6 +3394,7 @@ public class JobClusterActor extends AbstractActorWithTimers implements IJobClus
                 if(jId.isPresent()) {
                     completedJobs.put(jId.get(), compJob);
                     labelsCache.addJobIdToLabelCache(jId.get(), compJob.getLabelList());
+                    publishJobListChanged(jId.get(), compJob);
                 } else {
                     logger.warn("Invalid job Id {}", compJob.getJobId());
                 }
@@ -3339,9 +3402,42 @@ public class JobClusterActor extends AbstractActorWithTimers implements IJobClus
         }
 
 
+        /**
+         * Drops completed jobs from the cache only, they are already deleted from storage
+         * @param jobIds
+         */
+        public void removeCompletedJobsFromCache(Set<String> jobIds) {
+            jobIds.forEach((id) -> {
+                Optional<JobId> jId = JobId.fromId(id);
+                if(jId.isPresent()) {
+                    CompletedJob completedJob = completedJobs.remove(jId.get());
+                    if(completedJob != null) {
+                        terminalSortedJobSet.remove(completedJob);
+                        jobIdToMetadataMap.remove(jId.get());
+                        labelsCache.removeJobIdFromLabelCache(jId.get());
+                        publisher.publishJobListChangedEvent(LifecycleEventsProto.JobListChangedEvent.removed(name, jId.get()));
+                    }
+                } else {
+                    logger.warn("Invalid job Id {}", id);
+                }
+            });
+        }
+
         public boolean containsKey(JobId jobId) {
             return completedJobs.containsKey(jobId);
         }
+
+        private void publishJobListChanged(JobId jobId, CompletedJob completedJob) {
+            publisher.publishJobListChangedEvent(new LifecycleEventsProto.JobListChangedEvent(
+                    name,
+                    jobId,
+                    completedJob.getState(),
+                    completedJob.getSubmittedAt(),
+                    completedJob.getTerminatedAt(),
+                    completedJob.getUser(),
+                    completedJob.getVersion(),
+                    completedJob.getLabelList()));
+        }
     }
 
     static class CronManager {
@@ -137,6 +137,13 @@ public interface IMantisJobManager {
      */
     void onCheckHeartBeats(CheckHeartBeat r);
 
+    /**
+     * Invoked once a worker update written behind by the job store is durable, or failed to be.
+     *
+     * @param r
+     */
+    void onWorkerWriteCompleted(JobProto.WorkerWriteCompleted r);
+
     /**
      * Invoked during Agent fleet deployment to move workers onto the new agent fleet.
      *
@@ -19,6 +19,7 @@ package io.mantisrx.master.jobcluster.job;
 
 import io.mantisrx.server.master.persistence.MantisJobStore;
 import io.mantisrx.server.master.scheduler.WorkerEvent;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -31,7 +32,9 @@ public interface IMantisWorkerEventProcessor {
      * Handles state transition for a worker.
      * @param event
      * @param jobStore
+     * @return a future completed once the worker's updated state is durable, see
+     * {@link MantisJobStore#updateWorker(io.mantisrx.master.jobcluster.job.worker.IMantisWorkerMetadata)}.
      * @throws Exception
      */
-    public void processEvent(WorkerEvent event, MantisJobStore jobStore) throws Exception;
+    public CompletableFuture<Void> processEvent(WorkerEvent event, MantisJobStore jobStore) throws Exception;
 }
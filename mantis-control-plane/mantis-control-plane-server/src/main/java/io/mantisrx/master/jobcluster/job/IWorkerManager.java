@@ -17,6 +17,7 @@
 package io.mantisrx.master.jobcluster.job;
 
 import io.mantisrx.master.jobcluster.job.worker.IMantisWorkerMetadata;
+import io.mantisrx.master.jobcluster.proto.JobProto;
 import io.mantisrx.server.core.JobSchedulingInfo;
 import io.mantisrx.server.master.scheduler.WorkerEvent;
 import java.time.Instant;
@@ -42,6 +43,15 @@ public interface IWorkerManager {
      */
     void processEvent(WorkerEvent event, JobState jobState);
 
+    /**
+     * Handle the completion of a worker update written behind by the job store. Until then, the update is not
+     * considered durable.
+     *
+     * @param completed
+     * @param jobState
+     */
+    void processWriteCompleted(JobProto.WorkerWriteCompleted completed, JobState jobState);
+
     /**
      * Iterate through all active workers and identify and restart workers that have not sent a heart beat
      * within a configured time.
@@ -122,6 +122,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -435,6 +436,8 @@ public class JobActor extends AbstractActorWithTimers implements IMantisJobManag
                 // Worker related events
                 .match(WorkerEvent.class, (x) -> LOGGER.warn("Job {} is Terminating, ignoring worker Events {}",
                         this.jobId.getId(), x))
+                .match(JobProto.WorkerWriteCompleted.class, (x) -> LOGGER.debug("Job {} is Terminating, ignoring {}",
+                        this.jobId.getId(), x))
 
                 .match(InitJob.class, (x) -> getSender().tell(new JobInitialized(x.requestId, SUCCESS,
                         genUnexpectedMsg(x.toString(), this.jobId.getId(), state), this.jobId, x.requstor), getSelf()))
@@ -540,6 +543,7 @@ public class JobActor extends AbstractActorWithTimers implements IMantisJobManag
 
                 // Worker related events
                 .match(WorkerEvent.class, (x) -> LOGGER.info("Received worker event  in Terminated State Ignoring"))
+                .match(JobProto.WorkerWriteCompleted.class, (x) -> LOGGER.debug("Received {} in Terminated State Ignoring", x))
 
                 .matchAny(x -> LOGGER.warn(genUnexpectedMsg(x.toString(), this.jobId.getId(), state)))
 
@@ -566,6 +570,7 @@ public class JobActor extends AbstractActorWithTimers implements IMantisJobManag
 
                 // Worker related events
                 .match(WorkerEvent.class, r -> processWorkerEvent(r))
+                .match(JobProto.WorkerWriteCompleted.class, this::onWorkerWriteCompleted)
                 // explicit resubmit worker
                 .match(ResubmitWorkerRequest.class, this::onResubmitWorker)
                 // Heart beat accounting timers
@@ -613,6 +618,7 @@ public class JobActor extends AbstractActorWithTimers implements IMantisJobManag
                 .match(GetJobDefinitionUpdatedFromJobActorRequest.class, this::onGetJobDefinitionUpdatedFromJobActor)
                 // Worker related events
                 .match(WorkerEvent.class, r -> processWorkerEvent(r))
+                .match(JobProto.WorkerWriteCompleted.class, this::onWorkerWriteCompleted)
                 // Heart beat accounting timers
                 .match(JobProto.CheckHeartBeat.class, this::onCheckHeartBeats)
                 // Migrate workers from disabled VMs
@@ -860,6 +866,11 @@ public class JobActor extends AbstractActorWithTimers implements IMantisJobManag
         this.workerManager.checkHeartBeats(r.getTime());
     }
 
+    @Override
+    public void onWorkerWriteCompleted(final JobProto.WorkerWriteCompleted r) {
+        this.workerManager.processWriteCompleted(r, mantisJobMetaData.getState());
+    }
+
     @Override
     public void onRuntimeLimitReached(final JobProto.RuntimeLimitReached r) {
         LOGGER.info("In onRuntimeLimitReached {} for Job {} ", Instant.now(), this.jobId);
@@ -1332,6 +1343,8 @@ public class JobActor extends AbstractActorWithTimers implements IMantisJobManag
                 .expireAfterWrite(1, TimeUnit.HOURS)
                 .build();
         private volatile boolean stageAssignmentPotentiallyChanged;
+        // latest update of each worker written behind by the job store and not yet confirmed durable
+        private final Map<WorkerId, CompletableFuture<Void>> unconfirmedWorkerWrites = new HashMap<>();
 
         /**
          * Creates an instance of this class.
@@ -1584,8 +1597,6 @@ public class JobActor extends AbstractActorWithTimers implements IMantisJobManag
                     LOGGER.info("Stored workers {} for Job {}", workerRequests, jobId);
                     // refresh Worker Registry state before enqueuing task to Scheduler
                     markStageAssignmentsChanged(true);
-                    // queue to scheduler
-                    workerRequests.forEach(this::queueTask);
                 } catch (Exception e) {
                     e.printStackTrace();
                     LOGGER.error("Error {} storing workers of job {}", e.getMessage(), jobId.getId());
@@ -1594,6 +1605,20 @@ public class JobActor extends AbstractActorWithTimers implements IMantisJobManag
                 }
                 beg = en;
             }
+            // queue all the workers of the job to the scheduler at once so that they can be placed together
+            queueTasks(workers);
+        }
+
+        private void queueTasks(final List<IMantisWorkerMetadata> workerRequests) {
+            final List<ScheduleRequest> schedulingRequests = workerRequests.stream()
+                    .map(workerRequest -> createSchedulingRequest(workerRequest, empty()))
+                    .collect(Collectors.toList());
+            LOGGER.info("Queueing up scheduling requests {} ", schedulingRequests);
+            try {
+                scheduler.scheduleWorkers(schedulingRequests);
+            } catch (Exception e) {
+                LOGGER.error("Exception queueing tasks", e);
+            }
         }
 
         private void queueTask(final IMantisWorkerMetadata workerRequest, final Optional<Long> readyAt) {
@@ -2105,7 +2130,8 @@ public class JobActor extends AbstractActorWithTimers implements IMantisJobManag
                 MantisStageMetadataImpl stageMeta = (MantisStageMetadataImpl) stageMetaOp.get();
                 try {
                     // Delegate processing of the event to the stage
-                    Optional<JobWorker> workerOp = stageMeta.processWorkerEvent(event, jobStore);
+                    Optional<JobWorker> workerOp =
+                            stageMeta.processWorkerEvent(event, jobStore, this::trackWorkerWrite);
                     if (!workerOp.isPresent()) {
                         terminateUnknownWorkerIfNonTerminal(event);
                         return;
@@ -2140,26 +2166,76 @@ public class JobActor extends AbstractActorWithTimers implements IMantisJobManag
                     LOGGER.warn("Exception saving worker update", e);
                 }
 
-                if (!allWorkersStarted && !JobState.isTerminalState(jobState)) {
-                    if (allWorkerStarted()) {
+                checkAllWorkersStartedOrCompleted(jobState);
+            } catch (Exception e1) {
+                e1.printStackTrace();
+                LOGGER.error("Job {} Exception occurred in process worker event ", jobId, e1);
+            }
+        }
+
+        private void checkAllWorkersStartedOrCompleted(JobState jobState) {
+            if (!allWorkersStarted && !JobState.isTerminalState(jobState)) {
+                if (allWorkerStarted()) {
+                    // the job is only marked launched once the started state of all its workers is durable
+                    if (unconfirmedWorkerWrites.isEmpty()) {
                         allWorkersStarted = true;
                         jobMgr.onAllWorkersStarted();
                         markStageAssignmentsChanged(true);
-                    } else if (allWorkerCompleted()) {
-                        LOGGER.info("Job {} All workers completed1", jobId);
-                        allWorkersStarted = false;
-                        jobMgr.onAllWorkersCompleted();
-                    }
-                } else {
-                    if (allWorkerCompleted()) {
-                        LOGGER.info("Job {} All workers completed", jobId);
-                        allWorkersStarted = false;
-                        jobMgr.onAllWorkersCompleted();
                     }
+                } else if (allWorkerCompleted()) {
+                    LOGGER.info("Job {} All workers completed1", jobId);
+                    allWorkersStarted = false;
+                    jobMgr.onAllWorkersCompleted();
                 }
-            } catch (Exception e1) {
-                e1.printStackTrace();
-                LOGGER.error("Job {} Exception occurred in process worker event ", jobId, e1);
+            } else {
+                if (allWorkerCompleted()) {
+                    LOGGER.info("Job {} All workers completed", jobId);
+                    allWorkersStarted = false;
+                    jobMgr.onAllWorkersCompleted();
+                }
+            }
+        }
+
+        /**
+         * Keeps the update of the given worker unconfirmed until the job store reports it durable, if it is written
+         * behind.
+         */
+        private void trackWorkerWrite(JobWorker worker, CompletableFuture<Void> write) {
+            if (write == null || (write.isDone() && !write.isCompletedExceptionally())) {
+                // written synchronously
+                return;
+            }
+            final WorkerId workerId = worker.getMetadata().getWorkerId();
+            unconfirmedWorkerWrites.put(workerId, write);
+            final ActorRef self = getSelf();
+            write.whenComplete((v, error) ->
+                    self.tell(new JobProto.WorkerWriteCompleted(workerId, write, error), ActorRef.noSender()));
+        }
+
+        @Override
+        public void processWriteCompleted(JobProto.WorkerWriteCompleted completed, JobState jobState) {
+            if (unconfirmedWorkerWrites.get(completed.workerId) != completed.write) {
+                // superseded by a later update of the worker, which is confirmed on its own
+                return;
+            }
+            unconfirmedWorkerWrites.remove(completed.workerId);
+            if (completed.error == null) {
+                checkAllWorkersStartedOrCompleted(jobState);
+                return;
+            }
+
+            // as when failing to write the update synchronously, terminate the worker so that it gets replaced
+            LOGGER.error("Job {} failed to save update of worker {}", jobId, completed.workerId, completed.error);
+            try {
+                Optional<JobWorker> workerOp =
+                        mantisJobMetaData.getWorkerByNumber(completed.workerId.getWorkerNum());
+                if (workerOp.isPresent() && !WorkerState.isTerminalState(workerOp.get().getMetadata().getState())) {
+                    scheduler.unscheduleAndTerminateWorker(completed.workerId,
+                            Optional.ofNullable(workerOp.get().getMetadata().getSlave()));
+                }
+            } catch (InvalidJobException e) {
+                LOGGER.warn("Job {} worker {} not found after failing to save its update", jobId,
+                        completed.workerId, e);
             }
         }
 
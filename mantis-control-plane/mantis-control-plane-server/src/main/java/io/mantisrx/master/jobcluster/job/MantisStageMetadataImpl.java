@@ -46,8 +46,10 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -563,9 +565,23 @@ public class MantisStageMetadataImpl implements IMantisStageMetadata {
      * @return
      */
     public Optional<JobWorker> processWorkerEvent(WorkerEvent event, MantisJobStore jobStore) {
+        return processWorkerEvent(event, jobStore, (worker, write) -> { });
+    }
+
+    /**
+     * Updates the the state of a worker based on the worker event, and hands the worker with the future completed
+     * once its updated state is durable to the given consumer.
+     * @param event
+     * @param jobStore
+     * @param onWrite
+     * @return
+     */
+    public Optional<JobWorker> processWorkerEvent(WorkerEvent event, MantisJobStore jobStore,
+                                                  BiConsumer<JobWorker, CompletableFuture<Void>> onWrite) {
         try {
             JobWorker worker = getWorkerByIndex(event.getWorkerId().getWorkerIndex());
-            worker.processEvent(event, jobStore);
+            CompletableFuture<Void> write = worker.processEvent(event, jobStore);
+            onWrite.accept(worker, write);
             return of(worker);
         } catch (Exception e) {
             LOGGER.warn("Exception saving worker update", e);
@@ -50,6 +50,7 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -390,17 +391,20 @@ public class JobWorker implements IMantisWorkerEventProcessor {
      * @param event a worker event which can be one of many event types such as launched, heartbeat, etc.
      * @param jobStore a place to persist metadata.
      *
+     * @return a future completed once the updated state is durable, which is already complete if no update was needed
+     * or if the job store does not write worker updates behind.
+     *
      * @throws InvalidWorkerStateChangeException if a worker failed to persist its state.
      * @throws IOException if the job store failed to update the worker metadata.
      */
     @Override
-    public void processEvent(final WorkerEvent event, final MantisJobStore jobStore)
+    public CompletableFuture<Void> processEvent(final WorkerEvent event, final MantisJobStore jobStore)
             throws InvalidWorkerStateChangeException, IOException {
 
         if (event.getWorkerId().equals(this.metadata.getWorkerId())) {
             boolean persistStateRequired = processEvent(event);
             if (persistStateRequired) {
-                jobStore.updateWorker(this.metadata);
+                return jobStore.updateWorker(this.metadata);
             }
         } else {
 
@@ -409,6 +413,7 @@ public class JobWorker implements IMantisWorkerEventProcessor {
 
             // pbly event from an old worker number
         }
+        return CompletableFuture.completedFuture(null);
     }
 
     /**
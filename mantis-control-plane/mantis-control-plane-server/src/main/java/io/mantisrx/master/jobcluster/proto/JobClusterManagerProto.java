@@ -91,6 +91,33 @@ public class JobClusterManagerProto {
         }
     }
 
+    /**
+     * Periodic request to refresh the state a standby master keeps warm until it is initialized as leader.
+     */
+    public static final class RefreshStandbySnapshot {
+    }
+
+    /**
+     * Result of loading the completed jobs of all clusters in the background, either after bootstrap or while
+     * standing by.
+     */
+    public static final class CompletedJobsLoaded {
+        public final List<CompletedJob> completedJobs;
+        public final long loadTimeMs;
+        // true if the load was started while standing by, it is then stale once initialized
+        public final boolean standby;
+
+        public CompletedJobsLoaded(List<CompletedJob> completedJobs, long loadTimeMs) {
+            this(completedJobs, loadTimeMs, false);
+        }
+
+        public CompletedJobsLoaded(List<CompletedJob> completedJobs, long loadTimeMs, boolean standby) {
+            this.completedJobs = completedJobs;
+            this.loadTimeMs = loadTimeMs;
+            this.standby = standby;
+        }
+    }
+
     public static final class CreateJobClusterResponse extends BaseResponse {
 
         private final String jobClusterName;
@@ -1207,25 +1234,44 @@ public class JobClusterManagerProto {
 
     public static final class ListJobIdsResponse extends BaseResponse {
         private final List<JobIdInfo> jobIds;
+        private final Optional<String> nextCursor;
 
         public ListJobIdsResponse(
                 long requestId,
                 ResponseCode responseCode,
                 String message,
                 List<JobIdInfo> list) {
+            this(requestId, responseCode, message, list, Optional.empty());
+        }
+
+        public ListJobIdsResponse(
+                long requestId,
+                ResponseCode responseCode,
+                String message,
+                List<JobIdInfo> list,
+                Optional<String> nextCursor) {
             super(requestId, responseCode, message);
             Preconditions.checkNotNull(list, "job ids list cannot be null");
             this.jobIds = list;
+            this.nextCursor = nextCursor;
         }
 
         public List<JobIdInfo> getJobIds() {
             return jobIds;
         }
 
+        /**
+         * Cursor to the next page of job ids, if this response is a page that is followed by more job ids.
+         */
+        public Optional<String> getNextCursor() {
+            return nextCursor;
+        }
+
         @Override
         public String toString() {
             return "ListJobIdsResponse{" +
                    "jobIds=" + jobIds +
+                   ", nextCursor=" + nextCursor +
                    ", requestId=" + requestId +
                    ", responseCode=" + responseCode +
                    ", message='" + message + '\'' +
@@ -29,8 +29,10 @@ import io.mantisrx.server.master.domain.JobDefinition;
 import io.mantisrx.server.master.domain.JobId;
 import io.mantisrx.shaded.com.google.common.collect.Lists;
 import java.time.Instant;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public class JobClusterProto {
 
@@ -272,6 +274,35 @@ public class JobClusterProto {
         }
     }
 
+    /**
+     * Completed jobs of the cluster read from storage after bootstrap, when their loading is deferred until the
+     * active jobs are restored.
+     */
+    public static final class AddCompletedJobsRequest {
+        public final List<CompletedJob> completedJobsList;
+        // completed jobs cached from a standby snapshot that have since been purged from storage
+        public final Set<String> purgedJobIds;
+
+        public AddCompletedJobsRequest(List<CompletedJob> completedJobsList) {
+            this(completedJobsList, Collections.emptySet());
+        }
+
+        public AddCompletedJobsRequest(List<CompletedJob> completedJobsList, Set<String> purgedJobIds) {
+            Preconditions.checkNotNull(completedJobsList, "completedJobsList cannot be null");
+            Preconditions.checkNotNull(purgedJobIds, "purgedJobIds cannot be null");
+            this.completedJobsList = completedJobsList;
+            this.purgedJobIds = purgedJobIds;
+        }
+
+        @Override
+        public String toString() {
+            return "AddCompletedJobsRequest{" +
+                    "completedJobs=" + completedJobsList.size() +
+                    ", purgedJobs=" + purgedJobIds.size() +
+                    '}';
+        }
+    }
+
     public static final class BookkeepingRequest {
         public final Instant time;
         public BookkeepingRequest(Instant time) {
@@ -17,8 +17,10 @@
 package io.mantisrx.master.jobcluster.proto;
 
 import akka.actor.ActorRef;
+import io.mantisrx.server.core.domain.WorkerId;
 import io.mantisrx.server.master.domain.JobId;
 import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
 
 public class JobProto {
 
@@ -108,6 +110,31 @@ public class JobProto {
     }
 
 
+	/**
+	 * Sent by a job actor to itself once a worker update written behind by the job store is durable, or failed to be.
+	 */
+	public static final class WorkerWriteCompleted {
+		public final WorkerId workerId;
+		public final CompletableFuture<Void> write;
+		// null if the update is durable
+		public final Throwable error;
+
+		public WorkerWriteCompleted(WorkerId workerId, CompletableFuture<Void> write, Throwable error) {
+			this.workerId = workerId;
+			this.write = write;
+			this.error = error;
+		}
+
+		@Override
+		public String toString() {
+			return "WorkerWriteCompleted{" +
+					"workerId=" + workerId +
+					", error=" + error +
+					'}';
+		}
+	}
+
+
 	public static final class MigrateDisabledVmWorkersRequest {
 		public final Instant time;
 		public MigrateDisabledVmWorkersRequest(Instant time) {
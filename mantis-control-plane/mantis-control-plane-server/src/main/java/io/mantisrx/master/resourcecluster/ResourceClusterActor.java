@@ -21,7 +21,12 @@ import akka.actor.ActorRef;
 import akka.actor.Props;
 import akka.actor.Status;
 import akka.japi.pf.ReceiveBuilder;
+import com.netflix.spectator.api.BasicTag;
 import io.mantisrx.common.Ack;
+import io.mantisrx.common.metrics.Counter;
+import io.mantisrx.common.metrics.Metrics;
+import io.mantisrx.common.metrics.MetricsRegistry;
+import io.mantisrx.common.metrics.Timer;
 import io.mantisrx.runtime.MachineDefinition;
 import io.mantisrx.server.core.domain.WorkerId;
 import io.mantisrx.server.master.persistence.MantisJobStore;
@@ -41,14 +46,14 @@ import io.mantisrx.server.worker.TaskExecutorGateway;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
-import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
@@ -69,16 +74,24 @@ import org.apache.flink.runtime.rpc.RpcService;
 @Slf4j
 class ResourceClusterActor extends AbstractActorWithTimers {
 
+    private static final String HEARTBEAT_SWEEP_TIMER_KEY = "HeartbeatSweep";
+    // bounds how late after the heartbeat timeout a task executor is disconnected
+    private static final int HEARTBEAT_SWEEPS_PER_TIMEOUT = 10;
+
     private final Duration heartbeatTimeout;
     private final Duration assignmentTimeout;
 
     private final Map<TaskExecutorID, TaskExecutorState> taskExecutorStateMap;
     private final Clock clock;
-    private final Set<TaskExecutorID> taskExecutorsReadyToPerformWork;
+    private final TaskExecutorAvailabilityIndex availabilityIndex;
     private final RpcService rpcService;
     private final ClusterID clusterID;
     private final MantisJobStore mantisJobStore;
 
+    private final Counter heartbeatsReceived;
+    private final Counter heartbeatTimeouts;
+    private final Timer heartbeatProcessingLatency;
+
     static Props props(final ClusterID clusterID, final Duration heartbeatTimeout, Duration assignmentTimeout, Clock clock, RpcService rpcService, MantisJobStore mantisJobStore) {
         return Props.create(ResourceClusterActor.class, clusterID, heartbeatTimeout, assignmentTimeout, clock, rpcService, mantisJobStore);
     }
@@ -96,8 +109,30 @@ class ResourceClusterActor extends AbstractActorWithTimers {
         this.clock = clock;
         this.rpcService = rpcService;
         this.taskExecutorStateMap = new HashMap<>();
-        this.taskExecutorsReadyToPerformWork = new HashSet<>();
+        this.availabilityIndex = new TaskExecutorAvailabilityIndex();
         this.mantisJobStore = mantisJobStore;
+
+        Metrics m = new Metrics.Builder()
+            .id("ResourceClusterActor", new BasicTag("resourceCluster", clusterID.getResourceID()))
+            .addCounter("heartbeatsReceived")
+            .addCounter("heartbeatTimeouts")
+            .addTimer("heartbeatProcessingLatency")
+            .build();
+        m = MetricsRegistry.getInstance().registerAndGet(m);
+        this.heartbeatsReceived = m.getCounter("heartbeatsReceived");
+        this.heartbeatTimeouts = m.getCounter("heartbeatTimeouts");
+        this.heartbeatProcessingLatency = m.getTimer("heartbeatProcessingLatency");
+    }
+
+    @Override
+    public void preStart() throws Exception {
+        super.preStart();
+        // a single timer checks the last activity of all task executors, rather than a timer per task executor that
+        // is reset on every heartbeat.
+        getTimers().startPeriodicTimer(
+            HEARTBEAT_SWEEP_TIMER_KEY,
+            new CheckHeartbeats(),
+            heartbeatTimeout.dividedBy(HEARTBEAT_SWEEPS_PER_TIMEOUT));
     }
 
     @Override
@@ -116,10 +151,12 @@ class ResourceClusterActor extends AbstractActorWithTimers {
                 .match(TaskExecutorRegistration.class, this::onTaskExecutorRegistration)
                 .match(InitializeTaskExecutorRequest.class, this::onTaskExecutorInitialization)
                 .match(TaskExecutorHeartbeat.class, this::onHeartbeat)
+                .match(TaskExecutorHeartbeatBatch.class, this::onHeartbeatBatch)
                 .match(TaskExecutorStatusChange.class, this::onTaskExecutorStatusChange)
                 .match(TaskExecutorDisconnection.class, this::onTaskExecutorDisconnection)
-                .match(HeartbeatTimeout.class, this::onTaskExecutorHeartbeatTimeout)
+                .match(CheckHeartbeats.class, this::onCheckHeartbeats)
                 .match(TaskExecutorAssignmentRequest.class, this::onTaskExecutorAssignmentRequest)
+                .match(TaskExecutorBatchAssignmentRequest.class, this::onTaskExecutorBatchAssignmentRequest)
                 .match(ResourceOverviewRequest.class, this::onResourceOverviewRequest)
                 .match(TaskExecutorInfoRequest.class, this::onTaskExecutorInfoRequest)
                 .match(TaskExecutorGatewayRequest.class, this::onTaskExecutorGatewayRequest)
@@ -211,10 +248,7 @@ class ResourceClusterActor extends AbstractActorWithTimers {
             boolean stateChange = state.onRegistration(registration);
             mantisJobStore.storeNewTaskExecutor(registration);
             if (stateChange) {
-                if (state.isAvailable()) {
-                    taskExecutorsReadyToPerformWork.add(taskExecutorID);
-                }
-                updateHeartbeatTimeout(registration.getTaskExecutorID());
+                updateAvailabilityIndex(taskExecutorID);
             }
             log.info("Successfully registered {} with the resource cluster {}", registration.getTaskExecutorID(), this);
             sender().tell(Ack.getInstance(), self());
@@ -224,21 +258,39 @@ class ResourceClusterActor extends AbstractActorWithTimers {
     }
 
     private void onHeartbeat(TaskExecutorHeartbeat heartbeat) {
-        setupTaskExecutorStateIfNecessary(heartbeat.getTaskExecutorID());
+        final long start = System.nanoTime();
         try {
-            final TaskExecutorID taskExecutorID = heartbeat.getTaskExecutorID();
-            final TaskExecutorState state = taskExecutorStateMap.get(taskExecutorID);
-            boolean stateChange = state.onHeartbeat(heartbeat);
-            if (stateChange) {
-                if (state.isAvailable()) {
-                    taskExecutorsReadyToPerformWork.add(taskExecutorID);
-                }
-            }
-
-            updateHeartbeatTimeout(heartbeat.getTaskExecutorID());
+            processHeartbeat(heartbeat);
             sender().tell(Ack.getInstance(), self());
         } catch (IllegalStateException e) {
             sender().tell(new Status.Failure(e), self());
+        } finally {
+            heartbeatProcessingLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void onHeartbeatBatch(TaskExecutorHeartbeatBatch batch) {
+        final long start = System.nanoTime();
+        final Map<TaskExecutorID, Exception> failures = new HashMap<>();
+        for (TaskExecutorHeartbeat heartbeat : batch.getHeartbeats()) {
+            try {
+                processHeartbeat(heartbeat);
+            } catch (IllegalStateException e) {
+                failures.put(heartbeat.getTaskExecutorID(), e);
+            }
+        }
+        sender().tell(new TaskExecutorHeartbeatBatchResult(failures), self());
+        heartbeatProcessingLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void processHeartbeat(TaskExecutorHeartbeat heartbeat) throws IllegalStateException {
+        heartbeatsReceived.increment();
+        setupTaskExecutorStateIfNecessary(heartbeat.getTaskExecutorID());
+        final TaskExecutorID taskExecutorID = heartbeat.getTaskExecutorID();
+        final TaskExecutorState state = taskExecutorStateMap.get(taskExecutorID);
+        boolean stateChange = state.onHeartbeat(heartbeat);
+        if (stateChange) {
+            updateAvailabilityIndex(taskExecutorID);
         }
     }
 
@@ -249,14 +301,9 @@ class ResourceClusterActor extends AbstractActorWithTimers {
             final TaskExecutorState state = taskExecutorStateMap.get(taskExecutorID);
             boolean stateChange = state.onTaskExecutorStatusChange(statusChange);
             if (stateChange) {
-                if (state.isAvailable()) {
-                    taskExecutorsReadyToPerformWork.add(taskExecutorID);
-                } else {
-                    taskExecutorsReadyToPerformWork.remove(taskExecutorID);
-                }
+                updateAvailabilityIndex(taskExecutorID);
             }
 
-            updateHeartbeatTimeout(statusChange.getTaskExecutorID());
             sender().tell(Ack.getInstance(), self());
         } catch (IllegalStateException e) {
             sender().tell(new Status.Failure(e), self());
@@ -264,25 +311,13 @@ class ResourceClusterActor extends AbstractActorWithTimers {
     }
 
     private void onTaskExecutorAssignmentRequest(TaskExecutorAssignmentRequest request) {
-        Optional<Entry<TaskExecutorID, TaskExecutorState>> matchedExecutor =
-            taskExecutorStateMap
-                .entrySet()
-                .stream()
-                .filter(entry -> (entry.getValue().isAvailable() &&
-                    entry.getValue().getRegistration().getMachineDefinition()
-                        .canFit(request.getMachineDefinition())))
-                .findAny();
+        Optional<TaskExecutorID> matchedExecutor =
+            availabilityIndex.findBestFit(request.getMachineDefinition(), request.getWorkerId().getJobId());
 
         if (matchedExecutor.isPresent()) {
-            log.info("matched executor {} for request {}", matchedExecutor.get().getKey(), request);
-            matchedExecutor.get().getValue().onAssignment(request.getWorkerId());
-            // let's give some time for the assigned executor to be scheduled work. otherwise, the assigned executor
-            // will be returned back to the pool.
-            getTimers().startSingleTimer(
-                "Assignment-" + matchedExecutor.get().getKey().toString(),
-                new TaskExecutorAssignmentTimeout(matchedExecutor.get().getKey()),
-                assignmentTimeout);
-            sender().tell(matchedExecutor.get().getKey(), self());
+            log.info("matched executor {} for request {}", matchedExecutor.get(), request);
+            assignTaskExecutor(matchedExecutor.get(), request.getWorkerId());
+            sender().tell(matchedExecutor.get(), self());
         } else {
             sender().tell(new Status.Failure(new NoResourceAvailableException(
                 String.format("No resource available for request %s: resource overview: %s", request,
@@ -290,6 +325,55 @@ class ResourceClusterActor extends AbstractActorWithTimers {
         }
     }
 
+    private void onTaskExecutorBatchAssignmentRequest(TaskExecutorBatchAssignmentRequest request) {
+        // place the biggest workers first so that smaller ones don't take the executors only they fit on.
+        List<Entry<WorkerId, MachineDefinition>> allocationRequests =
+            new ArrayList<>(request.getAllocationRequests().entrySet());
+        allocationRequests.sort(
+            Entry.<WorkerId, MachineDefinition>comparingByValue(TaskExecutorAvailabilityIndex.SHAPE_ORDER).reversed());
+
+        Map<WorkerId, TaskExecutorID> assignments = new HashMap<>();
+        for (Entry<WorkerId, MachineDefinition> allocationRequest : allocationRequests) {
+            Optional<TaskExecutorID> matchedExecutor =
+                availabilityIndex.findBestFit(allocationRequest.getValue(), allocationRequest.getKey().getJobId());
+            if (!matchedExecutor.isPresent()) {
+                // the batch is assigned as a whole or not at all.
+                assignments.values().forEach(this::unassignTaskExecutor);
+                sender().tell(new Status.Failure(new NoResourceAvailableException(
+                    String.format("No resource available for worker %s of %d workers in request %s: resource overview: %s",
+                        allocationRequest.getKey(), allocationRequests.size(), request, getResourceOverview()))), self());
+                return;
+            }
+            assignTaskExecutor(matchedExecutor.get(), allocationRequest.getKey());
+            assignments.put(allocationRequest.getKey(), matchedExecutor.get());
+        }
+
+        log.info("matched executors {} for request {}", assignments, request);
+        sender().tell(new TaskExecutorBatchAssignment(assignments), self());
+    }
+
+    private void assignTaskExecutor(TaskExecutorID taskExecutorID, WorkerId workerId) {
+        taskExecutorStateMap.get(taskExecutorID).onAssignment(workerId);
+        updateAvailabilityIndex(taskExecutorID);
+        // let's give some time for the assigned executor to be scheduled work. otherwise, the assigned executor
+        // will be returned back to the pool.
+        getTimers().startSingleTimer(
+            getAssignmentTimerFor(taskExecutorID),
+            new TaskExecutorAssignmentTimeout(taskExecutorID),
+            assignmentTimeout);
+    }
+
+    private void unassignTaskExecutor(TaskExecutorID taskExecutorID) {
+        getTimers().cancel(getAssignmentTimerFor(taskExecutorID));
+        taskExecutorStateMap.get(taskExecutorID).onUnassignment();
+        updateAvailabilityIndex(taskExecutorID);
+    }
+
+    private void updateAvailabilityIndex(TaskExecutorID taskExecutorID) {
+        final TaskExecutorState state = taskExecutorStateMap.get(taskExecutorID);
+        availabilityIndex.update(taskExecutorID, state.getRegistration(), state.isAvailable(), state.getWorkerId());
+    }
+
     private void onTaskExecutorAssignmentTimeout(TaskExecutorAssignmentTimeout request) {
         try {
             TaskExecutorState state = taskExecutorStateMap.get(request.getTaskExecutorID());
@@ -298,7 +382,7 @@ class ResourceClusterActor extends AbstractActorWithTimers {
             } else {
                 boolean stateChange = state.onUnassignment();
                 if (stateChange) {
-                    taskExecutorsReadyToPerformWork.add(request.getTaskExecutorID());
+                    updateAvailabilityIndex(request.getTaskExecutorID());
                 }
             }
         } catch (IllegalStateException e) {
@@ -344,28 +428,32 @@ class ResourceClusterActor extends AbstractActorWithTimers {
         final TaskExecutorState state = taskExecutorStateMap.get(taskExecutorID);
         boolean stateChange = state.onDisconnection();
         if (stateChange) {
-            taskExecutorsReadyToPerformWork.remove(taskExecutorID);
-            getTimers().cancel(getHeartbeatTimerFor(taskExecutorID));
+            updateAvailabilityIndex(taskExecutorID);
         }
     }
 
-    private String getHeartbeatTimerFor(TaskExecutorID taskExecutorID) {
-        return "Heartbeat-" + taskExecutorID.toString();
+    private String getAssignmentTimerFor(TaskExecutorID taskExecutorID) {
+        return "Assignment-" + taskExecutorID.toString();
     }
 
-    private void onTaskExecutorHeartbeatTimeout(HeartbeatTimeout timeout) {
-        setupTaskExecutorStateIfNecessary(timeout.getTaskExecutorID());
-        try {
-            log.info("heartbeat timeout received for {}", timeout.getTaskExecutorID());
-            final TaskExecutorID taskExecutorID = timeout.getTaskExecutorID();
-            final TaskExecutorState state = taskExecutorStateMap.get(taskExecutorID);
-            if (state.getLastActivity().compareTo(timeout.getLastActivity()) <= 0) {
-                log.info("Disconnecting task executor {}", timeout.getTaskExecutorID());
-                disconnectTaskExecutor(timeout.getTaskExecutorID());
+    private void onCheckHeartbeats(CheckHeartbeats check) {
+        final Instant expiredAt = clock.instant().minus(heartbeatTimeout);
+        final List<TaskExecutorID> expired =
+            taskExecutorStateMap
+                .entrySet()
+                .stream()
+                .filter(e -> e.getValue().isRegistered() && !e.getValue().getLastActivity().isAfter(expiredAt))
+                .map(Entry::getKey)
+                .collect(Collectors.toList());
+
+        for (TaskExecutorID taskExecutorID : expired) {
+            try {
+                log.info("heartbeat timeout for {}; disconnecting task executor", taskExecutorID);
+                heartbeatTimeouts.increment();
+                disconnectTaskExecutor(taskExecutorID);
+            } catch (IllegalStateException e) {
+                log.error("Failed to disconnect taskExecutor {}", taskExecutorID, e);
             }
-
-        } catch (IllegalStateException e) {
-            sender().tell(new Status.Failure(e), self());
         }
     }
 
@@ -373,19 +461,8 @@ class ResourceClusterActor extends AbstractActorWithTimers {
         taskExecutorStateMap.putIfAbsent(taskExecutorID, TaskExecutorState.of(clock, rpcService));
     }
 
-    private void updateHeartbeatTimeout(TaskExecutorID taskExecutorID) {
-        final TaskExecutorState state = taskExecutorStateMap.get(taskExecutorID);
-        getTimers().startSingleTimer(
-            getHeartbeatTimerFor(taskExecutorID),
-            new HeartbeatTimeout(taskExecutorID, state.getLastActivity()),
-            heartbeatTimeout);
-    }
-
     @Value
-    private static class HeartbeatTimeout {
-
-        TaskExecutorID taskExecutorID;
-        Instant lastActivity;
+    private static class CheckHeartbeats {
     }
 
     @Value
@@ -395,6 +472,29 @@ class ResourceClusterActor extends AbstractActorWithTimers {
         ClusterID clusterID;
     }
 
+    @Value
+    static class TaskExecutorHeartbeatBatch {
+        ClusterID clusterID;
+        List<TaskExecutorHeartbeat> heartbeats;
+    }
+
+    @Value
+    static class TaskExecutorHeartbeatBatchResult {
+        // failures of the heartbeats that were rejected, by task executor
+        Map<TaskExecutorID, Exception> failures;
+    }
+
+    @Value
+    static class TaskExecutorBatchAssignmentRequest {
+        Map<WorkerId, MachineDefinition> allocationRequests;
+        ClusterID clusterID;
+    }
+
+    @Value
+    static class TaskExecutorBatchAssignment {
+        Map<WorkerId, TaskExecutorID> assignments;
+    }
+
     @Value
     static class TaskExecutorAssignmentTimeout {
         TaskExecutorID taskExecutorID;
@@ -27,6 +27,8 @@ import io.mantisrx.master.resourcecluster.ResourceClusterActor.GetUnregisteredTa
 import io.mantisrx.master.resourcecluster.ResourceClusterActor.InitializeTaskExecutorRequest;
 import io.mantisrx.master.resourcecluster.ResourceClusterActor.ResourceOverviewRequest;
 import io.mantisrx.master.resourcecluster.ResourceClusterActor.TaskExecutorAssignmentRequest;
+import io.mantisrx.master.resourcecluster.ResourceClusterActor.TaskExecutorBatchAssignment;
+import io.mantisrx.master.resourcecluster.ResourceClusterActor.TaskExecutorBatchAssignmentRequest;
 import io.mantisrx.master.resourcecluster.ResourceClusterActor.TaskExecutorGatewayRequest;
 import io.mantisrx.master.resourcecluster.ResourceClusterActor.TaskExecutorInfoRequest;
 import io.mantisrx.master.resourcecluster.ResourceClusterActor.TaskExecutorsList;
@@ -40,7 +42,9 @@ import io.mantisrx.server.master.resourcecluster.TaskExecutorRegistration;
 import io.mantisrx.server.worker.TaskExecutorGateway;
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import javax.annotation.Nullable;
 
 class ResourceClusterAkkaImpl extends ResourceClusterGatewayAkkaImpl implements ResourceCluster {
 
@@ -52,7 +56,16 @@ class ResourceClusterAkkaImpl extends ResourceClusterGatewayAkkaImpl implements
         Duration askTimeout,
         ClusterID clusterID,
         ResourceClusterTaskExecutorMapper mapper) {
-        super(resourceClusterManagerActor, askTimeout, mapper);
+        this(resourceClusterManagerActor, askTimeout, clusterID, mapper, null);
+    }
+
+    public ResourceClusterAkkaImpl(
+        ActorRef resourceClusterManagerActor,
+        Duration askTimeout,
+        ClusterID clusterID,
+        ResourceClusterTaskExecutorMapper mapper,
+        @Nullable TaskExecutorHeartbeatBatcher heartbeatBatcher) {
+        super(resourceClusterManagerActor, askTimeout, mapper, heartbeatBatcher);
         this.clusterID = clusterID;
         this.mapper = mapper;
     }
@@ -128,6 +141,17 @@ class ResourceClusterAkkaImpl extends ResourceClusterGatewayAkkaImpl implements
                 .toCompletableFuture();
     }
 
+    @Override
+    public CompletableFuture<Map<WorkerId, TaskExecutorID>> getTaskExecutorsFor(
+        Map<WorkerId, MachineDefinition> allocationRequests) {
+        return
+            Patterns
+                .ask(resourceClusterManagerActor, new TaskExecutorBatchAssignmentRequest(allocationRequests, clusterID), askTimeout)
+                .thenApply(TaskExecutorBatchAssignment.class::cast)
+                .toCompletableFuture()
+                .thenApply(TaskExecutorBatchAssignment::getAssignments);
+    }
+
     @Override
     public CompletableFuture<TaskExecutorGateway> getTaskExecutorGateway(
         TaskExecutorID taskExecutorID) {
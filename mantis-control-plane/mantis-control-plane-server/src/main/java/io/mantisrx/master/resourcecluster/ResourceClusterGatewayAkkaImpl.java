@@ -27,13 +27,33 @@ import io.mantisrx.server.master.resourcecluster.TaskExecutorRegistration;
 import io.mantisrx.server.master.resourcecluster.TaskExecutorStatusChange;
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
-import lombok.RequiredArgsConstructor;
+import javax.annotation.Nullable;
 
-@RequiredArgsConstructor
 class ResourceClusterGatewayAkkaImpl implements ResourceClusterGateway {
     protected final ActorRef resourceClusterManagerActor;
     protected final Duration askTimeout;
     private final ResourceClusterTaskExecutorMapper mapper;
+    // batches heartbeats if set, otherwise each heartbeat is sent on its own
+    @Nullable
+    private final TaskExecutorHeartbeatBatcher heartbeatBatcher;
+
+    ResourceClusterGatewayAkkaImpl(
+        ActorRef resourceClusterManagerActor,
+        Duration askTimeout,
+        ResourceClusterTaskExecutorMapper mapper) {
+        this(resourceClusterManagerActor, askTimeout, mapper, null);
+    }
+
+    ResourceClusterGatewayAkkaImpl(
+        ActorRef resourceClusterManagerActor,
+        Duration askTimeout,
+        ResourceClusterTaskExecutorMapper mapper,
+        @Nullable TaskExecutorHeartbeatBatcher heartbeatBatcher) {
+        this.resourceClusterManagerActor = resourceClusterManagerActor;
+        this.askTimeout = askTimeout;
+        this.mapper = mapper;
+        this.heartbeatBatcher = heartbeatBatcher;
+    }
 
     @Override
     public CompletableFuture<Ack> registerTaskExecutor(TaskExecutorRegistration registration) {
@@ -50,6 +70,9 @@ class ResourceClusterGatewayAkkaImpl implements ResourceClusterGateway {
 
     @Override
     public CompletableFuture<Ack> heartBeatFromTaskExecutor(TaskExecutorHeartbeat heartbeat) {
+        if (heartbeatBatcher != null) {
+            return heartbeatBatcher.add(heartbeat);
+        }
         return
             Patterns
                 .ask(resourceClusterManagerActor, heartbeat, askTimeout)
@@ -32,6 +32,7 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import org.apache.flink.runtime.rpc.RpcService;
@@ -46,6 +47,8 @@ public class ResourceClustersAkkaImpl implements ResourceClusters {
     private final ActorRef resourceClustersManagerActor;
     private final Duration askTimeout;
     private final ResourceClusterTaskExecutorMapper mapper;
+    @Nullable
+    private final TaskExecutorHeartbeatBatcher heartbeatBatcher;
     private final ConcurrentMap<ClusterID, ResourceCluster> cache =
         new ConcurrentHashMap<>();
 
@@ -58,7 +61,8 @@ public class ResourceClustersAkkaImpl implements ResourceClusters {
                     resourceClustersManagerActor,
                     askTimeout,
                     clusterID,
-                    mapper));
+                    mapper,
+                    heartbeatBatcher));
         return cache.get(clusterID);
     }
 
@@ -86,6 +90,11 @@ public class ResourceClustersAkkaImpl implements ResourceClusters {
 
         final Duration askTimeout = java.time.Duration.ofMillis(
             ConfigurationProvider.getConfig().getMasterApiAskTimeoutMs());
-        return new ResourceClustersAkkaImpl(resourceClusterManagerActor, askTimeout, globalMapper);
+        final TaskExecutorHeartbeatBatcher heartbeatBatcher =
+            masterConfiguration.getHeartbeatBatchIntervalInMs() > 0 ?
+                new TaskExecutorHeartbeatBatcher(resourceClusterManagerActor, askTimeout,
+                    Duration.ofMillis(masterConfiguration.getHeartbeatBatchIntervalInMs())) :
+                null;
+        return new ResourceClustersAkkaImpl(resourceClusterManagerActor, askTimeout, globalMapper, heartbeatBatcher);
     }
 }
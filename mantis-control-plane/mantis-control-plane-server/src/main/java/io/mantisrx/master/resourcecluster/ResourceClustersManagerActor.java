@@ -29,7 +29,9 @@ import io.mantisrx.master.resourcecluster.ResourceClusterActor.GetTaskExecutorSt
 import io.mantisrx.master.resourcecluster.ResourceClusterActor.GetUnregisteredTaskExecutorsRequest;
 import io.mantisrx.master.resourcecluster.ResourceClusterActor.ResourceOverviewRequest;
 import io.mantisrx.master.resourcecluster.ResourceClusterActor.TaskExecutorAssignmentRequest;
+import io.mantisrx.master.resourcecluster.ResourceClusterActor.TaskExecutorBatchAssignmentRequest;
 import io.mantisrx.master.resourcecluster.ResourceClusterActor.TaskExecutorGatewayRequest;
+import io.mantisrx.master.resourcecluster.ResourceClusterActor.TaskExecutorHeartbeatBatch;
 import io.mantisrx.master.resourcecluster.ResourceClusterActor.TaskExecutorInfoRequest;
 import io.mantisrx.server.master.config.MasterConfiguration;
 import io.mantisrx.server.master.persistence.MantisJobStore;
@@ -93,12 +95,16 @@ class ResourceClustersManagerActor extends AbstractActor {
                     getRCActor(registration.getClusterID()).forward(registration, context()))
                 .match(TaskExecutorHeartbeat.class, heartbeat ->
                     getRCActor(heartbeat.getClusterID()).forward(heartbeat, context()))
+                .match(TaskExecutorHeartbeatBatch.class, batch ->
+                    getRCActor(batch.getClusterID()).forward(batch, context()))
                 .match(TaskExecutorStatusChange.class, statusChange ->
                     getRCActor(statusChange.getClusterID()).forward(statusChange, context()))
                 .match(TaskExecutorDisconnection.class, disconnection ->
                     getRCActor(disconnection.getClusterID()).forward(disconnection, context()))
                 .match(TaskExecutorAssignmentRequest.class, req ->
                     getRCActor(req.getClusterID()).forward(req, context()))
+                .match(TaskExecutorBatchAssignmentRequest.class, req ->
+                    getRCActor(req.getClusterID()).forward(req, context()))
                 .match(ResourceOverviewRequest.class, req ->
                     getRCActor(req.getClusterID()).forward(req, context()))
                 .match(TaskExecutorInfoRequest.class, req ->
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2022 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.master.resourcecluster;
+
+import io.mantisrx.runtime.MachineDefinition;
+import io.mantisrx.server.core.domain.WorkerId;
+import io.mantisrx.server.master.resourcecluster.TaskExecutorID;
+import io.mantisrx.server.master.resourcecluster.TaskExecutorRegistration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+import lombok.Value;
+
+/**
+ * Index of the available task executors of a resource cluster, bucketed by the shape of their machine definition.
+ * <p>
+ * Buckets are ordered by cpu, memory, network, disk and ports, so every shape that can fit a request sorts at or
+ * after the request itself, and the first fitting bucket is the best fit. Within that bucket, executors on hosts that
+ * don't run a worker of the same job yet are preferred; the job's hosts are tracked per job, so that preference costs
+ * a lookup per host the job occupies rather than a scan of the available executors.
+ * <p>
+ * Not thread-safe; it is owned by the {@link ResourceClusterActor}.
+ */
+class TaskExecutorAvailabilityIndex {
+
+    static final Comparator<MachineDefinition> SHAPE_ORDER =
+        Comparator.comparingDouble(MachineDefinition::getCpuCores)
+            .thenComparingDouble(MachineDefinition::getMemoryMB)
+            .thenComparingDouble(MachineDefinition::getNetworkMbps)
+            .thenComparingDouble(MachineDefinition::getDiskMB)
+            .thenComparingInt(MachineDefinition::getNumPorts);
+
+    // shape -> hostname -> available task executors
+    private final NavigableMap<MachineDefinition, Map<String, Set<TaskExecutorID>>> availableByShape =
+        new TreeMap<>(SHAPE_ORDER);
+    private final Map<TaskExecutorID, Slot> availableExecutors = new HashMap<>();
+
+    // jobId -> hostname -> number of the job's workers assigned to or running on the host
+    private final Map<String, Map<String, Integer>> hostsByJob = new HashMap<>();
+    private final Map<TaskExecutorID, Placement> placements = new HashMap<>();
+
+    /**
+     * Re-indexes a task executor after its state changed.
+     *
+     * @param registration registration of the task executor, null if it is not registered.
+     * @param available whether the task executor can be assigned a worker.
+     * @param workerId worker assigned to or running on the task executor, if any.
+     */
+    void update(
+        TaskExecutorID taskExecutorID,
+        @Nullable TaskExecutorRegistration registration,
+        boolean available,
+        @Nullable WorkerId workerId) {
+        removeAvailable(taskExecutorID);
+        removePlacement(taskExecutorID);
+        if (registration == null) {
+            return;
+        }
+
+        if (available) {
+            addAvailable(taskExecutorID, new Slot(registration.getMachineDefinition(), registration.getHostname()));
+        } else if (workerId != null) {
+            addPlacement(taskExecutorID, new Placement(workerId.getJobId(), registration.getHostname()));
+        }
+    }
+
+    /**
+     * Returns an available task executor of the smallest shape that can fit the request. Within that shape, hosts
+     * that don't run a worker of the given job are preferred; larger shapes are only considered if no executor of the
+     * smallest fitting shape is available, regardless of the hosts they are on.
+     */
+    Optional<TaskExecutorID> findBestFit(MachineDefinition request, String jobId) {
+        for (Entry<MachineDefinition, Map<String, Set<TaskExecutorID>>> bucket :
+            availableByShape.tailMap(request, true).entrySet()) {
+            if (bucket.getKey().canFit(request)) {
+                return Optional.of(findPreferringHostsWithoutJob(bucket.getValue(), jobId));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns an executor on a host that doesn't run a worker of the job, or any executor if the job is on all of
+     * them. Every host skipped runs a worker of the job, so at most one more host than the job occupies is visited.
+     */
+    private TaskExecutorID findPreferringHostsWithoutJob(Map<String, Set<TaskExecutorID>> hosts, String jobId) {
+        final Map<String, Integer> jobHosts = hostsByJob.getOrDefault(jobId, Collections.emptyMap());
+        for (Entry<String, Set<TaskExecutorID>> host : hosts.entrySet()) {
+            if (!jobHosts.containsKey(host.getKey())) {
+                return host.getValue().iterator().next();
+            }
+        }
+        return hosts.values().iterator().next().iterator().next();
+    }
+
+    int getNumAvailable() {
+        return availableExecutors.size();
+    }
+
+    private void addAvailable(TaskExecutorID taskExecutorID, Slot slot) {
+        availableExecutors.put(taskExecutorID, slot);
+        availableByShape
+            .computeIfAbsent(slot.getMachineDefinition(), shape -> new LinkedHashMap<>())
+            .computeIfAbsent(slot.getHostname(), hostname -> new LinkedHashSet<>())
+            .add(taskExecutorID);
+    }
+
+    private void removeAvailable(TaskExecutorID taskExecutorID) {
+        final Slot slot = availableExecutors.remove(taskExecutorID);
+        if (slot == null) {
+            return;
+        }
+        final Map<String, Set<TaskExecutorID>> hosts = availableByShape.get(slot.getMachineDefinition());
+        final Set<TaskExecutorID> executors = hosts.get(slot.getHostname());
+        executors.remove(taskExecutorID);
+        if (executors.isEmpty()) {
+            hosts.remove(slot.getHostname());
+            if (hosts.isEmpty()) {
+                availableByShape.remove(slot.getMachineDefinition());
+            }
+        }
+    }
+
+    private void addPlacement(TaskExecutorID taskExecutorID, Placement placement) {
+        placements.put(taskExecutorID, placement);
+        hostsByJob
+            .computeIfAbsent(placement.getJobId(), jobId -> new HashMap<>())
+            .merge(placement.getHostname(), 1, Integer::sum);
+    }
+
+    private void removePlacement(TaskExecutorID taskExecutorID) {
+        final Placement placement = placements.remove(taskExecutorID);
+        if (placement == null) {
+            return;
+        }
+        final Map<String, Integer> hosts = hostsByJob.get(placement.getJobId());
+        hosts.computeIfPresent(placement.getHostname(), (hostname, count) -> count > 1 ? count - 1 : null);
+        if (hosts.isEmpty()) {
+            hostsByJob.remove(placement.getJobId());
+        }
+    }
+
+    @Value
+    private static class Slot {
+        MachineDefinition machineDefinition;
+        String hostname;
+    }
+
+    @Value
+    private static class Placement {
+        String jobId;
+        String hostname;
+    }
+}
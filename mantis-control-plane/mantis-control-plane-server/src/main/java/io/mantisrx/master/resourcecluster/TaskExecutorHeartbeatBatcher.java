@@ -0,0 +1,167 @@
+/*
+ * Copyright 2022 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.master.resourcecluster;
+
+import akka.actor.ActorRef;
+import akka.pattern.Patterns;
+import io.mantisrx.common.Ack;
+import io.mantisrx.common.metrics.Counter;
+import io.mantisrx.common.metrics.Gauge;
+import io.mantisrx.common.metrics.Metrics;
+import io.mantisrx.common.metrics.MetricsRegistry;
+import io.mantisrx.common.metrics.Timer;
+import io.mantisrx.master.resourcecluster.ResourceClusterActor.TaskExecutorHeartbeatBatch;
+import io.mantisrx.master.resourcecluster.ResourceClusterActor.TaskExecutorHeartbeatBatchResult;
+import io.mantisrx.server.master.resourcecluster.ClusterID;
+import io.mantisrx.server.master.resourcecluster.TaskExecutorHeartbeat;
+import io.mantisrx.server.master.resourcecluster.TaskExecutorID;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Aggregates the task executor heartbeats received by a {@link ResourceClusterGatewayAkkaImpl}, so that every
+ * resource cluster actor receives one message per batch interval instead of one per heartbeat.
+ * <p>
+ * Heartbeats are coalesced per task executor: a heartbeat received while an earlier one of the same task executor is
+ * pending replaces it, and both are acknowledged with the outcome of the latest.
+ */
+@Slf4j
+class TaskExecutorHeartbeatBatcher {
+
+    private final ActorRef resourceClusterManagerActor;
+    private final Duration askTimeout;
+    private final ScheduledExecutorService flusher;
+
+    // pending heartbeats by task executor, guarded by this
+    private final Map<TaskExecutorID, PendingHeartbeat> pending = new LinkedHashMap<>();
+
+    private final Gauge pendingHeartbeats;
+    private final Counter heartbeatsCoalesced;
+    private final Counter heartbeatBatchesFailed;
+    private final Timer heartbeatBatchLatency;
+
+    TaskExecutorHeartbeatBatcher(ActorRef resourceClusterManagerActor, Duration askTimeout, Duration batchInterval) {
+        this.resourceClusterManagerActor = resourceClusterManagerActor;
+        this.askTimeout = askTimeout;
+
+        Metrics m = new Metrics.Builder()
+            .id("TaskExecutorHeartbeatBatcher")
+            .addGauge("pendingHeartbeats")
+            .addCounter("heartbeatsCoalesced")
+            .addCounter("heartbeatBatchesFailed")
+            .addTimer("heartbeatBatchLatency")
+            .build();
+        m = MetricsRegistry.getInstance().registerAndGet(m);
+        this.pendingHeartbeats = m.getGauge("pendingHeartbeats");
+        this.heartbeatsCoalesced = m.getCounter("heartbeatsCoalesced");
+        this.heartbeatBatchesFailed = m.getCounter("heartbeatBatchesFailed");
+        this.heartbeatBatchLatency = m.getTimer("heartbeatBatchLatency");
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "mantis-heartbeat-batcher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(
+            this::flush, batchInterval.toMillis(), batchInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues a heartbeat to be sent with the next batch.
+     *
+     * @return a future completed once the resource cluster actor processed the heartbeat, or a later one of the same
+     * task executor.
+     */
+    CompletableFuture<Ack> add(TaskExecutorHeartbeat heartbeat) {
+        synchronized (this) {
+            PendingHeartbeat previous = pending.get(heartbeat.getTaskExecutorID());
+            if (previous != null) {
+                previous.heartbeat = heartbeat;
+                heartbeatsCoalesced.increment();
+                return previous.future;
+            }
+
+            PendingHeartbeat next = new PendingHeartbeat(heartbeat);
+            pending.put(heartbeat.getTaskExecutorID(), next);
+            pendingHeartbeats.set((long) pending.size());
+            return next.future;
+        }
+    }
+
+    /**
+     * Sends the pending heartbeats, one batch per resource cluster.
+     */
+    void flush() {
+        final Map<ClusterID, List<PendingHeartbeat>> batches = new HashMap<>();
+        synchronized (this) {
+            for (PendingHeartbeat heartbeat : pending.values()) {
+                batches.computeIfAbsent(heartbeat.heartbeat.getClusterID(), clusterID -> new ArrayList<>())
+                    .add(heartbeat);
+            }
+            pending.clear();
+            pendingHeartbeats.set(0L);
+        }
+        batches.forEach(this::send);
+    }
+
+    private void send(ClusterID clusterID, List<PendingHeartbeat> batch) {
+        final List<TaskExecutorHeartbeat> heartbeats = new ArrayList<>(batch.size());
+        for (PendingHeartbeat heartbeat : batch) {
+            heartbeats.add(heartbeat.heartbeat);
+        }
+
+        final long start = System.nanoTime();
+        Patterns
+            .ask(resourceClusterManagerActor, new TaskExecutorHeartbeatBatch(clusterID, heartbeats), askTimeout)
+            .thenApply(TaskExecutorHeartbeatBatchResult.class::cast)
+            .whenComplete((result, throwable) -> {
+                heartbeatBatchLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (throwable != null) {
+                    heartbeatBatchesFailed.increment();
+                    log.warn("Failed to send {} heartbeats of resource cluster {}", batch.size(), clusterID, throwable);
+                    batch.forEach(heartbeat -> heartbeat.future.completeExceptionally(throwable));
+                    return;
+                }
+                for (PendingHeartbeat heartbeat : batch) {
+                    Exception failure = result.getFailures().get(heartbeat.heartbeat.getTaskExecutorID());
+                    if (failure != null) {
+                        heartbeat.future.completeExceptionally(failure);
+                    } else {
+                        heartbeat.future.complete(Ack.getInstance());
+                    }
+                }
+            });
+    }
+
+    private static class PendingHeartbeat {
+        private TaskExecutorHeartbeat heartbeat;
+        private final CompletableFuture<Ack> future = new CompletableFuture<>();
+
+        PendingHeartbeat(TaskExecutorHeartbeat heartbeat) {
+            this.heartbeat = heartbeat;
+        }
+    }
+}
@@ -37,6 +37,8 @@ import io.mantisrx.master.events.AuditEventBrokerActor;
 import io.mantisrx.master.events.AuditEventSubscriber;
 import io.mantisrx.master.events.AuditEventSubscriberAkkaImpl;
 import io.mantisrx.master.events.AuditEventSubscriberLoggingImpl;
+import io.mantisrx.master.events.JobEventSubscriber;
+import io.mantisrx.master.events.JobIndex;
 import io.mantisrx.master.events.LifecycleEventPublisher;
 import io.mantisrx.master.events.LifecycleEventPublisherImpl;
 import io.mantisrx.master.events.StatusEventBrokerActor;
@@ -113,6 +115,7 @@ public class MasterMain implements Service {
     private MasterConfiguration config;
     private SchedulingService schedulingService;
     private ILeadershipManager leadershipManager;
+    private volatile MantisJobStore mantisJobStore = null;
 
     public MasterMain(ConfigurationFactory configFactory, AuditEventSubscriber auditEventSubscriber) {
 
@@ -149,13 +152,15 @@ public class MasterMain implements Service {
             final StatusEventSubscriber statusEventSubscriber = new StatusEventSubscriberAkkaImpl(statusEventBrokerActor);
             final AuditEventSubscriber auditEventSubscriberAkka = new AuditEventSubscriberAkkaImpl(auditEventBrokerActor);
             final WorkerEventSubscriber workerEventSubscriber = WorkerRegistryV2.INSTANCE;
+            final JobEventSubscriber jobEventSubscriber = getConfig().isJobIndexEnabled() ? JobIndex.INSTANCE : event -> { };
 
             // TODO who watches actors created at this level?
-            final LifecycleEventPublisher lifecycleEventPublisher = new LifecycleEventPublisherImpl(auditEventSubscriberAkka, statusEventSubscriber, workerEventSubscriber);
+            final LifecycleEventPublisher lifecycleEventPublisher = new LifecycleEventPublisherImpl(auditEventSubscriberAkka, statusEventSubscriber, workerEventSubscriber, jobEventSubscriber);
 
 
             IMantisStorageProvider storageProvider = new MantisStorageProviderAdapter(this.config.getStorageProvider(), lifecycleEventPublisher);
             final MantisJobStore mantisJobStore = new MantisJobStore(storageProvider);
+            this.mantisJobStore = mantisJobStore;
             final ActorRef jobClusterManagerActor = system.actorOf(JobClustersManagerActor.props(mantisJobStore, lifecycleEventPublisher), "JobClustersManager");
 
             // Beginning of new stuff
@@ -371,6 +376,9 @@ public class MasterMain implements Service {
             logger.info("Shutting down Mantis Master");
             mantisServices.shutdown();
             logger.info("mantis services shutdown complete");
+            if (mantisJobStore != null) {
+                mantisJobStore.shutdown();
+            }
             boolean shutdownCuratorEnabled = ConfigurationProvider.getConfig().getShutdownCuratorServiceEnabled();
             if (curatorService != null && shutdownCuratorEnabled) {
                 logger.info("Shutting down Curator Service");
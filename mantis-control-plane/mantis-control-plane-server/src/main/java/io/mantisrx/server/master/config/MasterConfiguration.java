@@ -47,6 +47,11 @@ public interface MasterConfiguration extends CoreConfiguration {
     @Config("mantis.master.storageProvider")
     MantisStorageProvider getStorageProvider();
 
+    // format in which the file storage provider writes metadata: JSON or BINARY. Files in either format are read.
+    @Config("mantis.master.storage.metadata.format")
+    @Default("JSON")
+    String getMetadataFormat();
+
     @Config("mantis.master.resourceClusterStorageProvider")
     String getResourceClusterStorageProvider();
 
@@ -86,6 +91,10 @@ public interface MasterConfiguration extends CoreConfiguration {
     @Default("1000")
     long getMasterApiAskTimeoutMs();
 
+    @Config("mantis.master.api.job.index.enabled")
+    @Default("false")
+    boolean isJobIndexEnabled();
+
     @Config("mesos.master.location")
     @Default("localhost:5050")
     String getMasterLocation();
@@ -258,6 +267,14 @@ public interface MasterConfiguration extends CoreConfiguration {
     @Default("100")
     int getWorkerWriteBatchSize();
 
+    @Config("mantis.master.store.worker.writes.behind.enabled")
+    @Default("false")
+    boolean isWorkerWriteBehindEnabled();
+
+    @Config("mantis.master.store.worker.writes.flush.interval.ms")
+    @Default("50")
+    long getWorkerWriteFlushIntervalMs();
+
     @Config("mantis.master.ephemeral.job.unsubscribed.timeout.secs")
     @Default("300")
     long getEphemeralJobUnsubscribedTimeoutSecs();
@@ -266,6 +283,18 @@ public interface MasterConfiguration extends CoreConfiguration {
     @Default("240")
     long getMasterInitTimeoutSecs();
 
+    @Config("mantis.master.init.cluster.concurrency")
+    @Default("64")
+    int getMasterInitJobClusterConcurrency();
+
+    @Config("mantis.master.init.completed.jobs.deferred")
+    @Default("false")
+    boolean isMasterInitCompletedJobsDeferred();
+
+    @Config("mantis.master.standby.refresh.interval.secs")
+    @Default("0")
+    long getStandbyRefreshIntervalSecs();
+
     @Config("mantis.master.terminated.job.to.delete.delay.hours")
     @Default("360")
         // 15 days * 24 hours
@@ -331,6 +360,11 @@ public interface MasterConfiguration extends CoreConfiguration {
     @Default("60000") // 1 minute
     int getAssignmentIntervalInMs();
 
+    // heartbeats of task executors are sent to the resource cluster actors in batches every interval; 0 disables
+    @Config("mantis.agent.heartbeat.batch.interval.ms")
+    @Default("0")
+    int getHeartbeatBatchIntervalInMs();
+
     default Duration getHeartbeatInterval() {
         return Duration.ofMillis(getHeartbeatIntervalInMs());
     }
@@ -0,0 +1,452 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.server.master.persistence;
+
+import io.mantisrx.master.events.AuditEventSubscriberLoggingImpl;
+import io.mantisrx.master.events.LifecycleEventPublisher;
+import io.mantisrx.master.events.LifecycleEventPublisherImpl;
+import io.mantisrx.master.events.StatusEventSubscriberLoggingImpl;
+import io.mantisrx.master.events.WorkerEventSubscriberLoggingImpl;
+import io.mantisrx.master.jobcluster.IJobClusterMetadata;
+import io.mantisrx.master.jobcluster.JobClusterMetadataImpl;
+import io.mantisrx.master.jobcluster.job.IMantisJobMetadata;
+import io.mantisrx.master.jobcluster.job.IMantisStageMetadata;
+import io.mantisrx.master.jobcluster.job.MantisJobMetadataImpl;
+import io.mantisrx.master.jobcluster.job.MantisStageMetadataImpl;
+import io.mantisrx.master.jobcluster.job.worker.IMantisWorkerMetadata;
+import io.mantisrx.master.jobcluster.job.worker.JobWorker;
+import io.mantisrx.master.jobcluster.job.worker.MantisWorkerMetadataImpl;
+import io.mantisrx.server.master.domain.JobClusterDefinitionImpl.CompletedJob;
+import io.mantisrx.server.master.persistence.SegmentLog.Operation;
+import io.mantisrx.server.master.persistence.exceptions.InvalidJobException;
+import io.mantisrx.server.master.persistence.exceptions.JobClusterAlreadyExistsException;
+import io.mantisrx.server.master.resourcecluster.TaskExecutorID;
+import io.mantisrx.server.master.resourcecluster.TaskExecutorRegistration;
+import io.mantisrx.server.master.store.InvalidNamedJobException;
+import io.mantisrx.server.master.store.JobAlreadyExistsException;
+import io.mantisrx.shaded.com.fasterxml.jackson.core.type.TypeReference;
+import io.mantisrx.shaded.com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+
+
+/**
+ * Local storage provider backed by a {@link SegmentLog}: an append-only log of segment files with an in-memory index.
+ * <P>Unlike {@link SimpleCachedFileStorageProvider}, which rewrites one file per job, stage and worker, every write is
+ * a sequential append, storing or replacing several workers is a single atomic record, and archiving a job is a single
+ * small record rather than a rename per file. Loading all jobs is a single pass over the index in key order. Superseded
+ * records are compacted away periodically.</P>
+ * <P>Keys are laid out so that all records of a job share a prefix, with the job first, then its stages, then its
+ * workers:</P>
+ * <pre>
+ * jobs/&lt;jobId&gt;/job
+ * jobs/&lt;jobId&gt;/stage/&lt;stageNum&gt;
+ * jobs/&lt;jobId&gt;/worker/&lt;workerIndex&gt;-&lt;workerNumber&gt;
+ * clusters/&lt;name&gt;
+ * completedJobs/&lt;name&gt;/&lt;jobId&gt;
+ * taskExecutors/&lt;resourceId&gt;
+ * activeVMs
+ * </pre>
+ */
+public class LogStructuredStorageProvider implements IMantisStorageProvider, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogStructuredStorageProvider.class);
+
+    public static final String DEFAULT_LOG_DIR = "/tmp/MantisLog";
+    public static final long DEFAULT_SEGMENT_SIZE_BYTES = 64L * 1024 * 1024;
+    public static final double DEFAULT_COMPACTION_GARBAGE_RATIO = 0.5;
+    public static final long DEFAULT_COMPACTION_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final String JOBS = "jobs/";
+    private static final String JOB = "job";
+    private static final String STAGES = "stage/";
+    private static final String WORKERS = "worker/";
+    private static final String CLUSTERS = "clusters/";
+    private static final String COMPLETED_JOBS = "completedJobs/";
+    private static final String TASK_EXECUTORS = "taskExecutors/";
+    private static final String ACTIVE_VMS = "activeVMs";
+    private static final SimpleFilterProvider DEFAULT_FILTER_PROVIDER;
+
+    static {
+        DEFAULT_FILTER_PROVIDER = new SimpleFilterProvider();
+        DEFAULT_FILTER_PROVIDER.setFailOnUnknownId(false);
+    }
+
+    private final MetadataCodec codec;
+    private final LifecycleEventPublisher eventPublisher = new LifecycleEventPublisherImpl(new AuditEventSubscriberLoggingImpl(),
+            new StatusEventSubscriberLoggingImpl(), new WorkerEventSubscriberLoggingImpl());
+    private final SegmentLog log;
+    private final ScheduledExecutorService compactor;
+
+    public LogStructuredStorageProvider() throws IOException {
+        this(new File(DEFAULT_LOG_DIR));
+    }
+
+    public LogStructuredStorageProvider(File dir) throws IOException {
+        this(dir, DEFAULT_SEGMENT_SIZE_BYTES, DEFAULT_COMPACTION_GARBAGE_RATIO, DEFAULT_COMPACTION_INTERVAL_MS, true);
+    }
+
+    /**
+     * @param dir                    directory of the log, created if absent and recovered if not.
+     * @param segmentSizeBytes       size past which appends go to a new segment.
+     * @param compactionGarbageRatio fraction of the log made of superseded records past which it is compacted.
+     * @param compactionIntervalMs   interval between compaction checks.
+     * @param fsync                  whether writes return only once durable. Concurrent writes share fsyncs.
+     */
+    public LogStructuredStorageProvider(File dir, long segmentSizeBytes, double compactionGarbageRatio,
+                                        long compactionIntervalMs, boolean fsync) throws IOException {
+        this(dir, segmentSizeBytes, compactionGarbageRatio, compactionIntervalMs, fsync, MetadataCodec.Format.JSON);
+    }
+
+    /**
+     * @param format format in which records are written. Records are read in either format, so the format of an
+     *               existing log can be changed; records written before keep their format until they are updated.
+     */
+    public LogStructuredStorageProvider(File dir, long segmentSizeBytes, double compactionGarbageRatio,
+                                        long compactionIntervalMs, boolean fsync, MetadataCodec.Format format)
+            throws IOException {
+        this.log = new SegmentLog(dir, segmentSizeBytes, compactionGarbageRatio, fsync);
+        this.codec = new MetadataCodec(format, DEFAULT_FILTER_PROVIDER);
+
+        this.compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "mantis-storage-log-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        compactor.scheduleWithFixedDelay(this::compactIfNeeded, compactionIntervalMs, compactionIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private static String jobPrefix(String jobId) {
+        return JOBS + jobId + SegmentLog.PREFIX_SEPARATOR;
+    }
+
+    private static String jobKey(String jobId) {
+        return jobPrefix(jobId) + JOB;
+    }
+
+    private static String stageKey(IMantisStageMetadata msmd) {
+        return jobPrefix(msmd.getJobId().getId()) + STAGES + msmd.getStageNum();
+    }
+
+    private static String workerKey(IMantisWorkerMetadata mwmd) {
+        return jobPrefix(mwmd.getJobId()) + WORKERS + mwmd.getWorkerIndex() + "-" + mwmd.getWorkerNumber();
+    }
+
+    private static String clusterKey(String name) {
+        return CLUSTERS + name;
+    }
+
+    private static String completedJobsPrefix(String name) {
+        return COMPLETED_JOBS + name + SegmentLog.PREFIX_SEPARATOR;
+    }
+
+    private static String taskExecutorKey(TaskExecutorID taskExecutorID) {
+        return TASK_EXECUTORS + taskExecutorID.getResourceId();
+    }
+
+    private Operation put(String key, Object value) throws IOException {
+        return Operation.put(key, codec.encode(value));
+    }
+
+    @Override
+    public synchronized void storeNewJob(IMantisJobMetadata jobMetadata) throws JobAlreadyExistsException, IOException {
+        final String key = jobKey(jobMetadata.getJobId().getId());
+        if (log.contains(key)) {
+            throw new JobAlreadyExistsException(jobMetadata.getJobId().getId());
+        }
+        log.append(put(key, jobMetadata));
+    }
+
+    @Override
+    public void updateJob(IMantisJobMetadata jobMetadata) throws InvalidJobException, IOException {
+        final String key = jobKey(jobMetadata.getJobId().getId());
+        if (!log.isActive(key)) {
+            throw new InvalidJobException(jobMetadata.getJobId().getId());
+        }
+        log.append(put(key, jobMetadata));
+    }
+
+    @Override
+    public void archiveJob(String jobId) throws IOException {
+        log.append(Operation.archive(jobPrefix(jobId)));
+    }
+
+    @Override
+    public void deleteJob(String jobId) throws IOException {
+        log.append(Operation.delete(jobPrefix(jobId)));
+    }
+
+    @Override
+    public void storeMantisStage(IMantisStageMetadata msmd) throws IOException {
+        log.append(put(stageKey(msmd), msmd));
+    }
+
+    @Override
+    public void updateMantisStage(IMantisStageMetadata msmd) throws IOException {
+        log.append(put(stageKey(msmd), msmd));
+    }
+
+    @Override
+    public void storeWorker(IMantisWorkerMetadata workerMetadata) throws IOException {
+        log.append(put(workerKey(workerMetadata), workerMetadata));
+    }
+
+    @Override
+    public void storeWorkers(String jobId, List<IMantisWorkerMetadata> workers) throws IOException {
+        final List<Operation> operations = new ArrayList<>(workers.size());
+        for (IMantisWorkerMetadata worker : workers) {
+            operations.add(put(workerKey(worker), worker));
+        }
+        log.append(operations);
+    }
+
+    @Override
+    public void storeAndUpdateWorkers(IMantisWorkerMetadata existingWorker, IMantisWorkerMetadata newWorker)
+            throws InvalidJobException, IOException {
+        if (!existingWorker.getJobId().equals(newWorker.getJobId())) {
+            throw new InvalidJobException(existingWorker.getJobId());
+        }
+        // a single record, so unlike SimpleCachedFileStorageProvider this is atomic
+        log.append(
+                Operation.putArchived(workerKey(existingWorker), codec.encode(existingWorker)),
+                put(workerKey(newWorker), newWorker));
+    }
+
+    @Override
+    public void updateWorker(IMantisWorkerMetadata worker) throws IOException {
+        log.append(put(workerKey(worker), worker));
+    }
+
+    @Override
+    public void archiveWorker(IMantisWorkerMetadata mwmd) throws IOException {
+        log.append(Operation.archive(workerKey(mwmd)));
+    }
+
+    @Override
+    public List<IMantisWorkerMetadata> getArchivedWorkers(String jobId) throws IOException {
+        final List<IMantisWorkerMetadata> workers = new ArrayList<>();
+        log.forEach(jobPrefix(jobId) + WORKERS, (key, archived, value) -> {
+            if (archived) {
+                workers.add(codec.decode(value, MantisWorkerMetadataImpl.class));
+            }
+        });
+        return workers;
+    }
+
+    @Override
+    public List<IMantisJobMetadata> loadAllJobs() throws IOException {
+        return loadJobs(JOBS, false);
+    }
+
+    @Override
+    public Observable<IMantisJobMetadata> loadAllArchivedJobs() {
+        try {
+            return Observable.from(loadJobs(JOBS, true));
+        } catch (IOException e) {
+            return Observable.error(e);
+        }
+    }
+
+    public Optional<IMantisJobMetadata> loadActiveJob(String jobId) throws IOException {
+        return loadJobs(jobPrefix(jobId), false).stream().findFirst();
+    }
+
+    @Override
+    public Optional<IMantisJobMetadata> loadArchivedJob(String jobId) throws IOException {
+        return loadJobs(jobPrefix(jobId), true).stream().findFirst();
+    }
+
+    private List<IMantisJobMetadata> loadJobs(String prefix, boolean archived) throws IOException {
+        final JobsLoader loader = new JobsLoader(archived);
+        log.forEach(prefix, loader);
+        return loader.jobs;
+    }
+
+    @Override
+    public List<IJobClusterMetadata> loadAllJobClusters() throws IOException {
+        final List<IJobClusterMetadata> jobClusters = new ArrayList<>();
+        log.forEach(CLUSTERS, (key, archived, value) -> {
+            try {
+                jobClusters.add(codec.decode(value, JobClusterMetadataImpl.class));
+            } catch (IOException e) {
+                logger.error("skipped {} due to exception when loading job cluster", key, e);
+            }
+        });
+        return jobClusters;
+    }
+
+    public Optional<IJobClusterMetadata> loadJobCluster(String clusterName) throws IOException {
+        final byte[] value = log.get(clusterKey(clusterName));
+        return value == null ? Optional.empty() : Optional.of(codec.decode(value, JobClusterMetadataImpl.class));
+    }
+
+    @Override
+    public List<CompletedJob> loadAllCompletedJobs() throws IOException {
+        final List<CompletedJob> completedJobs = new ArrayList<>();
+        log.forEach(COMPLETED_JOBS, (key, archived, value) -> {
+            try {
+                completedJobs.add(codec.decode(value, CompletedJob.class));
+            } catch (IOException e) {
+                logger.error("Exception loading completedJob {}", key, e);
+            }
+        });
+        return completedJobs;
+    }
+
+    @Override
+    public synchronized void createJobCluster(IJobClusterMetadata jobCluster) throws JobClusterAlreadyExistsException, IOException {
+        final String name = jobCluster.getJobClusterDefinition().getName();
+        if (log.contains(clusterKey(name))) {
+            throw new JobClusterAlreadyExistsException(name);
+        }
+        log.append(put(clusterKey(name), jobCluster));
+    }
+
+    @Override
+    public void updateJobCluster(IJobClusterMetadata jobCluster) throws InvalidNamedJobException, IOException {
+        final String name = jobCluster.getJobClusterDefinition().getName();
+        if (!log.contains(clusterKey(name))) {
+            throw new InvalidNamedJobException(name + " does not exist");
+        }
+        log.append(put(clusterKey(name), jobCluster));
+    }
+
+    @Override
+    public void deleteJobCluster(String name) throws InvalidNamedJobException, IOException {
+        if (!log.contains(clusterKey(name))) {
+            throw new InvalidNamedJobException(name + " doesn't exist");
+        }
+        log.append(Operation.delete(clusterKey(name)), Operation.delete(completedJobsPrefix(name)));
+    }
+
+    @Override
+    public void storeCompletedJobForCluster(String name, CompletedJob job) throws IOException {
+        log.append(put(completedJobsPrefix(name) + job.getJobId(), job));
+    }
+
+    @Override
+    public void removeCompletedJobForCluster(String name, String jobId) throws IOException {
+        log.append(Operation.delete(completedJobsPrefix(name) + jobId));
+    }
+
+    @Override
+    public List<String> initActiveVmAttributeValuesList() throws IOException {
+        final byte[] value = log.get(ACTIVE_VMS);
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        return codec.decode(value, new TypeReference<List<String>>() {});
+    }
+
+    @Override
+    public void setActiveVmAttributeValuesList(List<String> vmAttributesList) throws IOException {
+        log.append(put(ACTIVE_VMS, vmAttributesList));
+    }
+
+    @Override
+    public TaskExecutorRegistration getTaskExecutorFor(TaskExecutorID taskExecutorID) throws IOException {
+        final byte[] value = log.get(taskExecutorKey(taskExecutorID));
+        if (value == null) {
+            throw new IOException(String.format("No registration stored for taskExecutor %s", taskExecutorID));
+        }
+        return codec.decode(value, TaskExecutorRegistration.class);
+    }
+
+    @Override
+    public void storeNewTaskExecutor(TaskExecutorRegistration registration) throws IOException {
+        log.append(put(taskExecutorKey(registration.getTaskExecutorID()), registration));
+    }
+
+    private void compactIfNeeded() {
+        try {
+            log.compactIfNeeded();
+        } catch (Exception e) {
+            logger.error("failed to compact storage log", e);
+        }
+    }
+
+    /**
+     * Compacts the log right away, regardless of how much of it is superseded.
+     */
+    public void compact() throws IOException {
+        log.compact();
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactor.shutdownNow();
+        log.close();
+    }
+
+    /**
+     * Rebuilds jobs from a scan of job keys: a job's record comes first, followed by its stages and workers.
+     */
+    private class JobsLoader implements SegmentLog.Visitor {
+
+        private final boolean archived;
+        private final List<IMantisJobMetadata> jobs = new ArrayList<>();
+        private MantisJobMetadataImpl job = null;
+        private String jobPrefix = null;
+
+        private JobsLoader(boolean archived) {
+            this.archived = archived;
+        }
+
+        @Override
+        public void visit(String key, boolean entryArchived, byte[] value) throws IOException {
+            if (entryArchived != archived) {
+                return;
+            }
+            if (key.endsWith(SegmentLog.PREFIX_SEPARATOR + JOB)) {
+                jobPrefix = key.substring(0, key.length() - JOB.length());
+                try {
+                    job = codec.decode(value, MantisJobMetadataImpl.class);
+                    jobs.add(job);
+                } catch (IOException e) {
+                    logger.error("Error reading job metadata {}", key, e);
+                    job = null;
+                }
+            } else if (job != null && key.startsWith(jobPrefix + STAGES)) {
+                job.addJobStageIfAbsent(codec.decode(value, MantisStageMetadataImpl.class));
+            } else if (job != null && key.startsWith(jobPrefix + WORKERS)) {
+                final IMantisWorkerMetadata worker = codec.decode(value, MantisWorkerMetadataImpl.class);
+                try {
+                    JobWorker jobWorker = new JobWorker.Builder()
+                            .from(worker)
+                            .withLifecycleEventsPublisher(eventPublisher)
+                            .build();
+                    job.addWorkerMetadata(worker.getStageNum(), jobWorker);
+                } catch (InvalidJobException e) {
+                    logger.warn("Unexpected error adding worker index=" + worker.getWorkerIndex() + ", number=" +
+                            worker.getWorkerNumber() + " for job " + job.getJobId() + ": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+}
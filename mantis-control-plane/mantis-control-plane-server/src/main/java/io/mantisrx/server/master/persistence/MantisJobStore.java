@@ -23,6 +23,7 @@ import io.mantisrx.master.jobcluster.job.MantisStageMetadataImpl;
 import io.mantisrx.master.jobcluster.job.worker.IMantisWorkerMetadata;
 import io.mantisrx.master.jobcluster.job.worker.JobWorker;
 import io.mantisrx.server.master.config.ConfigurationProvider;
+import io.mantisrx.server.master.config.MasterConfiguration;
 import io.mantisrx.server.master.domain.JobClusterDefinitionImpl.CompletedJob;
 import io.mantisrx.server.master.persistence.exceptions.InvalidJobException;
 import io.mantisrx.server.master.resourcecluster.TaskExecutorID;
@@ -34,6 +35,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
@@ -52,9 +54,24 @@ public class MantisJobStore {
     private final ArchivedJobsMetadataCache archivedJobsMetadataCache;
     private final ArchivedWorkersCache archivedWorkersCache;
     private final PriorityBlockingQueue<TerminatedJob> terminatedJobsToDelete;
+    // null unless worker updates are written behind
+    private final WorkerWriteBehind workerWriteBehind;
 
     public MantisJobStore(IMantisStorageProvider storageProvider) {
+        this(storageProvider, newWorkerWriteBehind(storageProvider));
+    }
+
+    /**
+     * Creates a store writing worker updates behind, in batches of up to {@code workerWriteBatchSize} workers at least
+     * every {@code workerWriteFlushIntervalMs}.
+     */
+    public MantisJobStore(IMantisStorageProvider storageProvider, int workerWriteBatchSize, long workerWriteFlushIntervalMs) {
+        this(storageProvider, new WorkerWriteBehind(storageProvider, workerWriteBatchSize, workerWriteFlushIntervalMs));
+    }
+
+    private MantisJobStore(IMantisStorageProvider storageProvider, WorkerWriteBehind workerWriteBehind) {
         this.storageProvider = storageProvider;
+        this.workerWriteBehind = workerWriteBehind;
 
         archivedJobIds = new ConcurrentHashMap<>();
         archivedWorkersCache = new ArchivedWorkersCache(ConfigurationProvider.getConfig().getMaxArchivedJobsToCache());
@@ -63,6 +80,30 @@ public class MantisJobStore {
 
     }
 
+    private static WorkerWriteBehind newWorkerWriteBehind(IMantisStorageProvider storageProvider) {
+        final MasterConfiguration config = ConfigurationProvider.getConfig();
+        if (!config.isWorkerWriteBehindEnabled()) {
+            return null;
+        }
+        return new WorkerWriteBehind(storageProvider, config.getWorkerWriteBatchSize(),
+                config.getWorkerWriteFlushIntervalMs());
+    }
+
+    /**
+     * Writes pending worker updates, if any, and stops writing them behind.
+     */
+    public void shutdown() {
+        if (workerWriteBehind != null) {
+            workerWriteBehind.shutdown();
+        }
+    }
+
+    private void flushWorkerWrites(String jobId) {
+        if (workerWriteBehind != null) {
+            workerWriteBehind.flushJob(jobId);
+        }
+    }
+
     public void loadAllArchivedJobsAsync() {
         logger.info("Beginning load of Archived Jobs");
         storageProvider.loadAllArchivedJobs()
@@ -137,6 +178,7 @@ public class MantisJobStore {
         if (logger.isTraceEnabled()) {logger.trace("Deleting Job  {}", jobId); }
         archivedJobsMetadataCache.remove(jobId);
         archivedWorkersCache.remove(jobId);
+        flushWorkerWrites(jobId);
         storageProvider.deleteJob(jobId);
         if (logger.isTraceEnabled()) {logger.trace("Deleted Job  {}", jobId); }
 
@@ -173,6 +215,7 @@ public class MantisJobStore {
         if (logger.isTraceEnabled()) {
             logger.trace("Replace terminated worker  {} with new worker {}", oldWorker, replacement);
         }
+        flushWorkerWrites(oldWorker.getJobId());
         storageProvider.storeAndUpdateWorkers(oldWorker, replacement);
         if (logger.isTraceEnabled()) { logger.trace("Replaced terminated worker {}", oldWorker);}
 
@@ -241,7 +284,20 @@ public class MantisJobStore {
 
     }
 
-    public void updateWorker(IMantisWorkerMetadata worker) throws IOException {
+    /**
+     * Updates the given worker, returning a future completed once the update is durable. Unless worker updates are
+     * written behind, the update is written before returning and the future is already complete.
+     * <P>Updates written behind are queued, coalesced with later updates of the same worker, and written in order by
+     * the job. Pending updates of a job's workers are written before any of them is archived or replaced, and before
+     * the job is archived or deleted. The future fails if the update could not be written.</P>
+     *
+     * @throws IOException if the update is not written behind and failed to be written.
+     */
+    public CompletableFuture<Void> updateWorker(IMantisWorkerMetadata worker) throws IOException {
+        if (workerWriteBehind != null) {
+            if (logger.isTraceEnabled()) { logger.trace("Queued update of worker index=" + worker.getWorkerIndex()); }
+            return workerWriteBehind.update(worker);
+        }
         if (logger.isTraceEnabled()) { logger.trace("Updating worker index=" + worker.getWorkerIndex()); }
         storageProvider.updateWorker(worker);
         if (logger.isTraceEnabled()) { logger.trace("Updated worker index=" + worker.getWorkerIndex()); }
@@ -249,6 +305,7 @@ public class MantisJobStore {
         //        if(archiveIfError && WorkerState.isErrorState(worker.getState())) {
         //            archiveWorker(worker);
         //        }
+        return CompletableFuture.completedFuture(null);
     }
 
     private void archiveWorkersIfAny(IMantisJobMetadata mjmd) throws IOException {
@@ -262,6 +319,7 @@ public class MantisJobStore {
 
     public void archiveWorker(IMantisWorkerMetadata worker) throws IOException {
         if (logger.isTraceEnabled()) { logger.trace("Archiving worker index=" + worker.getWorkerIndex()); }
+        flushWorkerWrites(worker.getJobId());
         storageProvider.archiveWorker(worker);
         ConcurrentMap<Integer, IMantisWorkerMetadata> workersMap = null;
         try {
@@ -287,6 +345,7 @@ public class MantisJobStore {
     public void archiveJob(IMantisJobMetadata job) throws IOException {
         if (logger.isTraceEnabled()) { logger.trace("Archiving Job {}", job);}
         archivedJobsMetadataCache.add(job);
+        flushWorkerWrites(job.getJobId().getId());
         storageProvider.archiveJob(job.getJobId().getId());
         if (logger.isTraceEnabled()) { logger.trace("Archived Job {}", job.getJobId());}
     }
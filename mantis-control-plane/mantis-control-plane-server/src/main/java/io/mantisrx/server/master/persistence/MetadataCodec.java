@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.server.master.persistence;
+
+import io.mantisrx.shaded.com.fasterxml.jackson.core.type.TypeReference;
+import io.mantisrx.shaded.com.fasterxml.jackson.databind.DeserializationFeature;
+import io.mantisrx.shaded.com.fasterxml.jackson.databind.Module;
+import io.mantisrx.shaded.com.fasterxml.jackson.databind.ObjectMapper;
+import io.mantisrx.shaded.com.fasterxml.jackson.databind.ser.FilterProvider;
+import io.mantisrx.shaded.com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import java.io.IOException;
+import java.util.Arrays;
+
+
+/**
+ * Encodes the metadata persisted by storage providers (jobs, stages, workers, clusters) either as JSON or in a compact
+ * binary format, and decodes either regardless of the format it writes.
+ * <P>The binary format is a header of {@link #BINARY_MARKER} and a format version, followed by the CBOR encoding of
+ * the same Jackson mapping used for JSON. Properties are encoded by name, so like JSON it tolerates added and removed
+ * properties; the version is bumped only for incompatible changes of the encoding itself. JSON text never starts with
+ * {@link #BINARY_MARKER}, so data written as JSON before switching a provider to the binary format stays readable, and
+ * switching back stays possible as long as no newer binary version was written.</P>
+ */
+public class MetadataCodec {
+
+    public enum Format {
+        JSON,
+        BINARY
+    }
+
+    static final byte BINARY_MARKER = 0;
+    static final byte BINARY_VERSION = 1;
+    private static final int BINARY_HEADER_LENGTH = 2;
+
+    private final Format format;
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper binaryMapper;
+
+    /**
+     * @param format         format in which values are encoded.
+     * @param filterProvider filters applied to values annotated with a Jackson filter id, e.g. the job metadata.
+     * @param modules        Jackson modules registered with the mappers of both formats.
+     */
+    public MetadataCodec(Format format, FilterProvider filterProvider, Module... modules) {
+        this.format = format;
+        this.jsonMapper = newMapper(new ObjectMapper(), filterProvider, modules);
+        this.binaryMapper = newMapper(new ObjectMapper(new CBORFactory()), filterProvider, modules);
+    }
+
+    private static ObjectMapper newMapper(ObjectMapper mapper, FilterProvider filterProvider, Module... modules) {
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.setFilterProvider(filterProvider);
+        mapper.registerModules(modules);
+        return mapper;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public byte[] encode(Object value) throws IOException {
+        if (format == Format.JSON) {
+            return jsonMapper.writeValueAsBytes(value);
+        }
+        final byte[] payload = binaryMapper.writeValueAsBytes(value);
+        final byte[] bytes = new byte[BINARY_HEADER_LENGTH + payload.length];
+        bytes[0] = BINARY_MARKER;
+        bytes[1] = BINARY_VERSION;
+        System.arraycopy(payload, 0, bytes, BINARY_HEADER_LENGTH, payload.length);
+        return bytes;
+    }
+
+    public <T> T decode(byte[] bytes, Class<T> type) throws IOException {
+        if (!isBinary(bytes)) {
+            return jsonMapper.readValue(bytes, type);
+        }
+        return binaryMapper.readValue(bytes, checkBinaryHeader(bytes), bytes.length - BINARY_HEADER_LENGTH, type);
+    }
+
+    public <T> T decode(byte[] bytes, TypeReference<T> type) throws IOException {
+        if (!isBinary(bytes)) {
+            return jsonMapper.readValue(bytes, type);
+        }
+        return binaryMapper.readValue(bytes, checkBinaryHeader(bytes), bytes.length - BINARY_HEADER_LENGTH, type);
+    }
+
+    /**
+     * Returns true if the given value was encoded in the binary format, of any version.
+     */
+    public static boolean isBinary(byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == BINARY_MARKER;
+    }
+
+    private static int checkBinaryHeader(byte[] bytes) throws IOException {
+        if (bytes.length < BINARY_HEADER_LENGTH || bytes[1] < 1 || bytes[1] > BINARY_VERSION) {
+            throw new IOException("unsupported binary metadata encoding: "
+                    + Arrays.toString(Arrays.copyOf(bytes, Math.min(bytes.length, BINARY_HEADER_LENGTH))));
+        }
+        return BINARY_HEADER_LENGTH;
+    }
+}
@@ -0,0 +1,614 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.server.master.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Append-only log of key-value records, split into segment files, with an in-memory index of the latest value of each
+ * key.
+ * <p>
+ * A record is {@code [int body length][int CRC32 of body][body]}, and its body a sequence of operations that are
+ * applied atomically, each {@code [byte type][unsigned short key length][key][int value length][value]}. An operation
+ * puts a value, archives or deletes. Archiving only flags an entry, so that archiving a job is a single small record.
+ * Archive and delete address a single key, or every key starting with the given one if it ends with
+ * {@link #PREFIX_SEPARATOR}.
+ * <p>
+ * Segments are replayed in order on open. A torn or corrupt record at the end of the last segment, as left by a crash
+ * while appending, is truncated. Once superseded records make up {@code compactionGarbageRatio} of the log, live
+ * entries are rewritten to a new segment and the older segments are deleted oldest first, so that a crash while
+ * compacting never resurrects deleted keys.
+ * <p>
+ * Appends are serialized. With fsync enabled, an append returns once durable, and concurrent appends share fsyncs.
+ */
+class SegmentLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentLog.class);
+
+    static final char PREFIX_SEPARATOR = '/';
+
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+    private static final String SEGMENT_FILE_SUFFIX = ".log";
+    private static final int RECORD_HEADER_LENGTH = 8;
+    // type, key length and value length
+    private static final int OPERATION_HEADER_LENGTH = 7;
+    private static final int MAX_KEY_LENGTH = 0xFFFF;
+    private static final int MAX_RECORD_LENGTH = 256 * 1024 * 1024;
+    private static final int COMPACTION_BUFFER_SIZE = 1024 * 1024;
+
+    private static final byte PUT = 1;
+    private static final byte PUT_ARCHIVED = 2;
+    private static final byte ARCHIVE = 3;
+    private static final byte DELETE = 4;
+
+    private final File dir;
+    private final long segmentSizeBytes;
+    private final double compactionGarbageRatio;
+    private final boolean fsync;
+
+    // guarded by this
+    private final NavigableMap<String, Entry> index = new TreeMap<>();
+    private final List<Segment> segments = new ArrayList<>();
+    private long nextSegmentId = 0;
+    private long totalBytes = 0;
+    private long liveBytes = 0;
+
+    // guarded by this and syncLock, appends go to the active segment
+    private Segment active;
+    private final Object syncLock = new Object();
+    private volatile long appendedBytes = 0;
+    // guarded by syncLock
+    private long syncedBytes = 0;
+
+    /**
+     * Opens the log in the given directory, replaying its segments if any.
+     *
+     * @param segmentSizeBytes       size past which appends go to a new segment.
+     * @param compactionGarbageRatio fraction of the log made of superseded records past which
+     *                               {@link #compactIfNeeded()} compacts.
+     * @param fsync                  whether appends wait for their records to be durable.
+     */
+    SegmentLog(File dir, long segmentSizeBytes, double compactionGarbageRatio, boolean fsync) throws IOException {
+        this.dir = dir;
+        this.segmentSizeBytes = segmentSizeBytes;
+        this.compactionGarbageRatio = compactionGarbageRatio;
+        this.fsync = fsync;
+
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Can't create log directory " + dir.getAbsolutePath());
+        }
+        synchronized (this) {
+            recover();
+        }
+    }
+
+    /**
+     * Appends the given operations as a single record, so that either all or none of them survive a crash.
+     */
+    void append(List<Operation> operations) throws IOException {
+        if (operations.isEmpty()) {
+            return;
+        }
+        final long end;
+        synchronized (this) {
+            final ByteBuffer record = encode(operations);
+            if (active.size > 0 && active.size + record.remaining() > segmentSizeBytes) {
+                roll();
+            }
+            final long offset = active.size;
+            write(active.channel, record, offset);
+            final byte[] body = Arrays.copyOfRange(record.array(), RECORD_HEADER_LENGTH, record.limit());
+            applyRecord(active, offset + RECORD_HEADER_LENGTH, body);
+            active.size += record.limit();
+            totalBytes += record.limit();
+            appendedBytes += record.limit();
+            end = appendedBytes;
+        }
+        sync(end);
+    }
+
+    void append(Operation... operations) throws IOException {
+        append(Arrays.asList(operations));
+    }
+
+    /**
+     * Returns the latest value of the given key, or null if it has none.
+     */
+    synchronized byte[] get(String key) throws IOException {
+        final Entry entry = index.get(key);
+        return entry == null ? null : read(entry);
+    }
+
+    synchronized boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * Returns true if the given key has a value that is not archived.
+     */
+    synchronized boolean isActive(String key) {
+        final Entry entry = index.get(key);
+        return entry != null && !entry.archived;
+    }
+
+    /**
+     * Visits the entries whose key starts with the given prefix, in key order. Appends wait until the visit is over.
+     */
+    synchronized void forEach(String prefix, Visitor visitor) throws IOException {
+        for (Map.Entry<String, Entry> e : index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+            visitor.visit(e.getKey(), e.getValue().archived, read(e.getValue()));
+        }
+    }
+
+    /**
+     * Compacts the log if superseded records make up more than the configured ratio of it, and it spans at least a
+     * segment.
+     *
+     * @return whether the log was compacted.
+     */
+    synchronized boolean compactIfNeeded() throws IOException {
+        if (totalBytes < segmentSizeBytes || totalBytes - liveBytes < compactionGarbageRatio * totalBytes) {
+            return false;
+        }
+        compact();
+        return true;
+    }
+
+    /**
+     * Rewrites the live entries to a new segment, which becomes the active one, and deletes all other segments.
+     */
+    synchronized void compact() throws IOException {
+        final long start = System.currentTimeMillis();
+        final long previousBytes = totalBytes;
+        final List<Segment> obsolete = new ArrayList<>(segments);
+        final Segment target = newSegment();
+        final Map<String, Entry> compacted = new TreeMap<>();
+        final ByteBuffer buffer = ByteBuffer.allocate(COMPACTION_BUFFER_SIZE);
+        long bufferOffset = 0;
+        for (Map.Entry<String, Entry> e : index.entrySet()) {
+            final Entry entry = e.getValue();
+            final Operation put = entry.archived
+                    ? Operation.putArchived(e.getKey(), read(entry))
+                    : Operation.put(e.getKey(), read(entry));
+            final ByteBuffer record = encode(Collections.singletonList(put));
+            if (record.remaining() > buffer.remaining()) {
+                buffer.flip();
+                bufferOffset += write(target.channel, buffer, bufferOffset);
+                buffer.clear();
+            }
+            final long recordOffset = bufferOffset + buffer.position();
+            final int valueOffset = RECORD_HEADER_LENGTH + OPERATION_HEADER_LENGTH + put.key.length;
+            compacted.put(e.getKey(), new Entry(target, recordOffset + valueOffset, entry.valueLength,
+                    entry.operationLength, entry.archived));
+            if (record.remaining() > buffer.capacity()) {
+                bufferOffset += write(target.channel, record, bufferOffset);
+            } else {
+                buffer.put(record);
+            }
+        }
+        buffer.flip();
+        bufferOffset += write(target.channel, buffer, bufferOffset);
+        target.size = bufferOffset;
+        target.channel.force(false);
+
+        synchronized (syncLock) {
+            active = target;
+            syncedBytes = appendedBytes;
+            index.putAll(compacted);
+            segments.clear();
+            segments.add(target);
+            totalBytes = target.size;
+            // oldest first, see above
+            for (Segment segment : obsolete) {
+                segment.channel.close();
+                if (!segment.file.delete()) {
+                    logger.warn("failed to delete compacted log segment {}", segment.file);
+                }
+            }
+        }
+        logger.info("compacted log {} from {} to {} bytes in {} ms", dir, previousBytes, totalBytes,
+                System.currentTimeMillis() - start);
+    }
+
+    synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    synchronized long getLiveBytes() {
+        return liveBytes;
+    }
+
+    synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        synchronized (syncLock) {
+            if (fsync) {
+                active.channel.force(false);
+                syncedBytes = appendedBytes;
+            }
+            for (Segment segment : segments) {
+                segment.channel.close();
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+        final File[] files = dir.listFiles((d, name) -> name.startsWith(SEGMENT_FILE_PREFIX) && name.endsWith(SEGMENT_FILE_SUFFIX));
+        final List<Long> ids = new ArrayList<>();
+        for (File file : files == null ? new File[0] : files) {
+            final String name = file.getName();
+            try {
+                ids.add(Long.parseLong(name.substring(SEGMENT_FILE_PREFIX.length(), name.length() - SEGMENT_FILE_SUFFIX.length())));
+            } catch (NumberFormatException e) {
+                logger.warn("ignoring unexpected file {} in log directory {}", name, dir);
+            }
+        }
+        Collections.sort(ids);
+
+        for (Iterator<Long> it = ids.iterator(); it.hasNext(); ) {
+            final long id = it.next();
+            final Segment segment = openSegment(id);
+            final long fileLength = segment.channel.size();
+            final long validLength = replay(segment, fileLength);
+            if (validLength < fileLength) {
+                if (it.hasNext()) {
+                    logger.error("log segment {} is corrupt after offset {} of {}, ignoring the rest of it",
+                            segment.file, validLength, fileLength);
+                    segment.size = fileLength;
+                } else {
+                    logger.warn("truncating torn record at offset {} of log segment {} of {} bytes",
+                            validLength, segment.file, fileLength);
+                    segment.channel.truncate(validLength);
+                    segment.channel.force(true);
+                    segment.size = validLength;
+                }
+            } else {
+                segment.size = fileLength;
+            }
+            segments.add(segment);
+            totalBytes += segment.size;
+            nextSegmentId = id + 1;
+        }
+
+        if (segments.isEmpty()) {
+            active = newSegment();
+        } else {
+            active = segments.get(segments.size() - 1);
+        }
+        logger.info("opened log {} with {} entries in {} segments, {} of {} bytes live", dir, index.size(),
+                segments.size(), liveBytes, totalBytes);
+    }
+
+    /**
+     * Applies the records of the given segment to the index.
+     *
+     * @return the length of the segment's valid prefix.
+     */
+    private long replay(Segment segment, long fileLength) throws IOException {
+        long position = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment.file), 1 << 16))) {
+            while (position < fileLength) {
+                final int bodyLength;
+                final int crc;
+                final byte[] body;
+                try {
+                    bodyLength = in.readInt();
+                    if (bodyLength < OPERATION_HEADER_LENGTH || bodyLength > MAX_RECORD_LENGTH ||
+                            position + RECORD_HEADER_LENGTH + bodyLength > fileLength) {
+                        return position;
+                    }
+                    crc = in.readInt();
+                    body = new byte[bodyLength];
+                    in.readFully(body);
+                } catch (EOFException e) {
+                    return position;
+                }
+                if (crc != crc(body, 0, body.length) || !applyRecord(segment, position + RECORD_HEADER_LENGTH, body)) {
+                    return position;
+                }
+                position += RECORD_HEADER_LENGTH + bodyLength;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Applies the operations of a record body to the index, unless it is malformed.
+     *
+     * @param bodyOffset offset of the body in the segment.
+     * @return whether the body was well-formed.
+     */
+    private boolean applyRecord(Segment segment, long bodyOffset, byte[] body) {
+        final ByteBuffer buffer = ByteBuffer.wrap(body);
+        final List<DecodedOperation> operations = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            if (buffer.remaining() < OPERATION_HEADER_LENGTH) {
+                return false;
+            }
+            final byte type = buffer.get();
+            final int keyLength = buffer.getShort() & MAX_KEY_LENGTH;
+            if (type < PUT || type > DELETE || buffer.remaining() < keyLength + 4) {
+                return false;
+            }
+            final String key = new String(body, buffer.position(), keyLength, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + keyLength);
+            final int valueLength = buffer.getInt();
+            if (valueLength < 0 || valueLength > buffer.remaining()) {
+                return false;
+            }
+            operations.add(new DecodedOperation(type, key, bodyOffset + buffer.position(), valueLength,
+                    OPERATION_HEADER_LENGTH + keyLength + valueLength));
+            buffer.position(buffer.position() + valueLength);
+        }
+        for (DecodedOperation operation : operations) {
+            apply(segment, operation);
+        }
+        return true;
+    }
+
+    private void apply(Segment segment, DecodedOperation operation) {
+        switch (operation.type) {
+        case PUT:
+        case PUT_ARCHIVED:
+            final Entry previous = index.put(operation.key, new Entry(segment, operation.valueOffset,
+                    operation.valueLength, operation.length, operation.type == PUT_ARCHIVED));
+            if (previous != null) {
+                liveBytes -= previous.operationLength;
+            }
+            liveBytes += operation.length;
+            break;
+        case ARCHIVE:
+            for (Entry entry : range(operation.key).values()) {
+                entry.archived = true;
+            }
+            break;
+        case DELETE:
+            final NavigableMap<String, Entry> deleted = range(operation.key);
+            for (Entry entry : deleted.values()) {
+                liveBytes -= entry.operationLength;
+            }
+            deleted.clear();
+            break;
+        default:
+            throw new IllegalStateException("unexpected operation " + operation.type);
+        }
+    }
+
+    private NavigableMap<String, Entry> range(String key) {
+        if (key.isEmpty() || key.charAt(key.length() - 1) == PREFIX_SEPARATOR) {
+            return index.subMap(key, true, key + Character.MAX_VALUE, false);
+        }
+        return index.subMap(key, true, key, true);
+    }
+
+    private void roll() throws IOException {
+        final Segment next = newSegment();
+        synchronized (syncLock) {
+            if (fsync) {
+                active.channel.force(false);
+            }
+            syncedBytes = appendedBytes;
+            active = next;
+        }
+    }
+
+    /**
+     * Waits until the log is durable up to the given logical offset, fsyncing on behalf of concurrent appenders.
+     */
+    private void sync(long end) throws IOException {
+        if (!fsync) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedBytes >= end) {
+                return;
+            }
+            final long target = appendedBytes;
+            active.channel.force(false);
+            syncedBytes = target;
+        }
+    }
+
+    private Segment newSegment() throws IOException {
+        final Segment segment = openSegment(nextSegmentId++);
+        segments.add(segment);
+        if (fsync) {
+            syncDirectory();
+        }
+        return segment;
+    }
+
+    private Segment openSegment(long id) throws IOException {
+        final File file = new File(dir, String.format("%s%020d%s", SEGMENT_FILE_PREFIX, id, SEGMENT_FILE_SUFFIX));
+        final FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(file, channel);
+    }
+
+    private void syncDirectory() {
+        // makes new segment files durable, not supported on all platforms
+        try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("failed to fsync log directory {}", dir, e);
+        }
+    }
+
+    private byte[] read(Entry entry) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(entry.valueLength);
+        long position = entry.valueOffset;
+        while (buffer.hasRemaining()) {
+            final int read = entry.segment.channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("log segment " + entry.segment.file + " ends before offset " + position);
+            }
+            position += read;
+        }
+        return buffer.array();
+    }
+
+    private static long write(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        return position - offset;
+    }
+
+    private static ByteBuffer encode(List<Operation> operations) {
+        int bodyLength = 0;
+        for (Operation operation : operations) {
+            bodyLength += operation.length();
+        }
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_LENGTH + bodyLength);
+        record.putInt(bodyLength);
+        record.putInt(0);
+        for (Operation operation : operations) {
+            record.put(operation.type);
+            record.putShort((short) operation.key.length);
+            record.put(operation.key);
+            record.putInt(operation.value.length);
+            record.put(operation.value);
+        }
+        record.putInt(4, crc(record.array(), RECORD_HEADER_LENGTH, bodyLength));
+        record.flip();
+        return record;
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    interface Visitor {
+
+        void visit(String key, boolean archived, byte[] value) throws IOException;
+    }
+
+    static final class Operation {
+
+        private static final byte[] NO_VALUE = new byte[0];
+
+        private final byte type;
+        private final byte[] key;
+        private final byte[] value;
+
+        private Operation(byte type, String key, byte[] value) {
+            if (key.isEmpty()) {
+                throw new IllegalArgumentException("empty key");
+            }
+            this.type = type;
+            this.key = key.getBytes(StandardCharsets.UTF_8);
+            this.value = value;
+            if (this.key.length > MAX_KEY_LENGTH) {
+                throw new IllegalArgumentException("key longer than " + MAX_KEY_LENGTH + " bytes: " + key);
+            }
+        }
+
+        static Operation put(String key, byte[] value) {
+            return new Operation(PUT, key, value);
+        }
+
+        static Operation putArchived(String key, byte[] value) {
+            return new Operation(PUT_ARCHIVED, key, value);
+        }
+
+        static Operation archive(String key) {
+            return new Operation(ARCHIVE, key, NO_VALUE);
+        }
+
+        static Operation delete(String key) {
+            return new Operation(DELETE, key, NO_VALUE);
+        }
+
+        private int length() {
+            return OPERATION_HEADER_LENGTH + key.length + value.length;
+        }
+    }
+
+    private static final class DecodedOperation {
+
+        private final byte type;
+        private final String key;
+        private final long valueOffset;
+        private final int valueLength;
+        private final int length;
+
+        private DecodedOperation(byte type, String key, long valueOffset, int valueLength, int length) {
+            this.type = type;
+            this.key = key;
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+            this.length = length;
+        }
+    }
+
+    private static final class Segment {
+
+        private final File file;
+        private final FileChannel channel;
+        private long size = 0;
+
+        private Segment(File file, FileChannel channel) {
+            this.file = file;
+            this.channel = channel;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Segment segment;
+        private final long valueOffset;
+        private final int valueLength;
+        private final int operationLength;
+        private boolean archived;
+
+        private Entry(Segment segment, long valueOffset, int valueLength, int operationLength, boolean archived) {
+            this.segment = segment;
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+            this.operationLength = operationLength;
+            this.archived = archived;
+        }
+    }
+}
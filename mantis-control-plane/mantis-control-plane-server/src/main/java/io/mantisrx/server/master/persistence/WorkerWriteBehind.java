@@ -0,0 +1,277 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.server.master.persistence;
+
+import io.mantisrx.common.metrics.Counter;
+import io.mantisrx.common.metrics.Gauge;
+import io.mantisrx.common.metrics.Metrics;
+import io.mantisrx.common.metrics.MetricsRegistry;
+import io.mantisrx.common.metrics.Timer;
+import io.mantisrx.master.jobcluster.job.worker.IMantisWorkerMetadata;
+import io.mantisrx.master.jobcluster.job.worker.MantisWorkerMetadataImpl;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Write-behind of worker updates for {@link MantisJobStore}, so that job actors do not wait on storage for every
+ * worker state transition.
+ * <p>
+ * Updates are coalesced per worker: a worker updated again before its pending update was written is written once,
+ * with its latest state. Pending updates are written in batches by a single thread, every flush interval or as soon as
+ * a batch is full. The updates of a batch are written with one
+ * {@link IMantisStorageProvider#storeWorkers(String, List)} per job. Each update returns a future completed once the
+ * worker's state is durable. Failed writes are retried with the next batch unless a newer update of the worker
+ * supersedes them, and fail their futures after {@link #MAX_ATTEMPTS} attempts.
+ * <p>
+ * Updates hold a copy of the worker metadata taken when they are queued, as the metadata itself keeps being updated by
+ * the job actor while the flush thread writes it.
+ */
+class WorkerWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkerWriteBehind.class);
+    static final int MAX_ATTEMPTS = 3;
+
+    private final IMantisStorageProvider storageProvider;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService flusher;
+
+    // pending updates by worker id, guarded by this
+    private final Map<String, PendingUpdate> pending = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+    // held while writing, so that writes of a worker never overlap
+    private final Object flushLock = new Object();
+
+    private final Gauge pendingWorkerWrites;
+    private final Counter workerWritesCoalesced;
+    private final Counter workerWritesFailed;
+    private final Timer workerWritesFlushLatency;
+
+    WorkerWriteBehind(IMantisStorageProvider storageProvider, int maxBatchSize, long flushIntervalMs) {
+        this.storageProvider = storageProvider;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+
+        Metrics m = new Metrics.Builder()
+                .id("WorkerWriteBehind")
+                .addGauge("pendingWorkerWrites")
+                .addCounter("workerWritesCoalesced")
+                .addCounter("workerWritesFailed")
+                .addTimer("workerWritesFlushLatency")
+                .build();
+        m = MetricsRegistry.getInstance().registerAndGet(m);
+        this.pendingWorkerWrites = m.getGauge("pendingWorkerWrites");
+        this.workerWritesCoalesced = m.getCounter("workerWritesCoalesced");
+        this.workerWritesFailed = m.getCounter("workerWritesFailed");
+        this.workerWritesFlushLatency = m.getTimer("workerWritesFlushLatency");
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "mantis-worker-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushAll, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues an update of the given worker.
+     *
+     * @return a future completed once the worker's state, as of this update or later, is durable.
+     */
+    CompletableFuture<Void> update(IMantisWorkerMetadata worker) {
+        final String key = worker.getWorkerId().getId();
+        final IMantisWorkerMetadata snapshot = copyOf(worker);
+        synchronized (this) {
+            PendingUpdate update = pending.get(key);
+            if (update != null) {
+                update.worker = snapshot;
+                workerWritesCoalesced.increment();
+                return update.future;
+            }
+
+            update = new PendingUpdate(snapshot);
+            pending.put(key, update);
+            pendingWorkerWrites.set((long) pending.size());
+            if (pending.size() >= maxBatchSize && !flushScheduled) {
+                flushScheduled = true;
+                try {
+                    flusher.execute(this::flushAll);
+                } catch (RejectedExecutionException e) {
+                    logger.warn("write-behind is shut down, worker {} is written on the next flush", key);
+                    flushScheduled = false;
+                }
+            }
+            return update.future;
+        }
+    }
+
+    /**
+     * Writes the pending updates of the workers of the given job, waiting for any batch being written. Invoked before
+     * the job or its workers are archived, replaced or deleted, so that no pending update is written after them.
+     */
+    void flushJob(String jobId) {
+        synchronized (flushLock) {
+            final List<PendingUpdate> batch = new ArrayList<>();
+            synchronized (this) {
+                final Iterator<PendingUpdate> it = pending.values().iterator();
+                while (it.hasNext()) {
+                    final PendingUpdate update = it.next();
+                    if (jobId.equals(update.worker.getJobId())) {
+                        batch.add(update);
+                        it.remove();
+                    }
+                }
+                pendingWorkerWrites.set((long) pending.size());
+            }
+            write(batch, false);
+        }
+    }
+
+    /**
+     * Writes all pending updates, in batches of at most the maximum batch size.
+     */
+    void flushAll() {
+        synchronized (flushLock) {
+            while (true) {
+                final List<PendingUpdate> batch = new ArrayList<>();
+                synchronized (this) {
+                    flushScheduled = false;
+                    final Iterator<PendingUpdate> it = pending.values().iterator();
+                    while (it.hasNext() && batch.size() < maxBatchSize) {
+                        batch.add(it.next());
+                        it.remove();
+                    }
+                    pendingWorkerWrites.set((long) pending.size());
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                final boolean full = batch.size() == maxBatchSize;
+                write(batch, true);
+                if (!full) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the flush thread after writing the pending updates.
+     */
+    void shutdown() {
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("timed out waiting for worker writes to be flushed");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushAll();
+    }
+
+    int getPendingCount() {
+        synchronized (this) {
+            return pending.size();
+        }
+    }
+
+    private void write(List<PendingUpdate> batch, boolean retry) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        final long start = System.nanoTime();
+        final Map<String, List<PendingUpdate>> byJob = new LinkedHashMap<>();
+        for (PendingUpdate update : batch) {
+            byJob.computeIfAbsent(update.worker.getJobId(), jobId -> new ArrayList<>()).add(update);
+        }
+        for (Map.Entry<String, List<PendingUpdate>> job : byJob.entrySet()) {
+            final List<PendingUpdate> updates = job.getValue();
+            final List<IMantisWorkerMetadata> workers = new ArrayList<>(updates.size());
+            for (PendingUpdate update : updates) {
+                workers.add(update.worker);
+            }
+            try {
+                storageProvider.storeWorkers(job.getKey(), workers);
+                for (PendingUpdate update : updates) {
+                    update.future.complete(null);
+                }
+            } catch (Exception e) {
+                for (PendingUpdate update : updates) {
+                    update.attempts++;
+                    onFailedWrite(update, e, retry);
+                }
+            }
+        }
+        workerWritesFlushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void onFailedWrite(PendingUpdate update, Exception e, boolean retry) {
+        final String key = update.worker.getWorkerId().getId();
+        synchronized (this) {
+            final PendingUpdate newer = pending.get(key);
+            if (newer != null) {
+                // superseded by a newer update of the worker, durable once it is
+                newer.future.whenComplete((v, t) -> {
+                    if (t == null) {
+                        update.future.complete(null);
+                    } else {
+                        update.future.completeExceptionally(t);
+                    }
+                });
+                return;
+            }
+            if (retry && update.attempts < MAX_ATTEMPTS) {
+                logger.warn("failed to write worker {}, retrying with the next batch", key, e);
+                pending.put(key, update);
+                pendingWorkerWrites.set((long) pending.size());
+                return;
+            }
+        }
+        logger.error("failed to write worker {} after {} attempts", key, update.attempts, e);
+        workerWritesFailed.increment();
+        update.future.completeExceptionally(e);
+    }
+
+    private static IMantisWorkerMetadata copyOf(IMantisWorkerMetadata worker) {
+        return new MantisWorkerMetadataImpl(worker.getWorkerIndex(), worker.getWorkerNumber(), worker.getJobId(),
+                worker.getStageNum(), worker.getNumberOfPorts(), worker.getWorkerPorts(), worker.getState(),
+                worker.getSlave(), worker.getSlaveID(), worker.getAcceptedAt(), worker.getLaunchedAt(),
+                worker.getStartingAt(), worker.getStartedAt(), worker.getCompletedAt(), worker.getReason(),
+                worker.getResubmitOf(), worker.getTotalResubmitCount(), worker.getPreferredClusterOptional());
+    }
+
+    private static class PendingUpdate {
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private volatile IMantisWorkerMetadata worker;
+        private int attempts = 0;
+
+        private PendingUpdate(IMantisWorkerMetadata worker) {
+            this.worker = worker;
+        }
+    }
+}
@@ -32,6 +32,17 @@ public interface MantisScheduler {
      */
     void scheduleWorker(final ScheduleRequest scheduleRequest);
 
+    /**
+     * Add the workers of a job to the Scheduler queue together, e.g. the initial workers of a newly submitted job.
+     * Schedulers that can assign resources to several workers at once use this to place them relative to each other;
+     * others schedule each worker on its own.
+     *
+     * @param scheduleRequests workers to schedule
+     */
+    default void scheduleWorkers(final List<ScheduleRequest> scheduleRequests) {
+        scheduleRequests.forEach(this::scheduleWorker);
+    }
+
     /**
      * Mark the worker to be removed from the Scheduling queue. This is expected to be called for all tasks that were added to the Scheduler, whether or
      * not the worker is already running. If the worker is running, the <code>hostname</code> parameter must be set, otherwise,
@@ -21,6 +21,7 @@ import com.netflix.fenzo.VirtualMachineCurrentState;
 import com.netflix.fenzo.VirtualMachineLease;
 import io.mantisrx.server.core.domain.WorkerId;
 import io.mantisrx.server.master.resourcecluster.TaskExecutorID;
+import io.mantisrx.server.master.scheduler.ResourceClusterAwareSchedulerActor.BatchScheduleRequestEvent;
 import io.mantisrx.server.master.scheduler.ResourceClusterAwareSchedulerActor.CancelRequestEvent;
 import io.mantisrx.server.master.scheduler.ResourceClusterAwareSchedulerActor.InitializeRunningWorkerRequestEvent;
 import io.mantisrx.server.master.scheduler.ResourceClusterAwareSchedulerActor.ScheduleRequestEvent;
@@ -41,6 +42,11 @@ public class ResourceClusterAwareScheduler implements MantisScheduler {
         schedulerActor.tell(ScheduleRequestEvent.of(scheduleRequest), null);
     }
 
+    @Override
+    public void scheduleWorkers(List<ScheduleRequest> scheduleRequests) {
+        schedulerActor.tell(BatchScheduleRequestEvent.of(scheduleRequests), null);
+    }
+
     @Override
     public void unscheduleWorker(WorkerId workerId, Optional<String> hostname) {
         throw new UnsupportedOperationException(
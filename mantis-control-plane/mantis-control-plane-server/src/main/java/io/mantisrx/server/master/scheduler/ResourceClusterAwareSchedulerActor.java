@@ -21,6 +21,7 @@ import static akka.pattern.Patterns.pipe;
 import akka.actor.AbstractActorWithTimers;
 import akka.actor.Props;
 import akka.japi.pf.ReceiveBuilder;
+import io.mantisrx.runtime.MachineDefinition;
 import io.mantisrx.server.core.domain.WorkerId;
 import io.mantisrx.server.master.ExecuteStageRequestFactory;
 import io.mantisrx.server.master.resourcecluster.ResourceCluster;
@@ -29,6 +30,8 @@ import io.mantisrx.server.master.resourcecluster.TaskExecutorRegistration;
 import io.mantisrx.server.worker.TaskExecutorGateway;
 import io.mantisrx.shaded.com.google.common.base.Throwables;
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -76,9 +79,12 @@ class ResourceClusterAwareSchedulerActor extends AbstractActorWithTimers {
     public Receive createReceive() {
         return ReceiveBuilder.create()
             .match(ScheduleRequestEvent.class, this::onScheduleRequestEvent)
+            .match(BatchScheduleRequestEvent.class, this::onBatchScheduleRequestEvent)
             .match(InitializeRunningWorkerRequestEvent.class, this::onInitializeRunningWorkerRequest)
             .match(CancelRequestEvent.class, this::onCancelRequestEvent)
             .match(AssignedScheduleRequestEvent.class, this::onAssignedScheduleRequestEvent)
+            .match(AssignedBatchScheduleRequestEvent.class, this::onAssignedBatchScheduleRequestEvent)
+            .match(FailedToBatchScheduleRequestEvent.class, this::onFailedBatchScheduleRequestEvent)
             .match(FailedToScheduleRequestEvent.class, this::onFailedScheduleRequestEvent)
             .match(SubmittedScheduleRequestEvent.class, this::onSubmittedScheduleRequestEvent)
             .match(FailedToSubmitScheduleRequestEvent.class, this::onFailedToSubmitScheduleRequestEvent)
@@ -105,6 +111,22 @@ class ResourceClusterAwareSchedulerActor extends AbstractActorWithTimers {
         pipe(assignedFuture, getContext().getDispatcher()).to(self());
     }
 
+    private void onBatchScheduleRequestEvent(BatchScheduleRequestEvent event) {
+        final Map<WorkerId, MachineDefinition> allocationRequests =
+            event.getScheduleRequests()
+                .stream()
+                .collect(Collectors.toMap(ScheduleRequest::getWorkerId, ScheduleRequest::getMachineDefinition));
+
+        CompletableFuture<Object> assignedFuture =
+            resourceCluster
+                .getTaskExecutorsFor(allocationRequests)
+                .<Object>thenApply(
+                    assignments -> new AssignedBatchScheduleRequestEvent(event.getScheduleRequests(), assignments))
+                .exceptionally(event::onFailure);
+
+        pipe(assignedFuture, getContext().getDispatcher()).to(self());
+    }
+
     private void onInitializeRunningWorkerRequest(InitializeRunningWorkerRequestEvent request) {
         resourceCluster.initializeTaskExecutor(
             request.getTaskExecutorID(),
@@ -135,6 +157,22 @@ class ResourceClusterAwareSchedulerActor extends AbstractActorWithTimers {
         }
     }
 
+    private void onAssignedBatchScheduleRequestEvent(AssignedBatchScheduleRequestEvent event) {
+        for (ScheduleRequest scheduleRequest : event.getScheduleRequests()) {
+            onAssignedScheduleRequestEvent(new AssignedScheduleRequestEvent(scheduleRequest,
+                event.getAssignments().get(scheduleRequest.getWorkerId())));
+        }
+    }
+
+    private void onFailedBatchScheduleRequestEvent(FailedToBatchScheduleRequestEvent event) {
+        // the batch is assigned as a whole or not at all; fall back to scheduling whatever fits one worker at a time.
+        log.warn("Failed to schedule the batch of {} requests; scheduling them one at a time because of ",
+            event.getScheduleRequests().size(), event.getThrowable());
+        for (ScheduleRequest scheduleRequest : event.getScheduleRequests()) {
+            self().tell(ScheduleRequestEvent.of(scheduleRequest), self());
+        }
+    }
+
     private void onFailedScheduleRequestEvent(FailedToScheduleRequestEvent event) {
         if (event.getAttempt() >= this.maxScheduleRetries) {
             log.error("Failed to submit the request {} because of ", event.getScheduleRequest(), event.getThrowable());
@@ -241,6 +279,20 @@ class ResourceClusterAwareSchedulerActor extends AbstractActorWithTimers {
         }
     }
 
+    @Value
+    static class BatchScheduleRequestEvent {
+
+        List<ScheduleRequest> scheduleRequests;
+
+        static BatchScheduleRequestEvent of(List<ScheduleRequest> requests) {
+            return new BatchScheduleRequestEvent(requests);
+        }
+
+        FailedToBatchScheduleRequestEvent onFailure(Throwable throwable) {
+            return new FailedToBatchScheduleRequestEvent(this.scheduleRequests, throwable);
+        }
+    }
+
     @Value
     static class InitializeRunningWorkerRequestEvent {
         ScheduleRequest scheduleRequest;
@@ -259,6 +311,13 @@ class ResourceClusterAwareSchedulerActor extends AbstractActorWithTimers {
         }
     }
 
+    @Value
+    private static class FailedToBatchScheduleRequestEvent {
+
+        List<ScheduleRequest> scheduleRequests;
+        Throwable throwable;
+    }
+
     @Value
     private static class AssignedScheduleRequestEvent {
 
@@ -266,6 +325,13 @@ class ResourceClusterAwareSchedulerActor extends AbstractActorWithTimers {
         TaskExecutorID taskExecutorID;
     }
 
+    @Value
+    private static class AssignedBatchScheduleRequestEvent {
+
+        List<ScheduleRequest> scheduleRequests;
+        Map<WorkerId, TaskExecutorID> assignments;
+    }
+
     @Value
     private static class SubmittedScheduleRequestEvent {
 
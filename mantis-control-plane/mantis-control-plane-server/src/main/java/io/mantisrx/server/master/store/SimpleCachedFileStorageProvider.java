@@ -17,22 +17,23 @@
 package io.mantisrx.server.master.store;
 
 import com.netflix.fenzo.functions.Action1;
+import io.mantisrx.server.master.config.ConfigurationProvider;
+import io.mantisrx.server.master.persistence.MetadataCodec;
 import io.mantisrx.server.master.resourcecluster.TaskExecutorID;
 import io.mantisrx.server.master.resourcecluster.TaskExecutorRegistration;
 import io.mantisrx.shaded.com.fasterxml.jackson.core.type.TypeReference;
-import io.mantisrx.shaded.com.fasterxml.jackson.databind.DeserializationFeature;
-import io.mantisrx.shaded.com.fasterxml.jackson.databind.ObjectMapper;
+import io.mantisrx.shaded.com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import io.mantisrx.shaded.com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rx.Observable;
@@ -45,13 +46,18 @@ import rx.Observable;
  * <P>This implementation uses <code>/tmp/MantisSpool/</code> as the spool directory. The directory is created
  * if not present already. It will fail only if either a file with that name exists or if a directory with that
  * name exists but isn't writable.</P>
+ * <P>Metadata is written in the format set by <code>mantis.master.storage.metadata.format</code>, JSON by default, and
+ * read in either format, so the format can be changed on an existing spool; files keep the format they were written
+ * in until they are rewritten.</P>
  */
 public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
 
     private final File spoolDir;
     private final File archiveDir;
     private final File namedJobsDir;
-    private final ObjectMapper mapper;
+    @Nullable
+    private final MetadataCodec.Format metadataFormat;
+    private volatile MetadataCodec codec;
 
     private static final Logger logger = LoggerFactory.getLogger(SimpleCachedFileStorageProvider.class);
     private static final String NAMED_JOBS_COMPLETED_JOBS_FILE_NAME_SUFFIX = "-completedJobs";
@@ -62,6 +68,13 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
     }
 
     public SimpleCachedFileStorageProvider(File rootDir) {
+        this(rootDir, null);
+    }
+
+    /**
+     * @param metadataFormat format in which metadata is written, or null to use the configured one.
+     */
+    public SimpleCachedFileStorageProvider(File rootDir, @Nullable MetadataCodec.Format metadataFormat) {
         this.spoolDir = new File(rootDir, "MantisSpool");
         createDir(spoolDir);
 
@@ -71,7 +84,37 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
         this.namedJobsDir = new File(rootDir, "namedJobs");
         createDir(namedJobsDir);
 
-        this.mapper = new ObjectMapper().registerModule(new Jdk8Module()).configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.metadataFormat = metadataFormat;
+    }
+
+    private MetadataCodec codec() {
+        // the configured format is looked up on first use, as this provider is instantiated by the configuration
+        if (codec == null) {
+            MetadataCodec.Format format = metadataFormat != null ? metadataFormat : getConfiguredMetadataFormat();
+            codec = new MetadataCodec(format, new SimpleFilterProvider().setFailOnUnknownId(false), new Jdk8Module());
+        }
+        return codec;
+    }
+
+    private static MetadataCodec.Format getConfiguredMetadataFormat() {
+        try {
+            return MetadataCodec.Format.valueOf(ConfigurationProvider.getConfig().getMetadataFormat());
+        } catch (IllegalStateException e) {
+            logger.warn("Configuration not initialized, writing metadata as {}", MetadataCodec.Format.JSON);
+            return MetadataCodec.Format.JSON;
+        }
+    }
+
+    private void write(File file, Object value) throws IOException {
+        Files.write(file.toPath(), codec().encode(value));
+    }
+
+    private <T> T read(File file, Class<T> type) throws IOException {
+        return codec().decode(Files.readAllBytes(file.toPath()), type);
+    }
+
+    private <T> T read(File file, TypeReference<T> type) throws IOException {
+        return codec().decode(Files.readAllBytes(file.toPath()), type);
     }
 
     private static File getWorkerFilename(File rootDir, String jobId, int workerIndex, int workerNumber) {
@@ -85,9 +128,7 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
         if (!tmpFile.createNewFile()) {
             throw new JobAlreadyExistsException(jobMetadata.getJobId());
         }
-        try (PrintWriter pwrtr = new PrintWriter(tmpFile)) {
-            mapper.writeValue(pwrtr, jobMetadata);
-        }
+        write(tmpFile, jobMetadata);
     }
 
     @Override
@@ -98,9 +139,7 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
         }
         jobFile.delete();
         jobFile.createNewFile();
-        try (PrintWriter pwrtr = new PrintWriter(jobFile)) {
-            mapper.writeValue(pwrtr, jobMetadata);
-        }
+        write(jobFile, jobMetadata);
     }
 
     private File getJobFileName(File jobsDir, String jobId) {
@@ -120,9 +159,7 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
         File jobFile = getJobFileName(archiveDir, jobId);
         MantisJobMetadataWritable job = null;
         if (jobFile.exists()) {
-            try (FileInputStream fis = new FileInputStream(jobFile)) {
-                job = mapper.readValue(fis, MantisJobMetadataWritable.class);
-            }
+            job = read(jobFile, MantisJobMetadataWritable.class);
             for (MantisStageMetadataWritable stage : loadArchivedJobStages(jobId))
                 job.addJobStageIfAbsent(stage);
             for (MantisWorkerMetadataWritable worker : loadArchivedJobWorkers(jobId, job.getNextWorkerNumberToUse())) {
@@ -142,9 +179,7 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
         for (File jobFile : archiveDir.listFiles((dir, name) -> {
             return name.startsWith("Stage-" + jobId + "-");
         })) {
-            try (FileInputStream fis = new FileInputStream(jobFile)) {
-                result.add(mapper.readValue(fis, MantisStageMetadataWritable.class));
-            }
+            result.add(read(jobFile, MantisStageMetadataWritable.class));
         }
         return result;
     }
@@ -154,9 +189,7 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
         for (File wFile : archiveDir.listFiles((dir, name) -> {
             return name.startsWith("Worker-" + jobId + "-");
         })) {
-            try (FileInputStream fis = new FileInputStream(wFile)) {
-                result.add(mapper.readValue(fis, MantisWorkerMetadataWritable.class));
-            }
+            result.add(read(wFile, MantisWorkerMetadataWritable.class));
         }
         return result;
     }
@@ -193,9 +226,7 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
         try {stageFile.createNewFile();} catch (SecurityException se) {
             throw new IOException("Can't create new file " + stageFile.getAbsolutePath(), se);
         }
-        try (PrintWriter pwrtr = new PrintWriter(stageFile)) {
-            mapper.writeValue(pwrtr, msmd);
-        }
+        write(stageFile, msmd);
     }
 
     @Override
@@ -263,8 +294,8 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
         for (File jobFile : spoolDirFile.listFiles((dir, name) -> {
             return name.startsWith("Job-");
         })) {
-            try (FileInputStream fis = new FileInputStream(jobFile)) {
-                MantisJobMetadataWritable mjmd = mapper.readValue(fis, MantisJobMetadataWritable.class);
+            try {
+                MantisJobMetadataWritable mjmd = read(jobFile, MantisJobMetadataWritable.class);
                 for (MantisStageMetadataWritable msmd : readStagesFor(spoolDirFile, mjmd.getJobId()))
                     mjmd.addJobStageIfAbsent(msmd);
                 for (MantisWorkerMetadataWritable mwmd : readWorkersFor(spoolDirFile, mjmd.getJobId()))
@@ -299,8 +330,8 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
             for (File jobFile : archiveDir.listFiles((dir, name) -> {
                 return name.startsWith("Job-");
             })) {
-                try (FileInputStream fis = new FileInputStream(jobFile)) {
-                    MantisJobMetadataWritable job = mapper.readValue(fis, MantisJobMetadataWritable.class);
+                try {
+                    MantisJobMetadataWritable job = read(jobFile, MantisJobMetadataWritable.class);
                     for (MantisStageMetadataWritable msmd : readStagesFor(archiveDir, job.getJobId()))
                         job.addJobStageIfAbsent(msmd);
                     for (MantisWorkerMetadataWritable mwmd : readWorkersFor(archiveDir, job.getJobId())) {
@@ -326,9 +357,7 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
         for (File namedJobFile : namedJobsDir.listFiles(
                 (dir, name) -> !name.endsWith(NAMED_JOBS_COMPLETED_JOBS_FILE_NAME_SUFFIX)
         )) {
-            try (FileInputStream fis = new FileInputStream(namedJobFile)) {
-                returnList.add(mapper.readValue(fis, NamedJob.class));
-            }
+            returnList.add(read(namedJobFile, NamedJob.class));
         }
         return returnList;
     }
@@ -341,9 +370,9 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
             for (File namedJobFile : namedJobsDir.listFiles(
                     (dir, name) -> name.endsWith(NAMED_JOBS_COMPLETED_JOBS_FILE_NAME_SUFFIX)
             )) {
-                try (FileInputStream fis = new FileInputStream(namedJobFile)) {
+                try {
                     final List<NamedJob.CompletedJob> list =
-                            mapper.readValue(fis, new TypeReference<List<NamedJob.CompletedJob>>() {});
+                            read(namedJobFile, new TypeReference<List<NamedJob.CompletedJob>>() {});
                     if (list != null && !list.isEmpty())
                         list.forEach(subscriber::onNext);
                 } catch (Exception e) {
@@ -365,9 +394,7 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
         if (rewrite)
             workerFile.delete();
         workerFile.createNewFile();
-        try (PrintWriter pwrtr = new PrintWriter(workerFile)) {
-            mapper.writeValue(pwrtr, workerMetadata);
-        }
+        write(workerFile, workerMetadata);
     }
 
     private List<MantisStageMetadataWritable> readStagesFor(File spoolDir, final String id) throws IOException {
@@ -376,9 +403,7 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
             return name.startsWith("Stage-" + id + "-");
         })) {
             logger.info("Reading stage file " + stageFile.getName());
-            try (FileInputStream fis = new FileInputStream(stageFile)) {
-                stageList.add(mapper.readValue(fis, MantisStageMetadataWritable.class));
-            }
+            stageList.add(read(stageFile, MantisStageMetadataWritable.class));
         }
         return stageList;
     }
@@ -389,8 +414,8 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
             return name.startsWith("Worker-" + id + "-");
         })) {
             logger.info("Reading worker file " + workerFile.getName());
-            try (FileInputStream fis = new FileInputStream(workerFile)) {
-                workerList.add(mapper.readValue(fis, MantisWorkerMetadataWritable.class));
+            try {
+                workerList.add(read(workerFile, MantisWorkerMetadataWritable.class));
             } catch (IOException e) {
                 e.printStackTrace();  //To change body of catch statement use File | Settings | File Templates.
             }
@@ -423,9 +448,7 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
                 return name.startsWith("Worker-" + jobid + "-");
             }
         })) {
-            try (FileInputStream fis = new FileInputStream(workerFile)) {
-                workerList.add(mapper.readValue(fis, MantisWorkerMetadataWritable.class));
-            }
+            workerList.add(read(workerFile, MantisWorkerMetadataWritable.class));
         }
         return workerList;
     }
@@ -440,9 +463,7 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
         logger.info("Storing job cluster " + namedJob.getName() + " to file " + tmpFile.getAbsolutePath());
         if (!tmpFile.createNewFile())
             throw new JobNameAlreadyExistsException(namedJob.getName());
-        try (PrintWriter pwrtr = new PrintWriter(tmpFile)) {
-            mapper.writeValue(pwrtr, namedJob);
-        }
+        write(tmpFile, namedJob);
     }
 
     @Override
@@ -452,9 +473,7 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
             throw new InvalidNamedJobException(namedJob.getName() + " doesn't exist");
         jobFile.delete();
         jobFile.createNewFile();
-        try (PrintWriter pwrtr = new PrintWriter(jobFile)) {
-            mapper.writeValue(pwrtr, namedJob);
-        }
+        write(jobFile, namedJob);
     }
 
     @Override
@@ -476,16 +495,12 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
         File completedJobsFile = new File(namedJobsDir, name + NAMED_JOBS_COMPLETED_JOBS_FILE_NAME_SUFFIX);
         List<NamedJob.CompletedJob> completedJobs = new LinkedList<>();
         if (completedJobsFile.exists()) {
-            try (FileInputStream fis = new FileInputStream(completedJobsFile)) {
-                completedJobs.addAll(mapper.readValue(fis, new TypeReference<List<NamedJob.CompletedJob>>() {}));
-            }
+            completedJobs.addAll(read(completedJobsFile, new TypeReference<List<NamedJob.CompletedJob>>() {}));
         }
         modifier.call(completedJobs);
         completedJobsFile.delete();
         completedJobsFile.createNewFile();
-        try (PrintWriter w = new PrintWriter(completedJobsFile)) {
-            mapper.writeValue(w, completedJobs);
-        }
+        write(completedJobsFile, completedJobs);
     }
 
     @Override
@@ -511,9 +526,7 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
         if (activeSlavesFile.exists())
             activeSlavesFile.delete();
         activeSlavesFile.createNewFile();
-        try (PrintWriter wrtr = new PrintWriter(activeSlavesFile)) {
-            mapper.writeValue(wrtr, vmAttributesList);
-        }
+        write(activeSlavesFile, vmAttributesList);
     }
 
     @Override
@@ -521,9 +534,7 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
         File activeSlavesFile = new File(spoolDir, ACTIVE_VMS_FILENAME);
         if (!activeSlavesFile.exists())
             return Collections.EMPTY_LIST;
-        try (FileInputStream fis = new FileInputStream(activeSlavesFile)) {
-            return mapper.readValue(fis, new TypeReference<List<String>>() {});
-        }
+        return read(activeSlavesFile, new TypeReference<List<String>>() {});
     }
 
     private File getFileFor(TaskExecutorID taskExecutorID) {
@@ -534,9 +545,7 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
     public TaskExecutorRegistration getTaskExecutorFor(TaskExecutorID taskExecutorID) throws IOException {
         File tmpFile = getFileFor(taskExecutorID);
         if (tmpFile.exists()) {
-            try (FileInputStream fis = new FileInputStream(tmpFile)) {
-                return mapper.readValue(fis, TaskExecutorRegistration.class);
-            }
+            return read(tmpFile, TaskExecutorRegistration.class);
         } else {
             throw new IOException(String.format("File %s for taskExecutor %s does not exist", tmpFile, taskExecutorID));
         }
@@ -554,8 +563,6 @@ public class SimpleCachedFileStorageProvider implements MantisStorageProvider {
             throw new IOException(String.format("File %s cannot be created for storing taskExecutor %s", tmpFile, registration.getTaskExecutorID()));
         }
 
-        try (PrintWriter pwrtr = new PrintWriter(tmpFile)) {
-            mapper.writeValue(pwrtr, registration);
-        }
+        write(tmpFile, registration);
     }
 }
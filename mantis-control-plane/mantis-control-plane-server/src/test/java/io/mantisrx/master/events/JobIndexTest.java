@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.mantisrx.master.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.mantisrx.common.Label;
+import io.mantisrx.master.api.akka.route.proto.JobClusterProtoAdapter.JobIdInfo;
+import io.mantisrx.master.jobcluster.job.JobState;
+import io.mantisrx.master.jobcluster.proto.JobClusterManagerProto.ListJobCriteria;
+import io.mantisrx.master.jobcluster.proto.JobClusterManagerProto.ListJobIdsRequest;
+import io.mantisrx.server.master.domain.JobId;
+import io.mantisrx.shaded.com.google.common.collect.Lists;
+import io.mantisrx.shaded.com.google.common.collect.Sets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JobIndexTest {
+
+    private final JobIndex jobIndex = new JobIndex();
+
+    @Before
+    public void setup() {
+        jobIndex.clearState();
+    }
+
+    @Test
+    public void testListsMostRecentlySubmittedFirst() {
+        submit("a", 1, JobState.Launched, 100, "alice");
+        submit("b", 1, JobState.Accepted, 300, "bob");
+        submit("a", 2, JobState.Launched, 200, "alice");
+
+        assertEquals(Arrays.asList("b-1", "a-2", "a-1"), jobIds(jobIndex.query(criteria(), Optional.empty(), Optional.empty(), 10)));
+    }
+
+    @Test
+    public void testPagesWithCursor() {
+        for (int i = 1; i <= 5; i++) {
+            submit("a", i, JobState.Launched, i * 10, "alice");
+        }
+
+        JobIndex.Page first = jobIndex.query(criteria(), Optional.empty(), Optional.empty(), 2);
+        assertEquals(Arrays.asList("a-5", "a-4"), jobIds(first));
+
+        // jobs submitted after the first page do not shift the next ones
+        submit("a", 6, JobState.Launched, 60, "alice");
+
+        JobIndex.Page second = jobIndex.query(criteria(), Optional.empty(), Optional.of(first.getNextCursor()), 2);
+        assertEquals(Arrays.asList("a-3", "a-2"), jobIds(second));
+
+        JobIndex.Page last = jobIndex.query(criteria(), Optional.empty(), Optional.of(second.getNextCursor()), 2);
+        assertEquals(Arrays.asList("a-1"), jobIds(last));
+        assertNull(last.getNextCursor());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCursor() {
+        jobIndex.query(criteria(), Optional.empty(), Optional.of("not-a-cursor"), 2);
+    }
+
+    @Test
+    public void testFiltersByClusterStateLabelsAndUser() {
+        submit("a", 1, JobState.Launched, 100, "alice", new Label("team", "x"));
+        submit("a", 2, JobState.Accepted, 200, "bob", new Label("team", "y"));
+        submit("ab", 1, JobState.Launched, 300, "alice", new Label("team", "x"), new Label("env", "prod"));
+        complete("a", 3, JobState.Completed, 50, "alice", new Label("team", "x"));
+
+        assertEquals(Arrays.asList("a-2", "a-1"),
+                jobIds(jobIndex.query(criteria(Optional.empty(), Optional.of("^a$"), Optional.empty(), Optional.empty()), Optional.empty(), Optional.empty(), 10)));
+        assertEquals(Arrays.asList("ab-1", "a-1"),
+                jobIds(jobIndex.query(criteria(), Optional.of("alice"), Optional.empty(), 10)));
+        assertEquals(Arrays.asList("ab-1", "a-1", "a-3"),
+                jobIds(jobIndex.query(criteria(Optional.of(false), Optional.empty(), Optional.of("team=x"), Optional.empty()), Optional.empty(), Optional.empty(), 10)));
+        assertEquals(Arrays.asList("ab-1"),
+                jobIds(jobIndex.query(criteria(Optional.empty(), Optional.empty(), Optional.of("team=x,env=prod"), Optional.of("and")), Optional.empty(), Optional.empty(), 10)));
+        assertEquals(Arrays.asList("ab-1", "a-2", "a-1", "a-3"),
+                jobIds(jobIndex.query(criteria(Optional.of(false), Optional.empty(), Optional.of("team=y,env=prod,team=x"), Optional.of("or")), Optional.empty(), Optional.empty(), 10)));
+    }
+
+    @Test
+    public void testFollowsJobLifecycle() {
+        submit("a", 1, JobState.Accepted, 100, "alice");
+        submit("a", 1, JobState.Launched, 100, "alice");
+        assertEquals(Arrays.asList("a-1"), jobIds(jobIndex.query(criteria(), Optional.empty(), Optional.empty(), 10)));
+        assertEquals(1, jobIndex.size());
+
+        complete("a", 1, JobState.Failed, 100, "alice");
+        assertTrue(jobIds(jobIndex.query(criteria(), Optional.empty(), Optional.empty(), 10)).isEmpty());
+        List<JobIdInfo> completed = jobIndex.query(criteria(Optional.of(false), Optional.empty(), Optional.empty(), Optional.empty()),
+                Optional.empty(), Optional.empty(), 10).getList();
+        assertEquals(1, completed.size());
+        assertEquals("1000", completed.get(0).getTerminatedAt());
+
+        jobIndex.process(LifecycleEventsProto.JobListChangedEvent.removed("a", new JobId("a", 1)));
+        assertEquals(0, jobIndex.size());
+        assertTrue(jobIds(jobIndex.query(criteria(Optional.of(false), Optional.empty(), Optional.empty(), Optional.empty()),
+                Optional.empty(), Optional.empty(), 10)).isEmpty());
+    }
+
+    @Test
+    public void testClustersWithMatchingJobs() {
+        submit("a", 1, JobState.Launched, 100, "alice", new Label("team", "x"));
+        submit("b", 1, JobState.Launched, 200, "bob", new Label("team", "y"));
+        complete("c", 1, JobState.Completed, 300, "carol", new Label("team", "x"));
+
+        ListJobCriteria teamX = criteria(Optional.of(true), Optional.empty(), Optional.of("team=x"), Optional.empty());
+        assertEquals(Sets.newHashSet("a"), jobIndex.getClustersWithMatchingJobs(teamX));
+        ListJobCriteria terminal = new ListJobCriteria(Optional.empty(), Optional.of(JobState.MetaState.Terminal),
+                Lists.newArrayList(), Lists.newArrayList(), Lists.newArrayList(), Lists.newArrayList(),
+                Optional.of(true), Optional.empty(), Optional.empty(), Optional.empty());
+        assertEquals(Sets.newHashSet("c"), jobIndex.getClustersWithMatchingJobs(terminal));
+    }
+
+    private void submit(String cluster, long jobNum, JobState state, long submittedAt, String user, Label... labels) {
+        jobIndex.process(new LifecycleEventsProto.JobListChangedEvent(cluster, new JobId(cluster, jobNum), state,
+                submittedAt, -1, user, "1.0", Arrays.asList(labels)));
+    }
+
+    private void complete(String cluster, long jobNum, JobState state, long submittedAt, String user, Label... labels) {
+        jobIndex.process(new LifecycleEventsProto.JobListChangedEvent(cluster, new JobId(cluster, jobNum), state,
+                submittedAt, 1000, user, "1.0", Arrays.asList(labels)));
+    }
+
+    private static ListJobCriteria criteria() {
+        return new ListJobIdsRequest().getCriteria();
+    }
+
+    private static ListJobCriteria criteria(Optional<Boolean> activeOnly, Optional<String> regex,
+                                            Optional<String> labels, Optional<String> labelsOperand) {
+        return new ListJobIdsRequest(Optional.empty(), Optional.empty(), activeOnly, regex, labels, labelsOperand).getCriteria();
+    }
+
+    private static List<String> jobIds(JobIndex.Page page) {
+        return page.getList().stream().map(JobIdInfo::getJobId).collect(Collectors.toList());
+    }
+}
@@ -29,6 +29,7 @@ import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.testkit.javadsl.TestKit;
 import com.netflix.mantis.master.scheduler.TestHelpers;
+import io.mantisrx.common.WorkerPorts;
 import io.mantisrx.master.jobcluster.WorkerInfoListHolder;
 import io.mantisrx.master.jobcluster.job.IMantisStageMetadata;
 import io.mantisrx.master.jobcluster.job.JobState;
@@ -48,6 +49,7 @@ import io.mantisrx.server.master.persistence.IMantisStorageProvider;
 import io.mantisrx.server.master.persistence.MantisJobStore;
 import io.mantisrx.server.master.persistence.exceptions.InvalidJobException;
 import io.mantisrx.server.master.scheduler.MantisScheduler;
+import io.mantisrx.server.master.scheduler.WorkerLaunched;
 import io.mantisrx.server.master.scheduler.WorkerRegistry;
 import io.mantisrx.shaded.com.google.common.collect.Lists;
 import java.util.*;
@@ -162,6 +164,63 @@ public class WorkerRegistryV2Test {
 
     }
 
+    @Test
+    public void testWorkerListChangeUpdatesIndexes() {
+        WorkerRegistryV2 workerRegistryV2 = new WorkerRegistryV2();
+        List<IMantisWorkerMetadata> workers = initRegistryWithWorkers(workerRegistryV2, "testWorkerListChangeUpdatesIndexes-1", 5);
+
+        assertEquals(5, workerRegistryV2.getNumWorkers(WorkerState.Launched));
+
+        // drop two workers from the job's snapshot
+        JobId jId = JobId.fromId("testWorkerListChangeUpdatesIndexes-1").get();
+        workerRegistryV2.process(new LifecycleEventsProto.WorkerListChangedEvent(
+                new WorkerInfoListHolder(jId, new ArrayList<>(workers.subList(0, 3)))));
+
+        assertEquals(3, workerRegistryV2.getNumRunningWorkers());
+        assertEquals(3, workerRegistryV2.getNumWorkers(WorkerState.Launched));
+        assertEquals(3, workerRegistryV2.getAllRunningWorkerSlaveIdMappings().size());
+        assertFalse(workerRegistryV2.isWorkerValid(workers.get(4).getWorkerId()));
+        assertFalse(workerRegistryV2.getAllRunningWorkers().contains(workers.get(4).getWorkerId()));
+    }
+
+    @Test
+    public void testWorkerStatusEventUpdatesIndexes() throws Exception {
+        WorkerRegistryV2 workerRegistryV2 = new WorkerRegistryV2();
+        LifecycleEventPublisher eventPublisher = new LifecycleEventPublisherImpl(new AuditEventSubscriberLoggingImpl(), new StatusEventSubscriberLoggingImpl(), new DummyWorkerEventSubscriberImpl(workerRegistryV2));
+        JobId jId = JobId.fromId("testWorkerStatusEventUpdatesIndexes-1").get();
+        JobWorker worker = new JobWorker.Builder()
+                .withAcceptedAt(0)
+                .withJobId(jId)
+                .withState(WorkerState.Accepted)
+                .withWorkerIndex(0)
+                .withWorkerNumber(1)
+                .withStageNum(1)
+                .withNumberOfPorts(1 + MANTIS_SYSTEM_ALLOCATED_NUM_PORTS)
+                .withLifecycleEventsPublisher(eventPublisher)
+                .build();
+        workerRegistryV2.process(new LifecycleEventsProto.WorkerListChangedEvent(
+                new WorkerInfoListHolder(jId, Lists.newArrayList(worker.getMetadata()))));
+
+        assertEquals(0, workerRegistryV2.getNumRunningWorkers());
+        assertEquals(1, workerRegistryV2.getNumWorkers(WorkerState.Accepted));
+        assertTrue(workerRegistryV2.isWorkerValid(worker.getMetadata().getWorkerId()));
+
+        // the launch is indexed before the job publishes its next snapshot
+        worker.processEvent(new WorkerLaunched(worker.getMetadata().getWorkerId(), 1, "host1", "vm1",
+                Optional.empty(), new WorkerPorts(Lists.newArrayList(8000, 9000, 9010, 9020, 9030))));
+
+        assertEquals(1, workerRegistryV2.getNumRunningWorkers());
+        assertEquals(0, workerRegistryV2.getNumWorkers(WorkerState.Accepted));
+        assertEquals(1, workerRegistryV2.getNumWorkers(WorkerState.Launched));
+        assertEquals("vm1", workerRegistryV2.getAllRunningWorkerSlaveIdMappings().get(worker.getMetadata().getWorkerId()));
+
+        workerRegistryV2.process(new LifecycleEventsProto.JobStatusEvent(INFO, "job shutdown", jId, JobState.Failed));
+
+        assertEquals(0, workerRegistryV2.getNumRunningWorkers());
+        assertEquals(0, workerRegistryV2.getNumWorkers(WorkerState.Launched));
+        assertTrue(workerRegistryV2.getAllRunningWorkerSlaveIdMappings().isEmpty());
+    }
+
     @Test
     public void testJobScaleUp() throws Exception, InvalidJobException, io.mantisrx.runtime.command.InvalidJobException {
 
@@ -365,7 +424,7 @@ public class WorkerRegistryV2Test {
     }
 
 
-    private void initRegistryWithWorkers(WorkerRegistryV2 workerRegistryV2, String jobId, int noOfWorkers) {
+    private List<IMantisWorkerMetadata> initRegistryWithWorkers(WorkerRegistryV2 workerRegistryV2, String jobId, int noOfWorkers) {
 
         LifecycleEventPublisher eventPublisher = new LifecycleEventPublisherImpl(new AuditEventSubscriberLoggingImpl(), new StatusEventSubscriberLoggingImpl(), new NoOpWorkerEventSubscriberImpl());
         JobId jId = JobId.fromId(jobId).get();
@@ -389,7 +448,7 @@ public class WorkerRegistryV2Test {
 
         LifecycleEventsProto.WorkerListChangedEvent workerListChangedEvent = new LifecycleEventsProto.WorkerListChangedEvent(new WorkerInfoListHolder(jId, workerMetadataList));
         workerRegistryV2.process(workerListChangedEvent);
-
+        return workerMetadataList;
     }
 
 
@@ -406,6 +465,11 @@ public class WorkerRegistryV2Test {
 
         }
 
+        @Override
+        public void process(LifecycleEventsProto.WorkerStatusEvent workerStatusEvent) {
+            workerRegistry.process(workerStatusEvent);
+        }
+
         @Override
         public void process(LifecycleEventsProto.JobStatusEvent statusEvent) {
             workerRegistry.process(statusEvent);
@@ -419,6 +483,11 @@ public class WorkerRegistryV2Test {
 
         }
 
+        @Override
+        public void process(LifecycleEventsProto.WorkerStatusEvent workerStatusEvent) {
+
+        }
+
         @Override
         public void process(LifecycleEventsProto.JobStatusEvent statusEvent) {
 
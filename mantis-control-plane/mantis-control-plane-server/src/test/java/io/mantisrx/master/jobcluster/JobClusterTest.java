@@ -2443,8 +2443,9 @@ public class JobClusterTest {
 
             verify(jobStoreMock, times(3)).updateJob(any());
 
-            // initial worker and scale up worker
-            verify(schedulerMock, times(3)).scheduleWorker(any());
+            // initial worker and job master in one batch and scale up worker
+            verify(schedulerMock, times(1)).scheduleWorkers(any());
+            verify(schedulerMock, times(1)).scheduleWorker(any());
 
 
 
@@ -2951,8 +2952,9 @@ public class JobClusterTest {
                 System.out.println("worker -> " + worker.getMetadata());
             }
 
-            // 2 initial schedules and 1 replacement
-            verify(schedulerMock, timeout(1_000).times(2)).scheduleWorker(any());
+            // 1 initial schedule and 1 replacement
+            verify(schedulerMock, times(1)).scheduleWorkers(any());
+            verify(schedulerMock, timeout(1_000).times(1)).scheduleWorker(any());
 
             // archive worker should get called once for the dead worker
             //	verify(jobStoreMock, timeout(1_000).times(1)).archiveWorker(any());
@@ -612,8 +612,9 @@ public class JobClusterManagerTest {
         // 1 running worker
         verify(schedulerMock, timeout(100_1000).times(1)).initializeRunningWorker(any(), any(), any());
 
-        // 2 worker schedule requests
-        verify(schedulerMock, timeout(100_000).times(4)).scheduleWorker(any());
+        // 3 job submissions and 1 accepted worker requeued on bootstrap
+        verify(schedulerMock, timeout(100_000).times(3)).scheduleWorkers(any());
+        verify(schedulerMock, timeout(100_000).times(1)).scheduleWorker(any());
 
         try {
             Mockito.verify(jobStoreSpied).loadAllArchivedJobsAsync();
@@ -784,7 +785,8 @@ public class JobClusterManagerTest {
                                         });
 
         // Two schedules: one for the initial success, one for a resubmit from corrupted worker ports.
-        verify(schedulerMock, times(2)).scheduleWorker(any());
+        verify(schedulerMock, times(1)).scheduleWorkers(any());
+        verify(schedulerMock, times(1)).scheduleWorker(any());
         // One unschedule from corrupted worker ID 1 (before the resubmit).
         verify(schedulerMock, times(1)).unscheduleAndTerminateWorker(eq(workerId), any());
 
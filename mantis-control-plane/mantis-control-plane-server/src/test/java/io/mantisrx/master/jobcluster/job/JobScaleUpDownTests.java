@@ -144,8 +144,9 @@ public class JobScaleUpDownTests {
 
 		verify(jobStoreMock, times(3)).updateJob(any());
 
-		// initial worker + job master and scale up worker
-		verify(schedulerMock, times(3)).scheduleWorker(any());
+		// initial worker + job master in one batch and scale up worker
+		verify(schedulerMock, times(1)).scheduleWorkers(any());
+		verify(schedulerMock, times(1)).scheduleWorker(any());
 
 	}
 
@@ -189,8 +190,9 @@ public class JobScaleUpDownTests {
 		// 1 scale down
 		verify(schedulerMock, times(1)).unscheduleAndTerminateWorker(any(), any());
 
-		// 1 job master + 2 workers
-		verify(schedulerMock, times(3)).scheduleWorker(any());
+		// 1 job master + 2 workers in one batch
+		verify(schedulerMock, times(1)).scheduleWorkers(any());
+		verify(schedulerMock, times(0)).scheduleWorker(any());
 
 	}
 
@@ -528,7 +530,8 @@ SchedulingChange [jobId=testSchedulingInfo-1, workerAssignments={
 		verify(jobStoreMock, times(3)).updateJob(any());
 
 		// initial worker only
-		verify(schedulerMock, times(1)).scheduleWorker(any());
+		verify(schedulerMock, times(1)).scheduleWorkers(any());
+		verify(schedulerMock, times(0)).scheduleWorker(any());
 	}
 
 	@Test
@@ -571,7 +574,8 @@ SchedulingChange [jobId=testSchedulingInfo-1, workerAssignments={
 		verify(jobStoreMock, times(3)).updateJob(any());
 
 		// initial worker only
-		verify(schedulerMock, times(1)).scheduleWorker(any());
+		verify(schedulerMock, times(1)).scheduleWorkers(any());
+		verify(schedulerMock, times(0)).scheduleWorker(any());
 	}
 	@Test
 	public void stageScalingPolicyTest() {
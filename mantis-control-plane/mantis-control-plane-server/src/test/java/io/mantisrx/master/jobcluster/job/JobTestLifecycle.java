@@ -297,13 +297,13 @@ public class JobTestLifecycle {
 
 			//verify(jobStoreMock, times(3))
 
-            verify(schedulerMock,times(1)).scheduleWorker(any());
+            verify(schedulerMock,times(1)).scheduleWorkers(any());
 
             JobMetadata jobMetadata = new JobMetadata(jobId, new URL("http://myart" +
                     ""),1,"njoshi",schedInfo,Lists.newArrayList(),0,0);
             ScheduleRequest expectedScheduleRequest = new ScheduleRequest(workerId,
                     1,4, jobMetadata,MantisJobDurationType.Perpetual,machineDefinition,Lists.newArrayList(),Lists.newArrayList(),0,empty());
-            verify(schedulerMock).scheduleWorker(expectedScheduleRequest);
+            verify(schedulerMock).scheduleWorkers(Lists.newArrayList(expectedScheduleRequest));
 
 
             //assertEquals(jobActor, probe.getLastSender());
@@ -722,7 +722,7 @@ public class JobTestLifecycle {
 		JobTestHelper.sendWorkerTerminatedEvent(probe,jobActor,jId.getId(),new WorkerId(jId.getId(),0,1));
 		Thread.sleep(1000);
 		verify(schedulerMock, times(1)).unscheduleAndTerminateWorker(any(), any());
-		verify(schedulerMock, times(1)).scheduleWorker(any());
+		verify(schedulerMock, times(1)).scheduleWorkers(any());
 		verify(jobStoreMock, times(1)).storeNewJob(any());
 		verify(jobStoreMock, times(1)).storeNewWorkers(any(),any());
 		verify(jobStoreMock, times(2)).updateJob(any());
@@ -807,8 +807,9 @@ public class JobTestLifecycle {
 
 			Thread.sleep(1000);
 
-			// 2 original submissions and 2 resubmits because of HB timeouts
-			verify(schedulerMock, times(4)).scheduleWorker(any());
+			// 2 original submissions in one batch and 2 resubmits because of HB timeouts
+			verify(schedulerMock, times(1)).scheduleWorkers(any());
+			verify(schedulerMock, times(2)).scheduleWorker(any());
 			// 2 kills due to resubmits
 			verify(schedulerMock, times(2)).unscheduleAndTerminateWorker(any(), any());
 
@@ -919,8 +920,9 @@ public class JobTestLifecycle {
                 System.out.println("worker -> " + worker.getMetadata());
             }
 
-            // 2 initial schedules and 1 replacement
-			verify(schedulerMock, timeout(1_000).times(3)).scheduleWorker(any());
+            // 2 initial schedules in one batch and 1 replacement
+			verify(schedulerMock, times(1)).scheduleWorkers(any());
+			verify(schedulerMock, timeout(1_000).times(1)).scheduleWorker(any());
 
 			// archive worker should get called once for the dead worker
 		//	verify(jobStoreMock, timeout(1_000).times(1)).archiveWorker(any());
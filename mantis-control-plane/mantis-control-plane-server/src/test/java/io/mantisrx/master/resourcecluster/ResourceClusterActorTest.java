@@ -17,6 +17,8 @@
 package io.mantisrx.master.resourcecluster;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -32,6 +34,7 @@ import io.mantisrx.server.core.domain.WorkerId;
 import io.mantisrx.server.master.persistence.MantisJobStore;
 import io.mantisrx.server.master.resourcecluster.ClusterID;
 import io.mantisrx.server.master.resourcecluster.ResourceCluster;
+import io.mantisrx.server.master.resourcecluster.ResourceCluster.NoResourceAvailableException;
 import io.mantisrx.server.master.resourcecluster.ResourceClusterTaskExecutorMapper;
 import io.mantisrx.server.master.resourcecluster.TaskExecutorHeartbeat;
 import io.mantisrx.server.master.resourcecluster.TaskExecutorID;
@@ -39,8 +42,11 @@ import io.mantisrx.server.master.resourcecluster.TaskExecutorRegistration;
 import io.mantisrx.server.master.resourcecluster.TaskExecutorReport;
 import io.mantisrx.server.worker.TaskExecutorGateway;
 import io.mantisrx.shaded.com.google.common.collect.ImmutableList;
+import io.mantisrx.shaded.com.google.common.collect.ImmutableMap;
 import java.time.Clock;
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -67,6 +73,8 @@ public class ResourceClusterActorTest {
             MACHINE_DEFINITION);
     private static final WorkerId WORKER_ID =
         WorkerId.fromIdUnsafe("late-sine-function-tutorial-1-worker-0-1");
+    private static final WorkerId WORKER_ID_2 =
+        WorkerId.fromIdUnsafe("late-sine-function-tutorial-1-worker-1-2");
 
     static ActorSystem actorSystem;
 
@@ -162,4 +170,54 @@ public class ResourceClusterActorTest {
         assertEquals(ImmutableList.of(TASK_EXECUTOR_ID), resourceCluster.getAvailableTaskExecutors().get());
         assertEquals(TASK_EXECUTOR_ID, resourceCluster.getTaskExecutorFor(MACHINE_DEFINITION, WORKER_ID).get());
     }
+
+    @Test
+    public void testBatchAssignment() throws Exception {
+        assertEquals(Ack.getInstance(), resourceCluster.registerTaskExecutor(TASK_EXECUTOR_REGISTRATION).get());
+        assertEquals(Ack.getInstance(),
+            resourceCluster
+                .heartBeatFromTaskExecutor(
+                    new TaskExecutorHeartbeat(
+                        TASK_EXECUTOR_ID,
+                        CLUSTER_ID,
+                        TaskExecutorReport.available())).get());
+
+        // not enough task executors for both workers, so neither gets one
+        try {
+            resourceCluster.getTaskExecutorsFor(
+                ImmutableMap.of(WORKER_ID, MACHINE_DEFINITION, WORKER_ID_2, MACHINE_DEFINITION)).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NoResourceAvailableException);
+        }
+        assertEquals(ImmutableList.of(TASK_EXECUTOR_ID), resourceCluster.getAvailableTaskExecutors().get());
+
+        assertEquals(
+            ImmutableMap.of(WORKER_ID, TASK_EXECUTOR_ID),
+            resourceCluster.getTaskExecutorsFor(ImmutableMap.of(WORKER_ID, MACHINE_DEFINITION)).get());
+        assertEquals(ImmutableList.of(), resourceCluster.getAvailableTaskExecutors().get());
+    }
+
+    @Test
+    public void testBatchedHeartbeats() throws Exception {
+        final ResourceCluster batchingResourceCluster =
+            new ResourceClusterAkkaImpl(
+                resourceClusterActor,
+                Duration.ofSeconds(1),
+                CLUSTER_ID,
+                mapper,
+                new TaskExecutorHeartbeatBatcher(resourceClusterActor, Duration.ofSeconds(1), Duration.ofMillis(100)));
+
+        assertEquals(Ack.getInstance(), batchingResourceCluster.registerTaskExecutor(TASK_EXECUTOR_REGISTRATION).get());
+        // both heartbeats are coalesced into the same batch
+        CompletableFuture<Ack> first =
+            batchingResourceCluster.heartBeatFromTaskExecutor(
+                new TaskExecutorHeartbeat(TASK_EXECUTOR_ID, CLUSTER_ID, TaskExecutorReport.occupied(WORKER_ID)));
+        CompletableFuture<Ack> second =
+            batchingResourceCluster.heartBeatFromTaskExecutor(
+                new TaskExecutorHeartbeat(TASK_EXECUTOR_ID, CLUSTER_ID, TaskExecutorReport.available()));
+        assertEquals(Ack.getInstance(), first.get());
+        assertEquals(Ack.getInstance(), second.get());
+        assertEquals(ImmutableList.of(TASK_EXECUTOR_ID), batchingResourceCluster.getAvailableTaskExecutors().get());
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2022 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.master.resourcecluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import io.mantisrx.common.WorkerPorts;
+import io.mantisrx.runtime.MachineDefinition;
+import io.mantisrx.server.core.domain.WorkerId;
+import io.mantisrx.server.master.resourcecluster.ClusterID;
+import io.mantisrx.server.master.resourcecluster.TaskExecutorID;
+import io.mantisrx.server.master.resourcecluster.TaskExecutorRegistration;
+import java.util.Optional;
+import org.junit.Test;
+
+public class TaskExecutorAvailabilityIndexTest {
+    private static final ClusterID CLUSTER_ID = ClusterID.of("clusterId");
+    private static final WorkerPorts WORKER_PORTS = new WorkerPorts(1, 2, 3, 4, 5);
+    private static final MachineDefinition SMALL = new MachineDefinition(2.0, 2048, 128.0, 1024, 1);
+    private static final MachineDefinition LARGE = new MachineDefinition(8.0, 16384, 128.0, 8192, 1);
+    private static final MachineDefinition HIGH_CPU = new MachineDefinition(4.0, 4096, 128.0, 1024, 1);
+    private static final WorkerId WORKER_ID = WorkerId.fromIdUnsafe("late-sine-function-tutorial-1-worker-0-1");
+    private static final String JOB_ID = WORKER_ID.getJobId();
+
+    private final TaskExecutorAvailabilityIndex index = new TaskExecutorAvailabilityIndex();
+
+    @Test
+    public void testBestFit() {
+        TaskExecutorID large = available("large", "host1", LARGE);
+        TaskExecutorID small = available("small", "host2", SMALL);
+
+        assertEquals(Optional.of(small), index.findBestFit(SMALL, JOB_ID));
+        assertEquals(Optional.of(large), index.findBestFit(new MachineDefinition(4.0, 4096, 128.0, 1024, 1), JOB_ID));
+        assertEquals(Optional.empty(), index.findBestFit(new MachineDefinition(16.0, 4096, 128.0, 1024, 1), JOB_ID));
+    }
+
+    @Test
+    public void testBestFitSkipsShapesThatDontFit() {
+        // sorts after the request on cpu but can't fit its memory
+        available("highCpu", "host1", HIGH_CPU);
+        TaskExecutorID large = available("large", "host2", LARGE);
+
+        assertEquals(Optional.of(large), index.findBestFit(new MachineDefinition(2.0, 8192, 128.0, 1024, 1), JOB_ID));
+    }
+
+    @Test
+    public void testAntiAffinityByJob() {
+        TaskExecutorID first = available("first", "host1", SMALL);
+        TaskExecutorID second = available("second", "host1", SMALL);
+        TaskExecutorID third = available("third", "host2", SMALL);
+
+        assign(first, "host1", SMALL);
+
+        // host1 already runs a worker of the job, so the executor of the same shape on host2 is preferred
+        assertEquals(Optional.of(third), index.findBestFit(SMALL, JOB_ID));
+        // other jobs still get the first fit
+        assertEquals(Optional.of(second), index.findBestFit(SMALL, "other-job-1"));
+    }
+
+    @Test
+    public void testAntiAffinityDoesNotOverrideBestFit() {
+        TaskExecutorID first = available("first", "host1", SMALL);
+        TaskExecutorID second = available("second", "host1", SMALL);
+        TaskExecutorID large = available("large", "host2", LARGE);
+
+        assign(first, "host1", SMALL);
+
+        // host1 already runs a worker of the job, but taking the larger executor on host2 would fragment it
+        assertEquals(Optional.of(second), index.findBestFit(SMALL, JOB_ID));
+
+        assign(second, "host1", SMALL);
+        // the larger shape is only used once no executor of the smaller one is left
+        assertEquals(Optional.of(large), index.findBestFit(SMALL, JOB_ID));
+    }
+
+    @Test
+    public void testUnavailableExecutorsAreRemoved() {
+        TaskExecutorID small = available("small", "host1", SMALL);
+        assign(small, "host1", SMALL);
+        assertEquals(0, index.getNumAvailable());
+        assertFalse(index.findBestFit(SMALL, JOB_ID).isPresent());
+
+        // back in the pool once the worker is done
+        available("small", "host1", SMALL);
+        assertEquals(Optional.of(small), index.findBestFit(SMALL, JOB_ID));
+
+        // disconnected
+        index.update(small, null, false, null);
+        assertEquals(0, index.getNumAvailable());
+        assertFalse(index.findBestFit(SMALL, JOB_ID).isPresent());
+    }
+
+    private TaskExecutorID available(String id, String hostname, MachineDefinition machineDefinition) {
+        TaskExecutorID taskExecutorID = TaskExecutorID.of(id);
+        index.update(taskExecutorID, registration(taskExecutorID, hostname, machineDefinition), true, null);
+        return taskExecutorID;
+    }
+
+    private void assign(TaskExecutorID taskExecutorID, String hostname, MachineDefinition machineDefinition) {
+        index.update(taskExecutorID, registration(taskExecutorID, hostname, machineDefinition), false, WORKER_ID);
+    }
+
+    private static TaskExecutorRegistration registration(
+        TaskExecutorID taskExecutorID, String hostname, MachineDefinition machineDefinition) {
+        return new TaskExecutorRegistration(
+            taskExecutorID, CLUSTER_ID, "address", hostname, WORKER_PORTS, machineDefinition);
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.mantisrx.master.zk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import io.mantisrx.server.core.json.DefaultObjectMapper;
+import io.mantisrx.server.core.master.MasterDescription;
+import io.mantisrx.server.master.ILeadershipManager;
+import io.mantisrx.shaded.org.apache.curator.framework.CuratorFramework;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs several masters against an in-process ZooKeeper server and checks that exactly one of them leads at a time.
+ */
+public class LeaderElectorTest {
+
+    private static final String ELECTION_PATH = "/mantis/master/hosts";
+    private static final String ANNOUNCEMENT_PATH = "/mantis/master/leader";
+    private static final long TIMEOUT_MS = 10_000;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private LocalZookeeperServer zookeeper;
+    private final List<LocalMaster> masters = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        zookeeper = new LocalZookeeperServer(tempFolder.newFolder("zk"));
+    }
+
+    @After
+    public void tearDown() {
+        masters.forEach(LocalMaster::shutdown);
+        zookeeper.close();
+    }
+
+    @Test
+    public void testSingleLeaderAmongMasters() throws Exception {
+        startMasters(3);
+
+        awaitCondition(() -> leaders().size() == 1);
+        LocalMaster leader = leaders().get(0);
+        assertEquals(leader.getDescription().getHostname(), announcedLeader(leader).getHostname());
+
+        // the remaining masters stand by
+        Thread.sleep(500);
+        assertEquals(1, leaders().size());
+    }
+
+    @Test
+    public void testStandbyTakesOverWhenLeaderStops() throws Exception {
+        startMasters(2);
+
+        awaitCondition(() -> leaders().size() == 1);
+        LocalMaster leader = leaders().get(0);
+        leader.shutdown();
+        assertFalse(leader.leadershipManager.isLeader());
+
+        awaitCondition(() -> leaders().size() == 1);
+        LocalMaster newLeader = leaders().get(0);
+        assertNotSame(leader, newLeader);
+        awaitCondition(() -> newLeader.getDescription().getHostname().equals(announcedLeader(newLeader).getHostname()));
+    }
+
+    private void startMasters(int count) {
+        for (int i = 0; i < count; i++) {
+            LocalMaster master = new LocalMaster("master-" + i, zookeeper.newCurator());
+            masters.add(master);
+            master.start();
+        }
+    }
+
+    private List<LocalMaster> leaders() {
+        return masters.stream().filter((m) -> m.leadershipManager.isLeader()).collect(Collectors.toList());
+    }
+
+    private static MasterDescription announcedLeader(LocalMaster master) {
+        try {
+            byte[] data = master.curator.getData().forPath(ANNOUNCEMENT_PATH);
+            return DefaultObjectMapper.getInstance().readValue(data, MasterDescription.class);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            assertTrue("timed out waiting for condition", System.currentTimeMillis() < deadline);
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+    }
+
+    private static class LocalMaster {
+        private final CuratorFramework curator;
+        private final TestLeadershipManager leadershipManager;
+        private final LeaderElector leaderElector;
+        private boolean running = false;
+
+        LocalMaster(String hostname, CuratorFramework curator) {
+            this.curator = curator;
+            this.leadershipManager = new TestLeadershipManager(new MasterDescription(
+                hostname, "127.0.0.1", 8100, 8102, 8104, "api/postjobstatus", 8106, System.currentTimeMillis()));
+            this.leaderElector = LeaderElector.builder(leadershipManager)
+                .withCurator(curator)
+                .withJsonMapper(DefaultObjectMapper.getInstance())
+                .withElectionPath(ELECTION_PATH)
+                .withAnnouncementPath(ANNOUNCEMENT_PATH)
+                .build();
+        }
+
+        MasterDescription getDescription() {
+            return leadershipManager.getDescription();
+        }
+
+        void start() {
+            running = true;
+            leaderElector.start();
+        }
+
+        void shutdown() {
+            if (running) {
+                running = false;
+                leaderElector.shutdown();
+                leadershipManager.stopBeingLeader();
+                curator.close();
+            }
+        }
+    }
+
+    private static class TestLeadershipManager implements ILeadershipManager {
+        private final MasterDescription description;
+        private volatile boolean leader = false;
+        private volatile boolean ready = false;
+
+        TestLeadershipManager(MasterDescription description) {
+            this.description = description;
+        }
+
+        @Override
+        public void becomeLeader() {
+            leader = true;
+        }
+
+        @Override
+        public void stopBeingLeader() {
+            leader = false;
+            ready = false;
+        }
+
+        @Override
+        public boolean isLeader() {
+            return leader;
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setLeaderReady() {
+            ready = true;
+        }
+
+        @Override
+        public MasterDescription getDescription() {
+            return description;
+        }
+    }
+}
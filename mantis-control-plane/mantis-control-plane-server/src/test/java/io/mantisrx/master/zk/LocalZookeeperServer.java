@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.mantisrx.master.zk;
+
+import io.mantisrx.shaded.org.apache.curator.framework.CuratorFramework;
+import io.mantisrx.shaded.org.apache.curator.framework.CuratorFrameworkFactory;
+import io.mantisrx.shaded.org.apache.curator.retry.RetryOneTime;
+import io.mantisrx.shaded.org.apache.zookeeper.server.ServerCnxnFactory;
+import io.mantisrx.shaded.org.apache.zookeeper.server.ZooKeeperServer;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * Standalone ZooKeeper server running in the test's JVM, so that several masters can elect a leader locally.
+ */
+public class LocalZookeeperServer implements Closeable {
+
+    private static final int TICK_TIME_MS = 500;
+    private static final int MAX_CONNECTIONS = 100;
+
+    private final ZooKeeperServer server;
+    private final ServerCnxnFactory connectionFactory;
+
+    public LocalZookeeperServer(File dataDir) throws IOException, InterruptedException {
+        this.server = new ZooKeeperServer(new File(dataDir, "snapshots"), new File(dataDir, "logs"), TICK_TIME_MS);
+        this.connectionFactory = ServerCnxnFactory.createFactory(new InetSocketAddress("127.0.0.1", 0), MAX_CONNECTIONS);
+        connectionFactory.startup(server);
+    }
+
+    public String getConnectString() {
+        return "127.0.0.1:" + connectionFactory.getLocalPort();
+    }
+
+    /**
+     * Returns a started client of this server.
+     */
+    public CuratorFramework newCurator() {
+        CuratorFramework curator = CuratorFrameworkFactory.builder()
+            .connectString(getConnectString())
+            .sessionTimeoutMs(10 * TICK_TIME_MS)
+            .connectionTimeoutMs(10 * TICK_TIME_MS)
+            .retryPolicy(new RetryOneTime(TICK_TIME_MS))
+            .build();
+        curator.start();
+        return curator;
+    }
+
+    @Override
+    public void close() {
+        connectionFactory.shutdown();
+        server.shutdown();
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.server.master.persistence;
+
+import static io.mantisrx.master.jobcluster.job.worker.MantisWorkerMetadataImpl.MANTIS_SYSTEM_ALLOCATED_NUM_PORTS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.mantisrx.master.events.AuditEventSubscriberLoggingImpl;
+import io.mantisrx.master.events.LifecycleEventPublisher;
+import io.mantisrx.master.events.LifecycleEventPublisherImpl;
+import io.mantisrx.master.events.StatusEventSubscriberLoggingImpl;
+import io.mantisrx.master.events.WorkerEventSubscriberLoggingImpl;
+import io.mantisrx.master.jobcluster.job.IMantisJobMetadata;
+import io.mantisrx.master.jobcluster.job.IMantisStageMetadata;
+import io.mantisrx.master.jobcluster.job.JobState;
+import io.mantisrx.master.jobcluster.job.JobTestHelper;
+import io.mantisrx.master.jobcluster.job.MantisJobMetadataImpl;
+import io.mantisrx.master.jobcluster.job.MantisStageMetadataImpl;
+import io.mantisrx.master.jobcluster.job.worker.IMantisWorkerMetadata;
+import io.mantisrx.master.jobcluster.job.worker.JobWorker;
+import io.mantisrx.runtime.descriptor.StageSchedulingInfo;
+import io.mantisrx.server.master.domain.JobClusterDefinitionImpl.CompletedJob;
+import io.mantisrx.server.master.domain.JobDefinition;
+import io.mantisrx.server.master.domain.JobId;
+import io.mantisrx.server.master.store.JobAlreadyExistsException;
+import io.mantisrx.shaded.com.google.common.collect.Lists;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogStructuredStorageProviderTest {
+
+    private final LifecycleEventPublisher eventPublisher = new LifecycleEventPublisherImpl(new AuditEventSubscriberLoggingImpl(), new StatusEventSubscriberLoggingImpl(), new WorkerEventSubscriberLoggingImpl());
+
+    @Rule
+    public TemporaryFolder logDir = new TemporaryFolder();
+
+    private LogStructuredStorageProvider open() throws Exception {
+        return open(MetadataCodec.Format.JSON);
+    }
+
+    private LogStructuredStorageProvider open(MetadataCodec.Format format) throws Exception {
+        return new LogStructuredStorageProvider(logDir.getRoot(), 4096, 0.5, Long.MAX_VALUE, true, format);
+    }
+
+    private IMantisJobMetadata storeJob(LogStructuredStorageProvider provider, String clusterName, int numWorkers) throws Exception {
+        JobDefinition jobDefinition = JobTestHelper.generateJobDefinition(clusterName);
+        JobId jobId = JobId.fromId(clusterName + "-1").get();
+        IMantisJobMetadata job = new MantisJobMetadataImpl.Builder()
+                .withJobId(jobId)
+                .withSubmittedAt(Instant.now())
+                .withJobState(JobState.Accepted)
+                .withNextWorkerNumToUse(1)
+                .withJobDefinition(jobDefinition)
+                .build();
+        provider.storeNewJob(job);
+
+        StageSchedulingInfo stage = jobDefinition.getSchedulingInfo().getStages().get(1);
+        IMantisStageMetadata msmd = new MantisStageMetadataImpl.Builder()
+                .withJobId(jobId)
+                .withStageNum(1)
+                .withNumStages(1)
+                .withMachineDefinition(stage.getMachineDefinition())
+                .withNumWorkers(numWorkers)
+                .withHardConstraints(stage.getHardConstraints())
+                .withSoftConstraints(stage.getSoftConstraints())
+                .withScalingPolicy(stage.getScalingPolicy())
+                .isScalable(stage.getScalable())
+                .build();
+        ((MantisJobMetadataImpl) job).addJobStageIfAbsent(msmd);
+        provider.storeMantisStage(msmd);
+
+        List<IMantisWorkerMetadata> workers = Lists.newArrayList();
+        for (int w = 0; w < numWorkers; w++) {
+            JobWorker worker = createWorker(jobId, w, w + 1);
+            ((MantisJobMetadataImpl) job).addWorkerMetadata(1, worker);
+            workers.add(worker.getMetadata());
+        }
+        provider.storeWorkers(jobId.getId(), workers);
+        return job;
+    }
+
+    private JobWorker createWorker(JobId jobId, int workerIndex, int workerNumber) {
+        return new JobWorker.Builder()
+                .withJobId(jobId)
+                .withWorkerIndex(workerIndex)
+                .withWorkerNumber(workerNumber)
+                .withNumberOfPorts(1 + MANTIS_SYSTEM_ALLOCATED_NUM_PORTS)
+                .withStageNum(1)
+                .withLifecycleEventsPublisher(eventPublisher)
+                .build();
+    }
+
+    private static int countWorkers(IMantisJobMetadata job) {
+        return ((MantisJobMetadataImpl) job).getStageMetadata(1).get().getAllWorkers().size();
+    }
+
+    @Test
+    public void testJobsAreLoadedAfterReopening() throws Exception {
+        IMantisJobMetadata job;
+        try (LogStructuredStorageProvider provider = open()) {
+            job = storeJob(provider, "testReopen", 3);
+            storeJob(provider, "testReopen2", 1);
+        }
+
+        try (LogStructuredStorageProvider provider = open()) {
+            List<IMantisJobMetadata> jobs = provider.loadAllJobs();
+            assertEquals(2, jobs.size());
+            Optional<IMantisJobMetadata> loaded = provider.loadActiveJob(job.getJobId().getId());
+            assertTrue(loaded.isPresent());
+            assertEquals(job.getJobDefinition().toString(), loaded.get().getJobDefinition().toString());
+            assertEquals(3, countWorkers(loaded.get()));
+        }
+    }
+
+    @Test
+    public void testSwitchingToBinaryFormat() throws Exception {
+        IMantisJobMetadata job;
+        try (LogStructuredStorageProvider provider = open(MetadataCodec.Format.JSON)) {
+            job = storeJob(provider, "testSwitchFormat", 2);
+        }
+
+        String jobId = job.getJobId().getId();
+        try (LogStructuredStorageProvider provider = open(MetadataCodec.Format.BINARY)) {
+            // records written as JSON are still readable, and updates are mixed in as binary records
+            assertEquals(2, countWorkers(provider.loadActiveJob(jobId).get()));
+            provider.updateWorker(((MantisJobMetadataImpl) job).getStageMetadata(1).get().getWorkerByIndex(0).getMetadata());
+            storeJob(provider, "testSwitchFormat2", 1);
+        }
+
+        try (LogStructuredStorageProvider provider = open(MetadataCodec.Format.BINARY)) {
+            assertEquals(2, provider.loadAllJobs().size());
+            Optional<IMantisJobMetadata> loaded = provider.loadActiveJob(jobId);
+            assertEquals(job.getJobDefinition().toString(), loaded.get().getJobDefinition().toString());
+            assertEquals(2, countWorkers(loaded.get()));
+        }
+    }
+
+    @Test
+    public void testStoreNewJobTwiceFails() throws Exception {
+        try (LogStructuredStorageProvider provider = open()) {
+            IMantisJobMetadata job = storeJob(provider, "testStoreTwice", 1);
+            try {
+                provider.storeNewJob(job);
+                fail();
+            } catch (JobAlreadyExistsException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testArchiving() throws Exception {
+        try (LogStructuredStorageProvider provider = open()) {
+            IMantisJobMetadata job = storeJob(provider, "testArchiving", 3);
+            String jobId = job.getJobId().getId();
+            JobWorker worker = ((MantisJobMetadataImpl) job).getStageMetadata(1).get().getWorkerByIndex(0);
+
+            provider.archiveWorker(worker.getMetadata());
+            assertEquals(2, countWorkers(provider.loadActiveJob(jobId).get()));
+            assertEquals(1, provider.getArchivedWorkers(jobId).size());
+
+            JobWorker replacement = createWorker(job.getJobId(), 1, 10);
+            provider.storeAndUpdateWorkers(
+                    ((MantisJobMetadataImpl) job).getStageMetadata(1).get().getWorkerByIndex(1).getMetadata(),
+                    replacement.getMetadata());
+            assertEquals(2, countWorkers(provider.loadActiveJob(jobId).get()));
+            assertEquals(2, provider.getArchivedWorkers(jobId).size());
+
+            provider.archiveJob(jobId);
+            assertFalse(provider.loadActiveJob(jobId).isPresent());
+            assertTrue(provider.loadAllJobs().isEmpty());
+            assertTrue(provider.loadArchivedJob(jobId).isPresent());
+            assertEquals(4, provider.getArchivedWorkers(jobId).size());
+            assertEquals(1, provider.loadAllArchivedJobs().toList().toBlocking().single().size());
+
+            provider.deleteJob(jobId);
+            assertFalse(provider.loadArchivedJob(jobId).isPresent());
+            assertTrue(provider.getArchivedWorkers(jobId).isEmpty());
+        }
+    }
+
+    @Test
+    public void testCompletedJobs() throws Exception {
+        try (LogStructuredStorageProvider provider = open()) {
+            provider.storeCompletedJobForCluster("cluster", new CompletedJob("cluster", "cluster-1", "0.0.1", JobState.Completed, 1L, 2L, "user", Lists.newArrayList()));
+            provider.storeCompletedJobForCluster("cluster", new CompletedJob("cluster", "cluster-2", "0.0.1", JobState.Failed, 1L, 2L, "user", Lists.newArrayList()));
+            provider.storeCompletedJobForCluster("cluster2", new CompletedJob("cluster2", "cluster2-1", "0.0.1", JobState.Completed, 1L, 2L, "user", Lists.newArrayList()));
+            assertEquals(3, provider.loadAllCompletedJobs().size());
+
+            provider.removeCompletedJobForCluster("cluster", "cluster-1");
+            List<CompletedJob> completedJobs = provider.loadAllCompletedJobs();
+            assertEquals(2, completedJobs.size());
+            assertFalse(completedJobs.stream().anyMatch(j -> j.getJobId().equals("cluster-1")));
+        }
+    }
+
+    @Test
+    public void testUpdatesSurviveCompaction() throws Exception {
+        String jobId;
+        try (LogStructuredStorageProvider provider = open()) {
+            IMantisJobMetadata job = storeJob(provider, "testCompaction", 2);
+            jobId = job.getJobId().getId();
+            IMantisWorkerMetadata worker = ((MantisJobMetadataImpl) job).getStageMetadata(1).get().getWorkerByIndex(0).getMetadata();
+            for (int i = 0; i < 50; i++) {
+                provider.updateWorker(worker);
+            }
+            provider.archiveWorker(worker);
+            provider.compact();
+        }
+
+        assertEquals(1, logDir.getRoot().list().length);
+        try (LogStructuredStorageProvider provider = open()) {
+            assertEquals(1, countWorkers(provider.loadActiveJob(jobId).get()));
+            assertEquals(1, provider.getArchivedWorkers(jobId).size());
+        }
+    }
+
+    @Test
+    public void testTornRecordIsTruncated() throws Exception {
+        try (LogStructuredStorageProvider provider = open()) {
+            storeJob(provider, "testTornRecord", 1);
+            provider.setActiveVmAttributeValuesList(Arrays.asList("vm1", "vm2"));
+        }
+
+        File[] segments = logDir.getRoot().listFiles();
+        Arrays.sort(segments);
+        try (RandomAccessFile segment = new RandomAccessFile(segments[segments.length - 1], "rw")) {
+            segment.setLength(segment.length() - 3);
+        }
+
+        try (LogStructuredStorageProvider provider = open()) {
+            assertEquals(1, provider.loadAllJobs().size());
+            assertTrue(provider.initActiveVmAttributeValuesList().isEmpty());
+            provider.setActiveVmAttributeValuesList(Arrays.asList("vm3"));
+        }
+        try (LogStructuredStorageProvider provider = open()) {
+            assertEquals(Arrays.asList("vm3"), provider.initActiveVmAttributeValuesList());
+        }
+    }
+}
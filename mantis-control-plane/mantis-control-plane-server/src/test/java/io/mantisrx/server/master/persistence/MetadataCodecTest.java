@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.server.master.persistence;
+
+import static io.mantisrx.master.jobcluster.job.worker.MantisWorkerMetadataImpl.MANTIS_SYSTEM_ALLOCATED_NUM_PORTS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.mantisrx.master.events.AuditEventSubscriberLoggingImpl;
+import io.mantisrx.master.events.LifecycleEventPublisher;
+import io.mantisrx.master.events.LifecycleEventPublisherImpl;
+import io.mantisrx.master.events.StatusEventSubscriberLoggingImpl;
+import io.mantisrx.master.events.WorkerEventSubscriberLoggingImpl;
+import io.mantisrx.master.jobcluster.job.worker.IMantisWorkerMetadata;
+import io.mantisrx.master.jobcluster.job.worker.JobWorker;
+import io.mantisrx.master.jobcluster.job.worker.MantisWorkerMetadataImpl;
+import io.mantisrx.server.master.domain.JobId;
+import io.mantisrx.shaded.com.fasterxml.jackson.core.type.TypeReference;
+import io.mantisrx.shaded.com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class MetadataCodecTest {
+
+    private final LifecycleEventPublisher eventPublisher = new LifecycleEventPublisherImpl(new AuditEventSubscriberLoggingImpl(), new StatusEventSubscriberLoggingImpl(), new WorkerEventSubscriberLoggingImpl());
+    private final SimpleFilterProvider filterProvider = new SimpleFilterProvider().setFailOnUnknownId(false);
+    private final MetadataCodec json = new MetadataCodec(MetadataCodec.Format.JSON, filterProvider);
+    private final MetadataCodec binary = new MetadataCodec(MetadataCodec.Format.BINARY, filterProvider);
+
+    private IMantisWorkerMetadata createWorker() {
+        return new JobWorker.Builder()
+                .withJobId(JobId.fromId("testCodec-1").get())
+                .withWorkerIndex(0)
+                .withWorkerNumber(1)
+                .withNumberOfPorts(1 + MANTIS_SYSTEM_ALLOCATED_NUM_PORTS)
+                .withStageNum(1)
+                .withLifecycleEventsPublisher(eventPublisher)
+                .build()
+                .getMetadata();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        IMantisWorkerMetadata worker = createWorker();
+
+        byte[] jsonBytes = json.encode(worker);
+        byte[] binaryBytes = binary.encode(worker);
+        assertFalse(MetadataCodec.isBinary(jsonBytes));
+        assertTrue(MetadataCodec.isBinary(binaryBytes));
+        assertTrue(binaryBytes.length < jsonBytes.length);
+
+        assertEquals(worker, json.decode(jsonBytes, MantisWorkerMetadataImpl.class));
+        assertEquals(worker, binary.decode(binaryBytes, MantisWorkerMetadataImpl.class));
+    }
+
+    @Test
+    public void testDecodesEitherFormat() throws Exception {
+        IMantisWorkerMetadata worker = createWorker();
+        assertEquals(worker, binary.decode(json.encode(worker), MantisWorkerMetadataImpl.class));
+        assertEquals(worker, json.decode(binary.encode(worker), MantisWorkerMetadataImpl.class));
+
+        List<String> values = Arrays.asList("a", "b");
+        assertEquals(values, json.decode(binary.encode(values), new TypeReference<List<String>>() {}));
+    }
+
+    @Test
+    public void testUnsupportedVersionFails() throws Exception {
+        byte[] bytes = binary.encode(createWorker());
+        bytes[1] = MetadataCodec.BINARY_VERSION + 1;
+        try {
+            binary.decode(bytes, MantisWorkerMetadataImpl.class);
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.server.master.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.netflix.mantis.master.scheduler.TestHelpers;
+import io.mantisrx.master.events.AuditEventSubscriberLoggingImpl;
+import io.mantisrx.master.events.LifecycleEventPublisher;
+import io.mantisrx.master.events.LifecycleEventPublisherImpl;
+import io.mantisrx.master.events.StatusEventSubscriberLoggingImpl;
+import io.mantisrx.master.events.WorkerEventSubscriberLoggingImpl;
+import io.mantisrx.master.jobcluster.job.worker.IMantisWorkerMetadata;
+import io.mantisrx.master.jobcluster.job.worker.JobWorker;
+import io.mantisrx.server.master.domain.JobId;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class WorkerWriteBehindTest {
+
+    private static final long NEVER_MS = TimeUnit.HOURS.toMillis(1);
+
+    private final LifecycleEventPublisher eventPublisher = new LifecycleEventPublisherImpl(new AuditEventSubscriberLoggingImpl(), new StatusEventSubscriberLoggingImpl(), new WorkerEventSubscriberLoggingImpl());
+
+    @BeforeClass
+    public static void setup() {
+        TestHelpers.setupMasterConfig();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        new SimpleCachedFileStorageProvider().deleteAllFiles();
+    }
+
+    private IMantisWorkerMetadata createWorker(String jobId, int index) {
+        return new JobWorker.Builder()
+                .withJobId(JobId.fromId(jobId).get())
+                .withWorkerIndex(index)
+                .withWorkerNumber(index + 1)
+                .withNumberOfPorts(5)
+                .withStageNum(1)
+                .withLifecycleEventsPublisher(eventPublisher)
+                .build()
+                .getMetadata();
+    }
+
+    @Test
+    public void testUpdatesOfAWorkerAreCoalesced() throws Exception {
+        RecordingStorageProvider storageProvider = new RecordingStorageProvider();
+        MantisJobStore jobStore = new MantisJobStore(storageProvider, 100, NEVER_MS);
+        IMantisWorkerMetadata worker = createWorker("testCoalesce-1", 0);
+
+        CompletableFuture<Void> first = jobStore.updateWorker(worker);
+        CompletableFuture<Void> second = jobStore.updateWorker(worker);
+        jobStore.updateWorker(worker);
+
+        assertSame(first, second);
+        assertFalse(first.isDone());
+        assertTrue(storageProvider.operations.isEmpty());
+
+        jobStore.shutdown();
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(1, storageProvider.operations.size());
+    }
+
+    @Test
+    public void testBatchIsWrittenOncePerJob() throws Exception {
+        RecordingStorageProvider storageProvider = new RecordingStorageProvider();
+        MantisJobStore jobStore = new MantisJobStore(storageProvider, 100, NEVER_MS);
+        IMantisWorkerMetadata worker = createWorker("testBatchPerJob-1", 0);
+
+        jobStore.updateWorker(worker);
+        jobStore.updateWorker(createWorker("testBatchPerJob-1", 1));
+        jobStore.updateWorker(createWorker("testBatchPerJob-2", 0));
+        jobStore.shutdown();
+
+        assertEquals(2, storageProvider.batches.size());
+        assertEquals(2, storageProvider.batches.get(0).size());
+        assertEquals(1, storageProvider.batches.get(1).size());
+        // a copy taken when queued is written, not the metadata the job actor keeps updating
+        IMantisWorkerMetadata written = storageProvider.batches.get(0).get(0);
+        assertNotSame(worker, written);
+        assertEquals(worker.getWorkerId(), written.getWorkerId());
+        assertEquals(worker.getState(), written.getState());
+    }
+
+    @Test
+    public void testFullBatchIsWrittenRightAway() throws Exception {
+        RecordingStorageProvider storageProvider = new RecordingStorageProvider();
+        MantisJobStore jobStore = new MantisJobStore(storageProvider, 2, NEVER_MS);
+
+        CompletableFuture<Void> first = jobStore.updateWorker(createWorker("testFullBatch-1", 0));
+        CompletableFuture<Void> second = jobStore.updateWorker(createWorker("testFullBatch-1", 1));
+
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        assertEquals(2, storageProvider.operations.size());
+        jobStore.shutdown();
+    }
+
+    @Test
+    public void testUpdatesAreWrittenOnFlushInterval() throws Exception {
+        RecordingStorageProvider storageProvider = new RecordingStorageProvider();
+        MantisJobStore jobStore = new MantisJobStore(storageProvider, 100, 10);
+
+        jobStore.updateWorker(createWorker("testFlushInterval-1", 0)).get(5, TimeUnit.SECONDS);
+        assertEquals(1, storageProvider.operations.size());
+        jobStore.shutdown();
+    }
+
+    @Test
+    public void testPendingUpdatesAreWrittenBeforeArchiving() throws Exception {
+        RecordingStorageProvider storageProvider = new RecordingStorageProvider();
+        MantisJobStore jobStore = new MantisJobStore(storageProvider, 100, NEVER_MS);
+        IMantisWorkerMetadata worker = createWorker("testArchive-1", 0);
+        IMantisWorkerMetadata otherJobWorker = createWorker("testArchive-2", 0);
+
+        CompletableFuture<Void> update = jobStore.updateWorker(worker);
+        CompletableFuture<Void> otherJobUpdate = jobStore.updateWorker(otherJobWorker);
+        jobStore.archiveWorker(worker);
+
+        assertTrue(update.isDone());
+        assertFalse(otherJobUpdate.isDone());
+        assertEquals("update " + worker.getWorkerId(), storageProvider.operations.get(0));
+        assertEquals("archive " + worker.getWorkerId(), storageProvider.operations.get(1));
+        jobStore.shutdown();
+        assertTrue(otherJobUpdate.isDone());
+    }
+
+    @Test
+    public void testFailedUpdatesAreRetried() throws Exception {
+        RecordingStorageProvider storageProvider = new RecordingStorageProvider();
+        storageProvider.failures = 1;
+        MantisJobStore jobStore = new MantisJobStore(storageProvider, 100, 10);
+
+        jobStore.updateWorker(createWorker("testRetry-1", 0)).get(5, TimeUnit.SECONDS);
+        assertEquals(1, storageProvider.operations.size());
+
+        storageProvider.failures = WorkerWriteBehind.MAX_ATTEMPTS;
+        CompletableFuture<Void> failed = jobStore.updateWorker(createWorker("testRetry-1", 1));
+        try {
+            failed.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        jobStore.shutdown();
+    }
+
+    private static class RecordingStorageProvider extends SimpleCachedFileStorageProvider {
+
+        private final List<String> operations = new CopyOnWriteArrayList<>();
+        private volatile int failures = 0;
+
+        private final List<List<IMantisWorkerMetadata>> batches = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void storeWorkers(String jobId, List<IMantisWorkerMetadata> workers) throws IOException {
+            if (failures > 0) {
+                failures--;
+                throw new IOException("failed to write " + workers);
+            }
+            super.storeWorkers(jobId, workers);
+            batches.add(workers);
+            for (IMantisWorkerMetadata worker : workers) {
+                assertEquals(jobId, worker.getJobId());
+                operations.add("update " + worker.getWorkerId());
+            }
+        }
+
+        @Override
+        public void archiveWorker(IMantisWorkerMetadata mwmd) throws IOException {
+            super.archiveWorker(mwmd);
+            operations.add("archive " + mwmd.getWorkerId());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.server.master.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.mantisrx.server.master.persistence.MetadataCodec;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SimpleCachedFileStorageProviderTest {
+
+    @Rule
+    public TemporaryFolder rootDir = new TemporaryFolder();
+
+    @Test
+    public void testBinaryMetadataIsReadInEitherFormat() throws Exception {
+        SimpleCachedFileStorageProvider binary =
+                new SimpleCachedFileStorageProvider(rootDir.getRoot(), MetadataCodec.Format.BINARY);
+        SimpleCachedFileStorageProvider json =
+                new SimpleCachedFileStorageProvider(rootDir.getRoot(), MetadataCodec.Format.JSON);
+
+        binary.storeWorker(new MantisWorkerMetadataWritable(0, 1, "testBinary-1", 1, 5));
+        File workerFile = new File(rootDir.getRoot(), "MantisSpool/Worker-testBinary-1-0-1");
+        assertTrue(MetadataCodec.isBinary(Files.readAllBytes(workerFile.toPath())));
+
+        binary.archiveWorker(new MantisWorkerMetadataWritable(0, 1, "testBinary-1", 1, 5));
+        List<MantisWorkerMetadataWritable> workers = json.getArchivedWorkers("testBinary-1");
+        assertEquals(1, workers.size());
+        assertEquals(1, workers.get(0).getWorkerNumber());
+        assertEquals(5, workers.get(0).getNumberOfPorts());
+
+        // switching back to JSON rewrites files as JSON and still reads the binary ones
+        List<String> vmAttributes = Arrays.asList("a", "b");
+        binary.setActiveVmAttributeValuesList(vmAttributes);
+        assertEquals(vmAttributes, json.initActiveVmAttributeValuesList());
+        json.setActiveVmAttributeValuesList(vmAttributes);
+        assertFalse(MetadataCodec.isBinary(Files.readAllBytes(new File(rootDir.getRoot(), "MantisSpool/activeVMs").toPath())));
+        assertEquals(vmAttributes, binary.initActiveVmAttributeValuesList());
+    }
+}
@@ -31,4 +31,23 @@ public class ChunkProcessor<T> {
         router.route(connectionManager.connections(), chunks);
     }
 
+    /**
+     * Invoked each time a connection is added to or removed from the connection manager. Invocations hold the
+     * manager's connection state lock, so they are ordered and see the connections as they are right after the
+     * change. Does nothing by default.
+     */
+    public void onConnectionsChanged(ConnectionManager<T> connectionManager) {
+    }
+
+    /**
+     * Invoked once a batch routed to the connection was written, or dropped because the connection could not take
+     * it. Does nothing by default.
+     *
+     * @param connection    the connection the batch was routed to.
+     * @param successWrites the number of events written.
+     * @param failedWrites  the number of events dropped.
+     */
+    public void onWrites(AsyncConnection<T> connection, int successWrites, int failedWrites) {
+    }
+
 }
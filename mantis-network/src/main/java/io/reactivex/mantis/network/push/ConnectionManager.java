@@ -44,14 +44,26 @@ public class ConnectionManager<T> {
     private AtomicReference<Gauge> activeConnectionsRef = new AtomicReference<>(null);
     private Action0 doOnFirstConnection;
     private Action0 doOnZeroConnections;
+    private ChunkProcessor<T> chunkProcessor;
     private Lock connectionState = new ReentrantLock();
     private AtomicBoolean subscribed = new AtomicBoolean();
 
     public ConnectionManager(MetricsRegistry metricsRegistry,
                              Action0 doOnFirstConnection, Action0 doOnZeroConnections) {
+        this(metricsRegistry, doOnFirstConnection, doOnZeroConnections, null);
+    }
+
+    /**
+     * @param chunkProcessor notified of changes to the managed connections and of the outcome of writes to them,
+     *                       may be null.
+     */
+    public ConnectionManager(MetricsRegistry metricsRegistry,
+                             Action0 doOnFirstConnection, Action0 doOnZeroConnections,
+                             ChunkProcessor<T> chunkProcessor) {
         this.doOnFirstConnection = doOnFirstConnection;
         this.doOnZeroConnections = doOnZeroConnections;
         this.metricsRegistry = metricsRegistry;
+        this.chunkProcessor = chunkProcessor;
     }
 
     private int activeConnections() {
@@ -98,6 +110,9 @@ public class ConnectionManager<T> {
         } finally {
             connectionState.unlock();
         }
+        if (chunkProcessor != null) {
+            chunkProcessor.onWrites(connection, numWrites, 0);
+        }
     }
 
     protected void failedWrites(AsyncConnection<T> connection, Integer numWrites) {
@@ -111,6 +126,9 @@ public class ConnectionManager<T> {
         } finally {
             connectionState.unlock();
         }
+        if (chunkProcessor != null) {
+            chunkProcessor.onWrites(connection, 0, numWrites);
+        }
     }
 
     protected void add(AsyncConnection<T> connection) {
@@ -128,6 +146,9 @@ public class ConnectionManager<T> {
             }
             current.addConnection(connection);
             logger.info("Connection added to group: " + groupId + ", connection: " + connection + ", group: " + current);
+            if (chunkProcessor != null) {
+                chunkProcessor.onConnectionsChanged(this);
+            }
         } finally {
             connectionState.unlock();
         }
@@ -154,6 +175,9 @@ public class ConnectionManager<T> {
                     // remove group
                     managedConnections.remove(groupId);
                 }
+                if (chunkProcessor != null) {
+                    chunkProcessor.onConnectionsChanged(this);
+                }
             }
         } finally {
             connectionState.unlock();
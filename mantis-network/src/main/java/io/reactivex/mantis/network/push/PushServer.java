@@ -19,6 +19,7 @@ package io.reactivex.mantis.network.push;
 import static com.mantisrx.common.utils.MantisMetricStringConstants.GROUP_ID_TAG;
 
 import com.netflix.spectator.api.BasicTag;
+import io.mantisrx.common.compression.BinaryFrames;
 import io.mantisrx.common.compression.CompressionUtils;
 import io.mantisrx.common.messages.MantisMetaDroppedMessage;
 import io.mantisrx.common.metrics.Counter;
@@ -30,6 +31,7 @@ import io.netty.channel.Channel;
 import io.netty.util.concurrent.GenericFutureListener;
 import io.reactivx.mantis.operators.DisableBackPressureOperator;
 import io.reactivx.mantis.operators.DropOperator;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -100,7 +102,7 @@ public abstract class PushServer<T, R> {
         final MetricGroupId metricsGroup = new MetricGroupId("PushServer", idTag);
         // manager will auto add metrics for connection groups
         connectionManager = new ConnectionManager<T>(metricsRegistry, doOnFirstConnection,
-                doOnZeroConnections);
+                doOnZeroConnections, config.getChunkProcessor());
 
 
         int numQueueProcessingThreads = config.getNumQueueConsumers();
@@ -219,6 +221,26 @@ public abstract class PushServer<T, R> {
                                                                final Counter legacyMsgProcessedCounter, final Counter legacyDroppedWrites,
                                                                final Action0 connectionSubscribeCallback, boolean compressOutput, boolean isSSE,
                                                                byte[] delimiter) {
+        return manageConnectionWithCompression(writer, host, port, groupId, slotId, id, lastWriteTime, applicationHeartbeats, heartbeatSubscription,
+                applySampling, samplingRateMSec, metaMsgSubject, metaMsgSubscription, predicate, connectionClosedCallback, legacyMsgProcessedCounter,
+                legacyDroppedWrites, connectionSubscribeCallback, compressOutput, isSSE, delimiter, false);
+    }
+
+    /**
+     * As {@link #manageConnectionWithCompression(DefaultChannelWriter, String, int, String, String, String, AtomicLong, boolean,
+     * Subscription, boolean, long, SerializedSubject, Subscription, Func1, Action0, Counter, Counter, Action0, boolean, boolean, byte[])},
+     * optionally writing each batch as a {@link BinaryFrames} events frame instead of server sent events.
+     *
+     * @param binaryFrames whether to write binary frames, in which case compressOutput, isSSE and delimiter are ignored.
+     */
+    protected Observable<Void> manageConnectionWithCompression(final DefaultChannelWriter<R> writer, String host, int port,
+                                                               String groupId, String slotId, String id, final AtomicLong lastWriteTime, final boolean applicationHeartbeats,
+                                                               final Subscription heartbeatSubscription, boolean applySampling, long samplingRateMSec,
+                                                               final SerializedSubject<String, String> metaMsgSubject, final Subscription metaMsgSubscription,
+                                                               Func1<T, Boolean> predicate, final Action0 connectionClosedCallback,
+                                                               final Counter legacyMsgProcessedCounter, final Counter legacyDroppedWrites,
+                                                               final Action0 connectionSubscribeCallback, boolean compressOutput, boolean isSSE,
+                                                               byte[] delimiter, boolean binaryFrames) {
 
         if (id == null || id.isEmpty()) {
             id = host + "_" + port + "_" + System.currentTimeMillis();
@@ -287,7 +309,15 @@ public abstract class PushServer<T, R> {
                                         final int batchSize = size;
                                         processedWrites.increment(batchSize);
                                         if (channel.isActive() && channel.isWritable()) {
-                                            if (isSSE) {
+                                            if (binaryFrames) {
+                                                try {
+                                                    blockBuffer = ByteBuffer.wrap(BinaryFrames.events(bufferOfBuffers));
+                                                } catch (IOException e) {
+                                                    logger.warn("failed to compress batch of {} events", batchSize, e);
+                                                    failedToWriteBatch(connection, batchSize, legacyDroppedWrites, metaMsgSubject);
+                                                    return Observable.empty();
+                                                }
+                                            } else if (isSSE) {
                                                 if (compressOutput) {
                                                     boolean useSnappy = true;
                                                     byte[] compressedData =  delimiter == null
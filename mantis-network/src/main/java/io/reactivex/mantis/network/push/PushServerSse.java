@@ -18,6 +18,7 @@ package io.reactivex.mantis.network.push;
 
 import com.mantisrx.common.utils.MantisSSEConstants;
 import com.netflix.spectator.api.BasicTag;
+import io.mantisrx.common.compression.BinaryFrames;
 import io.mantisrx.common.compression.CompressionUtils;
 import io.mantisrx.common.metrics.Counter;
 import io.mantisrx.common.metrics.Metrics;
@@ -121,6 +122,7 @@ public class PushServerSse<T, S> extends PushServer<T, ServerSentEvent> {
                         boolean enableHeartbeats = false;
 
                         boolean enableBinaryOutput = false;
+                        boolean enableBinaryFrames = false;
 
                         final AtomicLong heartBeatReadIdleSec = new AtomicLong(2);
 
@@ -178,6 +180,13 @@ public class PushServerSse<T, S> extends PushServer<T, ServerSentEvent> {
                                     enableBinaryOutput = true;
                                 }
                             }
+                            if (queryParameters.containsKey(MantisSSEConstants.MANTIS_ENABLE_BINARY_FRAMES)) {
+                                String enableBinaryFramesStr = queryParameters.get(MantisSSEConstants.MANTIS_ENABLE_BINARY_FRAMES).get(0);
+                                if ("true".equalsIgnoreCase(enableBinaryFramesStr)) {
+                                    logger.info("Binary frames requested");
+                                    enableBinaryFrames = true;
+                                }
+                            }
                             if (queryParameters.containsKey(MantisSSEConstants.ENABLE_PINGS)) {
                                 String enablePings = queryParameters.get(MantisSSEConstants.ENABLE_PINGS).get(0);
                                 if ("true".equalsIgnoreCase(enablePings)) {
@@ -244,7 +253,9 @@ public class PushServerSse<T, S> extends PushServer<T, ServerSentEvent> {
                         sseDroppedCounter = metrics.getCounter(DROPPED_COUNTER_METRIC_NAME);
 
                         response.getHeaders().set("Access-Control-Allow-Origin", "*");
-                        response.getHeaders().set("content-type", "text/event-stream");
+                        final boolean binaryFrames = enableBinaryFrames;
+                        response.getHeaders().set("content-type",
+                                binaryFrames ? MantisSSEConstants.MANTIS_BINARY_FRAMES_CONTENT_TYPE : "text/event-stream");
                         response.getHeaders().set("Cache-Control", "no-cache, no-store, max-age=0, must-revalidate");
                         response.getHeaders().set("Pragma", "no-cache");
                         response.flush();
@@ -260,8 +271,12 @@ public class PushServerSse<T, S> extends PushServer<T, ServerSentEvent> {
                                     .doOnNext((String t) -> {
                                                 if (t != null && !t.isEmpty()) {
                                                     long currentTime = System.currentTimeMillis();
-                                                    ByteBuf data = response.getAllocator().buffer().writeBytes(t.getBytes());
-                                                    response.writeAndFlush(new ServerSentEvent(data));
+                                                    if (binaryFrames) {
+                                                        response.writeBytesAndFlush(BinaryFrames.message(t));
+                                                    } else {
+                                                        ByteBuf data = response.getAllocator().buffer().writeBytes(t.getBytes());
+                                                        response.writeAndFlush(new ServerSentEvent(data));
+                                                    }
                                                     lastWriteTime.set(currentTime);
                                                 }
                                             }
@@ -276,8 +291,12 @@ public class PushServerSse<T, S> extends PushServer<T, ServerSentEvent> {
                                                 long currentTime = System.currentTimeMillis();
                                                 long diff = (currentTime - lastWriteTime.get()) / 1000;
                                                 if (diff > heartBeatReadIdleSec.get()) {
-                                                    ByteBuf data = response.getAllocator().buffer().writeBytes("ping".getBytes());
-                                                    response.writeAndFlush(new ServerSentEvent(data));
+                                                    if (binaryFrames) {
+                                                        response.writeBytesAndFlush(BinaryFrames.ping());
+                                                    } else {
+                                                        ByteBuf data = response.getAllocator().buffer().writeBytes("ping".getBytes());
+                                                        response.writeAndFlush(new ServerSentEvent(data));
+                                                    }
                                                     lastWriteTime.set(currentTime);
                                                 }
                                             }
@@ -308,7 +327,7 @@ public class PushServerSse<T, S> extends PushServer<T, ServerSentEvent> {
                                 enableHeartbeats, heartbeatSubscription, enableSampling, samplingTimeMsec, metaMsgSubject, metaMsgSubscription,
                                 predicateFunction, connectionClosedCallback, sseProcessedCounter,
                                 sseDroppedCounter,
-                                new SubscribeCallback(), enableBinaryOutput, true, delimiter);
+                                new SubscribeCallback(), enableBinaryOutput, true, delimiter, binaryFrames);
                     }
                 })
                 .pipelineConfigurator(PipelineConfigurators.serveSseConfigurator())
@@ -163,6 +163,11 @@ public class ServerConfig<T> {
             return this;
         }
 
+        public Builder<T> chunkProcessor(ChunkProcessor<T> chunkProcessor) {
+            this.chunkProcessor = chunkProcessor;
+            return this;
+        }
+
         public Builder<T> metricsRegistry(MetricsRegistry metricsRegistry) {
             this.metricsRegistry = metricsRegistry;
             return this;
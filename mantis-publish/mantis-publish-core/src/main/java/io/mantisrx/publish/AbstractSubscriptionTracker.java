@@ -24,13 +24,20 @@ import io.mantisrx.publish.core.Subscription;
 import io.mantisrx.publish.core.SubscriptionFactory;
 import io.mantisrx.publish.internal.discovery.MantisJobDiscovery;
 import io.mantisrx.publish.internal.metrics.SpectatorUtils;
+import io.mantisrx.publish.proto.MantisServerDropReport;
 import io.mantisrx.publish.proto.MantisServerSubscription;
 import io.mantisrx.publish.proto.MantisServerSubscriptionEnvelope;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +53,14 @@ import org.slf4j.LoggerFactory;
 public abstract class AbstractSubscriptionTracker implements SubscriptionTracker {
     private static final Logger LOG = LoggerFactory.getLogger(AbstractSubscriptionTracker.class);
 
+    // Fetches of different job clusters run concurrently, so that a slow or long-polling one doesn't hold back the
+    // others.
+    private static final ExecutorService FETCH_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "MantisSubscriptionsFetcher");
+        t.setDaemon(true);
+        return t;
+    });
+
     private final MrePublishConfiguration mrePublishConfiguration;
     private final Registry registry;
     private final MantisJobDiscovery jobDiscovery;
@@ -104,6 +119,10 @@ public abstract class AbstractSubscriptionTracker implements SubscriptionTracker
 				}
 			});
 
+		// Apply the latest sampling hints of new and existing subscriptions.
+		currentSubscriptions.forEach(sub ->
+			streamManager.updateSubscriptionSampleRate(sub.getSubscriptionId(), sub.getAdditionalParams()));
+
 		Set<String> idsToKeep = currentSubscriptions.stream().map(x -> x.getSubscriptionId()).collect(Collectors.toSet());
 		idsToKeep.addAll(extension.stream().map(x -> x.getSubscriptionId()).collect(Collectors.toSet()));
 
@@ -120,6 +139,18 @@ public abstract class AbstractSubscriptionTracker implements SubscriptionTracker
 			});
 	}
 
+	/**
+	 * Applies a drop report of a source job to the given subscriptions of that job. Subscriptions missing from the
+	 * report had no drops. Each report must be applied only once, since every application moves the adaptive rate.
+	 *
+	 * @param report The {@link MantisServerDropReport} to apply.
+	 * @param subscriptionIds The ids of the subscriptions served by the source job that issued the report.
+	 * */
+	protected void applyDropReport(MantisServerDropReport report, Collection<String> subscriptionIds) {
+		subscriptionIds.forEach(subscriptionId ->
+			streamManager.updateSubscriptionDropRate(subscriptionId, report.getDropRate(subscriptionId)));
+	}
+
 	/**
 	 * Get current set of subscriptions for a given jobCluster.
 	 *
@@ -188,9 +219,15 @@ public abstract class AbstractSubscriptionTracker implements SubscriptionTracker
 			Set<String> failedJobClusters = new HashSet<>();
 			final long currentTimestamp = System.currentTimeMillis();
 
+			Map<String, CompletableFuture<Optional<MantisServerSubscriptionEnvelope>>> fetches = new HashMap<>();
 			for (String jobCluster : jobClustersToFetch) {
+				fetches.put(jobCluster, CompletableFuture.supplyAsync(() -> fetchSubscriptions(jobCluster), FETCH_EXECUTOR));
+			}
+
+			for (Map.Entry<String, CompletableFuture<Optional<MantisServerSubscriptionEnvelope>>> fetch : fetches.entrySet()) {
+				String jobCluster = fetch.getKey();
 				try {
-					Optional<MantisServerSubscriptionEnvelope> subsEnvelopeO = fetchSubscriptions(jobCluster);
+					Optional<MantisServerSubscriptionEnvelope> subsEnvelopeO = join(fetch.getValue());
 					if (subsEnvelopeO.isPresent()) {
 						MantisServerSubscriptionEnvelope subsEnvelope = subsEnvelopeO.get();
 
@@ -230,6 +267,14 @@ public abstract class AbstractSubscriptionTracker implements SubscriptionTracker
 		}
 	}
 
+	private static <T> T join(CompletableFuture<T> future) throws Exception {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+		}
+	}
+
 	protected Set<Subscription> getCurrentSubscriptions() {
 
 		return streamManager
@@ -26,13 +26,19 @@ import com.netflix.spectator.ipc.http.HttpResponse;
 import io.mantisrx.publish.config.MrePublishConfiguration;
 import io.mantisrx.publish.internal.discovery.MantisJobDiscovery;
 import io.mantisrx.publish.internal.metrics.SpectatorUtils;
+import io.mantisrx.publish.proto.MantisServerDropReport;
+import io.mantisrx.publish.proto.MantisServerSubscription;
+import io.mantisrx.publish.proto.MantisServerSubscriptionDelta;
 import io.mantisrx.publish.proto.MantisServerSubscriptionEnvelope;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,13 +46,20 @@ public class DefaultSubscriptionTracker extends AbstractSubscriptionTracker {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultSubscriptionTracker.class);
 
     private static final String SUBSCRIPTIONS_URL_FORMAT = "http://%s:%d?jobId=%s";
+    private static final String SUBSCRIPTION_DELTA_URL_FORMAT = "http://%s:%d?jobId=%s&sinceVersion=%d&waitMs=%d";
     private final MrePublishConfiguration mrePublishConfiguration;
     private final String subscriptionsFetchQueryParamString;
     private final Counter fetchSubscriptionsFailedCount;
     private final Counter fetchSubscriptionsNon200Count;
+    private final Counter fetchSubscriptionDeltaCount;
+    private final Counter fullSubscriptionSyncCount;
     private final HttpClient httpClient;
     private final MantisJobDiscovery jobDiscovery;
     private final Random random = new Random();
+    private final Map<String, SubscriptionDeltaState> deltaStateByJobCluster = new ConcurrentHashMap<>();
+    // The last drop report applied for each job cluster, as "epoch/reportId". Kept apart from the delta state so a
+    // report is not applied again when the state is reset and the same worker hands it out once more.
+    private final Map<String, String> appliedDropReportByJobCluster = new ConcurrentHashMap<>();
 
     public DefaultSubscriptionTracker(
             MrePublishConfiguration mrePublishConfiguration,
@@ -62,6 +75,8 @@ public class DefaultSubscriptionTracker extends AbstractSubscriptionTracker {
 
         this.fetchSubscriptionsFailedCount = SpectatorUtils.buildAndRegisterCounter(registry, "fetchSubscriptionsFailedCount");
         this.fetchSubscriptionsNon200Count = SpectatorUtils.buildAndRegisterCounter(registry, "fetchSubscriptionsNon200Count");
+        this.fetchSubscriptionDeltaCount = SpectatorUtils.buildAndRegisterCounter(registry, "fetchSubscriptionDeltaCount");
+        this.fullSubscriptionSyncCount = SpectatorUtils.buildAndRegisterCounter(registry, "fullSubscriptionSyncCount");
     }
 
     private Optional<MantisServerSubscriptionEnvelope> fetchSubscriptions(String jobId, MantisWorker worker) {
@@ -133,6 +148,88 @@ public class DefaultSubscriptionTracker extends AbstractSubscriptionTracker {
                 .map(Map.Entry::getKey);
     }
 
+    private Optional<MantisServerSubscriptionDelta> fetchSubscriptionDelta(String jobId, MantisWorker worker,
+                                                                           String epoch, long sinceVersion) {
+        try {
+            int waitMs = mrePublishConfiguration.subscriptionDeltaWaitMsec();
+            String uri = String.format(SUBSCRIPTION_DELTA_URL_FORMAT, worker.getHost(), worker.getPort(), jobId, sinceVersion, waitMs);
+            if (epoch != null) {
+                uri = uri + "&epoch=" + epoch;
+            }
+            if (!subscriptionsFetchQueryParamString.isEmpty()) {
+                uri = uri + "&" + subscriptionsFetchQueryParamString;
+            }
+            LOG.trace("Subscription delta fetch URL: {}", uri);
+            HttpResponse response = httpClient
+                    .get(URI.create(uri))
+                    .withConnectTimeout(1000)
+                    .withReadTimeout(waitMs + 1000)
+                    .send();
+            if (response.status() == 200) {
+                MantisServerSubscriptionDelta delta =
+                        DefaultObjectMapper.getInstance().readValue(response.entityAsString(), MantisServerSubscriptionDelta.class);
+                LOG.debug("got subs delta {} from Mantis worker {}", delta, worker);
+                fetchSubscriptionDeltaCount.increment();
+                return Optional.ofNullable(delta);
+            } else {
+                LOG.info("got {} {} response from Mantis worker {}", response.status(), response.entityAsString(), worker);
+                fetchSubscriptionsNon200Count.increment();
+                return Optional.empty();
+            }
+        } catch (Exception e) {
+            LOG.info("caught exception fetching subs delta from {}", worker, e);
+            fetchSubscriptionsFailedCount.increment();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Keeps the subscriptions of a job cluster in sync with a single worker by applying the deltas it returns.
+     * Versions are local to a worker, so the tracker starts over with a full snapshot from another worker if the
+     * current one fails or leaves the job. A worker that restarted in place answers with a new epoch, which also
+     * resets the tracker.
+     */
+    private Optional<MantisServerSubscriptionEnvelope> deltaSubscriptionsResolver(String jobCluster, String jobId,
+                                                                                List<MantisWorker> workers) {
+        SubscriptionDeltaState state = deltaStateByJobCluster.get(jobCluster);
+        if (state == null || !state.jobId.equals(jobId) || !workers.contains(state.worker)) {
+            if (workers.isEmpty()) {
+                return Optional.empty();
+            }
+            state = new SubscriptionDeltaState(jobId, workers.get(random.nextInt(workers.size())));
+        }
+
+        Optional<MantisServerSubscriptionDelta> deltaO =
+                fetchSubscriptionDelta(jobId, state.worker, state.epoch, state.version);
+        if (!deltaO.isPresent()) {
+            deltaStateByJobCluster.remove(jobCluster);
+            return Optional.empty();
+        }
+
+        MantisServerSubscriptionDelta delta = deltaO.get();
+        if (!delta.isFull() && !Objects.equals(delta.getEpoch(), state.epoch)) {
+            // Not a delta against what we hold; start over with a full snapshot on the next refresh.
+            LOG.info("got subs delta of epoch {} while holding epoch {} from {}", delta.getEpoch(), state.epoch, state.worker);
+            deltaStateByJobCluster.remove(jobCluster);
+            return Optional.empty();
+        }
+        if (delta.isFull()) {
+            fullSubscriptionSyncCount.increment();
+        }
+        state.apply(delta);
+        deltaStateByJobCluster.put(jobCluster, state);
+
+        MantisServerDropReport report = delta.getDropReport();
+        if (report != null && report.getReportId() > 0) {
+            String reportKey = delta.getEpoch() + "/" + report.getReportId();
+            if (!reportKey.equals(appliedDropReportByJobCluster.put(jobCluster, reportKey))) {
+                applyDropReport(report, state.subscriptions.keySet());
+            }
+        }
+
+        return Optional.of(new MantisServerSubscriptionEnvelope(new ArrayList<>(state.subscriptions.values())));
+    }
+
     @Override
     public Optional<MantisServerSubscriptionEnvelope> fetchSubscriptions(String jobCluster) {
         Optional<JobDiscoveryInfo> jobDiscoveryInfo = jobDiscovery.getCurrentJobWorkers(jobCluster);
@@ -141,6 +238,9 @@ public class DefaultSubscriptionTracker extends AbstractSubscriptionTracker {
             JobDiscoveryInfo jdi = jobDiscoveryInfo.get();
             StageWorkers workers = jdi.getIngestStageWorkers();
             if (workers != null) {
+                if (mrePublishConfiguration.isSubscriptionDeltaEnabled()) {
+                    return deltaSubscriptionsResolver(jobCluster, jdi.getJobId(), workers.getWorkers());
+                }
                 return subsetSubscriptionsResolver(jdi.getJobId(), workers.getWorkers());
             } else {
                 LOG.info("Subscription refresh failed, workers null for {}", jobCluster);
@@ -150,4 +250,31 @@ public class DefaultSubscriptionTracker extends AbstractSubscriptionTracker {
         }
         return Optional.empty();
     }
+
+    private static class SubscriptionDeltaState {
+        private final String jobId;
+        private final MantisWorker worker;
+        private final Map<String, MantisServerSubscription> subscriptions = new HashMap<>();
+        private String epoch;
+        private long version = MantisServerSubscriptionDelta.UNVERSIONED;
+
+        SubscriptionDeltaState(String jobId, MantisWorker worker) {
+            this.jobId = jobId;
+            this.worker = worker;
+        }
+
+        void apply(MantisServerSubscriptionDelta delta) {
+            if (delta.isFull()) {
+                subscriptions.clear();
+            }
+            for (String subscriptionId : delta.getRemovedSubscriptionIds()) {
+                subscriptions.remove(subscriptionId);
+            }
+            for (MantisServerSubscription subscription : delta.getSubscriptionList()) {
+                subscriptions.put(subscription.getSubscriptionId(), subscription);
+            }
+            epoch = delta.getEpoch();
+            version = delta.getVersion();
+        }
+    }
 }
@@ -78,6 +78,9 @@ class EventDrainer implements Runnable {
             Set<String> streams = streamManager.getRegisteredStreams();
 
             for (String stream : streams) {
+                // Adapt load shedding to the queue overflows since the previous drain.
+                streamManager.adjustStreamSampleRate(stream);
+
                 final List<Event> streamEventList = new ArrayList<>();
 
                 int queueDepth = 0;
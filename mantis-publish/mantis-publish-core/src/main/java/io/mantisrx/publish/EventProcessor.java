@@ -48,6 +48,8 @@ class EventProcessor {
     private final Random randomGenerator;
     private final AtomicBoolean errorLogEnabled;
 
+    private volatile Blacklist blacklist;
+
     EventProcessor(MrePublishConfiguration config, StreamManager streamManager, Tee tee) {
         this.config = config;
         this.streamManager = streamManager;
@@ -62,7 +64,8 @@ class EventProcessor {
      * Event Processing:
      * <p>
      * 1. Mask sensitive fields in the event as defined by {@link MrePublishConfiguration#blackListedKeysCSV()}.
-     * 2. Check in-memory cache of {@link Subscription}s to find subscriptions whose query match the event.
+     * 2. Check in-memory cache of {@link Subscription}s to find subscriptions whose query match the event, skipping
+     *    subscriptions the event is sampled out for.
      * 3. Build a *superset* of fields from *all* matching subscriptions into a single event.o
      *
      * @return a Mantis {@link Event}.
@@ -77,9 +80,10 @@ class EventProcessor {
             return null;
         }
 
-        // make a deep copy before proceeding to avoid altering the user provided map.
+        // Avoid altering the user provided map. The copy is deferred until the event is modified,
+        // which only happens if it has sensitive fields to mask.
         if (config.isDeepCopyEventMapEnabled()) {
-            event = new Event(event.getMap(), true);
+            event = event.copyOnWrite();
         }
 
         maskSensitiveFields(event);
@@ -94,7 +98,7 @@ class EventProcessor {
 
             for (Subscription s : streamSubscriptions) {
                 try {
-                    if (s.matches(event)) {
+                    if (!streamManager.isSampledOut(stream, s) && s.matches(event)) {
                         matchingSubscriptions.add(s);
                     }
                 } catch (Exception e) {
@@ -130,15 +134,24 @@ class EventProcessor {
      * Masks fields of an {@link Event} contained in a blacklist.
      */
     void maskSensitiveFields(Event event) {
+        for (String key : getBlacklist()) {
+            if (event.get(key) != null) {
+                event.set(key, "***");
+            }
+        }
+    }
+
+    /**
+     * Returns the parsed {@link MrePublishConfiguration#blackListedKeysCSV()}, parsing it only when it changes.
+     */
+    private String[] getBlacklist() {
         String blacklistKeys = config.blackListedKeysCSV();
-        List<String> blacklist =
-                Arrays.stream(blacklistKeys.split(","))
-                        .map(String::trim)
-                        .collect(Collectors.toList());
-
-        blacklist.stream()
-                .filter(key -> event.get(key) != null)
-                .forEach(key -> event.set(key, "***"));
+        Blacklist cached = blacklist;
+        if (cached == null || !cached.csv.equals(blacklistKeys)) {
+            cached = new Blacklist(blacklistKeys);
+            blacklist = cached;
+        }
+        return cached.keys;
     }
 
     private void sendError(Subscription subscription, String errorMessage) {
@@ -215,4 +228,17 @@ class EventProcessor {
 
         return projectedEvent;
     }
+
+    private static class Blacklist {
+        private final String csv;
+        private final String[] keys;
+
+        Blacklist(String csv) {
+            this.csv = csv;
+            this.keys = Arrays.stream(csv.split(","))
+                    .map(String::trim)
+                    .filter(key -> !key.isEmpty())
+                    .toArray(String[]::new);
+        }
+    }
 }
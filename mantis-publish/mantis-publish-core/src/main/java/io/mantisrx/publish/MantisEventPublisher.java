@@ -66,7 +66,14 @@ public class MantisEventPublisher implements EventPublisher {
         if (streamQ.isPresent()) {
             final Optional<StreamMetrics> streamMetricsO = streamManager.getStreamMetrics(streamName);
             if (hasSubscriptions(streamName) || isTeeEnabled()) {
+                if (streamManager.isSampledOut(streamName)) {
+                    // Drop the event before it is enqueued if none of the subscriptions would sample it.
+                    streamMetricsO.ifPresent(m -> m.getMantisEventsSampledOutCounter().increment());
+                    return CompletableFuture.completedFuture(PublishStatus.SKIPPED_SAMPLED);
+                }
+
                 boolean success = streamQ.get().offer(event);
+                streamManager.onStreamOffer(streamName, success);
                 if (!success) {
                     streamMetricsO.ifPresent(m -> m.getMantisEventsDroppedCounter().increment());
                     return CompletableFuture.completedFuture(PublishStatus.FAILED_QUEUE_FULL);
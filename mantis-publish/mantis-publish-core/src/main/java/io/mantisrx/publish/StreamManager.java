@@ -17,6 +17,7 @@
 package io.mantisrx.publish;
 
 import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Registry;
 import io.mantisrx.publish.api.Event;
 import io.mantisrx.publish.api.StreamType;
@@ -27,6 +28,8 @@ import io.mantisrx.publish.internal.metrics.StreamMetrics;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
@@ -53,6 +56,9 @@ public class StreamManager {
     private final ConcurrentMap<String, List<String>> subscriptionIdToStreamsMap;
     private final ConcurrentMap<String, BlockingQueue<Event>> streamQueuesMap;
     private final ConcurrentMap<String, StreamMetrics> streamMetricsMap;
+    private final ConcurrentMap<String, StreamSampler> streamSamplersMap;
+    private final ConcurrentMap<String, SubscriptionSampleRate> subscriptionSampleRatesMap;
+    private final ConcurrentMap<String, ConcurrentMap<String, Id>> streamSampleRateGaugesMap;
 
     public StreamManager(Registry registry, MrePublishConfiguration mrePublishConfiguration) {
         this.registry = registry;
@@ -65,6 +71,9 @@ public class StreamManager {
         this.subscriptionIdToStreamsMap = new ConcurrentHashMap<>();
         this.streamQueuesMap = new ConcurrentHashMap<>();
         this.streamMetricsMap = new ConcurrentHashMap<>();
+        this.streamSamplersMap = new ConcurrentHashMap<>();
+        this.subscriptionSampleRatesMap = new ConcurrentHashMap<>();
+        this.streamSampleRateGaugesMap = new ConcurrentHashMap<>();
     }
 
     synchronized Optional<BlockingQueue<Event>> registerStream(
@@ -89,6 +98,7 @@ public class StreamManager {
             // an app tries to emit an event to that stream.
             // Having a subscription for a stream does not create the StreamMetrics.
             streamMetricsMap.putIfAbsent(streamName, new StreamMetrics(registry, streamName));
+            getStreamSampler(streamName);
         }
 
         return Optional.ofNullable(streamQueuesMap.get(streamName));
@@ -130,6 +140,120 @@ public class StreamManager {
         return Optional.ofNullable(streamMetricsMap.get(streamName));
     }
 
+    private StreamSampler getStreamSampler(final String streamName) {
+        return streamSamplersMap.computeIfAbsent(streamName, stream -> {
+            StreamSampler sampler = new StreamSampler();
+            SpectatorUtils.buildAndRegisterPolledGauge(registry, "mantisStreamSampleRate",
+                    sampler, StreamSampler::getStreamRate, "stream", stream);
+            return sampler;
+        });
+    }
+
+    /**
+     * Returns true if an event published to the stream should be dropped before it is enqueued, because none of the
+     * stream's subscriptions sample it or to shed load.
+     */
+    boolean isSampledOut(final String streamName) {
+        if (config.isTeeEnabled()) {
+            // Teed events are not subject to the subscriptions' sample rates.
+            return false;
+        }
+        StreamSampler sampler = streamSamplersMap.get(streamName);
+        return sampler != null && sampler.isSampledOut();
+    }
+
+    /**
+     * Returns true if a dequeued event should not be matched against the subscription.
+     */
+    boolean isSampledOut(final String streamName, final Subscription sub) {
+        StreamSampler sampler = streamSamplersMap.get(streamName);
+        SubscriptionSampleRate rate = subscriptionSampleRatesMap.get(sub.getSubscriptionId());
+        return sampler != null && rate != null && sampler.isSampledOut(rate, !config.isTeeEnabled());
+    }
+
+    /**
+     * Records the outcome of offering an event to the stream queue, used to shed load if adaptive sampling is enabled.
+     */
+    void onStreamOffer(final String streamName, boolean success) {
+        if (config.isAdaptiveSamplingEnabled()) {
+            StreamSampler sampler = streamSamplersMap.get(streamName);
+            if (sampler != null) {
+                sampler.onOffer(success);
+            }
+        }
+    }
+
+    /**
+     * Adapts the rate at which the stream sheds load to the queue overflows seen since the previous invocation.
+     */
+    void adjustStreamSampleRate(final String streamName) {
+        StreamSampler sampler = streamSamplersMap.get(streamName);
+        if (sampler != null) {
+            if (config.isAdaptiveSamplingEnabled()) {
+                sampler.adjust(config.minSampleRate());
+            } else {
+                sampler.reset();
+            }
+        }
+    }
+
+    /**
+     * Applies the sampling hints carried in a subscription's additional params.
+     */
+    synchronized void updateSubscriptionSampleRate(final String subscriptionId,
+                                                   final Map<String, String> additionalParams) {
+        SubscriptionSampleRate rate = subscriptionSampleRatesMap.get(subscriptionId);
+        if (rate == null) {
+            return;
+        }
+
+        rate.update(additionalParams);
+        for (String stream : subscriptionIdToStreamsMap.getOrDefault(subscriptionId, Collections.emptyList())) {
+            updateStreamSampleRate(stream);
+        }
+    }
+
+    /**
+     * Applies the drop rate a source job reported for a subscription. Must be invoked once per report.
+     */
+    synchronized void updateSubscriptionDropRate(final String subscriptionId, final double dropRate) {
+        SubscriptionSampleRate rate = subscriptionSampleRatesMap.get(subscriptionId);
+        if (rate == null) {
+            return;
+        }
+
+        rate.onDropReport(dropRate, config.isAdaptiveSamplingEnabled(), config.minSampleRate());
+        for (String stream : subscriptionIdToStreamsMap.getOrDefault(subscriptionId, Collections.emptyList())) {
+            updateStreamSampleRate(stream);
+        }
+    }
+
+    private void updateStreamSampleRate(final String stream) {
+        List<SubscriptionSampleRate> rates = getStreamSubscriptions(stream).stream()
+                .map(s -> subscriptionSampleRatesMap.get(s.getSubscriptionId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        getStreamSampler(stream).updateSubscriptionRates(rates);
+    }
+
+    private void registerSampleRateGauge(final String stream, final SubscriptionSampleRate rate) {
+        StreamSampler sampler = getStreamSampler(stream);
+        streamSampleRateGaugesMap.computeIfAbsent(stream, s -> new ConcurrentHashMap<>())
+                .computeIfAbsent(rate.getSubscriptionId(), subId ->
+                        SpectatorUtils.buildAndRegisterPolledGauge(registry, "mantisEffectiveSampleRate",
+                                rate, sampler::getEffectiveRate, "stream", stream, "subscriptionId", subId));
+    }
+
+    private void removeSampleRateGauge(final String stream, final String subscriptionId) {
+        ConcurrentMap<String, Id> gauges = streamSampleRateGaugesMap.get(stream);
+        if (gauges != null) {
+            Id id = gauges.remove(subscriptionId);
+            if (id != null) {
+                SpectatorUtils.removePolledGauge(registry, id);
+            }
+        }
+    }
+
     boolean hasSubscriptions(final String streamName) {
         return Optional.ofNullable(streamSubscriptionsMap.get(streamName))
                 .map(subs -> !subs.isEmpty())
@@ -161,6 +285,9 @@ public class StreamManager {
 
         handleDuplicateSubscriptionId(sub);
 
+        SubscriptionSampleRate rate =
+                subscriptionSampleRatesMap.computeIfAbsent(sub.getSubscriptionId(), SubscriptionSampleRate::new);
+
         for (String stream : streams) {
             streamSubscriptionsMap.putIfAbsent(stream, new ConcurrentSkipListSet<>());
 
@@ -172,6 +299,8 @@ public class StreamManager {
 
             subs.add(sub);
             int numSubs = subs.size();
+            registerSampleRateGauge(stream, rate);
+            updateStreamSampleRate(stream);
 
             if (numSubs > maxSubs) {
                 // Cleanup any subscriptions we might have added to another stream before hitting
@@ -200,6 +329,8 @@ public class StreamManager {
 
                 if (subs != null) {
                     subs.removeIf(sub -> sub.getSubscriptionId().equals(subscriptionId));
+                    removeSampleRateGauge(stream, subscriptionId);
+                    updateStreamSampleRate(stream);
 
                     getStreamMetrics(stream).ifPresent(m ->
                             m.getMantisActiveQueryCountGauge().set((double) subs.size()));
@@ -218,6 +349,7 @@ public class StreamManager {
                 subscriptionIdToStreamsMap.getOrDefault(subscriptionId, Collections.emptyList());
         removeSubscriptionId(streams, subscriptionId);
         subscriptionIdToStreamsMap.remove(subscriptionId);
+        subscriptionSampleRatesMap.remove(subscriptionId);
 
         return true;
     }
@@ -227,6 +359,7 @@ public class StreamManager {
         final List<String> streams = sanitizeStreamSubjects(sub.getSubjects());
         removeSubscriptionId(streams, sub.getSubscriptionId());
         subscriptionIdToStreamsMap.remove(sub.getSubscriptionId());
+        subscriptionSampleRatesMap.remove(sub.getSubscriptionId());
 
         return true;
     }
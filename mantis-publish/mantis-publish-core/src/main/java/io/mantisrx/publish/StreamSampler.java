@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.publish;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Samples the events of a single stream in two steps so that events no subscription wants are dropped as early as
+ * possible.
+ * <p>
+ * 1. On publish, an event is kept with the {@link #getStreamRate() stream rate}: the highest
+ * {@link SubscriptionSampleRate} among the stream's subscriptions, scaled down by the shed rate.
+ * 2. On processing, before matching and projection, each subscription keeps the event with its
+ * {@link #getEffectiveRate(SubscriptionSampleRate) effective rate} divided by the stream rate, so that overall every
+ * subscription sees its effective rate of the matching events.
+ * <p>
+ * The shed rate backs off multiplicatively when the stream queue overflows and recovers additively once it stops.
+ */
+class StreamSampler {
+
+    static final double SHED_INCREASE_STEP = 0.01;
+    static final double MAX_SHED_DECREASE = 0.5;
+
+    private final AtomicLong offeredCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private volatile double shedRate = SubscriptionSampleRate.MAX_RATE;
+    private volatile double maxSubscriptionRate = SubscriptionSampleRate.MAX_RATE;
+
+    /**
+     * Returns true if an event published to the stream should be dropped before it is enqueued.
+     */
+    boolean isSampledOut() {
+        return isSampledOut(getStreamRate());
+    }
+
+    /**
+     * Returns true if an event that was kept on publish should not be considered for the given subscription.
+     *
+     * @param streamSampled whether the event was sampled at the stream rate on publish.
+     */
+    boolean isSampledOut(SubscriptionSampleRate subscriptionRate, boolean streamSampled) {
+        double rate = getEffectiveRate(subscriptionRate);
+        if (streamSampled) {
+            double streamRate = getStreamRate();
+            rate = streamRate > 0.0 ? rate / streamRate : 0.0;
+        }
+        return isSampledOut(rate);
+    }
+
+    /**
+     * Records the outcome of offering an event to the stream queue.
+     */
+    void onOffer(boolean success) {
+        offeredCount.incrementAndGet();
+        if (!success) {
+            rejectedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Adapts the shed rate to the queue overflows recorded since the previous invocation.
+     */
+    void adjust(double minRate) {
+        long offered = offeredCount.getAndSet(0);
+        long rejected = rejectedCount.getAndSet(0);
+
+        if (rejected > 0) {
+            double keep = Math.max(MAX_SHED_DECREASE, 1.0 - (double) rejected / offered);
+            shedRate = Math.max(minRate, shedRate * keep);
+        } else if (offered > 0 && shedRate < SubscriptionSampleRate.MAX_RATE) {
+            shedRate = Math.min(SubscriptionSampleRate.MAX_RATE, shedRate + SHED_INCREASE_STEP);
+        }
+    }
+
+    /**
+     * Stops shedding load, e.g. once adaptive sampling is disabled.
+     */
+    void reset() {
+        offeredCount.set(0);
+        rejectedCount.set(0);
+        shedRate = SubscriptionSampleRate.MAX_RATE;
+    }
+
+    /**
+     * Recomputes the highest sample rate among the stream's subscriptions. Invoked whenever they or their rates change.
+     */
+    void updateSubscriptionRates(Collection<SubscriptionSampleRate> subscriptionRates) {
+        double max = 0.0;
+        for (SubscriptionSampleRate rate : subscriptionRates) {
+            max = Math.max(max, rate.getRate());
+        }
+        maxSubscriptionRate = subscriptionRates.isEmpty() ? SubscriptionSampleRate.MAX_RATE : max;
+    }
+
+    double getStreamRate() {
+        return shedRate * maxSubscriptionRate;
+    }
+
+    double getEffectiveRate(SubscriptionSampleRate subscriptionRate) {
+        return shedRate * subscriptionRate.getRate();
+    }
+
+    private static boolean isSampledOut(double rate) {
+        return rate < SubscriptionSampleRate.MAX_RATE && ThreadLocalRandom.current().nextDouble() >= rate;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.publish;
+
+import io.mantisrx.publish.proto.MantisServerDropReport;
+import io.mantisrx.publish.proto.MantisServerSubscription;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The fraction of matching events sampled for a single subscription, independent of the stream it is applied to.
+ * <p>
+ * It is the product of the rate requested by the subscription ({@link MantisServerSubscription#SAMPLE_RATE_PARAM}) and
+ * an adaptive rate that backs off multiplicatively while the source job reports downstream drops
+ * ({@link MantisServerDropReport}) and recovers additively once they stop.
+ */
+class SubscriptionSampleRate {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SubscriptionSampleRate.class);
+
+    static final double MAX_RATE = 1.0;
+    static final double ADAPTIVE_INCREASE_STEP = 0.1;
+
+    private final String subscriptionId;
+
+    private volatile double requestedRate = MAX_RATE;
+    private volatile double adaptiveRate = MAX_RATE;
+
+    SubscriptionSampleRate(String subscriptionId) {
+        this.subscriptionId = subscriptionId;
+    }
+
+    String getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    /**
+     * Applies the hints carried in a subscription's additional params. Invoked on every subscription refresh.
+     *
+     * @param additionalParams the subscription's additional params, may be null.
+     */
+    void update(Map<String, String> additionalParams) {
+        requestedRate = clamp(parseRate(additionalParams, MantisServerSubscription.SAMPLE_RATE_PARAM, MAX_RATE),
+                0.0, MAX_RATE);
+    }
+
+    /**
+     * Applies the drop rate the source job reported for this subscription. Must be invoked once per report.
+     *
+     * @param dropRate the fraction of the events sent for this subscription dropped downstream.
+     * @param adaptive whether to adapt to the reported drop rate.
+     * @param minRate  lower bound of the adaptive rate.
+     */
+    void onDropReport(double dropRate, boolean adaptive, double minRate) {
+        if (!adaptive) {
+            adaptiveRate = MAX_RATE;
+            return;
+        }
+
+        dropRate = Double.isNaN(dropRate) ? 0.0 : clamp(dropRate, 0.0, MAX_RATE);
+        if (dropRate > 0.0) {
+            adaptiveRate = Math.max(minRate, adaptiveRate * (MAX_RATE - dropRate));
+        } else {
+            adaptiveRate = Math.min(MAX_RATE, adaptiveRate + ADAPTIVE_INCREASE_STEP);
+        }
+    }
+
+    /**
+     * Returns the fraction of matching events to sample for this subscription.
+     */
+    double getRate() {
+        return requestedRate * adaptiveRate;
+    }
+
+    private double parseRate(Map<String, String> additionalParams, String param, double defaultRate) {
+        String value = additionalParams == null ? null : additionalParams.get(param);
+        if (value == null) {
+            return defaultRate;
+        }
+
+        try {
+            double rate = Double.parseDouble(value);
+            return Double.isNaN(rate) ? defaultRate : rate;
+        } catch (NumberFormatException e) {
+            LOG.debug("ignoring invalid {} {} for subscription {}", param, value, subscriptionId);
+            return defaultRate;
+        }
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    @Override
+    public String toString() {
+        return "SubscriptionSampleRate{"
+                + " subscriptionId='" + subscriptionId + '\''
+                + ", requestedRate=" + requestedRate
+                + ", adaptiveRate=" + adaptiveRate
+                + '}';
+    }
+}
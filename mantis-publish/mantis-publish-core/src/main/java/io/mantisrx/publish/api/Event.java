@@ -38,7 +38,12 @@ public class Event {
         JACKSON_MAPPER.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
     }
 
-    private final Map<String, Object> attributes;
+    private Map<String, Object> attributes;
+
+    /**
+     * Whether {@link #attributes} is shared with another event or map and must be copied before it is modified.
+     */
+    private boolean shared;
 
     public Event() {
         this(null);
@@ -65,7 +70,32 @@ public class Event {
         }
     }
 
+    /**
+     * Takes ownership of the given attributes without copying them.
+     */
+    static Event wrap(Map<String, Object> attributes, boolean shared) {
+        Event event = new Event(attributes, false);
+        event.shared = shared;
+        return event;
+    }
+
+    /**
+     * Returns a copy of this event that shares its attributes until either of them is modified through
+     * {@link #set(String, Object)}, at which point the modified event copies them.
+     * <p>
+     * This is cheaper than {@link #Event(Map)} for events that are usually only read, but the maps returned by
+     * {@link #getMap()} and {@link #entries()} of both events must not be modified directly.
+     */
+    public Event copyOnWrite() {
+        shared = true;
+        return wrap(attributes, true);
+    }
+
     public Event set(String key, Object value) {
+        if (shared) {
+            attributes = new HashMap<>(attributes);
+            shared = false;
+        }
         attributes.put(key, value);
         return this;
     }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.publish.api;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * Builds {@link Event}s for publishing without the copies made by {@link Event#Event(Map)}.
+ * <p>
+ * A builder is reusable: {@link #build()} hands its attributes over to the event and starts over with a map sized for
+ * the largest event built so far, so that building events of a similar shape never rehashes. Keys are interned, so
+ * that keys created per event (e.g. parsed header names) are not retained once per queued event.
+ * <p>
+ * Builders are not thread-safe. Use {@link #forCurrentThread()} to get one per thread:
+ * <pre>{@code
+ * Event event = EventBuilder.forCurrentThread()
+ *         .set("path", request.getPath())
+ *         .set("status", response.getStatus())
+ *         .build();
+ * }</pre>
+ */
+public class EventBuilder {
+
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+    private static final int MAX_INTERNED_KEYS = 10_000;
+
+    private static final ConcurrentMap<String, String> INTERNED_KEYS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<EventBuilder> THREAD_BUILDERS = ThreadLocal.withInitial(EventBuilder::new);
+
+    private int expectedSize;
+    private Map<String, Object> attributes;
+
+    public EventBuilder() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * @param expectedSize number of attributes events are expected to have.
+     */
+    public EventBuilder(int expectedSize) {
+        this.expectedSize = Math.max(1, expectedSize);
+        this.attributes = newAttributes(this.expectedSize);
+    }
+
+    /**
+     * Returns the calling thread's builder, discarding any attributes left over from an event that was not built.
+     */
+    public static EventBuilder forCurrentThread() {
+        return THREAD_BUILDERS.get().reset();
+    }
+
+    public EventBuilder set(String key, Object value) {
+        attributes.put(intern(key), value);
+        return this;
+    }
+
+    /**
+     * Sets all of the given attributes.
+     */
+    public EventBuilder setAll(Map<String, Object> values) {
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            set(entry.getKey(), entry.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * Discards the attributes set since the previous {@link #build()}.
+     */
+    public EventBuilder reset() {
+        attributes.clear();
+        return this;
+    }
+
+    /**
+     * Returns an event owning the attributes set since the previous {@link #build()}. The builder may be reused
+     * right away.
+     */
+    public Event build() {
+        Event event = Event.wrap(attributes, false);
+        expectedSize = Math.max(expectedSize, attributes.size());
+        attributes = newAttributes(expectedSize);
+        return event;
+    }
+
+    private static Map<String, Object> newAttributes(int expectedSize) {
+        // Sized so that expectedSize entries stay under the default load factor.
+        return new HashMap<>((int) (expectedSize / 0.75f) + 1);
+    }
+
+    /**
+     * Returns a canonical instance of the given key, up to a bound on the number of distinct keys.
+     */
+    static String intern(String key) {
+        if (key == null) {
+            return null;
+        }
+        String interned = INTERNED_KEYS.get(key);
+        if (interned != null) {
+            return interned;
+        }
+        if (INTERNED_KEYS.size() >= MAX_INTERNED_KEYS) {
+            return key;
+        }
+        interned = INTERNED_KEYS.putIfAbsent(key, key);
+        return interned == null ? key : interned;
+    }
+}
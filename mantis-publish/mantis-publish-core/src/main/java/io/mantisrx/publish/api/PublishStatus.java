@@ -41,6 +41,12 @@ public enum PublishStatus {
      */
     SKIPPED_INVALID_EVENT(Status.PRECONDITION_FAILED),
 
+    /**
+     * Event was not enqueued since it was sampled out, either at the rate requested by the stream's subscriptions or
+     * to shed load
+     */
+    SKIPPED_SAMPLED(Status.PRECONDITION_FAILED),
+
     // Events dropped due to failures like burst in incoming traffic, too many stream queues created, transport issues
     /**
      * Event enqueue failed due to stream queue being full
@@ -231,6 +231,55 @@ public interface MrePublishConfiguration {
         return "";
     }
 
+    /**
+     * Fetch subscription changes from a single Mantis worker with a versioned long-poll instead of re-reading the full
+     * subscription list from several workers on every refresh.
+     * <p>
+     * Property: <code>mantis.publish.subs.delta.enabled</code>
+     * <p>
+     * @see SampleArchaiusMrePublishConfiguration#SUBS_DELTA_ENABLED_PROP
+     */
+    default boolean isSubscriptionDeltaEnabled() {
+        return false;
+    }
+
+    /**
+     * Maximum duration in milliseconds a Mantis worker holds a subscription delta request open while waiting for
+     * subscriptions to change. Only used if {@link #isSubscriptionDeltaEnabled()}.
+     * <p>
+     * Property: <code>mantis.publish.subs.delta.wait.msec</code>
+     * <p>
+     * @see SampleArchaiusMrePublishConfiguration#SUBS_DELTA_WAIT_MSEC_PROP
+     */
+    default int subscriptionDeltaWaitMsec() {
+        return 5000;
+    }
+
+    /**
+     * Adapt the rate at which events are sampled, backing off a stream when its queue overflows and a subscription
+     * when the source job reports downstream drops for it, and recovering once they stop. Drops are only reported
+     * with {@link #isSubscriptionDeltaEnabled() subscription deltas}. Sample rates requested by subscriptions are
+     * honored regardless of this setting.
+     * <p>
+     * Property: <code>mantis.publish.sampling.adaptive.enabled</code>
+     * <p>
+     * @see SampleArchaiusMrePublishConfiguration#ADAPTIVE_SAMPLING_ENABLED_PROP
+     */
+    default boolean isAdaptiveSamplingEnabled() {
+        return false;
+    }
+
+    /**
+     * Lower bound of the rate adaptive sampling backs off to, so that every subscription keeps receiving some events.
+     * <p>
+     * Property: <code>mantis.publish.sampling.min.rate</code>
+     * <p>
+     * @see SampleArchaiusMrePublishConfiguration#MIN_SAMPLE_RATE_PROP
+     */
+    default double minSampleRate() {
+        return 0.01;
+    }
+
     /**
      * Netty channel configuration for pushing events. Determine if events should be gzip encoded when send over the channel.
      * <p>
@@ -361,4 +410,27 @@ public interface MrePublishConfiguration {
      * @see SampleArchaiusMrePublishConfiguration#WORKER_POOL_WORKER_ERROR_TIMEOUT_SEC
      */
     int getWorkerPoolWorkerErrorTimeoutSec();
+
+    /**
+     * Moving average of a Mantis worker's send latency in milliseconds above which the worker is temporarily ejected
+     * from selection. A value of zero or less disables ejection.
+     * <p>
+     * Property: <code>mantis.publish.workerpool.worker.ejection.latency.msec</code>
+     * <p>
+     * @see SampleArchaiusMrePublishConfiguration#WORKER_POOL_WORKER_EJECTION_LATENCY_MSEC
+     */
+    default int getWorkerPoolWorkerEjectionLatencyMs() {
+        return 1000;
+    }
+
+    /**
+     * Duration in seconds after which an ejected Mantis worker is again considered for selection.
+     * <p>
+     * Property: <code>mantis.publish.workerpool.worker.ejection.timeout.sec</code>
+     * <p>
+     * @see SampleArchaiusMrePublishConfiguration#WORKER_POOL_WORKER_EJECTION_TIMEOUT_SEC
+     */
+    default int getWorkerPoolWorkerEjectionTimeoutSec() {
+        return 30;
+    }
 }
@@ -42,6 +42,10 @@ public class SampleArchaiusMrePublishConfiguration implements MrePublishConfigur
     public static final String SUBS_REFRESH_INTERVAL_SEC_PROP = PROP_PREFIX + ".subs.refresh.interval.sec";
     public static final String SUBS_EXPIRY_INTERVAL_SEC_PROP = PROP_PREFIX + ".subs.expiry.interval.sec";
     public static final String SUBS_FETCH_QUERY_PARAMS_STR_PROP = PROP_PREFIX + ".subs.fetch.query.params.string";
+    public static final String SUBS_DELTA_ENABLED_PROP = PROP_PREFIX + ".subs.delta.enabled";
+    public static final String SUBS_DELTA_WAIT_MSEC_PROP = PROP_PREFIX + ".subs.delta.wait.msec";
+    public static final String ADAPTIVE_SAMPLING_ENABLED_PROP = PROP_PREFIX + ".sampling.adaptive.enabled";
+    public static final String MIN_SAMPLE_RATE_PROP = PROP_PREFIX + ".sampling.min.rate";
     public static final String DISCOVERY_API_HOSTNAME_PROP = PROP_PREFIX + ".discovery.api.hostname";
     public static final String DISCOVERY_API_PORT_PROP = PROP_PREFIX + ".discovery.api.port";
     public static final String MAX_NUM_WORKERS_FOR_SUB_REFRESH = PROP_PREFIX + ".subs.refresh.max.num.workers";
@@ -55,6 +59,8 @@ public class SampleArchaiusMrePublishConfiguration implements MrePublishConfigur
     public static final String WORKER_POOL_REFRESH_INTERVAL_SEC_PROP = WORKER_POOL_PROP_PREFIX + "refresh.interval.sec";
     public static final String WORKER_POOL_WORKER_ERROR_QUOTA_PROP = WORKER_POOL_PROP_PREFIX + "worker.error.quota";
     public static final String WORKER_POOL_WORKER_ERROR_TIMEOUT_SEC = WORKER_POOL_PROP_PREFIX + "worker.error.timeout.sec";
+    public static final String WORKER_POOL_WORKER_EJECTION_LATENCY_MSEC = WORKER_POOL_PROP_PREFIX + "worker.ejection.latency.msec";
+    public static final String WORKER_POOL_WORKER_EJECTION_TIMEOUT_SEC = WORKER_POOL_PROP_PREFIX + "worker.ejection.timeout.sec";
     // Event Channel properties.
     public static final String CHANNEL_PROP_PREFIX = PROP_PREFIX + ".channel.";
     public static final String CHANNEL_GZIP_ENABLED_PROP = CHANNEL_PROP_PREFIX + "gzip.enabled";
@@ -94,6 +100,10 @@ public class SampleArchaiusMrePublishConfiguration implements MrePublishConfigur
     private final Map<String, Property<Integer>> queueSizeByStreamType = new HashMap<>();
     private final Map<String, Property<String>> jobClusterByStreamType = new HashMap<>();
     private final Property<String> subsFetchQueryParamStr;
+    private final Property<Boolean> subsDeltaEnabled;
+    private final Property<Integer> subsDeltaWaitMSecProp;
+    private final Property<Boolean> adaptiveSamplingEnabled;
+    private final Property<Double> minSampleRate;
     private final Property<String> discoveryApiHostnameProp;
     private final Property<Integer> discoveryApiPortProp;
     private final Property<Integer> drainerIntervalMSecProp;
@@ -106,6 +116,8 @@ public class SampleArchaiusMrePublishConfiguration implements MrePublishConfigur
     private final Property<Integer> workerPoolCapacity;
     private final Property<Integer> workerPoolWorkerErrorQuota;
     private final Property<Integer> workerPoolWorkerErrorTimeoutSec;
+    private final Property<Integer> workerPoolWorkerEjectionLatencyMs;
+    private final Property<Integer> workerPoolWorkerEjectionTimeoutSec;
 
     private static final Logger LOG = LoggerFactory.getLogger(SampleArchaiusMrePublishConfiguration.class);
 
@@ -160,6 +172,14 @@ public class SampleArchaiusMrePublishConfiguration implements MrePublishConfigur
                 .orElse(5 * 60);
         this.subsFetchQueryParamStr = propRepo.get(SUBS_FETCH_QUERY_PARAMS_STR_PROP, String.class)
                 .orElse("");
+        this.subsDeltaEnabled = propRepo.get(SUBS_DELTA_ENABLED_PROP, Boolean.class)
+                .orElse(false);
+        this.subsDeltaWaitMSecProp = propRepo.get(SUBS_DELTA_WAIT_MSEC_PROP, Integer.class)
+                .orElse(5000);
+        this.adaptiveSamplingEnabled = propRepo.get(ADAPTIVE_SAMPLING_ENABLED_PROP, Boolean.class)
+                .orElse(false);
+        this.minSampleRate = propRepo.get(MIN_SAMPLE_RATE_PROP, Double.class)
+                .orElse(0.01);
         this.discoveryApiHostnameProp = propRepo.get(DISCOVERY_API_HOSTNAME_PROP, String.class)
                 .orElse("127.0.0.1");
         this.discoveryApiPortProp = propRepo.get(DISCOVERY_API_PORT_PROP, Integer.class)
@@ -208,6 +228,12 @@ public class SampleArchaiusMrePublishConfiguration implements MrePublishConfigur
         this.workerPoolWorkerErrorTimeoutSec =
                 propRepo.get(WORKER_POOL_WORKER_ERROR_TIMEOUT_SEC, Integer.class)
                         .orElse(300);
+        this.workerPoolWorkerEjectionLatencyMs =
+                propRepo.get(WORKER_POOL_WORKER_EJECTION_LATENCY_MSEC, Integer.class)
+                        .orElse(1000);
+        this.workerPoolWorkerEjectionTimeoutSec =
+                propRepo.get(WORKER_POOL_WORKER_EJECTION_TIMEOUT_SEC, Integer.class)
+                        .orElse(30);
     }
 
     @Override
@@ -340,6 +366,26 @@ public class SampleArchaiusMrePublishConfiguration implements MrePublishConfigur
         return subsFetchQueryParamStr.get();
     }
 
+    @Override
+    public boolean isSubscriptionDeltaEnabled() {
+        return subsDeltaEnabled.get();
+    }
+
+    @Override
+    public int subscriptionDeltaWaitMsec() {
+        return subsDeltaWaitMSecProp.get();
+    }
+
+    @Override
+    public boolean isAdaptiveSamplingEnabled() {
+        return adaptiveSamplingEnabled.get();
+    }
+
+    @Override
+    public double minSampleRate() {
+        return minSampleRate.get();
+    }
+
     @Override
     public boolean getGzipEnabled() {
         return gzipEnabled.get();
@@ -409,4 +455,14 @@ public class SampleArchaiusMrePublishConfiguration implements MrePublishConfigur
     public int getWorkerPoolWorkerErrorTimeoutSec() {
         return workerPoolWorkerErrorTimeoutSec.get();
     }
+
+    @Override
+    public int getWorkerPoolWorkerEjectionLatencyMs() {
+        return workerPoolWorkerEjectionLatencyMs.get();
+    }
+
+    @Override
+    public int getWorkerPoolWorkerEjectionTimeoutSec() {
+        return workerPoolWorkerEjectionTimeoutSec.get();
+    }
 }
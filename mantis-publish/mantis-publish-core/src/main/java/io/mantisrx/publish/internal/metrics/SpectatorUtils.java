@@ -17,11 +17,13 @@
 package io.mantisrx.publish.internal.metrics;
 
 import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.DistributionSummary;
 import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Registry;
 import com.netflix.spectator.api.Timer;
 import com.netflix.spectator.api.patterns.PolledMeter;
 import com.netflix.spectator.impl.AtomicDouble;
+import java.util.function.ToDoubleFunction;
 
 
 public class SpectatorUtils {
@@ -56,4 +58,21 @@ public class SpectatorUtils {
         Id id = registry.createId(name).withTags(tags);
         return registry.timer(id);
     }
+
+    public static DistributionSummary buildAndRegisterDistributionSummary(Registry registry, String name,
+                                                                         String... tags) {
+        Id id = registry.createId(name).withTags(tags);
+        return registry.distributionSummary(id);
+    }
+
+    public static <T> Id buildAndRegisterPolledGauge(Registry registry, String name, T obj, ToDoubleFunction<T> f,
+                                                     String... tags) {
+        Id id = registry.createId(name).withTags(tags);
+        PolledMeter.using(registry).withId(id).monitorValue(obj, f);
+        return id;
+    }
+
+    public static void removePolledGauge(Registry registry, Id id) {
+        PolledMeter.remove(registry, id);
+    }
 }
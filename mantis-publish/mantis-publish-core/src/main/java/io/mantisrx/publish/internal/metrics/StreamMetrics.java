@@ -31,6 +31,7 @@ public class StreamMetrics {
     private final Counter mantisEventsDroppedProcessingExceptionCounter;
     private final Counter mantisEventsProcessedCounter;
     private final Counter mantisEventsSkippedCounter;
+    private final Counter mantisEventsSampledOutCounter;
     private final Counter mantisQueryRejectedCounter;
     private final Counter mantisQueryFailedCounter;
     private final Counter mantisQueryProjectionFailedCounter;
@@ -51,6 +52,8 @@ public class StreamMetrics {
                 registry, "mantisEventsProcessed", "stream", streamName);
         this.mantisEventsSkippedCounter = SpectatorUtils.buildAndRegisterCounter(
                 registry, "mantisEventsSkipped", "stream", streamName);
+        this.mantisEventsSampledOutCounter = SpectatorUtils.buildAndRegisterCounter(
+                registry, "mantisEventsSampledOut", "stream", streamName);
         this.mantisQueryRejectedCounter = SpectatorUtils.buildAndRegisterCounter(
                 registry, "mantisQueryRejected", "stream", streamName);
         this.mantisQueryFailedCounter = SpectatorUtils.buildAndRegisterCounter(
@@ -87,6 +90,10 @@ public class StreamMetrics {
         return mantisEventsSkippedCounter;
     }
 
+    public Counter getMantisEventsSampledOutCounter() {
+        return mantisEventsSampledOutCounter;
+    }
+
     public Counter getMantisQueryRejectedCounter() {
         return mantisQueryRejectedCounter;
     }
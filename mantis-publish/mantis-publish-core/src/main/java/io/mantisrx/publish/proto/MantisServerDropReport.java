@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.publish.proto;
+
+import io.mantisrx.shaded.com.fasterxml.jackson.annotation.JsonCreator;
+import io.mantisrx.shaded.com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.mantisrx.shaded.com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+
+/**
+ * The fraction of the events sent for each subscription that a source job worker had to drop downstream during its
+ * most recent report interval.
+ * <p>
+ * Every interval produces a new report with a higher {@link #getReportId() report id}, so clients that poll more often
+ * than reports are produced can tell a report they already applied from a new one. Report ids are only comparable
+ * within the {@link MantisServerSubscriptionDelta#getEpoch() epoch} of the worker that issued them.
+ */
+public class MantisServerDropReport {
+
+    private final long reportId;
+    private final Map<String, Double> dropRates;
+
+    @JsonCreator
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public MantisServerDropReport(@JsonProperty("reportId") long reportId,
+                                  @JsonProperty("dropRates") Map<String, Double> dropRates) {
+        this.reportId = reportId;
+        this.dropRates = dropRates == null ? Collections.emptyMap() : dropRates;
+    }
+
+    public long getReportId() {
+        return reportId;
+    }
+
+    /**
+     * Returns the drop rate, in {@code [0, 1]}, of each subscription that had drops. Subscriptions missing from it had
+     * none.
+     */
+    public Map<String, Double> getDropRates() {
+        return dropRates;
+    }
+
+    public double getDropRate(String subscriptionId) {
+        return dropRates.getOrDefault(subscriptionId, 0.0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MantisServerDropReport that = (MantisServerDropReport) o;
+        return reportId == that.reportId &&
+                Objects.equals(dropRates, that.dropRates);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(reportId, dropRates);
+    }
+
+    @Override
+    public String toString() {
+        return "MantisServerDropReport{"
+                + " reportId=" + reportId
+                + ", dropRates=" + dropRates
+                + '}';
+    }
+}
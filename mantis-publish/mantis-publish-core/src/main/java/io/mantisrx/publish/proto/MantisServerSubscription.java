@@ -26,6 +26,12 @@ import java.util.Objects;
 
 public class MantisServerSubscription {
 
+    /**
+     * Optional {@link #getAdditionalParams() additional param} holding the fraction, in {@code (0, 1]}, of matching
+     * events the subscriber asks publishers to send.
+     */
+    public static final String SAMPLE_RATE_PARAM = "sampleRate";
+
     private final String query;
     private final String subscriptionId;
     private final Map<String, String> additionalParams;
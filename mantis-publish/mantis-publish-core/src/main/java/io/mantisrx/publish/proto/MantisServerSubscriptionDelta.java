@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.publish.proto;
+
+import io.mantisrx.shaded.com.fasterxml.jackson.annotation.JsonCreator;
+import io.mantisrx.shaded.com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.mantisrx.shaded.com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+
+/**
+ * Changes to the subscriptions of a source job worker since a version previously seen by the client.
+ * <p>
+ * If {@link #isFull()} is set, {@link #getSubscriptionList()} is the complete set of subscriptions at
+ * {@link #getVersion()} and replaces whatever the client held. Otherwise it only holds the subscriptions
+ * added since the requested version, and {@link #getRemovedSubscriptionIds()} those that were removed.
+ * <p>
+ * Versions only make sense within the {@link #getEpoch() epoch} of the worker that issued them. A worker that
+ * restarts starts a new epoch, and clients send back the epoch they hold so the worker can answer with a full
+ * snapshot instead of a delta against versions it never issued.
+ * <p>
+ * Workers also piggyback their latest {@link #getDropReport() drop report} on every delta.
+ * <p>
+ * The JSON form is a superset of {@link MantisServerSubscriptionEnvelope}, so a plain envelope returned by a
+ * worker that does not support deltas reads as an unversioned full snapshot.
+ */
+public class MantisServerSubscriptionDelta {
+
+    public static final long UNVERSIONED = -1L;
+
+    private final String epoch;
+    private final long version;
+    private final boolean full;
+    private final List<MantisServerSubscription> subscriptionList;
+    private final List<String> removedSubscriptionIds;
+    private final MantisServerDropReport dropReport;
+
+    @JsonCreator
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public MantisServerSubscriptionDelta(@JsonProperty("epoch") String epoch,
+                                         @JsonProperty("version") Long version,
+                                         @JsonProperty("full") Boolean full,
+                                         @JsonProperty("subscriptionList") List<MantisServerSubscription> subscriptionList,
+                                         @JsonProperty("removedSubscriptionIds") List<String> removedSubscriptionIds,
+                                         @JsonProperty("dropReport") MantisServerDropReport dropReport) {
+        this.epoch = epoch;
+        this.version = version == null ? UNVERSIONED : version;
+        this.full = full == null || full;
+        this.subscriptionList = subscriptionList == null ? Collections.emptyList() : subscriptionList;
+        this.removedSubscriptionIds = removedSubscriptionIds == null ? Collections.emptyList() : removedSubscriptionIds;
+        this.dropReport = dropReport;
+    }
+
+    /**
+     * Returns the epoch of the worker that issued this delta, or {@code null} if the worker does not have one.
+     */
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public List<MantisServerSubscription> getSubscriptionList() {
+        return subscriptionList;
+    }
+
+    public List<String> getRemovedSubscriptionIds() {
+        return removedSubscriptionIds;
+    }
+
+    /**
+     * Returns the latest drop report of the worker, or {@code null} if the worker does not report drops.
+     */
+    public MantisServerDropReport getDropReport() {
+        return dropReport;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MantisServerSubscriptionDelta that = (MantisServerSubscriptionDelta) o;
+        return Objects.equals(epoch, that.epoch) &&
+                version == that.version &&
+                full == that.full &&
+                Objects.equals(subscriptionList, that.subscriptionList) &&
+                Objects.equals(removedSubscriptionIds, that.removedSubscriptionIds) &&
+                Objects.equals(dropReport, that.dropReport);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(epoch, version, full, subscriptionList, removedSubscriptionIds, dropReport);
+    }
+
+    @Override
+    public String toString() {
+        return "MantisServerSubscriptionDelta{"
+                + " epoch=" + epoch
+                + ", version=" + version
+                + ", full=" + full
+                + ", subscriptionList=" + subscriptionList
+                + ", removedSubscriptionIds=" + removedSubscriptionIds
+                + ", dropReport=" + dropReport
+                + '}';
+    }
+}
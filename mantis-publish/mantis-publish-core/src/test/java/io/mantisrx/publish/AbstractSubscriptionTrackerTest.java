@@ -43,6 +43,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -307,6 +309,43 @@ public class AbstractSubscriptionTrackerTest {
         assertEquals(expected, subIds);
     }
 
+    @Test
+    public void testJobClustersAreFetchedConcurrently() {
+        String requestStream = "requestStream";
+        MantisJobDiscovery jobDiscovery = mock(MantisJobDiscovery.class);
+        when(jobDiscovery.getStreamNameToJobClusterMapping(anyString())).thenReturn(ImmutableMap.of(
+                StreamType.DEFAULT_EVENT_STREAM, "cluster1",
+                requestStream, "cluster2"));
+        SampleArchaiusMrePublishConfiguration archaiusConfiguration =
+                new SampleArchaiusMrePublishConfiguration(DefaultPropertyFactory.from(config));
+        // each fetch only completes once the other one started, like two long-polls waiting for changes
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        AbstractSubscriptionTracker tracker =
+                new AbstractSubscriptionTracker(archaiusConfiguration, new DefaultRegistry(), jobDiscovery, streamManager) {
+                    @Override
+                    public Optional<MantisServerSubscriptionEnvelope> fetchSubscriptions(String jobCluster) {
+                        bothStarted.countDown();
+                        try {
+                            if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                                return Optional.empty();
+                            }
+                        } catch (InterruptedException e) {
+                            return Optional.empty();
+                        }
+                        String stream = "cluster1".equals(jobCluster) ? "defaultStream" : requestStream;
+                        return Optional.of(new MantisServerSubscriptionEnvelope(ImmutableList.of(
+                                new MantisServerSubscription(jobCluster + "_id1", "select * from " + stream + " where id = 1", null))));
+                    }
+                };
+
+        streamManager.registerStream(StreamType.DEFAULT_EVENT_STREAM);
+        streamManager.registerStream(requestStream);
+        tracker.refreshSubscriptions();
+
+        Set<String> subIds = tracker.getCurrentSubscriptions().stream().map(Subscription::getSubscriptionId).collect(Collectors.toSet());
+        assertEquals(ImmutableSet.of("cluster1_id1", "cluster2_id1"), subIds);
+    }
+
     public static class TestSubscriptionTracker extends AbstractSubscriptionTracker {
         private Map<String, List<MantisServerSubscription>> nextSubscriptions;
 
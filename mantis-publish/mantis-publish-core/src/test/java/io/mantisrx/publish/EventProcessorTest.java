@@ -114,4 +114,35 @@ class EventProcessorTest {
         assertSame("***", re.get("param.password"));
         assertEquals(re.get("myname"), "mantis");
     }
+
+    @Test
+    void shouldMaskSensitiveFieldsWithoutAlteringUserMap() {
+        SettableConfig config = new DefaultSettableConfig();
+        config.setProperty(SampleArchaiusMrePublishConfiguration.MRE_CLIENT_BLACKLIST_KEYS_PROP, "param.password");
+        config.setProperty(SampleArchaiusMrePublishConfiguration.DEEPCOPY_EVENT_MAP_ENABLED_PROP, true);
+        MrePublishConfiguration mrePublishConfiguration =
+                new SampleArchaiusMrePublishConfiguration(DefaultPropertyFactory.from(config));
+        EventProcessor processor = new EventProcessor(mrePublishConfiguration, streamManager, mock(Tee.class));
+
+        when(streamManager.hasSubscriptions(anyString())).thenReturn(true);
+        Set<Subscription> subscriptions = new ConcurrentSkipListSet<>();
+        subscriptions.add(new MQLSubscription("id", "select * where true"));
+        when(streamManager.getStreamSubscriptions(anyString())).thenReturn(subscriptions);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("param.password", "hunter2");
+        data.put("myname", "mantis");
+        Event actual = processor.process(StreamType.DEFAULT_EVENT_STREAM, new Event(data, false));
+
+        assertEquals("***", actual.get("param.password"));
+        assertEquals("mantis", actual.get("myname"));
+        assertEquals("hunter2", data.get("param.password"));
+
+        // A changed blacklist is picked up.
+        config.setProperty(SampleArchaiusMrePublishConfiguration.MRE_CLIENT_BLACKLIST_KEYS_PROP, "myname, other");
+        actual = processor.process(StreamType.DEFAULT_EVENT_STREAM, new Event(data, false));
+        assertEquals("hunter2", actual.get("param.password"));
+        assertEquals("***", actual.get("myname"));
+        assertEquals("mantis", data.get("myname"));
+    }
 }
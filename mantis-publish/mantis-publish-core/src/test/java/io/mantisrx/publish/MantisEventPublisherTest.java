@@ -121,6 +121,17 @@ public class MantisEventPublisherTest {
         assertStatusAsync(PublishStatus.SKIPPED_NO_SUBSCRIPTIONS, statusF);
     }
 
+    @Test
+    public void testPublishStatusSkipOnSampledOut() {
+        when(streamManager.registerStream(StreamType.DEFAULT_EVENT_STREAM)).thenReturn(Optional.of(new LinkedBlockingDeque<>()));
+        when(streamManager.hasSubscriptions(StreamType.DEFAULT_EVENT_STREAM)).thenReturn(true);
+        when(streamManager.isSampledOut(StreamType.DEFAULT_EVENT_STREAM)).thenReturn(true);
+        boolean publishEnabled = true;
+        MantisEventPublisher eventPublisher = new MantisEventPublisher(testConfig(publishEnabled), streamManager);
+        CompletionStage<PublishStatus> statusF = eventPublisher.publish(testEvent());
+        assertStatusAsync(PublishStatus.SKIPPED_SAMPLED, statusF);
+    }
+
     @Test
     public void testPublishStatusFailOnStreamNotRegistered() {
         when(streamManager.registerStream(StreamType.DEFAULT_EVENT_STREAM)).thenReturn(Optional.empty());
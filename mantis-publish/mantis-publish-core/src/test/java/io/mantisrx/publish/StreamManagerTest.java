@@ -25,10 +25,14 @@ import com.netflix.archaius.api.PropertyRepository;
 import com.netflix.archaius.api.config.SettableConfig;
 import com.netflix.archaius.config.DefaultSettableConfig;
 import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.patterns.PolledMeter;
 import io.mantisrx.publish.api.StreamType;
 import io.mantisrx.publish.config.SampleArchaiusMrePublishConfiguration;
 import io.mantisrx.publish.core.Subscription;
 import io.mantisrx.publish.core.SubscriptionFactory;
+import io.mantisrx.publish.proto.MantisServerSubscription;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Optional;
 import java.util.Set;
@@ -39,6 +43,7 @@ import org.junit.jupiter.api.Test;
 class StreamManagerTest {
 
     private SettableConfig config;
+    private Registry registry;
     private StreamManager streamManager;
 
     @BeforeEach
@@ -46,7 +51,8 @@ class StreamManagerTest {
         config = new DefaultSettableConfig();
         PropertyRepository propertyRepository = DefaultPropertyFactory.from(config);
         SampleArchaiusMrePublishConfiguration archaiusConfiguration = new SampleArchaiusMrePublishConfiguration(propertyRepository);
-        streamManager = new StreamManager(new DefaultRegistry(), archaiusConfiguration);
+        registry = new DefaultRegistry();
+        streamManager = new StreamManager(registry, archaiusConfiguration);
     }
 
     @Test
@@ -255,4 +261,88 @@ class StreamManagerTest {
         config.setProperty(
                 SampleArchaiusMrePublishConfiguration.STREAM_INACTIVE_DURATION_THRESHOLD_NAME, 24 * 60 * 60);
     }
+
+    @Test
+    void testSubscriptionSampleRate() {
+        final String streamName = "testStream";
+        streamManager.registerStream(streamName);
+
+        Optional<Subscription> subscriptionO = SubscriptionFactory
+                .getSubscription("subId4", "SELECT * FROM " + streamName);
+        assertTrue(subscriptionO.isPresent());
+        Subscription subscription = subscriptionO.get();
+        streamManager.addStreamSubscription(subscription);
+
+        // Without hints every event is sampled.
+        assertFalse(streamManager.isSampledOut(streamName));
+        assertFalse(streamManager.isSampledOut(streamName, subscription));
+        assertEquals(1.0, sampleRate(streamName, "subId4"));
+
+        streamManager.updateSubscriptionSampleRate("subId4",
+                Collections.singletonMap(MantisServerSubscription.SAMPLE_RATE_PARAM, "0"));
+        assertTrue(streamManager.isSampledOut(streamName));
+        assertEquals(0.0, sampleRate(streamName, "subId4"));
+
+        streamManager.updateSubscriptionSampleRate("subId4",
+                Collections.singletonMap(MantisServerSubscription.SAMPLE_RATE_PARAM, "0.25"));
+        assertEquals(0.25, sampleRate(streamName, "subId4"));
+
+        // Refreshing the subscription with the same hints doesn't change its rate.
+        streamManager.updateSubscriptionSampleRate("subId4",
+                Collections.singletonMap(MantisServerSubscription.SAMPLE_RATE_PARAM, "0.25"));
+        assertEquals(0.25, sampleRate(streamName, "subId4"));
+
+        streamManager.removeStreamSubscription(subscription);
+        assertFalse(streamManager.isSampledOut(streamName));
+        assertFalse(streamManager.isSampledOut(streamName, subscription));
+    }
+
+    @Test
+    void testAdaptiveSampleRate() {
+        config.setProperty(SampleArchaiusMrePublishConfiguration.ADAPTIVE_SAMPLING_ENABLED_PROP, true);
+        final String streamName = "testStream";
+        streamManager.registerStream(streamName);
+
+        Optional<Subscription> subscriptionO = SubscriptionFactory
+                .getSubscription("subId5", "SELECT * FROM " + streamName);
+        assertTrue(subscriptionO.isPresent());
+        streamManager.addStreamSubscription(subscriptionO.get());
+
+        // Back off on reported downstream drops, and recover once they stop.
+        streamManager.updateSubscriptionDropRate("subId5", 0.5);
+        assertEquals(0.5, sampleRate(streamName, "subId5"), 1e-9);
+        streamManager.updateSubscriptionDropRate("subId5", 0.0);
+        assertEquals(0.6, sampleRate(streamName, "subId5"), 1e-9);
+
+        // Refreshing the subscription doesn't apply a drop report again.
+        streamManager.updateSubscriptionSampleRate("subId5", Collections.emptyMap());
+        assertEquals(0.6, sampleRate(streamName, "subId5"), 1e-9);
+
+        // Shed load when the stream queue overflows, and recover once it stops.
+        streamManager.onStreamOffer(streamName, true);
+        streamManager.onStreamOffer(streamName, false);
+        streamManager.adjustStreamSampleRate(streamName);
+        assertEquals(0.3, sampleRate(streamName, "subId5"), 1e-9);
+
+        streamManager.onStreamOffer(streamName, true);
+        streamManager.adjustStreamSampleRate(streamName);
+        assertEquals(0.306, sampleRate(streamName, "subId5"), 1e-9);
+
+        // Shedding applies on top of the rate requested by the subscription.
+        streamManager.updateSubscriptionSampleRate("subId5",
+                Collections.singletonMap(MantisServerSubscription.SAMPLE_RATE_PARAM, "0.5"));
+        assertEquals(0.153, sampleRate(streamName, "subId5"), 1e-9);
+
+        config.setProperty(SampleArchaiusMrePublishConfiguration.ADAPTIVE_SAMPLING_ENABLED_PROP, false);
+        streamManager.adjustStreamSampleRate(streamName);
+        streamManager.updateSubscriptionSampleRate("subId5", Collections.emptyMap());
+        streamManager.updateSubscriptionDropRate("subId5", 0.5);
+        assertEquals(1.0, sampleRate(streamName, "subId5"));
+    }
+
+    private double sampleRate(String streamName, String subscriptionId) {
+        PolledMeter.update(registry);
+        return registry.gauge(registry.createId("mantisEffectiveSampleRate")
+                .withTags("stream", streamName, "subscriptionId", subscriptionId)).value();
+    }
 }
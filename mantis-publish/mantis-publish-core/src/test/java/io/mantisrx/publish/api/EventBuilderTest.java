@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.publish.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+
+class EventBuilderTest {
+
+    @Test
+    void shouldBuildIndependentEvents() {
+        EventBuilder builder = new EventBuilder(2);
+
+        Event first = builder.set("k1", "v1").set("k2", 2).build();
+        Event second = builder.set("k1", "v3").build();
+
+        assertEquals("v1", first.get("k1"));
+        assertEquals(2, first.get("k2"));
+        assertEquals("v3", second.get("k1"));
+        assertNull(second.get("k2"));
+    }
+
+    @Test
+    void shouldInternKeys() {
+        String key = new String("someKey");
+        String otherKey = new String("someKey");
+
+        Event event = new EventBuilder().set(key, "v").build();
+
+        assertSame(EventBuilder.intern(otherKey), event.keys().next());
+    }
+
+    @Test
+    void shouldDiscardUnbuiltAttributes() {
+        EventBuilder.forCurrentThread().set("leftover", true);
+
+        Event event = EventBuilder.forCurrentThread().set("k", "v").build();
+
+        assertEquals(1, event.getMap().size());
+    }
+
+    @Test
+    void shouldCopyOnWrite() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("k", "v");
+        Event original = new Event(data, false);
+
+        Event copy = original.copyOnWrite();
+        assertSame(original.getMap(), copy.getMap());
+
+        copy.set("k", "copied");
+        assertEquals("copied", copy.get("k"));
+        assertEquals("v", original.get("k"));
+
+        original.set("k2", "v2");
+        assertEquals("v2", original.get("k2"));
+        assertEquals(1, copy.getMap().size());
+        // The caller's map is left untouched.
+        assertEquals(1, data.size());
+    }
+}
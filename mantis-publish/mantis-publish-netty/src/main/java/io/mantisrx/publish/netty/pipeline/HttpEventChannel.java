@@ -142,7 +142,9 @@ public class HttpEventChannel implements EventChannel {
     public double bufferSize(MantisWorker worker) {
         InetSocketAddress address = worker.toInetSocketAddress();
         Channel channel = channelManager.findOrCreate(address);
-        return channel.bytesBeforeUnwritable() / channel.config().getWriteBufferHighWaterMark();
+        // Bytes before unwritable is the remaining capacity, so the utilization is its complement.
+        double highWaterMark = channel.config().getWriteBufferHighWaterMark();
+        return Math.max(0.0, 1.0 - channel.bytesBeforeUnwritable() / highWaterMark);
     }
 
     @Override
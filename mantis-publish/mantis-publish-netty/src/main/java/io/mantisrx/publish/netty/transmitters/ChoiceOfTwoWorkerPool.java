@@ -17,6 +17,8 @@
 package io.mantisrx.publish.netty.transmitters;
 
 import com.netflix.mantis.discovery.proto.MantisWorker;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.DistributionSummary;
 import com.netflix.spectator.api.Registry;
 import com.netflix.spectator.impl.AtomicDouble;
 import io.mantisrx.publish.EventChannel;
@@ -26,7 +28,6 @@ import io.mantisrx.publish.internal.exceptions.NonRetryableException;
 import io.mantisrx.publish.internal.metrics.SpectatorUtils;
 import io.mantisrx.publish.netty.pipeline.HttpEventChannel;
 import io.netty.channel.Channel;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -35,19 +36,31 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 
 
 /**
  * Maintains a set of active, usable {@link MantisWorker}s represented by a key-value mapping of
- * {@code key: MantisWorker, value: error count}.
+ * {@code key: MantisWorker, value: worker state} (error count and send latency).
  * <p>
  * Capacity:
  * <p>
  * This pool maintains a working set of pool up to a configurable capacity. Upon {@link #refresh(List, boolean)},
  * it will update its working set.
  * <p>
+ * Selection:
+ * <p>
+ * Workers are selected by the power of two choices on a load score combining the occupancy of the worker's channel
+ * buffer and an exponentially weighted moving average (EWMA) of the latency of sends to that worker.
+ * <p>
+ * Ejection:
+ * <p>
+ * Workers whose latency average exceeds a configurable threshold, e.g. because they are GC pausing, are ejected from
+ * selection for a configurable amount of time without closing their channel. At most half of the pool is ejected at
+ * any time.
+ * <p>
  * Blacklist:
  * <p>
  * Callers can use this class to record worker failures for an action.
@@ -59,16 +72,38 @@ import java.util.function.BiFunction;
  */
 class ChoiceOfTwoWorkerPool {
 
+    /**
+     * Weight of the latest send latency in a worker's latency average.
+     */
+    static final double LATENCY_EWMA_ALPHA = 0.2;
+
+    /**
+     * Latency in milliseconds that weighs as much as a full channel buffer in the load score if ejection is disabled.
+     */
+    private static final double DEFAULT_LATENCY_SCALE_MS = 1000.0;
+
+    private static final MantisWorker[] NO_WORKERS = new MantisWorker[0];
+
     private final Registry registry;
 
     private final AtomicDouble workerPoolGauge;
     private final AtomicDouble blacklistedWorkersGauge;
+    private final AtomicDouble ejectedWorkersGauge;
+    private final Counter workerEjections;
+    private final DistributionSummary workerScore;
 
     private final int capacity;
     private final int errorQuota;
     private final int errorTimeoutSec;
     private final int refreshIntervalSec;
-    private final ConcurrentMap<MantisWorker, Integer> pool;
+    private final int ejectionLatencyMs;
+    private final int ejectionTimeoutSec;
+    private final double latencyScaleMs;
+    private final ConcurrentMap<MantisWorker, WorkerState> pool;
+    /**
+     * Snapshot of the keys of {@link #pool} to select from without copying them on every selection.
+     */
+    private volatile MantisWorker[] workers = NO_WORKERS;
     /**
      * Backed by {@link ConcurrentHashMap.KeySetView}.
      */
@@ -85,11 +120,20 @@ class ChoiceOfTwoWorkerPool {
                 registry, "workerPool", "channel", HttpEventChannel.CHANNEL_TYPE);
         this.blacklistedWorkersGauge = SpectatorUtils.buildAndRegisterGauge(
                 registry, "blacklistedWorkers", "channel", HttpEventChannel.CHANNEL_TYPE);
+        this.ejectedWorkersGauge = SpectatorUtils.buildAndRegisterGauge(
+                registry, "ejectedWorkers", "channel", HttpEventChannel.CHANNEL_TYPE);
+        this.workerEjections = SpectatorUtils.buildAndRegisterCounter(
+                registry, "workerEjections", "channel", HttpEventChannel.CHANNEL_TYPE);
+        this.workerScore = SpectatorUtils.buildAndRegisterDistributionSummary(
+                registry, "workerScore", "channel", HttpEventChannel.CHANNEL_TYPE);
 
         this.capacity = config.getWorkerPoolCapacity();
         this.errorQuota = config.getWorkerPoolWorkerErrorQuota();
         this.errorTimeoutSec = config.getWorkerPoolWorkerErrorTimeoutSec();
         this.refreshIntervalSec = config.getWorkerPoolRefreshIntervalSec();
+        this.ejectionLatencyMs = config.getWorkerPoolWorkerEjectionLatencyMs();
+        this.ejectionTimeoutSec = config.getWorkerPoolWorkerEjectionTimeoutSec();
+        this.latencyScaleMs = ejectionLatencyMs > 0 ? ejectionLatencyMs : DEFAULT_LATENCY_SCALE_MS;
         this.pool = new ConcurrentHashMap<>(config.getWorkerPoolCapacity());
         this.blacklist = ConcurrentHashMap.newKeySet();
         this.eventChannel = eventChannel;
@@ -128,7 +172,7 @@ class ChoiceOfTwoWorkerPool {
 
         if (force) {
             pool.clear();
-            workerPoolGauge.set((double) pool.size());
+            updateWorkers();
         }
 
         if (shouldRefresh(lastBlacklistRefreshMs.get(), errorTimeoutSec * 1000)) {
@@ -153,10 +197,10 @@ class ChoiceOfTwoWorkerPool {
         while (candidates.hasNext() && pool.size() < capacity) {
             MantisWorker candidate = candidates.next();
             if (!blacklist.contains(candidate)) {
-                pool.put(candidate, 0);
-                workerPoolGauge.set((double) pool.size());
+                pool.putIfAbsent(candidate, new WorkerState());
             }
         }
+        updateWorkers();
 
         lastFetchMs.set(registry.clock().wallTime());
     }
@@ -174,8 +218,26 @@ class ChoiceOfTwoWorkerPool {
         return registry.clock().wallTime() - timestamp > interval;
     }
 
+    private void updateWorkers() {
+        workers = pool.keySet().toArray(NO_WORKERS);
+        workerPoolGauge.set((double) workers.length);
+        updateEjectedWorkers(registry.clock().wallTime());
+    }
+
+    private int updateEjectedWorkers(long nowMs) {
+        int ejected = 0;
+        for (WorkerState state : pool.values()) {
+            if (state.isEjected(nowMs)) {
+                ejected++;
+            }
+        }
+        ejectedWorkersGauge.set((double) ejected);
+        return ejected;
+    }
+
     /**
-     * Runs the {@link BiFunction}, checks for failures, and increments error count for a {@link MantisWorker}.
+     * Runs the {@link BiFunction}, checks for failures, and updates the error count and latency of a
+     * {@link MantisWorker}.
      */
     CompletableFuture<Void> record(
             Event event,
@@ -187,17 +249,32 @@ class ChoiceOfTwoWorkerPool {
             throw new NonRetryableException("no available workers in pool");
         }
 
+        final long start = registry.clock().wallTime();
         CompletableFuture<Void> future = function.apply(worker, event);
         // RetryableException and NonRetryableException are generally what would be thrown.
         future.whenCompleteAsync((v, t) -> {
+            WorkerState state = pool.get(worker);
+            if (state == null) {
+                // Worker was removed from the pool in the meantime.
+                return;
+            }
+
+            final long end = registry.clock().wallTime();
+            state.recordLatency(end - start);
+            if (shouldEject(state, end)) {
+                state.eject(end + ejectionTimeoutSec * 1000L);
+                workerEjections.increment();
+                updateEjectedWorkers(end);
+            }
+
             if (t != null) {
                 // Increment error count for this specific worker.
-                pool.put(worker, pool.get(worker) + 1);
+                state.incrementErrors();
                 if (shouldBlacklist(worker)) {
                     // Immediately close Netty channel and remove blacklisted worker from pool.
                     eventChannel.close(worker);
                     pool.remove(worker);
-                    workerPoolGauge.set((double) pool.size());
+                    updateWorkers();
                     blacklist.add(worker);
                     blacklistedWorkersGauge.set((double) blacklist.size());
                 }
@@ -211,7 +288,17 @@ class ChoiceOfTwoWorkerPool {
      * Determines whether or not a worker should be blacklisted.
      */
     private boolean shouldBlacklist(MantisWorker worker) {
-        return pool.getOrDefault(worker, 0) > errorQuota;
+        return getWorkerErrors(worker) > errorQuota;
+    }
+
+    /**
+     * Determines whether or not a worker should be ejected from selection, leaving at least half of the pool.
+     */
+    private boolean shouldEject(WorkerState state, long nowMs) {
+        return ejectionLatencyMs > 0
+                && state.getLatencyEwmaMs() > ejectionLatencyMs
+                && !state.isEjected(nowMs)
+                && updateEjectedWorkers(nowMs) < pool.size() / 2;
     }
 
     /**
@@ -221,26 +308,42 @@ class ChoiceOfTwoWorkerPool {
         return blacklist.contains(worker);
     }
 
+    /**
+     * Determines whether or not a worker in the pool is currently ejected from selection.
+     */
+    boolean isEjected(MantisWorker worker) {
+        WorkerState state = pool.get(worker);
+        return state != null && state.isEjected(registry.clock().wallTime());
+    }
+
     /**
      * Returns a random choice-of-two {@link MantisWorker} from the pool.
      */
     MantisWorker getRandomWorker() {
-        int poolSize = pool.size();
+        MantisWorker[] candidates = workers;
+        int poolSize = candidates.length;
 
         if (poolSize == 0) {
             return null;
         } else if (poolSize == 1) {
-            return (MantisWorker) pool.keySet().toArray()[0];
+            return candidates[0];
         } else {
-            List<MantisWorker> candidates = new ArrayList<>(pool.keySet());
-
-            int randomIndex1 = ThreadLocalRandom.current().nextInt(pool.size());
-            int randomIndex2 = ThreadLocalRandom.current().nextInt(pool.size());
-            MantisWorker candidate1 = candidates.get(randomIndex1);
-            MantisWorker candidate2 = candidates.get(randomIndex2);
-            double candidate1Score = getWorkerScore(candidate1);
-            double candidate2Score = getWorkerScore(candidate2);
-
+            // Pick two distinct candidates.
+            int randomIndex1 = ThreadLocalRandom.current().nextInt(poolSize);
+            int randomIndex2 = ThreadLocalRandom.current().nextInt(poolSize - 1);
+            if (randomIndex2 >= randomIndex1) {
+                randomIndex2++;
+            }
+            MantisWorker candidate1 = candidates[randomIndex1];
+            MantisWorker candidate2 = candidates[randomIndex2];
+            long nowMs = registry.clock().wallTime();
+            double candidate1Score = getWorkerScore(candidate1, nowMs);
+            double candidate2Score = getWorkerScore(candidate2, nowMs);
+
+            double score = Math.min(candidate1Score, candidate2Score);
+            if (score < Double.MAX_VALUE) {
+                workerScore.record((long) (score * 100));
+            }
             return candidate1Score <= candidate2Score ? candidate1 : candidate2;
         }
     }
@@ -249,16 +352,23 @@ class ChoiceOfTwoWorkerPool {
      * Returns the number of errors for a given worker in the pool.
      */
     int getWorkerErrors(MantisWorker worker) {
-        return pool.getOrDefault(worker, 0);
+        WorkerState state = pool.get(worker);
+        return state == null ? 0 : state.getErrors();
     }
 
     /**
      * Calculate a worker score. Lower is better.
      * <p>
-     * Currently, the only factor is the {@link Channel}'s buffer size.
+     * The score is the occupancy of the worker's {@link Channel} buffer (between 0 and 1) plus its send latency
+     * average relative to the ejection threshold. Ejected workers score {@link Double#MAX_VALUE}, so they are only
+     * selected if both candidates are ejected.
      */
-    private double getWorkerScore(MantisWorker worker) {
-        return eventChannel.bufferSize(worker);
+    double getWorkerScore(MantisWorker worker, long nowMs) {
+        WorkerState state = pool.get(worker);
+        if (state == null || state.isEjected(nowMs)) {
+            return Double.MAX_VALUE;
+        }
+        return eventChannel.bufferSize(worker) + state.getLatencyEwmaMs() / latencyScaleMs;
     }
 
     /**
@@ -274,4 +384,43 @@ class ChoiceOfTwoWorkerPool {
     int capacity() {
         return capacity;
     }
+
+    /**
+     * Error count, send latency average and ejection deadline of a worker in the pool.
+     */
+    private static class WorkerState {
+
+        private final AtomicInteger errors = new AtomicInteger();
+        private double latencyEwmaMs;
+        private volatile long ejectedUntilMs;
+
+        int getErrors() {
+            return errors.get();
+        }
+
+        void incrementErrors() {
+            errors.incrementAndGet();
+        }
+
+        synchronized void recordLatency(long latencyMs) {
+            latencyEwmaMs = LATENCY_EWMA_ALPHA * latencyMs + (1 - LATENCY_EWMA_ALPHA) * latencyEwmaMs;
+        }
+
+        synchronized double getLatencyEwmaMs() {
+            return latencyEwmaMs;
+        }
+
+        /**
+         * Ejects the worker until the given time. Its latency average is reset, so that it is probed afresh once
+         * the ejection expires.
+         */
+        synchronized void eject(long untilMs) {
+            latencyEwmaMs = 0.0;
+            ejectedUntilMs = untilMs;
+        }
+
+        boolean isEjected(long nowMs) {
+            return nowMs < ejectedUntilMs;
+        }
+    }
 }
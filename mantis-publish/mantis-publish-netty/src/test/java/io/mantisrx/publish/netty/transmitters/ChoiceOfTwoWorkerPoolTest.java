@@ -21,10 +21,13 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.netflix.mantis.discovery.proto.MantisWorker;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.ManualClock;
 import com.netflix.spectator.api.NoopRegistry;
 import com.netflix.spectator.api.Registry;
 import io.mantisrx.publish.EventChannel;
@@ -183,4 +186,52 @@ class ChoiceOfTwoWorkerPoolTest {
         future = workerPool.record(mock(Event.class), (w, e) -> completableFuture);
         future.whenComplete((v, t) -> assertEquals(0, workerPool.size()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldPreferLessLoadedWorker() {
+        EventChannel eventChannel = mock(EventChannel.class);
+        workerPool = new ChoiceOfTwoWorkerPool(config, registry, eventChannel);
+        MantisWorker busyWorker = mock(MantisWorker.class);
+        MantisWorker idleWorker = mock(MantisWorker.class);
+        when(eventChannel.bufferSize(busyWorker)).thenReturn(0.9);
+        when(eventChannel.bufferSize(idleWorker)).thenReturn(0.1);
+        workerPool.refresh(Arrays.asList(busyWorker, idleWorker));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(idleWorker, workerPool.getRandomWorker());
+        }
+    }
+
+    @Test
+    void shouldEjectSlowWorker() throws Exception {
+        when(config.getWorkerPoolWorkerEjectionLatencyMs()).thenReturn(100);
+        when(config.getWorkerPoolWorkerEjectionTimeoutSec()).thenReturn(30);
+        ManualClock clock = new ManualClock();
+        EventChannel eventChannel = mock(EventChannel.class);
+        workerPool = new ChoiceOfTwoWorkerPool(config, new DefaultRegistry(clock), eventChannel);
+        MantisWorker slowWorker = mock(MantisWorker.class);
+        MantisWorker otherWorker = mock(MantisWorker.class);
+        when(eventChannel.bufferSize(slowWorker)).thenReturn(0.0);
+        when(eventChannel.bufferSize(otherWorker)).thenReturn(0.5);
+        workerPool.refresh(Arrays.asList(slowWorker, otherWorker));
+
+        CompletableFuture<Void> completableFuture = new CompletableFuture<>();
+        workerPool.record(mock(Event.class), (w, e) -> {
+            assertEquals(slowWorker, w);
+            return completableFuture;
+        });
+        clock.setWallTime(clock.wallTime() + 10_000);
+        completableFuture.complete(null);
+
+        // Latency is recorded asynchronously.
+        for (int i = 0; i < 100 && !workerPool.isEjected(slowWorker); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(workerPool.isEjected(slowWorker));
+        assertEquals(otherWorker, workerPool.getRandomWorker());
+
+        clock.setWallTime(clock.wallTime() + 31_000);
+        assertFalse(workerPool.isEjected(slowWorker));
+        assertEquals(slowWorker, workerPool.getRandomWorker());
+    }
+}
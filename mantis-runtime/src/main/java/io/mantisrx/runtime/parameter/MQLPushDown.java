@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.runtime.parameter;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+
+
+/**
+ * Composes the query a job connector sends to a source job with an additional push-down query, so that the source
+ * job's tagging stage applies the connector's projection and filter before the events cross the network.
+ * <p>
+ * Both queries must be of the form {@code select <projection> [from <stream>] [where <predicate>]}. The combined
+ * query selects the push-down projection, which is only allowed if the criterion selects all fields or the same
+ * ones, and matches the events matching both predicates. Windows, sampling, grouping, ordering and limits cannot be
+ * composed and are rejected, as are the legacy {@code true}/{@code false} criteria other than as whole queries.
+ */
+public class MQLPushDown {
+
+    private static final String[] UNSUPPORTED_CLAUSES = {"window", "sample", "group", "order", "limit", "having"};
+
+    private MQLPushDown() {
+    }
+
+    /**
+     * Returns the query selecting the events of the criterion that also match the push-down query, projected as the
+     * push-down query projects them.
+     *
+     * @param criterion the source job query, or its legacy {@code true}/{@code false} form.
+     * @param pushDown  the push-down query, or null or empty to return the criterion as is.
+     *
+     * @throws IllegalArgumentException if the queries cannot be composed.
+     */
+    public static String compose(String criterion, String pushDown) {
+        if (pushDown == null || pushDown.trim().isEmpty()) {
+            return criterion;
+        }
+        final SimpleQuery query = SimpleQuery.parse(transformLegacyQuery(criterion));
+        final SimpleQuery extra = SimpleQuery.parse(pushDown);
+
+        final String projection;
+        if (extra.projection.equals("*") || sameFields(query.projection, extra.projection)) {
+            projection = query.projection;
+        } else if (query.projection.equals("*")) {
+            projection = extra.projection;
+        } else {
+            throw new IllegalArgumentException("cannot push down projection '" + extra.projection
+                    + "' onto query selecting '" + query.projection + "'");
+        }
+
+        if (extra.from != null && !extra.from.equals(query.from)) {
+            throw new IllegalArgumentException("cannot push down query on " + extra.from + " onto query on " + query.from);
+        }
+
+        final String where;
+        if (isTrue(extra.where)) {
+            where = query.where;
+        } else if (isTrue(query.where)) {
+            where = extra.where;
+        } else {
+            where = "(" + query.where + ") AND (" + extra.where + ")";
+        }
+
+        return "select " + projection
+                + (query.from == null ? "" : " from " + query.from)
+                + (where == null ? "" : " where " + where);
+    }
+
+    private static String transformLegacyQuery(String criterion) {
+        if (criterion == null) {
+            throw new IllegalArgumentException("cannot push down a query without criterion");
+        }
+        final String trimmed = criterion.trim();
+        if (trimmed.equalsIgnoreCase("true")) {
+            return "select * where true";
+        } else if (trimmed.equalsIgnoreCase("false")) {
+            return "select * where false";
+        }
+        return trimmed;
+    }
+
+    private static boolean isTrue(String predicate) {
+        return predicate == null || predicate.equalsIgnoreCase("true");
+    }
+
+    private static boolean sameFields(String projection, String other) {
+        return new HashSet<>(Arrays.asList(projection.split("\\s*,\\s*")))
+                .equals(new HashSet<>(Arrays.asList(other.split("\\s*,\\s*"))));
+    }
+
+    private static class SimpleQuery {
+
+        private final String projection;
+        private final String from;
+        private final String where;
+
+        private SimpleQuery(String projection, String from, String where) {
+            this.projection = projection;
+            this.from = from;
+            this.where = where;
+        }
+
+        static SimpleQuery parse(String query) {
+            final String trimmed = query.trim();
+            final String lower = trimmed.toLowerCase(Locale.ROOT);
+            if (indexOfKeyword(lower, "select", 0) != 0) {
+                throw new IllegalArgumentException("cannot push down query not starting with select: " + query);
+            }
+            for (String clause : UNSUPPORTED_CLAUSES) {
+                if (indexOfKeyword(lower, clause, 0) >= 0) {
+                    throw new IllegalArgumentException("cannot push down query with " + clause + ": " + query);
+                }
+            }
+
+            final int fromIndex = indexOfKeyword(lower, "from", 0);
+            final int whereIndex = indexOfKeyword(lower, "where", 0);
+            if (fromIndex >= 0 && whereIndex >= 0 && fromIndex > whereIndex) {
+                throw new IllegalArgumentException("cannot push down query with from after where: " + query);
+            }
+
+            final int projectionEnd = fromIndex >= 0 ? fromIndex : whereIndex >= 0 ? whereIndex : trimmed.length();
+            final String projection = trimmed.substring("select".length(), projectionEnd).trim();
+            final String from = fromIndex < 0 ? null
+                    : trimmed.substring(fromIndex + "from".length(), whereIndex >= 0 ? whereIndex : trimmed.length()).trim();
+            final String where = whereIndex < 0 ? null : trimmed.substring(whereIndex + "where".length()).trim();
+            if (projection.isEmpty() || (from != null && from.isEmpty()) || (where != null && where.isEmpty())) {
+                throw new IllegalArgumentException("cannot push down incomplete query: " + query);
+            }
+            return new SimpleQuery(projection, from, where);
+        }
+
+        /**
+         * Returns the index of the first occurrence of the given keyword in the lower case query, outside of string
+         * literals and brackets, or -1.
+         */
+        private static int indexOfKeyword(String query, String keyword, int fromIndex) {
+            char quote = 0;
+            int depth = 0;
+            for (int i = fromIndex; i < query.length(); i++) {
+                final char c = query.charAt(i);
+                if (quote != 0) {
+                    if (c == '\\') {
+                        i++;
+                    } else if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if (c == '(' || c == '[') {
+                    depth++;
+                } else if (c == ')' || c == ']') {
+                    depth--;
+                } else if (depth == 0 && query.startsWith(keyword, i)
+                        && (i == 0 || !isWordChar(query.charAt(i - 1)))
+                        && (i + keyword.length() == query.length() || !isWordChar(query.charAt(i + keyword.length())))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static boolean isWordChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_';
+        }
+    }
+}
@@ -24,8 +24,10 @@ import io.mantisrx.runtime.sink.predicate.Predicate;
 import io.mantisrx.server.core.ServiceRegistry;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelOption;
+import io.reactivex.mantis.network.push.ChunkProcessor;
 import io.reactivex.mantis.network.push.PushServerSse;
 import io.reactivex.mantis.network.push.PushServers;
+import io.reactivex.mantis.network.push.Router;
 import io.reactivex.mantis.network.push.Routers;
 import io.reactivex.mantis.network.push.ServerConfig;
 import java.io.IOException;
@@ -53,6 +55,7 @@ public class ServerSentEventsSink<T> implements SelfDocumentingSink<T> {
     private final Predicate<T> predicate;
     private Func2<Map<String, List<String>>, Context, Void> requestPreprocessor;
     private Func2<Map<String, List<String>>, Context, Void> requestPostprocessor;
+    private Func1<Router<T>, ChunkProcessor<T>> chunkProcessorFactory;
     private int port = -1;
     private final MantisPropertiesService propService;
 
@@ -84,6 +87,7 @@ public class ServerSentEventsSink<T> implements SelfDocumentingSink<T> {
         this.requestPreprocessor = builder.requestPreprocessor;
         this.requestPostprocessor = builder.requestPostprocessor;
         this.subscribeProcessor = builder.subscribeProcessor;
+        this.chunkProcessorFactory = builder.chunkProcessorFactory;
         this.propService = ServiceRegistry.INSTANCE.getPropertiesService();
     }
 
@@ -144,9 +148,10 @@ public class ServerSentEventsSink<T> implements SelfDocumentingSink<T> {
             LOG.info("Serving modern HTTP SSE server sink on port: " + port);
 
             String serverName = "SseSink";
+            Router<T> router = Routers.roundRobinSse(serverName, encoder);
             ServerConfig.Builder<T> config = new ServerConfig.Builder<T>()
                 .name(serverName)
-                .groupRouter(Routers.roundRobinSse(serverName, encoder))
+                .groupRouter(router)
                 .port(port)
                 .metricsRegistry(context.getMetricsRegistry())
                 .maxChunkTimeMSec(maxReadTime())
@@ -158,6 +163,9 @@ public class ServerSentEventsSink<T> implements SelfDocumentingSink<T> {
             if (predicate != null) {
                 config.predicate(predicate.getPredicate());
             }
+            if (chunkProcessorFactory != null) {
+                config.chunkProcessor(chunkProcessorFactory.call(router));
+            }
             pushServerSse = PushServers.infiniteStreamSse(config.build(), observable,
                 requestPreprocessor, requestPostprocessor,
                 subscribeProcessor, context, true);
@@ -243,6 +251,7 @@ public class ServerSentEventsSink<T> implements SelfDocumentingSink<T> {
         private Func1<Throwable, String> errorEncoder = Throwable::getMessage;
         private Predicate<T> predicate;
         private Func2<Map<String, List<String>>, Context, Void> subscribeProcessor;
+        private Func1<Router<T>, ChunkProcessor<T>> chunkProcessorFactory;
 
         public Builder<T> withEncoder(Func1<T, String> encoder) {
             this.encoder = encoder;
@@ -275,6 +284,15 @@ public class ServerSentEventsSink<T> implements SelfDocumentingSink<T> {
             return this;
         }
 
+        /**
+         * Replaces the default per connection group fan-out of the SSE server. The factory is given the router that
+         * encodes and writes events to the connections of a group.
+         */
+        public Builder<T> withChunkProcessor(Func1<Router<T>, ChunkProcessor<T>> chunkProcessorFactory) {
+            this.chunkProcessorFactory = chunkProcessorFactory;
+            return this;
+        }
+
         public ServerSentEventsSink<T> build() {
             return new ServerSentEventsSink<>(this);
         }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.runtime.parameter;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class MQLPushDownTest {
+
+    @Test
+    public void shouldReturnCriterionWithoutPushDown() {
+        assertEquals("select * from stream", MQLPushDown.compose("select * from stream", null));
+        assertEquals("true", MQLPushDown.compose("true", " "));
+    }
+
+    @Test
+    public void shouldComposeProjectionAndFilter() {
+        assertEquals("select e[\"status\"], path from stream where (e[\"status\"] == 500) AND (path ==~ /api.*/)",
+                MQLPushDown.compose("select * from stream where e[\"status\"] == 500",
+                        "select e[\"status\"], path where path ==~ /api.*/"));
+        assertEquals("select a, b where true",
+                MQLPushDown.compose("true", "SELECT a, b WHERE true"));
+        assertEquals("select a, b from stream where x > 1",
+                MQLPushDown.compose("select a, b from stream", "select b,a where x > 1"));
+        assertEquals("select * from stream where (x > 1 OR y == \"where\") AND (z != null)",
+                MQLPushDown.compose("select * from stream where x > 1 OR y == \"where\"", "select * where z != null"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNarrowingAProjection() {
+        MQLPushDown.compose("select a from stream", "select b");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectWindowedCriterion() {
+        MQLPushDown.compose("select count(e[\"node\"]) from servo window 60", "select * where x > 1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSampledCriterion() {
+        MQLPushDown.compose("select * from stream where x > 1 sample {\"strategy\": \"RANDOM\", \"threshold\": 200}",
+                "select a where y > 1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPushDownOnAnotherStream() {
+        MQLPushDown.compose("select * from stream", "select * from other where x > 1");
+    }
+}
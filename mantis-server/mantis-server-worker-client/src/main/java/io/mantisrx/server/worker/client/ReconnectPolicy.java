@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.server.worker.client;
+
+import io.mantisrx.common.metrics.Counter;
+import io.mantisrx.common.metrics.Metrics;
+import io.mantisrx.common.metrics.MetricsRegistry;
+import io.mantisrx.common.metrics.Timer;
+import io.mantisrx.common.metrics.spectator.MetricGroupId;
+import io.mantisrx.server.core.ServiceRegistry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Decides when the {@link SseWorkerConnection}s sharing it reconnect, so that connections dropped together, e.g. when
+ * the workers they connect to are redeployed, do not all reconnect at once.
+ * <p>
+ * The delay before each attempt grows exponentially with the number of attempts since the connection was last
+ * established, up to a maximum, and is jittered by up to half. On top of that, reconnects of all connections sharing
+ * the policy are spread so that at most a budget of them start per second.
+ */
+public class ReconnectPolicy {
+
+    public static final long DEFAULT_BASE_DELAY_MSEC = 1000;
+    public static final long DEFAULT_MAX_DELAY_MSEC = 20_000;
+    public static final int DEFAULT_RECONNECTS_PER_SEC = 20;
+
+    private final long baseDelayMsec;
+    private final long maxDelayMsec;
+    private final long reconnectIntervalNanos;
+    private final AtomicLong nextReconnectNanos;
+
+    private final Counter reconnectCount;
+    private final Counter reconnectBudgetDelayedCount;
+    private final Timer timeToReconnect;
+
+    public ReconnectPolicy(String name) {
+        this(name, DEFAULT_BASE_DELAY_MSEC, DEFAULT_MAX_DELAY_MSEC, DEFAULT_RECONNECTS_PER_SEC);
+    }
+
+    /**
+     * @param name             name of the connections sharing the policy, used in its metrics.
+     * @param baseDelayMsec    delay before the first attempt to reconnect.
+     * @param maxDelayMsec     maximum delay between attempts of a connection.
+     * @param reconnectsPerSec maximum number of reconnects per second across connections, or 0 for no limit.
+     */
+    public ReconnectPolicy(String name, long baseDelayMsec, long maxDelayMsec, int reconnectsPerSec) {
+        this.baseDelayMsec = Math.max(1, baseDelayMsec);
+        this.maxDelayMsec = Math.max(this.baseDelayMsec, maxDelayMsec);
+        this.reconnectIntervalNanos = reconnectsPerSec > 0 ? TimeUnit.SECONDS.toNanos(1) / reconnectsPerSec : 0;
+        this.nextReconnectNanos = new AtomicLong(System.nanoTime());
+
+        Metrics m = new Metrics.Builder()
+                .id(new MetricGroupId("ReconnectPolicy_" + name))
+                .addCounter("reconnectCount")
+                .addCounter("reconnectBudgetDelayedCount")
+                .addTimer("timeToReconnect")
+                .build();
+        m = MetricsRegistry.getInstance().registerAndGet(m);
+        this.reconnectCount = m.getCounter("reconnectCount");
+        this.reconnectBudgetDelayedCount = m.getCounter("reconnectBudgetDelayedCount");
+        this.timeToReconnect = m.getTimer("timeToReconnect");
+    }
+
+    /**
+     * Returns a policy configured by the {@code <prefix>.reconnect.baseDelayMsec},
+     * {@code <prefix>.reconnect.maxDelayMsec} and {@code <prefix>.reconnect.perSec} properties.
+     */
+    public static ReconnectPolicy fromProperties(String name, String prefix) {
+        return new ReconnectPolicy(name,
+                Long.parseLong(getProperty(prefix + ".reconnect.baseDelayMsec", DEFAULT_BASE_DELAY_MSEC)),
+                Long.parseLong(getProperty(prefix + ".reconnect.maxDelayMsec", DEFAULT_MAX_DELAY_MSEC)),
+                Integer.parseInt(getProperty(prefix + ".reconnect.perSec", DEFAULT_RECONNECTS_PER_SEC)));
+    }
+
+    private static String getProperty(String key, long defaultValue) {
+        return ServiceRegistry.INSTANCE.getPropertiesService().getStringValue(key, Long.toString(defaultValue));
+    }
+
+    /**
+     * Returns the delay in milliseconds before the given attempt to reconnect, counted from 1 since the connection
+     * was last established.
+     */
+    public long nextDelayMsec(int attempt) {
+        final int shift = Math.min(Math.max(attempt, 1) - 1, 30);
+        long backoff = baseDelayMsec << shift;
+        if (backoff <= 0 || backoff > maxDelayMsec) {
+            backoff = maxDelayMsec;
+        }
+        final long jittered = backoff - ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        return reserve(jittered);
+    }
+
+    /**
+     * Records that a connection was established again after being lost for the given time.
+     */
+    public void onReconnected(long disconnectedMsec) {
+        reconnectCount.increment();
+        timeToReconnect.record(disconnectedMsec, TimeUnit.MILLISECONDS);
+    }
+
+    private long reserve(long delayMsec) {
+        if (reconnectIntervalNanos == 0) {
+            return delayMsec;
+        }
+        final long now = System.nanoTime();
+        final long earliest = now + TimeUnit.MILLISECONDS.toNanos(delayMsec);
+        while (true) {
+            final long next = nextReconnectNanos.get();
+            final long slot = next - earliest > 0 ? next : earliest;
+            if (nextReconnectNanos.compareAndSet(next, slot + reconnectIntervalNanos)) {
+                if (slot != earliest) {
+                    reconnectBudgetDelayedCount.increment();
+                }
+                return TimeUnit.NANOSECONDS.toMillis(slot - now);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.server.worker.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.ArrayList;
+import java.util.List;
+import mantis.io.reactivex.netty.protocol.http.sse.ServerSentEvent;
+
+
+/**
+ * Parses server sent events out of the raw chunks of a response, for the connections that requested binary frames
+ * from a sink that only streams server sent events.
+ * <p>
+ * Only the data and event fields are kept. A decoder holds the partial event of a single stream and is not
+ * thread-safe.
+ */
+class SseTextDecoder {
+
+    private final ByteBuf cumulation = Unpooled.buffer();
+    private ByteBuf eventType;
+    private ByteBuf data;
+
+    /**
+     * Returns the events completed by the given chunk. The chunk's indexes are left unchanged.
+     */
+    List<ServerSentEvent> decode(ByteBuf chunk) {
+        cumulation.writeBytes(chunk, chunk.readerIndex(), chunk.readableBytes());
+
+        final List<ServerSentEvent> events = new ArrayList<>();
+        int lineEnd;
+        while ((lineEnd = cumulation.indexOf(cumulation.readerIndex(), cumulation.writerIndex(), (byte) '\n')) >= 0) {
+            final int lineStart = cumulation.readerIndex();
+            int length = lineEnd - lineStart;
+            if (length > 0 && cumulation.getByte(lineEnd - 1) == '\r') {
+                length--;
+            }
+            onLine(lineStart, length, events);
+            cumulation.readerIndex(lineEnd + 1);
+        }
+        cumulation.discardSomeReadBytes();
+        return events;
+    }
+
+    private void onLine(int start, int length, List<ServerSentEvent> events) {
+        if (length == 0) {
+            if (data != null) {
+                events.add(new ServerSentEvent(null, eventType, data));
+            }
+            eventType = null;
+            data = null;
+            return;
+        }
+        if (cumulation.getByte(start) == ':') {
+            // comment
+            return;
+        }
+
+        int colon = cumulation.indexOf(start, start + length, (byte) ':');
+        int nameEnd = colon < 0 ? start + length : colon;
+        int valueStart = colon < 0 ? start + length : colon + 1;
+        if (valueStart < start + length && cumulation.getByte(valueStart) == ' ') {
+            valueStart++;
+        }
+        final ByteBuf value = Unpooled.copiedBuffer(cumulation.slice(valueStart, start + length - valueStart));
+
+        if (isField(start, nameEnd, "data")) {
+            if (data == null) {
+                data = value;
+            } else {
+                data = Unpooled.wrappedBuffer(data, Unpooled.wrappedBuffer(new byte[] {'\n'}), value);
+            }
+        } else if (isField(start, nameEnd, "event")) {
+            eventType = value;
+        }
+    }
+
+    private boolean isField(int start, int end, String name) {
+        if (end - start != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (cumulation.getByte(start + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
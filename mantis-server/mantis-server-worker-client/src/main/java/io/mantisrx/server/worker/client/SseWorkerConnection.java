@@ -20,6 +20,8 @@ import static com.mantisrx.common.utils.MantisMetricStringConstants.DROP_OPERATO
 
 import com.mantisrx.common.utils.MantisSSEConstants;
 import io.mantisrx.common.MantisServerSentEvent;
+import io.mantisrx.common.compression.BinaryFrameDecoder;
+import io.mantisrx.common.compression.BinaryFrames;
 import io.mantisrx.common.compression.CompressionUtils;
 import io.mantisrx.common.metrics.Counter;
 import io.mantisrx.common.metrics.Metrics;
@@ -29,11 +31,13 @@ import io.mantisrx.runtime.parameter.SinkParameter;
 import io.mantisrx.runtime.parameter.SinkParameters;
 import io.netty.buffer.ByteBuf;
 import io.reactivx.mantis.operators.DropOperator;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import mantis.io.reactivex.netty.RxNetty;
 import mantis.io.reactivex.netty.pipeline.PipelineConfigurators;
@@ -46,7 +50,6 @@ import org.slf4j.LoggerFactory;
 import rx.Observable;
 import rx.functions.Action1;
 import rx.functions.Func1;
-import rx.functions.Func2;
 import rx.subjects.PublishSubject;
 
 
@@ -54,6 +57,7 @@ public class SseWorkerConnection {
 
     private static final Logger logger = LoggerFactory.getLogger(SseWorkerConnection.class);
     private static final String metricNamePrefix = DROP_OPERATOR_INCOMING_METRIC_GROUP;
+    private static final ReconnectPolicy defaultReconnectPolicy = new ReconnectPolicy("SseWorkerConnection");
     protected final PublishSubject<Boolean> shutdownSubject = PublishSubject.create();
     final AtomicLong lastDataReceived = new AtomicLong(System.currentTimeMillis());
     private final String connectionType;
@@ -73,8 +77,13 @@ public class SseWorkerConnection {
     private final boolean disablePingFiltering;
     private final AtomicBoolean isConnected = new AtomicBoolean(false);
     private final AtomicBoolean isReceivingData = new AtomicBoolean(false);
+    private final ReconnectPolicy reconnectPolicy;
+    private final AtomicInteger reconnectAttempts = new AtomicInteger();
+    private final AtomicLong disconnectedAt = new AtomicLong();
     HttpClient<ByteBuf, ServerSentEvent> client;
+    HttpClient<ByteBuf, ByteBuf> framesClient;
     private boolean compressedBinaryInputEnabled = false;
+    private boolean binaryFramesEnabled = false;
     private volatile boolean isShutdown = false;
     private final Func1<Observable<? extends Throwable>, Observable<?>> retryLogic =
             new Func1<Observable<? extends Throwable>, Observable<?>>() {
@@ -83,22 +92,17 @@ public class SseWorkerConnection {
                     if (!reconnectUponConnectionReset)
                         return Observable.empty();
                     return attempts
-                            .zipWith(Observable.range(1, Integer.MAX_VALUE), new Func2<Throwable, Integer, Integer>() {
+                            .flatMap(new Func1<Throwable, Observable<?>>() {
                                 @Override
-                                public Integer call(Throwable t1, Integer integer) {
-                                    return integer;
-                                }
-                            })
-                            .flatMap(new Func1<Integer, Observable<?>>() {
-                                @Override
-                                public Observable<?> call(Integer integer) {
+                                public Observable<?> call(Throwable throwable) {
                                     if (isShutdown) {
                                         logger.info(getName() + ": Is shutdown, stopping retries");
                                         return Observable.empty();
                                     }
-                                    long delay = 2 * (integer > 10 ? 10 : integer);
-                                    logger.info(getName() + ": retrying conx after sleeping for " + delay + " secs");
-                                    return Observable.timer(delay, TimeUnit.SECONDS);
+                                    // attempts are counted since the connection was last established
+                                    long delay = reconnectPolicy.nextDelayMsec(reconnectAttempts.incrementAndGet());
+                                    logger.info(getName() + ": retrying conx after sleeping for " + delay + " msecs");
+                                    return Observable.timer(delay, TimeUnit.MILLISECONDS);
                                 }
                             });
                 }
@@ -133,6 +137,28 @@ public class SseWorkerConnection {
                                final SinkParameters sinkParameters,
                                final boolean disablePingFiltering,
                                final MetricGroupId metricGroupId) {
+        this(connectionType, hostname, port, updateConxStatus, updateDataRecvngStatus, connectionResetHandler,
+                dataRecvTimeoutSecs, reconnectUponConnectionReset, metricsSet, bufferSize, sinkParameters,
+                disablePingFiltering, metricGroupId, defaultReconnectPolicy);
+    }
+
+    /**
+     * @param reconnectPolicy paces the reconnects of this connection, shared with the other connections of a client.
+     */
+    public SseWorkerConnection(final String connectionType,
+                               final String hostname,
+                               final Integer port,
+                               final Action1<Boolean> updateConxStatus,
+                               final Action1<Boolean> updateDataRecvngStatus,
+                               final Action1<Throwable> connectionResetHandler,
+                               final long dataRecvTimeoutSecs,
+                               final boolean reconnectUponConnectionReset,
+                               final CopyOnWriteArraySet<MetricGroupId> metricsSet,
+                               final int bufferSize,
+                               final SinkParameters sinkParameters,
+                               final boolean disablePingFiltering,
+                               final MetricGroupId metricGroupId,
+                               final ReconnectPolicy reconnectPolicy) {
         this.connectionType = connectionType;
         this.hostname = hostname;
         this.port = port;
@@ -155,8 +181,10 @@ public class SseWorkerConnection {
         this.sinkParameters = sinkParameters;
         if (this.sinkParameters != null) {
             this.compressedBinaryInputEnabled = isCompressedBinaryInputEnabled(this.sinkParameters.getSinkParams());
+            this.binaryFramesEnabled = isBinaryFramesEnabled(this.sinkParameters.getSinkParams());
         }
         this.disablePingFiltering = disablePingFiltering;
+        this.reconnectPolicy = reconnectPolicy;
     }
 
     private boolean isCompressedBinaryInputEnabled(List<SinkParameter> sinkParams) {
@@ -168,6 +196,15 @@ public class SseWorkerConnection {
         return false;
     }
 
+    private boolean isBinaryFramesEnabled(List<SinkParameter> sinkParams) {
+        for (SinkParameter sinkParam : sinkParams) {
+            if (MantisSSEConstants.MANTIS_ENABLE_BINARY_FRAMES.equals(sinkParam.getName()) && "true".equalsIgnoreCase(sinkParam.getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public String getName() {
         return "Sse" + connectionType + "Connection: " + hostname + ":" + port;
     }
@@ -185,12 +222,6 @@ public class SseWorkerConnection {
     public synchronized Observable<MantisServerSentEvent> call() {
         if (isShutdown)
             return Observable.empty();
-        client =
-                RxNetty.<ByteBuf, ServerSentEvent>newHttpClientBuilder(hostname, port)
-                        .pipelineConfigurator(PipelineConfigurators.<ByteBuf>clientSseConfigurator())
-                        //.enableWireLogging(LogLevel.ERROR)
-                        .withNoConnectionPooling()
-                        .build();
         StringBuilder sp = new StringBuilder();
 
         String delimiter = sinkParameters == null
@@ -212,24 +243,40 @@ public class SseWorkerConnection {
 
         String uri = "/" + sp.toString();
         logger.info(getName() + ": Using uri: " + uri);
+        final Observable<MantisServerSentEvent> events;
+        if (binaryFramesEnabled) {
+            framesClient =
+                    RxNetty.<ByteBuf, ByteBuf>newHttpClientBuilder(hostname, port)
+                            .withNoConnectionPooling()
+                            .build();
+            events = framesClient.submit(HttpClientRequest.createGet(uri))
+                    .takeUntil(shutdownSubject)
+                    .takeWhile((byteBufHttpClientResponse) -> !isShutdown)
+                    .filter(this::isOkResponse)
+                    .flatMap((HttpClientResponse<ByteBuf> response) -> {
+                        setConnected();
+                        return streamFrames(response, updateDataRecvngStatus, dataRecvTimeoutSecs, delimiter);
+                    });
+        } else {
+            client =
+                    RxNetty.<ByteBuf, ServerSentEvent>newHttpClientBuilder(hostname, port)
+                            .pipelineConfigurator(PipelineConfigurators.<ByteBuf>clientSseConfigurator())
+                            //.enableWireLogging(LogLevel.ERROR)
+                            .withNoConnectionPooling()
+                            .build();
+            events = client.submit(HttpClientRequest.createGet(uri))
+                    .takeUntil(shutdownSubject)
+                    .takeWhile((serverSentEventHttpClientResponse) -> !isShutdown)
+                    .filter(this::isOkResponse)
+                    .flatMap((HttpClientResponse<ServerSentEvent> response) -> {
+                        setConnected();
+                        return streamContent(response, updateDataRecvngStatus, dataRecvTimeoutSecs, delimiter);
+                    });
+        }
         return
-                client.submit(HttpClientRequest.createGet(uri))
-                        .takeUntil(shutdownSubject)
-                        .takeWhile((serverSentEventHttpClientResponse) -> !isShutdown)
-                        .filter((HttpClientResponse<ServerSentEvent> response) -> {
-                            if (!response.getStatus().reasonPhrase().equals("OK"))
-                                logger.warn(getName() + ":Trying to continue after unexpected response from sink: "
-                                        + response.getStatus().reasonPhrase());
-                            return response.getStatus().reasonPhrase().equals("OK");
-                        })
-                        .flatMap((HttpClientResponse<ServerSentEvent> response) -> {
-                            if (!isConnected.getAndSet(true)) {
-                                if (updateConxStatus != null)
-                                    updateConxStatus.call(true);
-                            }
-                            return streamContent(response, updateDataRecvngStatus, dataRecvTimeoutSecs, delimiter);
-                        })
+                events
                         .doOnError((Throwable throwable) -> {
+                            disconnectedAt.compareAndSet(0, System.currentTimeMillis());
                             resetConnected();
                             logger.warn(getName() +
                                     "Error on getting response from SSE server: " + throwable.getMessage());
@@ -239,6 +286,25 @@ public class SseWorkerConnection {
                         .doOnCompleted(this::resetConnected);
     }
 
+    private boolean isOkResponse(HttpClientResponse<?> response) {
+        if (!response.getStatus().reasonPhrase().equals("OK"))
+            logger.warn(getName() + ":Trying to continue after unexpected response from sink: "
+                    + response.getStatus().reasonPhrase());
+        return response.getStatus().reasonPhrase().equals("OK");
+    }
+
+    private void setConnected() {
+        if (!isConnected.getAndSet(true)) {
+            if (updateConxStatus != null)
+                updateConxStatus.call(true);
+        }
+        reconnectAttempts.set(0);
+        long lostAt = disconnectedAt.getAndSet(0);
+        if (lostAt > 0) {
+            reconnectPolicy.onReconnected(System.currentTimeMillis() - lostAt);
+        }
+    }
+
     private void resetConnected() {
         if (isConnected.getAndSet(false)) {
             if (updateConxStatus != null)
@@ -254,6 +320,62 @@ public class SseWorkerConnection {
     protected Observable<MantisServerSentEvent> streamContent(HttpClientResponse<ServerSentEvent> response,
                                                             final Action1<Boolean> updateDataRecvngStatus,
                                                             final long dataRecvTimeoutSecs, String delimiter) {
+        monitorDataReceived(updateDataRecvngStatus, dataRecvTimeoutSecs);
+        return response.getContent()
+                .lift(new DropOperator<ServerSentEvent>(metricGroupId))
+                .flatMap((ServerSentEvent t1) -> {
+                    markDataReceived(updateDataRecvngStatus);
+                    return decodeEvent(t1, delimiter);
+                }, 1)
+                .takeUntil(shutdownSubject)
+                .takeWhile((event) -> !isShutdown);
+    }
+
+    /**
+     * Streams the {@link BinaryFrames} of a connection that requested them, or its server sent events if the sink
+     * does not support binary frames and ignored the request.
+     */
+    protected Observable<MantisServerSentEvent> streamFrames(HttpClientResponse<ByteBuf> response,
+                                                           final Action1<Boolean> updateDataRecvngStatus,
+                                                           final long dataRecvTimeoutSecs, String delimiter) {
+        monitorDataReceived(updateDataRecvngStatus, dataRecvTimeoutSecs);
+
+        // chunks are released once delivered, so they are decoded before any asynchronous boundary
+        final String contentType = response.getHeaders().get("content-type");
+        if (contentType == null || !contentType.startsWith(MantisSSEConstants.MANTIS_BINARY_FRAMES_CONTENT_TYPE)) {
+            logger.info(getName() + ": sink does not support binary frames, reading server sent events");
+            final SseTextDecoder sseDecoder = new SseTextDecoder();
+            return response.getContent()
+                    .map(sseDecoder::decode)
+                    .lift(new DropOperator<List<ServerSentEvent>>(metricGroupId))
+                    .flatMap((List<ServerSentEvent> sses) -> {
+                        markDataReceived(updateDataRecvngStatus);
+                        return Observable.from(sses).concatMap((ServerSentEvent t1) -> decodeEvent(t1, delimiter));
+                    }, 1)
+                    .takeUntil(shutdownSubject)
+                    .takeWhile((event) -> !isShutdown);
+        }
+
+        final BinaryFrameDecoder frameDecoder = new BinaryFrameDecoder();
+        return response.getContent()
+                .flatMap((ByteBuf chunk) -> {
+                    try {
+                        return Observable.just(frameDecoder.decode(chunk));
+                    } catch (IOException e) {
+                        return Observable.<List<MantisServerSentEvent>>error(
+                                new SseException(ErrorType.Retryable, "Got invalid binary frame: " + e.getMessage(), e));
+                    }
+                })
+                .lift(new DropOperator<List<MantisServerSentEvent>>(metricGroupId))
+                .flatMap((List<MantisServerSentEvent> frameEvents) -> {
+                    markDataReceived(updateDataRecvngStatus);
+                    return Observable.from(frameEvents).filter(this::isNotFilteredPing);
+                }, 1)
+                .takeUntil(shutdownSubject)
+                .takeWhile((event) -> !isShutdown);
+    }
+
+    private void monitorDataReceived(final Action1<Boolean> updateDataRecvngStatus, final long dataRecvTimeoutSecs) {
         long interval = Math.max(1, dataRecvTimeoutSecs / 2);
         if (updateDataRecvngStatus != null) {
             Observable.interval(interval, interval, TimeUnit.SECONDS)
@@ -282,34 +404,39 @@ public class SseWorkerConnection {
                     })
                     .subscribe();
         }
-        return response.getContent()
-                .lift(new DropOperator<ServerSentEvent>(metricGroupId))
-                .flatMap((ServerSentEvent t1) -> {
-                    lastDataReceived.set(System.currentTimeMillis());
-                    if (isConnected.get() && isReceivingData.compareAndSet(false, true))
-                        if (updateDataRecvngStatus != null)
-                            synchronized (updateDataRecvngStatus) {
-                                updateDataRecvngStatus.call(true);
-                            }
+    }
 
-                    if (t1.hasEventType() && t1.getEventTypeAsString().startsWith("error:")) {
-                        return Observable.error(new SseException(ErrorType.Retryable, "Got error SSE event: " + t1.contentAsString()));
-                    }
-                    return Observable.just(t1.contentAsString());
-                }, 1)
-                .filter(data -> {
-                    if (data.startsWith("ping")) {
-                        pingCounter.increment();
-                        return this.disablePingFiltering;
-                    }
-                    return true;
-                })
-                .flatMapIterable((data) -> {
-                    boolean useSnappy = true;
-                    return CompressionUtils.decompressAndBase64Decode(data, compressedBinaryInputEnabled, useSnappy, delimiter);
-                }, 1)
-                .takeUntil(shutdownSubject)
-                .takeWhile((event) -> !isShutdown);
+    private void markDataReceived(final Action1<Boolean> updateDataRecvngStatus) {
+        lastDataReceived.set(System.currentTimeMillis());
+        if (isConnected.get() && isReceivingData.compareAndSet(false, true))
+            if (updateDataRecvngStatus != null)
+                synchronized (updateDataRecvngStatus) {
+                    updateDataRecvngStatus.call(true);
+                }
+    }
+
+    private Observable<MantisServerSentEvent> decodeEvent(ServerSentEvent t1, String delimiter) {
+        if (t1.hasEventType() && t1.getEventTypeAsString().startsWith("error:")) {
+            return Observable.error(new SseException(ErrorType.Retryable, "Got error SSE event: " + t1.contentAsString()));
+        }
+        if (CompressionUtils.isPing(t1.content())) {
+            pingCounter.increment();
+            if (!this.disablePingFiltering) {
+                return Observable.empty();
+            }
+        }
+        // decoded right away from the event's buffer, without copying the whole batch into a string
+        boolean useSnappy = true;
+        return Observable.from(CompressionUtils.decompressAndBase64Decode(t1.content(),
+                compressedBinaryInputEnabled, useSnappy, delimiter));
+    }
+
+    private boolean isNotFilteredPing(MantisServerSentEvent event) {
+        if (BinaryFrames.PING_EVENT.equals(event.getEventAsString())) {
+            pingCounter.increment();
+            return this.disablePingFiltering;
+        }
+        return true;
     }
 
     private boolean hasDataDrop() {
@@ -95,6 +95,8 @@ public class SseWorkerConnectionFunction implements WorkerConnectionFunc<MantisS
     private final Action1<Throwable> connectionResetHandler;
     private final SinkParameters sinkParameters;
     private final int bufferSize;
+    // shared by all connections of the client, so that they reconnect at a bounded rate
+    private final ReconnectPolicy reconnectPolicy;
 
     public SseWorkerConnectionFunction(boolean reconnectUponConnectionRest, Action1<Throwable> connectionResetHandler) {
         this(reconnectUponConnectionRest, connectionResetHandler, null);
@@ -106,6 +108,7 @@ public class SseWorkerConnectionFunction implements WorkerConnectionFunc<MantisS
         this.sinkParameters = sinkParameters;
         String bufferSizeStr = ServiceRegistry.INSTANCE.getPropertiesService().getStringValue("workerClient.buffer.size", DEFAULT_BUFFER_SIZE_STR);
         bufferSize = Integer.parseInt(bufferSizeStr);
+        reconnectPolicy = ReconnectPolicy.fromProperties("WorkerMetrics", "workerClient");
     }
 
     @Override
@@ -122,7 +125,7 @@ public class SseWorkerConnectionFunction implements WorkerConnectionFunc<MantisS
             private final SseWorkerConnection workerConn =
                     new SseWorkerConnection("WorkerMetrics", hostname, port, updateConxStatus, updateDataRecvngStatus,
                             connectionResetHandler, dataRecvTimeoutSecs, reconnectUponConnectionRest, metricsSet,
-                            bufferSize, sinkParameters,metricGroupId);
+                            bufferSize, sinkParameters, false, metricGroupId, reconnectPolicy);
 
             @Override
             public String getName() {
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2021 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.server.worker.client;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ReconnectPolicyTest {
+
+    @Test
+    public void testDelayGrowsWithJitterUpToMax() {
+        ReconnectPolicy policy = new ReconnectPolicy("testDelayGrows", 1000, 20_000, 0);
+        long[] expected = {1000, 2000, 4000, 8000, 16_000, 20_000, 20_000};
+        for (int attempt = 1; attempt <= expected.length; attempt++) {
+            for (int i = 0; i < 100; i++) {
+                long delay = policy.nextDelayMsec(attempt);
+                long backoff = expected[attempt - 1];
+                assertTrue("attempt " + attempt + " delay " + delay, delay >= backoff / 2 && delay <= backoff);
+            }
+        }
+        long delay = policy.nextDelayMsec(Integer.MAX_VALUE);
+        assertTrue(delay >= 10_000 && delay <= 20_000);
+    }
+
+    @Test
+    public void testReconnectsAreSpreadByBudget() {
+        // 10 reconnects per second, i.e. one every 100ms
+        ReconnectPolicy policy = new ReconnectPolicy("testBudget", 1, 1, 10);
+        long previous = -1;
+        for (int i = 0; i < 20; i++) {
+            long delay = policy.nextDelayMsec(1);
+            assertTrue("reconnect " + i + " delay " + delay, delay >= i * 100L - 50);
+            assertTrue(delay > previous);
+            previous = delay;
+        }
+        assertTrue(previous >= 1850 && previous <= 2000);
+    }
+}
@@ -23,12 +23,14 @@ import io.mantisrx.shaded.com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import rx.functions.Func1;
 
 
 public class TaggedData implements JsonType {
 
     private final Set<String> matchedClients = new HashSet<String>();
     private Map<String, Object> payLoad;
+    private volatile String serializedPayload;
 
     @JsonCreator
     @JsonIgnoreProperties(ignoreUnknown = true)
@@ -55,6 +57,20 @@ public class TaggedData implements JsonType {
 
     public void setPayload(Map<String, Object> newPayload) {
         this.payLoad = newPayload;
+        this.serializedPayload = null;
+    }
+
+    /**
+     * Returns the payload serialized with the given serializer, serializing it only the first time so that it is
+     * shared by all connections the data is routed to.
+     */
+    public String serializePayload(Func1<Map<String, Object>, String> serializer) {
+        String serialized = serializedPayload;
+        if (serialized == null) {
+            serialized = serializer.call(payLoad);
+            serializedPayload = serialized;
+        }
+        return serialized;
     }
 
 
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.sourcejob.kafka.sink;
+
+import io.mantisrx.sourcejob.kafka.core.TaggedData;
+import io.reactivex.mantis.network.push.AsyncConnection;
+import io.reactivex.mantis.network.push.ChunkProcessor;
+import io.reactivex.mantis.network.push.ConnectionGroup;
+import io.reactivex.mantis.network.push.ConnectionManager;
+import io.reactivex.mantis.network.push.Router;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import rx.functions.Func1;
+
+
+/**
+ * Routes each {@link TaggedData} only to the connection groups subscribed to one of its matched clients, instead of
+ * offering every chunk to every connection group and letting each connection's predicate filter it.
+ * <p>
+ * The subscription of a group is read off its connections' {@link TaggedEventFilter} predicates whenever connections
+ * come or go, and published as an immutable snapshot. Processing a chunk only reads the current snapshot, so it neither
+ * takes the connection manager's lock nor copies its groups. Groups whose connections are not subscribed to a single
+ * query are offered every chunk, as before.
+ */
+public class SubscriptionChunkProcessor extends ChunkProcessor<TaggedData> {
+
+    private volatile Routes routes = Routes.EMPTY;
+
+    public SubscriptionChunkProcessor(Router<TaggedData> router) {
+        super(router);
+    }
+
+    @Override
+    public void onConnectionsChanged(ConnectionManager<TaggedData> connectionManager) {
+        routes = Routes.of(connectionManager.groups());
+    }
+
+    @Override
+    public void process(ConnectionManager<TaggedData> connectionManager, List<TaggedData> chunks) {
+        Routes current = routes;
+        if (current.isEmpty()) {
+            return;
+        }
+
+        Map<Set<AsyncConnection<TaggedData>>, List<TaggedData>> routed = new IdentityHashMap<>();
+        for (TaggedData chunk : chunks) {
+            for (String client : chunk.getMatchedClients()) {
+                List<Set<AsyncConnection<TaggedData>>> subscribed = current.connectionsBySubscription.get(client);
+                if (subscribed != null) {
+                    for (Set<AsyncConnection<TaggedData>> connections : subscribed) {
+                        routed.computeIfAbsent(connections, k -> new ArrayList<>()).add(chunk);
+                    }
+                }
+            }
+            for (Set<AsyncConnection<TaggedData>> connections : current.unfilteredConnections) {
+                routed.computeIfAbsent(connections, k -> new ArrayList<>()).add(chunk);
+            }
+        }
+
+        routed.forEach(router::route);
+    }
+
+    /**
+     * Returns the subscription shared by all of the given connections, or null if they do not share one.
+     */
+    static String subscriptionOf(Set<AsyncConnection<TaggedData>> connections) {
+        String subscription = null;
+        for (AsyncConnection<TaggedData> connection : connections) {
+            Func1<TaggedData, Boolean> predicate = connection.getPredicate();
+            if (!(predicate instanceof TaggedEventFilter.SourceEventFilter)) {
+                return null;
+            }
+            String connectionSubscription = ((TaggedEventFilter.SourceEventFilter) predicate).getSubscription();
+            if (subscription == null) {
+                subscription = connectionSubscription;
+            } else if (!subscription.equals(connectionSubscription)) {
+                return null;
+            }
+        }
+        return subscription;
+    }
+
+    /**
+     * The connections of every group, by the subscription they consume. Never modified once built.
+     */
+    private static class Routes {
+
+        private static final Routes EMPTY = new Routes(Collections.emptyMap(), Collections.emptyList());
+
+        private final Map<String, List<Set<AsyncConnection<TaggedData>>>> connectionsBySubscription;
+        private final List<Set<AsyncConnection<TaggedData>>> unfilteredConnections;
+
+        private Routes(Map<String, List<Set<AsyncConnection<TaggedData>>>> connectionsBySubscription,
+                       List<Set<AsyncConnection<TaggedData>>> unfilteredConnections) {
+            this.connectionsBySubscription = connectionsBySubscription;
+            this.unfilteredConnections = unfilteredConnections;
+        }
+
+        static Routes of(Map<String, ConnectionGroup<TaggedData>> groups) {
+            Map<String, List<Set<AsyncConnection<TaggedData>>>> connectionsBySubscription = new HashMap<>();
+            List<Set<AsyncConnection<TaggedData>>> unfilteredConnections = new ArrayList<>();
+            for (ConnectionGroup<TaggedData> group : groups.values()) {
+                Set<AsyncConnection<TaggedData>> connections = group.getConnections();
+                if (connections.isEmpty()) {
+                    continue;
+                }
+                String subscription = subscriptionOf(connections);
+                if (subscription == null) {
+                    unfilteredConnections.add(connections);
+                } else {
+                    connectionsBySubscription.computeIfAbsent(subscription, k -> new ArrayList<>()).add(connections);
+                }
+            }
+            return new Routes(connectionsBySubscription, unfilteredConnections);
+        }
+
+        boolean isEmpty() {
+            return connectionsBySubscription.isEmpty() && unfilteredConnections.isEmpty();
+        }
+    }
+}
@@ -52,20 +52,23 @@ public class TaggedDataSourceSink implements Sink<TaggedData> {
     public TaggedDataSourceSink(Func2<Map<String, List<String>>, Context, Void> preProcessor,
                                 Func2<Map<String, List<String>>, Context, Void> postProcessor) {
         this.sink = new ServerSentEventsSink.Builder<TaggedData>()
-            .withEncoder((data) -> {
-                try {
-                    return OBJECT_MAPPER.writeValueAsString(data.getPayload());
-                } catch (JsonProcessingException e) {
-                    e.printStackTrace();
-                    return "{\"error\":" + e.getMessage() + "}";
-                }
-            })
+            .withEncoder((data) -> data.serializePayload(TaggedDataSourceSink::serialize))
             .withPredicate(new Predicate<TaggedData>("description", new TaggedEventFilter()))
+            .withChunkProcessor(SubscriptionChunkProcessor::new)
             .withRequestPreprocessor(preProcessor)
             .withRequestPostprocessor(postProcessor)
             .build();
     }
 
+    private static String serialize(Map<String, Object> payload) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            e.printStackTrace();
+            return "{\"error\":" + e.getMessage() + "}";
+        }
+    }
+
     @Override
     public void call(Context context, PortRequest portRequest,
                      Observable<TaggedData> observable) {
@@ -18,7 +18,6 @@ package io.mantisrx.sourcejob.kafka.sink;
 
 import io.mantisrx.sourcejob.kafka.core.TaggedData;
 import io.mantisrx.sourcejob.kafka.core.utils.SourceJobConstants;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import org.apache.log4j.Logger;
@@ -33,30 +32,40 @@ public class TaggedEventFilter implements Func1<Map<String, List<String>>, Func1
     public Func1<TaggedData, Boolean> call(Map<String, List<String>> parameters) {
         Func1<TaggedData, Boolean> filter = t1 -> true;
         if (parameters != null) {
-            if (parameters.containsKey(SourceJobConstants.SUBSCRIPTION_ID_PARAM_NAME)) {
-                String subId = parameters.get(SourceJobConstants.SUBSCRIPTION_ID_PARAM_NAME).get(0);
-                String clientId = parameters.get(SourceJobConstants.CLIENT_ID_PARAMETER_NAME).get(0);
-                List<String> terms = new ArrayList<String>();
-                if (clientId != null && !clientId.isEmpty()) {
-                    terms.add(clientId + "_" + subId);
-                } else {
-                    terms.add(subId);
-                }
-                filter = new SourceEventFilter(terms);
+            String subscription = subscriptionOf(parameters);
+            if (subscription != null) {
+                filter = new SourceEventFilter(subscription);
             }
-            return filter;
         }
         return filter;
     }
 
-    private static class SourceEventFilter implements Func1<TaggedData, Boolean> {
+    /**
+     * Returns the id data is tagged with for the subscription of a connection with the given query parameters, or
+     * null if the connection is not subscribed to a query.
+     */
+    static String subscriptionOf(Map<String, List<String>> parameters) {
+        String subId = firstValue(parameters, SourceJobConstants.SUBSCRIPTION_ID_PARAM_NAME);
+        if (subId == null) {
+            return null;
+        }
+        String clientId = firstValue(parameters, SourceJobConstants.CLIENT_ID_PARAMETER_NAME);
+        return clientId != null && !clientId.isEmpty() ? clientId + "_" + subId : subId;
+    }
+
+    private static String firstValue(Map<String, List<String>> parameters, String name) {
+        List<String> values = parameters.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    static class SourceEventFilter implements Func1<TaggedData, Boolean> {
 
         private String jobId = "UNKNOWN";
         private String jobName = "UNKNOWN";
-        private List<String> terms;
+        private final String subscription;
 
-        SourceEventFilter(List<String> terms) {
-            this.terms = terms;
+        SourceEventFilter(String subscription) {
+            this.subscription = subscription;
             String jId = System.getenv("JOB_ID");
             if (jId != null && !jId.isEmpty()) {
                 jobId = jId;
@@ -65,20 +74,17 @@ public class TaggedEventFilter implements Func1<Map<String, List<String>>, Func1
             if (jName != null && !jName.isEmpty()) {
                 jobName = jName;
             }
-            logger.info("Created SourceEventFilter! for subId " + terms.toString() + " in Job : " + jobName + " with Id " + jobId);
+            logger.info("Created SourceEventFilter! for subId " + subscription + " in Job : " + jobName + " with Id " + jobId);
+        }
+
+        String getSubscription() {
+            return subscription;
         }
 
         @Override
         public Boolean call(TaggedData data) {
             //      DynamicCounter.increment("SourceEventFilterCount", "kind","processed","mantisJobId",jobId,"subId",terms.toString());
-            boolean match = true;
-            for (String term : terms) {
-                if (!data.matchesClient(term)) {
-                    match = false;
-                    break;
-                }
-            }
-            return match;
+            return data.matchesClient(subscription);
         }
     }
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.sourcejob.kafka.sink;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.mantisrx.sourcejob.kafka.core.TaggedData;
+import io.mantisrx.sourcejob.kafka.core.utils.SourceJobConstants;
+import io.reactivex.mantis.network.push.AsyncConnection;
+import io.reactivex.mantis.network.push.ConnectionGroup;
+import io.reactivex.mantis.network.push.ConnectionManager;
+import io.reactivex.mantis.network.push.Router;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import rx.functions.Func1;
+import rx.observers.TestObserver;
+
+
+public class SubscriptionChunkProcessorTest {
+
+    private final AtomicInteger connectionIds = new AtomicInteger();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldRouteDataOnlyToSubscribedGroups() {
+        Map<String, ConnectionGroup<TaggedData>> groups = new LinkedHashMap<>();
+        groups.put("clientA", group("clientA", "sub1"));
+        groups.put("clientB", group("clientB", "sub2"));
+        ConnectionManager<TaggedData> connectionManager = mock(ConnectionManager.class);
+        when(connectionManager.groups()).thenReturn(groups);
+
+        RecordingRouter router = new RecordingRouter();
+        SubscriptionChunkProcessor processor = new SubscriptionChunkProcessor(router);
+        processor.onConnectionsChanged(connectionManager);
+        processor.process(connectionManager,
+                Arrays.asList(taggedData("clientA_sub1"), taggedData("clientB_sub2"), taggedData("clientA_sub1"),
+                        taggedData("clientC_sub3")));
+
+        assertEquals(2, router.routed.size());
+        assertEquals(2, router.routed.get("clientA").size());
+        assertTrue(router.routed.get("clientA").stream().allMatch(data -> data.matchesClient("clientA_sub1")));
+        assertEquals(1, router.routed.get("clientB").size());
+        assertTrue(router.routed.get("clientB").get(0).matchesClient("clientB_sub2"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldOfferAllDataToUnsubscribedGroups() {
+        ConnectionGroup<TaggedData> group = new ConnectionGroup<>("clientA");
+        group.addConnection(connection("clientA", data -> true));
+        ConnectionManager<TaggedData> connectionManager = mock(ConnectionManager.class);
+        when(connectionManager.groups()).thenReturn(Collections.singletonMap("clientA", group));
+
+        RecordingRouter router = new RecordingRouter();
+        SubscriptionChunkProcessor processor = new SubscriptionChunkProcessor(router);
+        processor.onConnectionsChanged(connectionManager);
+        processor.process(connectionManager,
+                Arrays.asList(taggedData("clientA_sub1"), taggedData("clientB_sub2")));
+
+        assertEquals(2, router.routed.get("clientA").size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldRouteWithConnectionsOfLastChange() {
+        Map<String, ConnectionGroup<TaggedData>> groups = new LinkedHashMap<>();
+        groups.put("clientA", group("clientA", "sub1"));
+        ConnectionManager<TaggedData> connectionManager = mock(ConnectionManager.class);
+        when(connectionManager.groups()).thenReturn(groups);
+
+        RecordingRouter router = new RecordingRouter();
+        SubscriptionChunkProcessor processor = new SubscriptionChunkProcessor(router);
+
+        // Nothing is routed before the first connection is added.
+        processor.process(connectionManager, Collections.singletonList(taggedData("clientA_sub1")));
+        assertTrue(router.routed.isEmpty());
+
+        processor.onConnectionsChanged(connectionManager);
+        groups.put("clientB", group("clientB", "sub2"));
+        processor.process(connectionManager,
+                Arrays.asList(taggedData("clientA_sub1"), taggedData("clientB_sub2")));
+        assertEquals(1, router.routed.size());
+
+        processor.onConnectionsChanged(connectionManager);
+        processor.process(connectionManager,
+                Arrays.asList(taggedData("clientA_sub1"), taggedData("clientB_sub2")));
+        assertEquals(2, router.routed.get("clientA").size());
+        assertEquals(1, router.routed.get("clientB").size());
+
+        // Chunks are routed off the snapshot; only connection changes read the groups.
+        verify(connectionManager, times(2)).groups();
+    }
+
+    @Test
+    public void shouldSerializePayloadOnce() {
+        TaggedData data = taggedData("clientA_sub1");
+        AtomicInteger serializations = new AtomicInteger();
+
+        String first = data.serializePayload(payload -> "serialized" + serializations.incrementAndGet());
+        String second = data.serializePayload(payload -> "serialized" + serializations.incrementAndGet());
+
+        assertEquals("serialized1", first);
+        assertEquals(first, second);
+        assertEquals(1, serializations.get());
+    }
+
+    private ConnectionGroup<TaggedData> group(String clientId, String subscriptionId) {
+        Map<String, List<String>> params = new HashMap<>();
+        params.put(SourceJobConstants.CLIENT_ID_PARAMETER_NAME, Collections.singletonList(clientId));
+        params.put(SourceJobConstants.SUBSCRIPTION_ID_PARAM_NAME, Collections.singletonList(subscriptionId));
+
+        ConnectionGroup<TaggedData> group = new ConnectionGroup<>(clientId);
+        for (int i = 0; i < 2; i++) {
+            group.addConnection(connection(clientId, new TaggedEventFilter().call(params)));
+        }
+        return group;
+    }
+
+    private AsyncConnection<TaggedData> connection(String groupId, Func1<TaggedData, Boolean> predicate) {
+        String id = String.valueOf(connectionIds.incrementAndGet());
+        return new AsyncConnection<>("localhost", 7001, id, id, groupId, new TestObserver<List<byte[]>>(), predicate);
+    }
+
+    private static TaggedData taggedData(String client) {
+        TaggedData data = new TaggedData(new HashMap<>());
+        data.addMatchedClient(client);
+        return data;
+    }
+
+    private static class RecordingRouter extends Router<TaggedData> {
+
+        private final Map<String, List<TaggedData>> routed = new HashMap<>();
+
+        RecordingRouter() {
+            super("test", data -> new byte[0]);
+        }
+
+        @Override
+        public void route(Set<AsyncConnection<TaggedData>> connections, List<TaggedData> chunks) {
+            String groupId = connections.iterator().next().getGroupId();
+            routed.computeIfAbsent(groupId, k -> new ArrayList<>()).addAll(chunks);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.sourcejobs.publish.stages;
+
+import com.mantisrx.common.utils.MantisSourceJobConstants;
+import io.mantisrx.publish.netty.proto.MantisEvent;
+import io.mantisrx.publish.netty.proto.MantisEventEnvelope;
+import io.mantisrx.shaded.com.fasterxml.jackson.databind.ObjectMapper;
+import io.mantisrx.shaded.com.fasterxml.jackson.databind.ObjectReader;
+import io.mantisrx.sourcejobs.publish.core.MantisEventEnvelopeTagger;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Compares the envelope handling {@link EchoStage} used to do (bind the envelope, then splice the
+ * source name into each event with {@code substring} and a {@code StringBuilder}) against the
+ * streaming {@link MantisEventEnvelopeTagger}.
+ */
+public class EchoStageBenchmark {
+
+    private static final String SOURCE_NAME = "PushRequestEventSource";
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 10, time = 3, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 20, time = 3, timeUnit = TimeUnit.SECONDS)
+    @Threads(1)
+    public void testDatabindAndSplice(Blackhole blackhole, EnvelopeState state) throws IOException {
+        for (String envelopeStr : state.envelopes) {
+            MantisEventEnvelope envelope = state.envelopeReader.readValue(envelopeStr);
+            for (MantisEvent event : envelope.getEventList()) {
+                String data = event.getData();
+                StringBuilder sb = new StringBuilder(state.sourceNamePrefix);
+                int indexofbrace = data.indexOf('{');
+                if (indexofbrace != -1) {
+                    data = sb.append(data.substring(indexofbrace + 1)).toString();
+                }
+                blackhole.consume(data);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 10, time = 3, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 20, time = 3, timeUnit = TimeUnit.SECONDS)
+    @Threads(1)
+    public void testStreamingTagger(Blackhole blackhole, EnvelopeState state) throws IOException {
+        for (String envelopeStr : state.envelopes) {
+            for (String event : state.tagger.tagEvents(envelopeStr)) {
+                blackhole.consume(event);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class EnvelopeState {
+
+        /**
+         * Number of events batched into each envelope by the publisher.
+         */
+        @Param({"1", "20", "100"})
+        public int eventsPerEnvelope;
+
+        public List<String> envelopes = new ArrayList<>();
+        public ObjectReader envelopeReader;
+        public String sourceNamePrefix;
+        public MantisEventEnvelopeTagger tagger;
+
+        @Setup(Level.Trial)
+        public void doSetup() throws IOException {
+            ObjectMapper mapper = new ObjectMapper();
+            Random random = new Random(42);
+
+            for (int i = 0; i < 100; i++) {
+                List<MantisEvent> events = new ArrayList<>();
+                for (int j = 0; j < eventsPerEnvelope; j++) {
+                    events.add(new MantisEvent(j, mapper.writeValueAsString(requestEvent(random, j))));
+                }
+                envelopes.add(mapper.writeValueAsString(new MantisEventEnvelope(System.currentTimeMillis(), "origin", events)));
+            }
+
+            envelopeReader = mapper.readerFor(MantisEventEnvelope.class);
+            sourceNamePrefix = "{" + MantisSourceJobConstants.MANTIS_META_SOURCE_NAME + ":" + "\"" + SOURCE_NAME + "\",";
+            tagger = new MantisEventEnvelopeTagger(SOURCE_NAME);
+        }
+
+        /**
+         * Approximates a request event as published by an API gateway: a handful of scalar fields, headers
+         * and the list of subscriptions the event matched.
+         */
+        private static Map<String, Object> requestEvent(Random random, int id) {
+            Map<String, Object> headers = new HashMap<>();
+            headers.put("user-agent", "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36");
+            headers.put("x-request-id", Long.toHexString(random.nextLong()));
+            headers.put("accept", "application/json");
+
+            List<String> matchedClients = new ArrayList<>();
+            matchedClients.add("MantisPushRequestEvents_PushRequestEventSourceJob-1_" + random.nextInt(100));
+            matchedClients.add("MantisPushRequestEvents_PushRequestEventSourceJob-1_" + random.nextInt(100));
+
+            Map<String, Object> event = new HashMap<>();
+            event.put("mantisStream", "defaultStream");
+            event.put("matched-clients", matchedClients);
+            event.put("id", id);
+            event.put("type", "EVENT");
+            event.put("path", "/api/v1/items/" + random.nextInt(1_000_000) + "?q=\"quoted\"");
+            event.put("status", 200);
+            event.put("latency", random.nextDouble() * 100);
+            event.put("headers", headers);
+            return event;
+        }
+    }
+}
@@ -62,6 +62,7 @@ public class PushRequestEventSourceJob extends MantisJobProvider<String> {
                         .source(new PushHttpSource(queryRegistry, port))
                         .stage(new EchoStage(), EchoStage.config())
                         .sink(new SourceSink(
+                                queryRegistry,
                                 new RequestPreProcessor(queryRegistry),
                                 new RequestPostProcessor(queryRegistry),
                                 mantisClientId))
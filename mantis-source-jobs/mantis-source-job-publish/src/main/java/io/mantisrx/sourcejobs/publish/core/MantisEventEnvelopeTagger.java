@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.sourcejobs.publish.core;
+
+import com.mantisrx.common.utils.MantisSourceJobConstants;
+import io.mantisrx.shaded.com.fasterxml.jackson.core.JsonFactory;
+import io.mantisrx.shaded.com.fasterxml.jackson.core.JsonParseException;
+import io.mantisrx.shaded.com.fasterxml.jackson.core.JsonParser;
+import io.mantisrx.shaded.com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Extracts the events of a serialized {@code MantisEventEnvelope} and injects the
+ * {@code mantis.meta.sourceName} field into each of them in a single streaming pass.
+ * <p>
+ * Unlike binding the envelope with an {@code ObjectMapper}, no envelope or event objects are
+ * materialized: the unescaped characters of each event's {@code data} field are read straight out of
+ * the parser's buffer and copied once, behind the source name prefix, into the resulting string.
+ */
+public class MantisEventEnvelopeTagger {
+
+    private static final String TS_FIELD = "ts";
+    private static final String ORIGIN_SERVER_FIELD = "originServer";
+    private static final String EVENTS_FIELD = "events";
+    private static final String EVENT_LIST_FIELD = "eventList";
+    private static final String ID_FIELD = "id";
+    private static final String DATA_FIELD = "data";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final char[] sourceNamePrefix;
+
+    public MantisEventEnvelopeTagger(String sourceName) {
+        this.sourceNamePrefix =
+            ("{" + MantisSourceJobConstants.MANTIS_META_SOURCE_NAME + ":" + "\"" + sourceName + "\",").toCharArray();
+    }
+
+    /**
+     * Returns the events contained in the given envelope, each tagged with the source name.
+     *
+     * @throws IOException if the input is not a well-formed envelope.
+     */
+    public List<String> tagEvents(String envelope) throws IOException {
+        List<String> tagged = new ArrayList<>();
+        char[] scratch = new char[0];
+
+        try (JsonParser parser = jsonFactory.createParser(envelope)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+
+                // Publishers serialize the getter name while the creator binds "events"; accept both.
+                if (EVENT_LIST_FIELD.equals(field) || EVENTS_FIELD.equals(field)) {
+                    if (value == JsonToken.VALUE_NULL) {
+                        continue;
+                    }
+                    expect(parser, value, JsonToken.START_ARRAY);
+
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String eventField = parser.getCurrentName();
+                            JsonToken eventValue = parser.nextToken();
+
+                            if (DATA_FIELD.equals(eventField)) {
+                                if (eventValue == JsonToken.VALUE_STRING) {
+                                    int length = parser.getTextLength();
+                                    if (scratch.length < sourceNamePrefix.length + length) {
+                                        scratch = new char[sourceNamePrefix.length + length];
+                                    }
+                                    tagged.add(tag(parser.getTextCharacters(), parser.getTextOffset(), length, scratch));
+                                }
+                            } else if (!ID_FIELD.equals(eventField)) {
+                                throw new JsonParseException(parser, "Unrecognized event field " + eventField);
+                            }
+                            parser.skipChildren();
+                        }
+                    }
+                    expect(parser, parser.currentToken(), JsonToken.END_ARRAY);
+                } else if (TS_FIELD.equals(field) || ORIGIN_SERVER_FIELD.equals(field)) {
+                    parser.skipChildren();
+                } else {
+                    throw new JsonParseException(parser, "Unrecognized envelope field " + field);
+                }
+            }
+            expect(parser, parser.currentToken(), JsonToken.END_OBJECT);
+        }
+
+        return tagged;
+    }
+
+    /**
+     * Injects the source name into a single event that did not arrive inside an envelope.
+     */
+    public String tagEvent(String event) {
+        int indexOfBrace = event.indexOf('{');
+        if (indexOfBrace == -1) {
+            return event;
+        }
+
+        int remaining = event.length() - indexOfBrace - 1;
+        char[] chars = new char[sourceNamePrefix.length + remaining];
+        System.arraycopy(sourceNamePrefix, 0, chars, 0, sourceNamePrefix.length);
+        event.getChars(indexOfBrace + 1, event.length(), chars, sourceNamePrefix.length);
+
+        return new String(chars);
+    }
+
+    private String tag(char[] text, int offset, int length, char[] scratch) {
+        int indexOfBrace = -1;
+        for (int i = offset; i < offset + length; i++) {
+            if (text[i] == '{') {
+                indexOfBrace = i;
+                break;
+            }
+        }
+
+        if (indexOfBrace == -1) {
+            return new String(text, offset, length);
+        }
+
+        int remaining = offset + length - indexOfBrace - 1;
+        System.arraycopy(sourceNamePrefix, 0, scratch, 0, sourceNamePrefix.length);
+        System.arraycopy(text, indexOfBrace + 1, scratch, sourceNamePrefix.length, remaining);
+
+        return new String(scratch, 0, sourceNamePrefix.length + remaining);
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
+    }
+}
@@ -18,17 +18,16 @@ package io.mantisrx.sourcejobs.publish.stages;
 
 import com.mantisrx.common.utils.MantisSourceJobConstants;
 import io.mantisrx.common.codec.Codecs;
-import io.mantisrx.publish.netty.proto.MantisEventEnvelope;
 import io.mantisrx.runtime.Context;
 import io.mantisrx.runtime.ScalarToScalar;
 import io.mantisrx.runtime.computation.ScalarComputation;
 import io.mantisrx.runtime.parameter.ParameterDefinition;
 import io.mantisrx.runtime.parameter.type.IntParameter;
 import io.mantisrx.runtime.parameter.validator.Validators;
-import io.mantisrx.shaded.com.fasterxml.jackson.databind.ObjectMapper;
-import io.mantisrx.shaded.com.fasterxml.jackson.databind.ObjectReader;
+import io.mantisrx.sourcejobs.publish.core.MantisEventEnvelopeTagger;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import org.apache.log4j.Logger;
@@ -42,27 +41,13 @@ public class EchoStage implements ScalarComputation<String, String> {
     private String clusterName;
 
     private int bufferDuration = 100;
-    private String sourceNamePrefix;
-    private ObjectReader mantisEventEnvelopeReader;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private MantisEventEnvelopeTagger envelopeTagger;
 
     @Override
     public void init(Context context) {
         clusterName = context.getWorkerInfo().getJobClusterName();
         bufferDuration = (int) context.getParameters().get(MantisSourceJobConstants.ECHO_STAGE_BUFFER_MILLIS);
-        sourceNamePrefix = "{" + MantisSourceJobConstants.MANTIS_META_SOURCE_NAME + ":" + "\"" + clusterName + "\",";
-        mantisEventEnvelopeReader = mapper.readerFor(MantisEventEnvelope.class);
-    }
-
-    private String insertSourceJobName(String event) {
-        StringBuilder sb = new StringBuilder(sourceNamePrefix);
-        int indexofbrace = event.indexOf('{');
-
-        if (indexofbrace != -1) {
-            event = sb.append(event.substring(indexofbrace + 1)).toString();
-        }
-
-        return event;
+        envelopeTagger = new MantisEventEnvelopeTagger(clusterName);
     }
 
     public Observable<String> call(Context context,
@@ -71,18 +56,15 @@ public class EchoStage implements ScalarComputation<String, String> {
             .buffer(bufferDuration, TimeUnit.MILLISECONDS)
             .flatMapIterable(i -> i)
             .filter((event) -> !event.isEmpty())
-            .flatMap((envelopeStr) -> {
+            .flatMapIterable((envelopeStr) -> {
                 try {
-                    MantisEventEnvelope envelope = mantisEventEnvelopeReader.readValue(envelopeStr);
-                    return Observable.from(envelope.getEventList())
-                        .map((event) -> event.getData());
+                    return envelopeTagger.tagEvents(envelopeStr);
                 } catch (IOException e) {
                     LOGGER.error(e.getMessage());
                     // Could not parse just send it along.
-                    return Observable.just(envelopeStr);
+                    return Collections.singletonList(envelopeTagger.tagEvent(envelopeStr));
                 }
             })
-            .map(this::insertSourceJobName)
             .onErrorResumeNext((t1) -> {
                 LOGGER.error("Exception occurred in : " + clusterName + " error is " + t1.getMessage());
                 return Observable.empty();
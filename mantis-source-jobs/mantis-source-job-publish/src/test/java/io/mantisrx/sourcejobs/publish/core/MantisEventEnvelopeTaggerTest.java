@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mantisrx.sourcejobs.publish.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+
+public class MantisEventEnvelopeTaggerTest {
+
+    private final MantisEventEnvelopeTagger tagger = new MantisEventEnvelopeTagger("mySourceJob");
+
+    @Test
+    public void tagsEveryEventInEnvelope() throws IOException {
+        String envelope = "{\"ts\":1571174446676,\"originServer\":\"origin\",\"eventList\":["
+            + "{\"id\":1,\"data\":\"{\\\"mantisStream\\\":\\\"defaultStream\\\",\\\"id\\\":44}\"},"
+            + "{\"id\":2,\"data\":\"{\\\"path\\\":\\\"/a\\\\\\\"b\\\"}\"}]}";
+
+        List<String> events = tagger.tagEvents(envelope);
+
+        assertEquals(2, events.size());
+        assertEquals("{\"mantis.meta.sourceName\":\"mySourceJob\",\"mantisStream\":\"defaultStream\",\"id\":44}",
+            events.get(0));
+        assertEquals("{\"mantis.meta.sourceName\":\"mySourceJob\",\"path\":\"/a\\\"b\"}", events.get(1));
+    }
+
+    @Test
+    public void acceptsCreatorFieldName() throws IOException {
+        String envelope = "{\"events\":[{\"data\":\"{\\\"id\\\":1}\",\"id\":1}],\"ts\":1}";
+
+        List<String> events = tagger.tagEvents(envelope);
+
+        assertEquals(1, events.size());
+        assertEquals("{\"mantis.meta.sourceName\":\"mySourceJob\",\"id\":1}", events.get(0));
+    }
+
+    @Test
+    public void emptyAndNullEventLists() throws IOException {
+        assertTrue(tagger.tagEvents("{\"ts\":1,\"originServer\":\"origin\",\"eventList\":[]}").isEmpty());
+        assertTrue(tagger.tagEvents("{\"ts\":1,\"originServer\":\"origin\",\"eventList\":null}").isEmpty());
+    }
+
+    @Test
+    public void rejectsNonEnvelopes() {
+        assertThrows(IOException.class, () -> tagger.tagEvents("{\"mantisStream\":\"defaultStream\"}"));
+        assertThrows(IOException.class, () -> tagger.tagEvents("[1,2,3]"));
+        assertThrows(IOException.class, () -> tagger.tagEvents("{\"eventList\":[{\"id\":1,\"data\":"));
+    }
+
+    @Test
+    public void tagsSingleEvent() {
+        assertEquals("{\"mantis.meta.sourceName\":\"mySourceJob\",\"id\":1}", tagger.tagEvent("{\"id\":1}"));
+        assertEquals("not json", tagger.tagEvent("not json"));
+    }
+}